@@ -0,0 +1,50 @@
+package bench;
+
+/**
+ * Methods calling one another, which connect their PDGs within an SDG.
+ */
+public class Calls {
+    
+    private int state;
+    
+    private Straight straight = new Straight();
+    
+    private Nested nested = new Nested();
+    
+    public int entry(int a, int b) {
+        int x = first(a);
+        int y = second(x, b);
+        int z = third(x, y);
+        state = x + y + z;
+        return state;
+    }
+    
+    private int first(int a) {
+        int r = straight.small(a, a + 1);
+        if (r > state) {
+            r = second(r, a);
+        }
+        return r;
+    }
+    
+    private int second(int a, int b) {
+        int r = straight.medium(a, b);
+        for (int i = 0; i < b; i++) {
+            r = r + leaf(i);
+        }
+        return r;
+    }
+    
+    private int third(int a, int b) {
+        int r = nested.depth4(a) + nested.depth2(b);
+        if (r > 0) {
+            r = r + straight.large(a, b, r % 4);
+        }
+        return r + leaf(r);
+    }
+    
+    private int leaf(int a) {
+        state = state + a;
+        return state * 2;
+    }
+}
@@ -0,0 +1,89 @@
+package bench;
+
+/**
+ * Methods of increasing nesting depth of loops and branches.
+ */
+public class Nested {
+    
+    private int count;
+    
+    public int depth2(int n) {
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                r = r + i;
+            }
+        }
+        return r;
+    }
+    
+    public int depth4(int n) {
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                for (int j = 0; j < i; j++) {
+                    if (j % 3 == 0) {
+                        r = r + j;
+                    } else {
+                        r = r - 1;
+                    }
+                }
+            }
+        }
+        return r;
+    }
+    
+    public int depth8(int n) {
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                for (int j = 0; j < i; j++) {
+                    if (j % 3 == 0) {
+                        int k = 0;
+                        while (k < j) {
+                            if (k % 5 == 0) {
+                                for (int m = 0; m < k; m++) {
+                                    if (m % 7 == 0) {
+                                        r = r + m;
+                                        count++;
+                                    } else {
+                                        r = r - 1;
+                                    }
+                                }
+                            } else {
+                                r = r + k;
+                            }
+                            k++;
+                        }
+                    } else {
+                        r = r - j;
+                    }
+                }
+            } else {
+                r = r + 1;
+            }
+        }
+        return r;
+    }
+    
+    public int exceptions(int[] a) {
+        int r = 0;
+        try {
+            for (int i = 0; i < a.length; i++) {
+                try {
+                    r = r + a[i] / (i - 3);
+                } catch (ArithmeticException e) {
+                    r = r - 1;
+                    if (r < 0) {
+                        throw new IllegalStateException();
+                    }
+                } finally {
+                    count++;
+                }
+            }
+        } catch (IllegalStateException e) {
+            r = 0;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,105 @@
+package bench;
+
+/**
+ * Methods of increasing size consisting of straight-line code and shallow branches.
+ */
+public class Straight {
+    
+    private int total;
+    
+    private int[] values = new int[64];
+    
+    public int small(int a, int b) {
+        int c = a + b;
+        int d = c * 2;
+        if (d > 10) {
+            d = d - 10;
+        }
+        return c + d;
+    }
+    
+    public int medium(int a, int b) {
+        int c = a + b;
+        int d = a - b;
+        int e = c * d;
+        int f = e + total;
+        if (a > b) {
+            c = c + 1;
+            d = d * 2;
+        } else {
+            c = c - 1;
+            d = d / 2;
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values[i] + c;
+            f = f + values[i];
+        }
+        if (f > 100) {
+            e = e + f;
+        } else if (f > 50) {
+            e = e - f;
+        } else {
+            e = f;
+        }
+        total = total + e;
+        return c + d + e + f;
+    }
+    
+    public int large(int a, int b, int c) {
+        int s = 0;
+        int t = 1;
+        int u = a;
+        int v = b;
+        int w = c;
+        for (int i = 0; i < a; i++) {
+            s = s + i;
+            t = t * 2;
+            if (t > 1000) {
+                t = 1;
+            }
+        }
+        while (v > 0) {
+            u = u + v;
+            v = v - 1;
+            if (u % 3 == 0) {
+                w = w + u;
+            }
+        }
+        switch (c) {
+        case 0:
+            s = s + 1;
+            break;
+        case 1:
+            s = s + t;
+            break;
+        case 2:
+            s = s + u;
+            break;
+        default:
+            s = s - 1;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > s) {
+                values[i] = s;
+            } else {
+                values[i] = values[i] + t;
+            }
+            w = w + values[i];
+        }
+        int x = s + t;
+        int y = u + v;
+        int z = w + x + y;
+        if (z > s && z > t) {
+            x = x + 1;
+        }
+        if (z < u || z < v) {
+            y = y + 1;
+        }
+        do {
+            z = z / 2;
+            x = x + z;
+        } while (z > 1);
+        total = total + x + y + z;
+        return total;
+    }
+}
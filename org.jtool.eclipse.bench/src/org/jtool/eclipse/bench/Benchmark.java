@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+/**
+ * A benchmark that measures an operation on the models created from the benchmark inputs.
+ * An operation that changes its inputs has them restored by {@link #reset()}, which is excluded from the measurement.
+ * @author Katsuhisa Maruyama
+ */
+public abstract class Benchmark {
+    
+    /**
+     * The name of this benchmark.
+     */
+    private String name;
+    
+    /**
+     * Creates a benchmark.
+     * @param name the name of the benchmark
+     */
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Returns the name of this benchmark.
+     * @return the name of the benchmark
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Executes the measured operation once.
+     * @return the result of the operation, which is consumed so that the operation is not eliminated
+     */
+    public abstract Object run();
+    
+    /**
+     * Tests if the inputs must be restored before every execution of the operation.
+     * The operation is timed one by one if the restoration is required.
+     * @return <code>true</code> if {@link #reset()} must be called before every execution, otherwise <code>false</code>
+     */
+    public boolean requiresReset() {
+        return false;
+    }
+    
+    /**
+     * Restores the inputs changed by the previous execution of the operation. This method is not measured.
+     */
+    public void reset() {
+    }
+}
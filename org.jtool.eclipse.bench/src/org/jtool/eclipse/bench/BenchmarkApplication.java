@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * An Eclipse application that runs the benchmarks without the workbench.
+ * The application is launched with <code>-application org.jtool.eclipse.bench.bench</code> followed by
+ * the arguments of {@link BenchmarkRunner}.
+ * @author Katsuhisa Maruyama
+ */
+public class BenchmarkApplication implements IApplication {
+    
+    /**
+     * The exit code returned when the arguments are invalid or a regression is detected.
+     */
+    public static final Integer EXIT_ERROR = Integer.valueOf(1);
+    
+    /**
+     * Starts this application with the given context.
+     * @param context the application context
+     * @return the exit code of this application
+     * @throws Exception if the application fails to run
+     */
+    public Object start(IApplicationContext context) throws Exception {
+        String[] args = (String[])context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+        if (args == null) {
+            args = new String[0];
+        }
+        context.applicationRunning();
+        
+        BenchmarkRunner runner = BenchmarkRunner.create(args);
+        if (runner == null) {
+            System.err.println(BenchmarkRunner.getUsage());
+            return EXIT_ERROR;
+        }
+        
+        if (!runner.run()) {
+            return EXIT_ERROR;
+        }
+        return IApplication.EXIT_OK;
+    }
+    
+    /**
+     * Stops this application. The benchmarks are not interrupted since they are not run in a separate thread.
+     */
+    public void stop() {
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.cfg.CFGFactory;
+import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
+import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaModelFactoryInExternalProject;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The models created from fixed source files, which are shared by benchmarks.
+ * The source files are parsed once in a dedicated analysis session, and the CFGs of all the methods are created.
+ * @author Katsuhisa Maruyama
+ */
+public class BenchmarkInput {
+    
+    /**
+     * The analysis session that owns the models.
+     */
+    private AnalysisSession session;
+    
+    /**
+     * The project created from the source files.
+     */
+    private JavaProject jproject;
+    
+    /**
+     * The classes of the project in dictionary order.
+     */
+    private List<JavaClass> jclasses;
+    
+    /**
+     * The CFGs of the methods in ascending order of their sizes, keyed by the names of the methods.
+     */
+    private Map<String, CFG> cfgs = new LinkedHashMap<String, CFG>();
+    
+    /**
+     * Creates the models from the source files within a directory.
+     * @param dir the directory containing the source files
+     */
+    public BenchmarkInput(String dir) {
+        File top = new File(dir);
+        session = new AnalysisSession(top.getAbsolutePath());
+        
+        AnalysisSession old = AnalysisSession.setCurrent(session);
+        try {
+            PhaseMetrics.setEnabled(false);
+            JavaProject.removeAllCache();
+            GraphNodeIdPublisher.reset();
+            CFGFactory.clearCache();
+            
+            JavaModelFactoryInExternalProject factory = new JavaModelFactoryInExternalProject(top.getName(), top.getAbsolutePath());
+            factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+            factory.setProgressMonitor(new NullProgressMonitor());
+            jproject = factory.create();
+            jclasses = jproject.getJavaClassesInDictionaryOrder();
+            
+            List<JavaMethod> jmethods = new ArrayList<JavaMethod>();
+            for (JavaClass jc : jclasses) {
+                jmethods.addAll(jc.getJavaMethodsInDictionaryOrder());
+            }
+            List<CFG> list = new ArrayList<CFG>();
+            final Map<CFG, String> names = new LinkedHashMap<CFG, String>();
+            for (JavaMethod jm : jmethods) {
+                CFG cfg = CFGFactory.create(jm, false);
+                if (cfg != null) {
+                    list.add(cfg);
+                    names.put(cfg, jm.getDeclaringJavaClass().getName() + "." + jm.getName());
+                }
+            }
+            Collections.sort(list, new Comparator<CFG>() {
+                public int compare(CFG cfg1, CFG cfg2) {
+                    if (cfg1.getNodes().size() != cfg2.getNodes().size()) {
+                        return cfg1.getNodes().size() - cfg2.getNodes().size();
+                    }
+                    return names.get(cfg1).compareTo(names.get(cfg2));
+                }
+            });
+            for (CFG cfg : list) {
+                cfgs.put(names.get(cfg), cfg);
+            }
+        } finally {
+            AnalysisSession.setCurrent(old);
+        }
+    }
+    
+    /**
+     * Returns the analysis session that owns the models. Benchmarks must run in this session.
+     * @return the analysis session
+     */
+    public AnalysisSession getSession() {
+        return session;
+    }
+    
+    /**
+     * Returns the project created from the source files.
+     * @return the project
+     */
+    public JavaProject getJavaProject() {
+        return jproject;
+    }
+    
+    /**
+     * Returns the classes created from the source files.
+     * @return the collection of the classes in dictionary order
+     */
+    public List<JavaClass> getJavaClasses() {
+        return jclasses;
+    }
+    
+    /**
+     * Returns the CFGs of the methods.
+     * @return the map storing pairs of the name of a method and its CFG, in ascending order of the sizes of the CFGs
+     */
+    public Map<String, CFG> getCFGs() {
+        return cfgs;
+    }
+    
+    /**
+     * Returns the largest CFG.
+     * @return the CFG having the most nodes
+     */
+    public CFG getLargestCFG() {
+        CFG largest = null;
+        for (CFG cfg : cfgs.values()) {
+            largest = cfg;
+        }
+        return largest;
+    }
+}
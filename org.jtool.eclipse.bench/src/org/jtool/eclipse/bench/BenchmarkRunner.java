@@ -0,0 +1,609 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.Footprint;
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.ControlFlow;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.pdg.Dependence;
+import org.jtool.eclipse.model.pdg.PDGNode;
+import org.jtool.eclipse.model.pdg.SDG;
+import org.jtool.eclipse.model.pdg.SDGFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.log4j.Logger;
+
+/**
+ * Runs benchmarks on the models created from fixed source files and reports the average time of their operations.
+ * Every benchmark is warmed up, and then measured in several iterations, each of which repeats the operation for
+ * a fixed period. The results can be written into a file and compared with the results of a previous run,
+ * so that a regression is detected when an operation becomes slower than its baseline by more than a threshold.
+ * The bytes retained by an element of the main types of the models are compared in the same way, and are also
+ * checked against the absolute limits of the types, which are read from a file checked in with the benchmark inputs.
+ * A type whose bytes exceed its limit fails the run even if no baseline results are given.
+ * @author Katsuhisa Maruyama
+ */
+public class BenchmarkRunner {
+    
+    static Logger logger = Logger.getLogger(BenchmarkRunner.class.getName());
+    
+    /**
+     * The directory containing the default benchmark inputs.
+     */
+    public static final String DEFAULT_INPUT_DIR = "inputs";
+    
+    /**
+     * The file storing the default limits of the bytes retained by an element.
+     */
+    public static final String DEFAULT_LIMITS_FILE = "footprint-limits.properties";
+    
+    /**
+     * The prefix of the names of the results that are the bytes retained by an element.
+     */
+    public static final String FOOTPRINT_PREFIX = "footprint.";
+    
+    /**
+     * The types of the elements whose bytes are measured.
+     */
+    private static final Class<?>[] FOOTPRINT_TYPES = {
+        JavaMethod.class, CFGNode.class, ControlFlow.class, PDGNode.class, Dependence.class
+    };
+    
+    /**
+     * The directory containing the source files of the benchmark inputs.
+     */
+    private String dir = DEFAULT_INPUT_DIR;
+    
+    /**
+     * The number of the iterations for warming up.
+     */
+    private int warmupIterations = 3;
+    
+    /**
+     * The number of the iterations measured.
+     */
+    private int measurementIterations = 5;
+    
+    /**
+     * The period of an iteration in milliseconds.
+     */
+    private long iterationTime = 500;
+    
+    /**
+     * The string that names of the benchmarks to be run contain, or <code>null</code> if all the benchmarks are run.
+     */
+    private String filter = null;
+    
+    /**
+     * The file into which the results are written, or <code>null</code> if the results are not written.
+     */
+    private String outfile = null;
+    
+    /**
+     * The file storing the baseline results, or <code>null</code> if the results are not compared.
+     */
+    private String baselineFile = null;
+    
+    /**
+     * The file storing the limits of the bytes retained by an element, or <code>null</code> if the bytes are not checked.
+     */
+    private String limitsFile = DEFAULT_LIMITS_FILE;
+    
+    /**
+     * The percentage of the slowdown or the growth of bytes regarded as a regression.
+     */
+    private double threshold = 10.0;
+    
+    /**
+     * The sink that consumes the results of operations, so that the operations are not eliminated as dead code.
+     */
+    private static volatile int sink;
+    
+    /**
+     * Creates an object that runs benchmarks.
+     */
+    public BenchmarkRunner() {
+    }
+    
+    /**
+     * Sets the directory containing the source files of the benchmark inputs.
+     * @param dir the path of the directory
+     */
+    public void setInputDir(String dir) {
+        this.dir = dir;
+    }
+    
+    /**
+     * Sets the number of the iterations for warming up.
+     * @param num the number of the iterations
+     */
+    public void setWarmupIterations(int num) {
+        warmupIterations = num;
+    }
+    
+    /**
+     * Sets the number of the iterations measured.
+     * @param num the number of the iterations, which must be one or more
+     */
+    public void setMeasurementIterations(int num) {
+        if (num > 0) {
+            measurementIterations = num;
+        }
+    }
+    
+    /**
+     * Sets the period of an iteration.
+     * @param millis the period in milliseconds, which must be one or more
+     */
+    public void setIterationTime(long millis) {
+        if (millis > 0) {
+            iterationTime = millis;
+        }
+    }
+    
+    /**
+     * Sets the string that names of the benchmarks to be run contain.
+     * @param filter the string, or <code>null</code> if all the benchmarks are run
+     */
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+    
+    /**
+     * Sets the file into which the results are written.
+     * @param outfile the path of the file
+     */
+    public void setOutputFile(String outfile) {
+        this.outfile = outfile;
+    }
+    
+    /**
+     * Sets the file storing the baseline results.
+     * @param baselineFile the path of the file
+     */
+    public void setBaselineFile(String baselineFile) {
+        this.baselineFile = baselineFile;
+    }
+    
+    /**
+     * Sets the file storing the limits of the bytes retained by an element.
+     * @param limitsFile the path of the file, or <code>null</code> if the bytes are not checked
+     */
+    public void setLimitsFile(String limitsFile) {
+        this.limitsFile = limitsFile;
+    }
+    
+    /**
+     * Sets the percentage of the slowdown or the growth of bytes regarded as a regression.
+     * @param percent the percentage
+     */
+    public void setThreshold(double percent) {
+        threshold = percent;
+    }
+    
+    /**
+     * Runs the benchmarks, reports their results, compares them with the baseline results,
+     * and checks the bytes retained by an element against the limits.
+     * @return <code>true</code> if all the benchmarks were run without a regression and no bytes exceed their limits,
+     * otherwise <code>false</code>
+     */
+    public boolean run() {
+        if (!new File(dir).isDirectory()) {
+            logger.error("no benchmark inputs: " + dir);
+            return false;
+        }
+        
+        BenchmarkInput input = new BenchmarkInput(dir);
+        AnalysisSession old = AnalysisSession.setCurrent(input.getSession());
+        Map<String, Double> values = new LinkedHashMap<String, Double>();
+        try {
+            List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+            benchmarks.addAll(GraphBenchmarks.create(input));
+            benchmarks.addAll(CFGBenchmarks.create(input));
+            benchmarks.addAll(PDGBenchmarks.create(input));
+            
+            for (Benchmark benchmark : benchmarks) {
+                if (filter == null || benchmark.getName().indexOf(filter) != -1) {
+                    Result result = measure(benchmark);
+                    logger.info(result.toString());
+                    values.put(result.getName(), Double.valueOf(result.getMean()));
+                }
+            }
+            
+            for (Map.Entry<String, Double> entry : measureFootprint(input).entrySet()) {
+                if (filter == null || entry.getKey().indexOf(filter) != -1) {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            AnalysisSession.setCurrent(old);
+        }
+        
+        boolean passed = true;
+        try {
+            if (outfile != null) {
+                write(new File(outfile), values);
+            }
+            if (baselineFile != null) {
+                passed = compare(read(new File(baselineFile)), values);
+            }
+            if (limitsFile != null) {
+                File file = new File(limitsFile);
+                if (file.isFile() || !limitsFile.equals(DEFAULT_LIMITS_FILE)) {
+                    passed = checkLimits(read(file), values) && passed;
+                } else {
+                    logger.warn("no limits of the footprint: " + file.getAbsolutePath());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("cannot access the results: " + e.getMessage());
+            return false;
+        }
+        return passed;
+    }
+    
+    /**
+     * Measures the average time of the operation of a benchmark.
+     * @param benchmark the benchmark
+     * @return the result of the measurement
+     */
+    public Result measure(Benchmark benchmark) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(benchmark);
+        }
+        
+        double[] times = new double[measurementIterations];
+        long ops = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] iteration = iterate(benchmark);
+            times[i] = (double)iteration[0] / iteration[1];
+            ops = ops + iteration[1];
+        }
+        return new Result(benchmark.getName(), times, ops);
+    }
+    
+    /**
+     * Measures the average bytes retained by an element of the main types of the models.
+     * The models include the Java models, the CFGs of the methods, and an SDG of all the classes.
+     * @param input the models created from the benchmark inputs
+     * @return the map storing pairs of the name of a type and the average bytes
+     */
+    public Map<String, Double> measureFootprint(BenchmarkInput input) {
+        SDG sdg = SDGFactory.create(input.getJavaClasses());
+        Footprint footprint = new Footprint();
+        footprint.add(input.getJavaProject());
+        for (CFG cfg : input.getCFGs().values()) {
+            footprint.add(cfg);
+        }
+        footprint.add(sdg);
+        footprint.printReport();
+        
+        Map<String, Double> values = new LinkedHashMap<String, Double>();
+        for (Class<?> type : FOOTPRINT_TYPES) {
+            double bytes = footprint.getBytesPerElement(type);
+            logger.info(String.format("%-48s %14.1f bytes", FOOTPRINT_PREFIX + type.getSimpleName(), bytes));
+            values.put(FOOTPRINT_PREFIX + type.getSimpleName(), Double.valueOf(bytes));
+        }
+        return values;
+    }
+    
+    /**
+     * Repeats the operation of a benchmark for the period of an iteration.
+     * @param benchmark the benchmark
+     * @return the pair of the total time of the operations in nanoseconds and the number of the operations
+     */
+    private long[] iterate(Benchmark benchmark) {
+        long deadline = System.nanoTime() + iterationTime * 1000000L;
+        long time = 0;
+        long ops = 0;
+        if (benchmark.requiresReset()) {
+            do {
+                benchmark.reset();
+                long start = System.nanoTime();
+                Object result = benchmark.run();
+                time = time + System.nanoTime() - start;
+                consume(result);
+                ops++;
+            } while (System.nanoTime() < deadline);
+        } else {
+            long start = System.nanoTime();
+            long now;
+            do {
+                consume(benchmark.run());
+                ops++;
+                now = System.nanoTime();
+            } while (now < deadline);
+            time = now - start;
+        }
+        return new long[] { time, ops };
+    }
+    
+    /**
+     * Consumes the result of an operation.
+     * @param result the result
+     */
+    private static void consume(Object result) {
+        sink = sink ^ System.identityHashCode(result);
+    }
+    
+    /**
+     * Writes the results into a file. Each benchmark has its average time in nanoseconds per operation,
+     * and each type of the elements has its average bytes.
+     * @param file the file to be written
+     * @param values the map storing pairs of the name of a result and its value
+     * @throws IOException if an I/O error occurred
+     */
+    public static void write(File file, Map<String, Double> values) throws IOException {
+        Properties props = new Properties();
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            props.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        
+        OutputStream out = new FileOutputStream(file);
+        try {
+            props.store(out, "average time (ns/op) and bytes per element");
+        } finally {
+            out.close();
+        }
+        logger.info("wrote the results into " + file.getAbsolutePath());
+    }
+    
+    /**
+     * Reads results from a file.
+     * @param file the file to be read
+     * @return the properties storing the value of each result
+     * @throws IOException if an I/O error occurred
+     */
+    public static Properties read(File file) throws IOException {
+        Properties props = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            props.load(in);
+        } finally {
+            in.close();
+        }
+        return props;
+    }
+    
+    /**
+     * Compares results with the baseline results.
+     * @param baseline the properties storing the baseline value of each result
+     * @param values the map storing pairs of the name of a result and its value
+     * @return <code>true</code> if no result exceeds its baseline by more than the threshold, otherwise <code>false</code>
+     */
+    public boolean compare(Properties baseline, Map<String, Double> values) {
+        boolean passed = true;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            String name = entry.getKey();
+            String value = baseline.getProperty(name);
+            if (value == null) {
+                continue;
+            }
+            
+            double base;
+            try {
+                base = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                logger.warn("invalid baseline of " + name + ": " + value);
+                continue;
+            }
+            if (base <= 0) {
+                continue;
+            }
+            
+            double current = entry.getValue().doubleValue();
+            double change = (current - base) * 100.0 / base;
+            String unit = name.startsWith(FOOTPRINT_PREFIX) ? "bytes" : "ns/op";
+            if (change > threshold) {
+                logger.error("regression: " + name + " " + String.format("%+.1f%%", change) +
+                             " (" + String.format("%.1f", base) + " -> " + String.format("%.1f", current) + " " + unit + ")");
+                passed = false;
+            } else {
+                logger.info(name + " " + String.format("%+.1f%%", change));
+            }
+        }
+        return passed;
+    }
+    
+    /**
+     * Checks the bytes retained by an element of each type against the limit of the type.
+     * @param limits the properties storing the limit of the bytes of each type
+     * @param values the map storing pairs of the name of a result and its value
+     * @return <code>true</code> if no bytes exceed their limits, otherwise <code>false</code>
+     */
+    public boolean checkLimits(Properties limits, Map<String, Double> values) {
+        boolean passed = true;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            String name = entry.getKey();
+            String value = limits.getProperty(name);
+            if (!name.startsWith(FOOTPRINT_PREFIX) || value == null) {
+                continue;
+            }
+            
+            double limit;
+            try {
+                limit = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                logger.warn("invalid limit of " + name + ": " + value);
+                continue;
+            }
+            
+            double current = entry.getValue().doubleValue();
+            if (current > limit) {
+                logger.error("over the limit: " + name + " " + String.format("%.1f", current) +
+                             " bytes (limit " + String.format("%.1f", limit) + " bytes)");
+                passed = false;
+            } else {
+                logger.info(name + " within the limit " + String.format("%.1f", limit) + " bytes");
+            }
+        }
+        return passed;
+    }
+    
+    /**
+     * Creates an object that runs benchmarks according to command line arguments.
+     * @param args the command line arguments
+     * @return the created object, or <code>null</code> if the arguments are invalid
+     */
+    public static BenchmarkRunner create(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-input")) {
+                    runner.setInputDir(args[++i]);
+                } else if (args[i].equals("-warmup")) {
+                    runner.setWarmupIterations(Integer.parseInt(args[++i]));
+                } else if (args[i].equals("-iterations")) {
+                    runner.setMeasurementIterations(Integer.parseInt(args[++i]));
+                } else if (args[i].equals("-time")) {
+                    runner.setIterationTime(Long.parseLong(args[++i]));
+                } else if (args[i].equals("-filter")) {
+                    runner.setFilter(args[++i]);
+                } else if (args[i].equals("-out")) {
+                    runner.setOutputFile(args[++i]);
+                } else if (args[i].equals("-baseline")) {
+                    runner.setBaselineFile(args[++i]);
+                } else if (args[i].equals("-limits")) {
+                    runner.setLimitsFile(args[++i]);
+                } else if (args[i].equals("-threshold")) {
+                    runner.setThreshold(Double.parseDouble(args[++i]));
+                } else {
+                    logger.error("unknown argument: " + args[i]);
+                    return null;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            logger.error("missing value of the last argument");
+            return null;
+        } catch (NumberFormatException e) {
+            logger.error("invalid number: " + e.getMessage());
+            return null;
+        }
+        return runner;
+    }
+    
+    /**
+     * Returns the usage of the command line arguments.
+     * @return the string of the usage
+     */
+    public static String getUsage() {
+        return "usage: [-input <directory>] [-warmup <number>] [-iterations <number>] [-time <milliseconds>] " +
+               "[-filter <string>] [-out <file>] [-baseline <file>] [-limits <file>] [-threshold <percent>]";
+    }
+    
+    /**
+     * Runs benchmarks according to command line arguments.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = create(args);
+        if (runner == null) {
+            System.err.println(getUsage());
+            System.exit(2);
+        }
+        
+        if (!runner.run()) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * The result of a benchmark.
+     */
+    public static class Result {
+        
+        /**
+         * The name of the benchmark.
+         */
+        private String name;
+        
+        /**
+         * The average time of an operation in nanoseconds in each iteration.
+         */
+        private double[] times;
+        
+        /**
+         * The number of the operations measured.
+         */
+        private long ops;
+        
+        /**
+         * Creates the result of a benchmark.
+         * @param name the name of the benchmark
+         * @param times the average time of an operation in nanoseconds in each iteration
+         * @param ops the number of the operations measured
+         */
+        Result(String name, double[] times, long ops) {
+            this.name = name;
+            this.times = times;
+            this.ops = ops;
+        }
+        
+        /**
+         * Returns the name of the benchmark.
+         * @return the name of the benchmark
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Returns the average time of an operation over the iterations.
+         * @return the average time in nanoseconds
+         */
+        public double getMean() {
+            double sum = 0;
+            for (double time : times) {
+                sum = sum + time;
+            }
+            return sum / times.length;
+        }
+        
+        /**
+         * Returns the standard deviation of the average time of an operation over the iterations.
+         * @return the standard deviation in nanoseconds
+         */
+        public double getError() {
+            if (times.length < 2) {
+                return 0;
+            }
+            
+            double mean = getMean();
+            double sum = 0;
+            for (double time : times) {
+                sum = sum + (time - mean) * (time - mean);
+            }
+            return Math.sqrt(sum / (times.length - 1));
+        }
+        
+        /**
+         * Returns the number of the operations measured.
+         * @return the number of the operations
+         */
+        public long getOps() {
+            return ops;
+        }
+        
+        /**
+         * Returns the string of this result.
+         * @return the string representing the average time and its standard deviation
+         */
+        public String toString() {
+            return String.format("%-48s %14.1f +- %10.1f ns/op (%d ops)", name, getMean(), getError(), ops);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.pdg.internal.PostDominator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks of the traversals of CFGs, which are applied to the CFG of every method of the benchmark inputs.
+ * @author Katsuhisa Maruyama
+ */
+public class CFGBenchmarks {
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private CFGBenchmarks() {
+    }
+    
+    /**
+     * Creates the benchmarks.
+     * @param input the models shared by the benchmarks
+     * @return the collection of the benchmarks
+     */
+    public static List<Benchmark> create(BenchmarkInput input) {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (Map.Entry<String, CFG> entry : input.getCFGs().entrySet()) {
+            final CFG cfg = entry.getValue();
+            String name = entry.getKey();
+            
+            benchmarks.add(new Benchmark("cfg.forward." + name) {
+                public Object run() {
+                    return cfg.getForwardReachableNodes(cfg.getStartNode(), cfg.getEndNode());
+                }
+            });
+            
+            benchmarks.add(new Benchmark("cfg.backward." + name) {
+                public Object run() {
+                    return cfg.getBackwardReachableNodes(cfg.getEndNode(), cfg.getStartNode());
+                }
+            });
+            
+            final List<CFGNode> branches = new ArrayList<CFGNode>();
+            for (CFGNode node : cfg.getNodes()) {
+                if (cfg.isBranch(node)) {
+                    branches.add(node);
+                }
+            }
+            if (!branches.isEmpty()) {
+                benchmarks.add(new Benchmark("cfg.postdominator." + name) {
+                    public Object run() {
+                        PostDominator postDominator = null;
+                        for (CFGNode node : branches) {
+                            postDominator = new PostDominator(cfg, node);
+                        }
+                        return postDominator;
+                    }
+                });
+            }
+        }
+        return benchmarks;
+    }
+}
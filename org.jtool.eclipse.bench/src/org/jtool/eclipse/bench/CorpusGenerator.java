@@ -0,0 +1,337 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.io.FileWriter;
+import java.io.File;
+import java.io.IOException;
+import org.apache.log4j.Logger;
+
+/**
+ * Generates synthetic Java projects whose shapes are controlled by a size, so that the analysis can be stressed
+ * by inputs growing in one dimension. Every generated project is compilable and placed in the package
+ * <code>synth</code> under a given directory.
+ * @author Katsuhisa Maruyama
+ */
+public class CorpusGenerator {
+    
+    static Logger logger = Logger.getLogger(CorpusGenerator.class.getName());
+    
+    /**
+     * The name of the package of the generated classes.
+     */
+    public static final String PACKAGE_NAME = "synth";
+    
+    /**
+     * The shapes of the generated projects.
+     */
+    public enum Shape {
+        straight,     // a method containing a long sequence of statements
+        nested,       // a method containing deeply nested loops, switches, and try-finally statements
+        fanout,       // a method calling many methods in different classes
+        recursion,    // a long chain of methods that calls back the first one
+        hierarchy     // a deep class hierarchy in which every class overrides the methods of its super class
+    }
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private CorpusGenerator() {
+    }
+    
+    /**
+     * Generates a synthetic project.
+     * @param dir the directory into which the source files are written
+     * @param shape the shape of the project
+     * @param size the size of the project, which is the number of statements, nesting levels, callees, methods, or classes
+     * @return the number of the generated files
+     * @throws IOException if an I/O error occurred
+     */
+    public static int generate(File dir, Shape shape, int size) throws IOException {
+        File pdir = new File(dir, PACKAGE_NAME);
+        if (!pdir.isDirectory() && !pdir.mkdirs()) {
+            throw new IOException("cannot create the directory: " + pdir.getPath());
+        }
+        
+        int num;
+        if (shape == Shape.straight) {
+            num = generateStraight(pdir, size);
+        } else if (shape == Shape.nested) {
+            num = generateNested(pdir, size);
+        } else if (shape == Shape.fanout) {
+            num = generateFanout(pdir, size);
+        } else if (shape == Shape.recursion) {
+            num = generateRecursion(pdir, size);
+        } else {
+            num = generateHierarchy(pdir, size);
+        }
+        logger.debug("generated " + num + " files of " + shape + " (" + size + ") into " + dir.getPath());
+        return num;
+    }
+    
+    /**
+     * Generates a class with a method containing a long sequence of assignments.
+     * Each assignment uses the variables defined by the previous ones, which produces many data dependences.
+     * @param pdir the directory of the package
+     * @param size the number of the assignments
+     * @return the number of the generated files
+     * @throws IOException if an I/O error occurred
+     */
+    private static int generateStraight(File pdir, int size) throws IOException {
+        StringBuffer buf = new StringBuffer();
+        appendHeader(buf);
+        buf.append("public class Straight {\n");
+        buf.append("    public int run(int p) {\n");
+        buf.append("        int v0 = p;\n");
+        for (int i = 1; i <= size; i++) {
+            buf.append("        int v" + i + " = v" + (i - 1) + " + v" + (i / 2) + " * " + i + ";\n");
+        }
+        buf.append("        return v" + size + ";\n");
+        buf.append("    }\n");
+        buf.append("}\n");
+        write(pdir, "Straight", buf);
+        return 1;
+    }
+    
+    /**
+     * Generates a class with a method containing nested statements.
+     * Loops, switches, and try-finally statements are nested in turn, each of which updates a variable.
+     * @param pdir the directory of the package
+     * @param size the depth of the nesting
+     * @return the number of the generated files
+     * @throws IOException if an I/O error occurred
+     */
+    private static int generateNested(File pdir, int size) throws IOException {
+        StringBuffer buf = new StringBuffer();
+        appendHeader(buf);
+        buf.append("public class Nested {\n");
+        buf.append("    public int run(int p) {\n");
+        buf.append("        int x = p;\n");
+        int[] levels = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (i == 0) {
+                levels[i] = 2;
+            } else if ((i - 1) % 3 == 1) {
+                levels[i] = levels[i - 1] + 2;
+            } else {
+                levels[i] = levels[i - 1] + 1;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String indent = getIndent(levels[i]);
+            if (i % 3 == 0) {
+                buf.append(indent + "for (int i" + i + " = 0; i" + i + " < p; i" + i + "++) {\n");
+                buf.append(indent + "    x = x + i" + i + ";\n");
+            } else if (i % 3 == 1) {
+                buf.append(indent + "switch (x % 3) {\n");
+                buf.append(indent + "case 0:\n");
+                buf.append(indent + "    x = x + " + i + ";\n");
+                buf.append(indent + "    break;\n");
+                buf.append(indent + "case 1:\n");
+                buf.append(indent + "    x = x - " + i + ";\n");
+                buf.append(indent + "default:\n");
+                buf.append(indent + "    {\n");
+            } else {
+                buf.append(indent + "try {\n");
+                buf.append(indent + "    x = x * " + i + ";\n");
+            }
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            String indent = getIndent(levels[i]);
+            if (i % 3 == 0) {
+                buf.append(indent + "}\n");
+            } else if (i % 3 == 1) {
+                buf.append(indent + "    }\n");
+                buf.append(indent + "}\n");
+            } else {
+                buf.append(indent + "} finally {\n");
+                buf.append(indent + "    x = x + 1;\n");
+                buf.append(indent + "}\n");
+            }
+        }
+        buf.append("        return x;\n");
+        buf.append("    }\n");
+        buf.append("}\n");
+        write(pdir, "Nested", buf);
+        return 1;
+    }
+    
+    /**
+     * Generates a class with a method calling many methods, each of which is declared in a different class.
+     * @param pdir the directory of the package
+     * @param size the number of the called methods
+     * @return the number of the generated files
+     * @throws IOException if an I/O error occurred
+     */
+    private static int generateFanout(File pdir, int size) throws IOException {
+        StringBuffer buf = new StringBuffer();
+        appendHeader(buf);
+        buf.append("public class Fanout {\n");
+        buf.append("    public int run(int p) {\n");
+        buf.append("        int x = p;\n");
+        for (int i = 0; i < size; i++) {
+            buf.append("        x = new Callee" + i + "().call(x, " + i + ");\n");
+        }
+        buf.append("        return x;\n");
+        buf.append("    }\n");
+        buf.append("}\n");
+        write(pdir, "Fanout", buf);
+        
+        for (int i = 0; i < size; i++) {
+            buf = new StringBuffer();
+            appendHeader(buf);
+            buf.append("public class Callee" + i + " {\n");
+            buf.append("    private int count;\n");
+            buf.append("    public int call(int x, int y) {\n");
+            buf.append("        count = count + 1;\n");
+            buf.append("        if (x > y) {\n");
+            buf.append("            return x - y + count;\n");
+            buf.append("        }\n");
+            buf.append("        return x + y;\n");
+            buf.append("    }\n");
+            buf.append("}\n");
+            write(pdir, "Callee" + i, buf);
+        }
+        return size + 1;
+    }
+    
+    /**
+     * Generates a class with a chain of methods, the last of which calls the first one.
+     * @param pdir the directory of the package
+     * @param size the number of the methods in the chain
+     * @return the number of the generated files
+     * @throws IOException if an I/O error occurred
+     */
+    private static int generateRecursion(File pdir, int size) throws IOException {
+        StringBuffer buf = new StringBuffer();
+        appendHeader(buf);
+        buf.append("public class Recursion {\n");
+        buf.append("    private int depth;\n");
+        for (int i = 0; i < size; i++) {
+            int next = (i + 1) % size;
+            buf.append("    public int m" + i + "(int x, int y) {\n");
+            buf.append("        depth = depth + 1;\n");
+            buf.append("        if (x <= 0) {\n");
+            buf.append("            return y;\n");
+            buf.append("        }\n");
+            buf.append("        return m" + next + "(x - 1, y + depth);\n");
+            buf.append("    }\n");
+        }
+        buf.append("}\n");
+        write(pdir, "Recursion", buf);
+        return 1;
+    }
+    
+    /**
+     * Generates a chain of classes, each of which extends the previous one and overrides its method.
+     * A caller invokes the method through the root class, which may be bound to any class in the chain.
+     * @param pdir the directory of the package
+     * @param size the number of the classes in the chain
+     * @return the number of the generated files
+     * @throws IOException if an I/O error occurred
+     */
+    private static int generateHierarchy(File pdir, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            StringBuffer buf = new StringBuffer();
+            appendHeader(buf);
+            if (i == 0) {
+                buf.append("public class Level0 {\n");
+                buf.append("    protected int value;\n");
+                buf.append("    public int get(int x) {\n");
+                buf.append("        return x + value;\n");
+                buf.append("    }\n");
+            } else {
+                buf.append("public class Level" + i + " extends Level" + (i - 1) + " {\n");
+                buf.append("    public int get(int x) {\n");
+                buf.append("        value = value + " + i + ";\n");
+                buf.append("        return super.get(x) + " + i + ";\n");
+                buf.append("    }\n");
+            }
+            buf.append("}\n");
+            write(pdir, "Level" + i, buf);
+        }
+        
+        StringBuffer buf = new StringBuffer();
+        appendHeader(buf);
+        buf.append("public class Hierarchy {\n");
+        buf.append("    public int run(Level0 obj, int p) {\n");
+        buf.append("        return obj.get(p);\n");
+        buf.append("    }\n");
+        buf.append("    public int create(int p) {\n");
+        buf.append("        return run(new Level" + (size - 1) + "(), p);\n");
+        buf.append("    }\n");
+        buf.append("}\n");
+        write(pdir, "Hierarchy", buf);
+        return size + 1;
+    }
+    
+    /**
+     * Appends the package declaration to the source code of a class.
+     * @param buf the buffer storing the source code
+     */
+    private static void appendHeader(StringBuffer buf) {
+        buf.append("package " + PACKAGE_NAME + ";\n");
+        buf.append("\n");
+    }
+    
+    /**
+     * Returns the indentation of a nesting level.
+     * @param level the nesting level
+     * @return the string of the white spaces
+     */
+    private static String getIndent(int level) {
+        StringBuffer buf = new StringBuffer();
+        for (int i = 0; i < level; i++) {
+            buf.append("    ");
+        }
+        return buf.toString();
+    }
+    
+    /**
+     * Writes the source code of a class into a file.
+     * @param pdir the directory of the package
+     * @param name the name of the class
+     * @param buf the buffer storing the source code
+     * @throws IOException if an I/O error occurred
+     */
+    private static void write(File pdir, String name, StringBuffer buf) throws IOException {
+        FileWriter.write(new File(pdir, name + ".java"), buf.toString());
+    }
+    
+    /**
+     * Generates a synthetic project according to command line arguments.
+     * @param args the command line arguments: <code>-out &lt;directory&gt; -shape &lt;shape&gt; -size &lt;number&gt;</code>
+     */
+    public static void main(String[] args) {
+        String outdir = null;
+        Shape shape = null;
+        int size = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-out")) {
+                    outdir = args[++i];
+                } else if (args[i].equals("-shape")) {
+                    shape = Shape.valueOf(args[++i]);
+                } else if (args[i].equals("-size")) {
+                    size = Integer.parseInt(args[++i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            outdir = null;
+        }
+        
+        if (outdir == null || shape == null || size <= 0) {
+            System.err.println("usage: -out <directory> -shape <straight|nested|fanout|recursion|hierarchy> -size <number>");
+            System.exit(2);
+        }
+        
+        try {
+            generate(new File(outdir), shape, size);
+        } catch (IOException e) {
+            logger.error("cannot generate the project: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.graph.GraphElementSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the operations on sets of graph elements, which are applied to the nodes of the largest CFG.
+ * @author Katsuhisa Maruyama
+ */
+public class GraphBenchmarks {
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private GraphBenchmarks() {
+    }
+    
+    /**
+     * Creates the benchmarks.
+     * @param input the models shared by the benchmarks
+     * @return the collection of the benchmarks
+     */
+    public static List<Benchmark> create(BenchmarkInput input) {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        CFG cfg = input.getLargestCFG();
+        if (cfg == null) {
+            return benchmarks;
+        }
+        
+        final List<CFGNode> nodes = new ArrayList<CFGNode>();
+        for (CFGNode node : cfg.getNodes()) {
+            nodes.add(node);
+        }
+        final GraphElementSet<CFGNode> all = new GraphElementSet<CFGNode>(cfg.getNodes());
+        final GraphElementSet<CFGNode> odd = new GraphElementSet<CFGNode>();
+        for (int i = 1; i < nodes.size(); i = i + 2) {
+            odd.add(nodes.get(i));
+        }
+        
+        benchmarks.add(new Benchmark("graph.add") {
+            public Object run() {
+                GraphElementSet<CFGNode> set = new GraphElementSet<CFGNode>();
+                for (CFGNode node : nodes) {
+                    set.add(node);
+                }
+                return set;
+            }
+        });
+        
+        benchmarks.add(new Benchmark("graph.contains") {
+            public Object run() {
+                int count = 0;
+                for (CFGNode node : nodes) {
+                    if (odd.contains(node)) {
+                        count++;
+                    }
+                }
+                return Integer.valueOf(count);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("graph.union") {
+            public Object run() {
+                return odd.union(all);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("graph.intersection") {
+            public Object run() {
+                return all.intersection(odd);
+            }
+        });
+        return benchmarks;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.bench.CorpusGenerator.Shape;
+import org.jtool.eclipse.io.FileReader;
+import org.jtool.eclipse.io.FileWriter;
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.cfg.CFGFactory;
+import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
+import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaModelFactoryInExternalProject;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.pdg.Dependence;
+import org.jtool.eclipse.model.pdg.PDG;
+import org.jtool.eclipse.model.pdg.PDGNode;
+import org.jtool.eclipse.model.pdg.SDG;
+import org.jtool.eclipse.model.pdg.SDGFactory;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Checks that an SDG incrementally updated after a file was changed equals the SDG freshly created from the changed project.
+ * Each file of a synthetic project is changed in turn by turning the type of the first parameter it declares from
+ * <code>int</code> into <code>long</code>, which changes the signature of a method that other files depend on.
+ * The SDGs are compared by the labels of their PDGs, nodes, and edges, since their identification numbers differ.
+ * @author Katsuhisa Maruyama
+ */
+public class IncrementalCheck {
+    
+    static Logger logger = Logger.getLogger(IncrementalCheck.class.getName());
+    
+    /**
+     * The maximum number of differences reported for a changed file.
+     */
+    private static final int MAX_REPORTED_DIFFERENCES = 10;
+    
+    /**
+     * The directory into which the synthetic projects are generated.
+     */
+    private File workdir = new File(System.getProperty("java.io.tmpdir"), "jtool-incremental");
+    
+    /**
+     * The shapes of the synthetic projects.
+     */
+    private List<Shape> shapes = new ArrayList<Shape>();
+    
+    /**
+     * The size of the synthetic projects.
+     */
+    private int size = 5;
+    
+    /**
+     * Creates an object that checks the incremental update of SDGs.
+     */
+    public IncrementalCheck() {
+    }
+    
+    /**
+     * Sets the directory into which the synthetic projects are generated.
+     * @param dir the path of the directory
+     */
+    public void setWorkDir(String dir) {
+        workdir = new File(dir);
+    }
+    
+    /**
+     * Adds a shape of the synthetic projects. All the shapes are checked if no shape is added.
+     * @param shape the shape
+     */
+    public void addShape(Shape shape) {
+        shapes.add(shape);
+    }
+    
+    /**
+     * Sets the size of the synthetic projects.
+     * @param size the size
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    /**
+     * Changes every file of the synthetic projects of all the shapes in turn and checks the updated SDGs.
+     * @return <code>true</code> if every updated SDG equals the freshly created one, otherwise <code>false</code>
+     */
+    public boolean run() {
+        List<Shape> targets = shapes;
+        if (targets.isEmpty()) {
+            targets = Arrays.asList(Shape.values());
+        }
+        
+        boolean passed = true;
+        for (Shape shape : targets) {
+            File dir = new File(workdir, shape + "-" + size);
+            try {
+                int num = CorpusGenerator.generate(dir, shape, size);
+                File[] files = new File(dir, CorpusGenerator.PACKAGE_NAME).listFiles();
+                Arrays.sort(files);
+                for (File file : files) {
+                    CorpusGenerator.generate(dir, shape, size);
+                    if (!check(dir, file)) {
+                        passed = false;
+                    }
+                }
+                logger.info("checked " + shape + ": " + num + " files");
+            } catch (IOException e) {
+                logger.error("cannot generate the project: " + e.getMessage());
+                return false;
+            } catch (RuntimeException e) {
+                logger.error("failed to check " + shape + ": " + e, e);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+    
+    /**
+     * Changes a file of a project and compares the incrementally updated SDG with the freshly created one.
+     * @param dir the top directory of the project
+     * @param file the file to be changed
+     * @return <code>true</code> if the SDGs are equal, otherwise <code>false</code>
+     * @throws IOException if the file cannot be changed
+     */
+    public boolean check(File dir, File file) throws IOException {
+        List<String> updated;
+        AnalysisSession session = new AnalysisSession(dir.getAbsolutePath() + "#incremental");
+        AnalysisSession old = AnalysisSession.setCurrent(session);
+        try {
+            JavaModelFactoryInExternalProject factory = createFactory(dir);
+            JavaProject jproject = factory.create();
+            SDG sdg = SDGFactory.create(jproject.getJavaClassesInDictionaryOrder());
+            
+            if (!change(file)) {
+                return true;
+            }
+            jproject.removeJavaFile(file.getName());
+            factory.create();
+            SDGFactory.update(sdg, jproject);
+            updated = getLabels(sdg);
+            
+            JavaProject.removeAllCache();
+        } finally {
+            session.clear();
+            AnalysisSession.setCurrent(old);
+        }
+        
+        List<String> created;
+        session = new AnalysisSession(dir.getAbsolutePath() + "#fresh");
+        old = AnalysisSession.setCurrent(session);
+        try {
+            JavaModelFactoryInExternalProject factory = createFactory(dir);
+            JavaProject jproject = factory.create();
+            SDG sdg = SDGFactory.create(jproject.getJavaClassesInDictionaryOrder());
+            created = getLabels(sdg);
+            
+            JavaProject.removeAllCache();
+        } finally {
+            session.clear();
+            AnalysisSession.setCurrent(old);
+        }
+        
+        List<String> extra = subtract(updated, created);
+        List<String> missing = subtract(created, updated);
+        if (extra.isEmpty() && missing.isEmpty()) {
+            logger.debug("equal SDGs after changing " + file.getName());
+            return true;
+        }
+        
+        logger.error("different SDGs after changing " + file.getName() + ": " +
+                     extra.size() + " extra / " + missing.size() + " missing elements");
+        for (int i = 0; i < extra.size() && i < MAX_REPORTED_DIFFERENCES; i++) {
+            logger.error("  extra: " + extra.get(i));
+        }
+        for (int i = 0; i < missing.size() && i < MAX_REPORTED_DIFFERENCES; i++) {
+            logger.error("  missing: " + missing.get(i));
+        }
+        return false;
+    }
+    
+    /**
+     * Creates a factory that creates the models of a project within the current analysis session.
+     * @param dir the top directory of the project
+     * @return the created factory
+     */
+    private static JavaModelFactoryInExternalProject createFactory(File dir) {
+        JavaProject.removeAllCache();
+        GraphNodeIdPublisher.reset();
+        CFGFactory.clearCache();
+        
+        JavaModelFactoryInExternalProject factory = new JavaModelFactoryInExternalProject(dir.getName(), dir.getAbsolutePath());
+        factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+        factory.setProgressMonitor(new NullProgressMonitor());
+        return factory;
+    }
+    
+    /**
+     * Changes the type of the first parameter declared in a file from <code>int</code> into <code>long</code>.
+     * @param file the file to be changed
+     * @return <code>true</code> if the file was changed, otherwise <code>false</code>
+     * @throws IOException if the file cannot be read or written
+     */
+    private static boolean change(File file) throws IOException {
+        String source = FileReader.read(file);
+        int index = source.indexOf("(int ");
+        if (index == -1) {
+            return false;
+        }
+        
+        FileWriter.write(file, source.substring(0, index) + "(long " + source.substring(index + 5));
+        return true;
+    }
+    
+    /**
+     * Collects the labels of the PDGs, nodes, and edges of an SDG, which exclude their identification numbers.
+     * @param sdg the SDG
+     * @return the sorted labels
+     */
+    private static List<String> getLabels(SDG sdg) {
+        List<String> labels = new ArrayList<String>();
+        for (PDG pdg : sdg.getPDGs()) {
+            labels.add("PDG " + pdg.getName());
+        }
+        for (PDGNode node : sdg.getNodes()) {
+            labels.add("node " + getLabel(node));
+        }
+        for (Dependence edge : sdg.getEdges()) {
+            labels.add("edge " + getLabel(edge.getSrcNode()) + " -" + edge.getClass().getSimpleName() + "-> " + getLabel(edge.getDstNode()));
+        }
+        Collections.sort(labels);
+        return labels;
+    }
+    
+    /**
+     * Obtains the label of a node, which excludes the identification numbers.
+     * @param node the node
+     * @return the label of the node
+     */
+    private static String getLabel(PDGNode node) {
+        return node.toString().replaceAll("\\[\\d+\\]\\s*", "");
+    }
+    
+    /**
+     * Obtains the labels in a sorted list that do not appear in another sorted list, counting duplicates.
+     * @param labels the sorted labels
+     * @param others the other sorted labels
+     * @return the labels not appearing in the other labels
+     */
+    private static List<String> subtract(List<String> labels, List<String> others) {
+        List<String> result = new ArrayList<String>();
+        int j = 0;
+        for (String label : labels) {
+            while (j < others.size() && others.get(j).compareTo(label) < 0) {
+                j++;
+            }
+            if (j < others.size() && others.get(j).equals(label)) {
+                j++;
+            } else {
+                result.add(label);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Creates an object that checks the incremental update according to command line arguments.
+     * @param args the command line arguments
+     * @return the created object, or <code>null</code> if the arguments are invalid
+     */
+    public static IncrementalCheck create(String[] args) {
+        IncrementalCheck checker = new IncrementalCheck();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-work")) {
+                    checker.setWorkDir(args[++i]);
+                } else if (args[i].equals("-shape")) {
+                    checker.addShape(Shape.valueOf(args[++i]));
+                } else if (args[i].equals("-size")) {
+                    checker.setSize(Integer.parseInt(args[++i]));
+                } else {
+                    logger.error("unknown argument: " + args[i]);
+                    return null;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            logger.error("missing value of the last argument");
+            return null;
+        } catch (IllegalArgumentException e) {
+            logger.error("invalid value: " + e.getMessage());
+            return null;
+        }
+        return checker;
+    }
+    
+    /**
+     * Returns the usage of the command line arguments.
+     * @return the string of the usage
+     */
+    public static String getUsage() {
+        return "usage: [-work <directory>] [-shape <straight|nested|fanout|recursion|hierarchy>]... [-size <number>]";
+    }
+    
+    /**
+     * Checks the incremental update of SDGs according to command line arguments.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        IncrementalCheck checker = create(args);
+        if (checker == null) {
+            System.err.println(getUsage());
+            System.exit(2);
+        }
+        
+        if (!checker.run()) {
+            System.exit(1);
+        }
+    }
+}
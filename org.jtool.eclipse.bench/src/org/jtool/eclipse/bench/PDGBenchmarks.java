@@ -0,0 +1,193 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.cfg.CFGFactory;
+import org.jtool.eclipse.model.graph.GraphElementSet;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import org.jtool.eclipse.model.pdg.CD;
+import org.jtool.eclipse.model.pdg.DD;
+import org.jtool.eclipse.model.pdg.Dependence;
+import org.jtool.eclipse.model.pdg.PDG;
+import org.jtool.eclipse.model.pdg.PDGFactory;
+import org.jtool.eclipse.model.pdg.PDGNode;
+import org.jtool.eclipse.model.pdg.PDGStatement;
+import org.jtool.eclipse.model.pdg.SDG;
+import org.jtool.eclipse.model.pdg.SDGFactory;
+import org.jtool.eclipse.model.pdg.Slice;
+import org.jtool.eclipse.model.pdg.internal.CDFactory;
+import org.jtool.eclipse.model.pdg.internal.DDFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks of the creation of dependence graphs and slices.
+ * Control and data dependences and PDGs are created for every method of the benchmark inputs.
+ * @author Katsuhisa Maruyama
+ */
+public class PDGBenchmarks {
+    
+    /**
+     * The name of the method containing the criterion of the slice.
+     */
+    public static final String SLICE_METHOD = "Calls.entry";
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private PDGBenchmarks() {
+    }
+    
+    /**
+     * Creates the benchmarks.
+     * @param input the models shared by the benchmarks
+     * @return the collection of the benchmarks
+     */
+    public static List<Benchmark> create(BenchmarkInput input) {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (Map.Entry<String, CFG> entry : input.getCFGs().entrySet()) {
+            final CFG cfg = entry.getValue();
+            String name = entry.getKey();
+            
+            benchmarks.add(new DependenceBenchmark("pdg.cd." + name, cfg, CD.class) {
+                public Object run() {
+                    CDFactory.create(pdg, cfg);
+                    return pdg;
+                }
+            });
+            
+            benchmarks.add(new DependenceBenchmark("pdg.dd." + name, cfg, DD.class) {
+                public Object run() {
+                    DDFactory.create(pdg, cfg);
+                    return pdg;
+                }
+            });
+            
+            benchmarks.add(new Benchmark("pdg.create." + name) {
+                public Object run() {
+                    return PDGFactory.create(cfg);
+                }
+            });
+        }
+        
+        final List<JavaClass> jclasses = input.getJavaClasses();
+        benchmarks.add(new Benchmark("sdg.create") {
+            public boolean requiresReset() {
+                return true;
+            }
+            
+            public void reset() {
+                CFGFactory.clearCache();
+            }
+            
+            public Object run() {
+                return SDGFactory.create(jclasses);
+            }
+        });
+        
+        SDG sdg = SDGFactory.create(jclasses);
+        final PDGStatement node = getCriterionNode(sdg, input.getCFGs().get(SLICE_METHOD));
+        if (node != null) {
+            final JavaVariableAccess jv = node.getDefVariables().get(0);
+            benchmarks.add(new Benchmark("sdg.slice") {
+                public Object run() {
+                    return new Slice(node, jv);
+                }
+            });
+        }
+        return benchmarks;
+    }
+    
+    /**
+     * Obtains the criterion node of the slice, which is the last node defining a variable in the PDG of a method.
+     * The largest PDG is examined if the SDG does not contain the PDG of the method.
+     * @param sdg the SDG
+     * @param cfg the CFG of the method, or <code>null</code> if the method does not exist
+     * @return the criterion node, or <code>null</code> if no node defines a variable
+     */
+    private static PDGStatement getCriterionNode(SDG sdg, CFG cfg) {
+        PDG target = null;
+        for (PDG pdg : sdg.getPDGs()) {
+            if (cfg != null && pdg.getName().equals(cfg.getName())) {
+                target = pdg;
+                break;
+            }
+            if (target == null || target.getNodes().size() < pdg.getNodes().size()) {
+                target = pdg;
+            }
+        }
+        if (target == null) {
+            return null;
+        }
+        
+        PDGStatement criterion = null;
+        for (PDGNode node : target.getNodes()) {
+            if (node instanceof PDGStatement && !((PDGStatement)node).getDefVariables().isEmpty()) {
+                if (criterion == null || criterion.getId() < node.getId()) {
+                    criterion = (PDGStatement)node;
+                }
+            }
+        }
+        return criterion;
+    }
+    
+    /**
+     * A benchmark that adds dependence edges of a kind to the PDG of a method.
+     * A fresh PDG without the edges of the kind is created before every execution.
+     */
+    private static abstract class DependenceBenchmark extends Benchmark {
+        
+        /**
+         * The CFG of the method.
+         */
+        protected CFG cfg;
+        
+        /**
+         * The kind of the edges to be added.
+         */
+        protected Class<? extends Dependence> kind;
+        
+        /**
+         * The PDG to which the edges are added.
+         */
+        protected PDG pdg;
+        
+        /**
+         * Creates a benchmark that adds dependence edges.
+         * @param name the name of the benchmark
+         * @param cfg the CFG of the method
+         * @param kind the kind of the edges to be added
+         */
+        DependenceBenchmark(String name, CFG cfg, Class<? extends Dependence> kind) {
+            super(name);
+            this.cfg = cfg;
+            this.kind = kind;
+        }
+        
+        /**
+         * Tests if the inputs must be restored before every execution of the operation.
+         * @return always <code>true</code>
+         */
+        public boolean requiresReset() {
+            return true;
+        }
+        
+        /**
+         * Creates a PDG of the method and removes the edges of the kind from it.
+         * The nodes of the CFG are associated with the nodes of the created PDG.
+         */
+        public void reset() {
+            pdg = PDGFactory.create(cfg);
+            for (Dependence edge : new GraphElementSet<Dependence>(pdg.getEdges())) {
+                if (kind.isInstance(edge)) {
+                    pdg.remove(edge);
+                }
+            }
+        }
+    }
+}
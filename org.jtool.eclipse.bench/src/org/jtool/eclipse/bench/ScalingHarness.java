@@ -0,0 +1,458 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.bench;
+
+import org.jtool.eclipse.bench.CorpusGenerator.Shape;
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.Footprint;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
+import org.jtool.eclipse.model.cfg.CFGFactory;
+import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
+import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaModelFactoryInExternalProject;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.java.internal.ExternalElementRegistry;
+import org.jtool.eclipse.model.pdg.SDG;
+import org.jtool.eclipse.model.pdg.SDGFactory;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Runs the whole analysis from the creation of the Java models to the creation of an SDG on synthetic projects
+ * of increasing sizes, and reports how the time and the memory grow.
+ * The growth is summarized into the exponent of the size fitted to the measurements, which is about one for
+ * the linear growth and about two for the quadratic growth. The exponents of the phases are also calculated, so that
+ * the phase causing a super-linear growth is identified. A run fails if an exponent exceeds a threshold.
+ * A project of a small size is analyzed beforehand and its measurement is discarded, so that the loading and
+ * the compilation of the classes are not accounted to the smallest size. The memory is the bytes that
+ * the created models and the SDG retain, which are estimated by {@link Footprint} and do not include garbage.
+ * A failure of the analysis on a project is reported and fails the run, but the remaining projects are still analyzed.
+ * @author Katsuhisa Maruyama
+ */
+public class ScalingHarness {
+    
+    static Logger logger = Logger.getLogger(ScalingHarness.class.getName());
+    
+    /**
+     * The phases whose growth is examined.
+     */
+    private static final Phase[] PHASES = {
+        Phase.visit, Phase.level2, Phase.cfg, Phase.cd, Phase.dd, Phase.pdg, Phase.sdgConnect, Phase.summaries
+    };
+    
+    /**
+     * The minimum time in milliseconds of a phase on the largest project, below which the growth of the phase is not examined.
+     */
+    private static final long MIN_EXAMINED_TIME = 20;
+    
+    /**
+     * The directory into which the synthetic projects are generated.
+     */
+    private File workdir = new File(System.getProperty("java.io.tmpdir"), "jtool-scaling");
+    
+    /**
+     * The shapes of the synthetic projects.
+     */
+    private List<Shape> shapes = new ArrayList<Shape>();
+    
+    /**
+     * The sizes of the synthetic projects in ascending order.
+     */
+    private int[] sizes = { 100, 200, 400, 800 };
+    
+    /**
+     * The size of the synthetic project analyzed for warming up, whose measurement is discarded.
+     */
+    private int warmupSize = 50;
+    
+    /**
+     * The exponent of the growth regarded as a failure.
+     */
+    private double threshold = 1.5;
+    
+    /**
+     * Creates an object that runs the analysis on synthetic projects.
+     */
+    public ScalingHarness() {
+    }
+    
+    /**
+     * Sets the directory into which the synthetic projects are generated.
+     * @param dir the path of the directory
+     */
+    public void setWorkDir(String dir) {
+        workdir = new File(dir);
+    }
+    
+    /**
+     * Adds a shape of the synthetic projects. All the shapes are examined if no shape is added.
+     * @param shape the shape
+     */
+    public void addShape(Shape shape) {
+        shapes.add(shape);
+    }
+    
+    /**
+     * Sets the sizes of the synthetic projects.
+     * @param sizes the sizes in ascending order, at least two of which are required
+     */
+    public void setSizes(int[] sizes) {
+        this.sizes = sizes;
+    }
+    
+    /**
+     * Sets the size of the synthetic project analyzed for warming up.
+     * @param size the size, or <code>0</code> if no project is analyzed for warming up
+     */
+    public void setWarmupSize(int size) {
+        this.warmupSize = size;
+    }
+    
+    /**
+     * Sets the exponent of the growth regarded as a failure.
+     * @param threshold the exponent
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Runs the analysis on the synthetic projects of all the shapes and sizes.
+     * @return <code>true</code> if every analysis succeeds and no growth exceeds the threshold, otherwise <code>false</code>
+     */
+    public boolean run() {
+        List<Shape> targets = shapes;
+        if (targets.isEmpty()) {
+            targets = new ArrayList<Shape>();
+            for (Shape shape : Shape.values()) {
+                targets.add(shape);
+            }
+        }
+        
+        boolean passed = true;
+        if (warmupSize > 0) {
+            for (Shape shape : targets) {
+                if (measureSafely(shape, warmupSize) == null) {
+                    passed = false;
+                }
+            }
+        }
+        
+        for (Shape shape : targets) {
+            List<Measurement> measurements = new ArrayList<Measurement>();
+            for (int size : sizes) {
+                Measurement m = measureSafely(shape, size);
+                if (m != null) {
+                    logger.info(m.toString());
+                    measurements.add(m);
+                } else {
+                    passed = false;
+                }
+            }
+            if (!examine(shape, measurements)) {
+                passed = false;
+            }
+        }
+        return passed;
+    }
+    
+    /**
+     * Measures the analysis of a synthetic project, reporting a failure instead of throwing it.
+     * @param shape the shape of the project
+     * @param size the size of the project
+     * @return the measurement, or <code>null</code> if the project cannot be generated or analyzed
+     */
+    private Measurement measureSafely(Shape shape, int size) {
+        try {
+            return measure(shape, size);
+        } catch (IOException e) {
+            logger.error("cannot generate the project " + shape + "-" + size + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("failed to analyze the project " + shape + "-" + size + ": " + e, e);
+        }
+        return null;
+    }
+    
+    /**
+     * Generates a synthetic project and measures the analysis of it in a dedicated analysis session.
+     * @param shape the shape of the project
+     * @param size the size of the project
+     * @return the measurement
+     * @throws IOException if the project cannot be generated
+     */
+    public Measurement measure(Shape shape, int size) throws IOException {
+        File dir = new File(workdir, shape + "-" + size);
+        CorpusGenerator.generate(dir, shape, size);
+        
+        AnalysisSession session = new AnalysisSession(dir.getAbsolutePath());
+        AnalysisSession old = AnalysisSession.setCurrent(session);
+        try {
+            JavaProject.removeAllCache();
+            GraphNodeIdPublisher.reset();
+            CFGFactory.clearCache();
+            PhaseMetrics.reset();
+            
+            long start = System.nanoTime();
+            
+            JavaModelFactoryInExternalProject factory = new JavaModelFactoryInExternalProject(dir.getName(), dir.getAbsolutePath());
+            factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+            factory.setProgressMonitor(new NullProgressMonitor());
+            factory.setMetricsReport(true);
+            JavaProject jproject = factory.create();
+            List<JavaClass> jclasses = jproject.getJavaClassesInDictionaryOrder();
+            SDG sdg = SDGFactory.create(jclasses);
+            
+            long time = System.nanoTime() - start;
+            
+            Footprint footprint = new Footprint();
+            footprint.add(jproject);
+            footprint.add(sdg);
+            long memory = footprint.getTotalBytes();
+            
+            Measurement m = new Measurement(shape, size, time, memory, sdg.getNodes().size(), sdg.getEdges().size());
+            for (int i = 0; i < PHASES.length; i++) {
+                m.phaseTimes[i] = PhaseMetrics.getRecord(PHASES[i]).getTime();
+            }
+            
+            JavaProject.removeAllCache();
+            CFGFactory.clearCache();
+            ExternalElementRegistry.releaseAll();
+            return m;
+        } finally {
+            session.clear();
+            AnalysisSession.setCurrent(old);
+        }
+    }
+    
+    /**
+     * Examines the growth of the time and the memory of the analysis on the projects of a shape.
+     * @param shape the shape of the projects
+     * @param measurements the measurements in ascending order of the sizes
+     * @return <code>true</code> if no growth exceeds the threshold, otherwise <code>false</code>
+     */
+    private boolean examine(Shape shape, List<Measurement> measurements) {
+        if (measurements.size() < 2) {
+            return true;
+        }
+        
+        double[] sizes = new double[measurements.size()];
+        double[] times = new double[measurements.size()];
+        double[] memories = new double[measurements.size()];
+        for (int i = 0; i < measurements.size(); i++) {
+            sizes[i] = measurements.get(i).size;
+            times[i] = measurements.get(i).time;
+            memories[i] = measurements.get(i).memory;
+        }
+        
+        boolean passed = true;
+        passed = check(shape + " time", getExponent(sizes, times)) && passed;
+        passed = check(shape + " memory", getExponent(sizes, memories)) && passed;
+        
+        Measurement largest = measurements.get(measurements.size() - 1);
+        for (int p = 0; p < PHASES.length; p++) {
+            if (largest.phaseTimes[p] < MIN_EXAMINED_TIME * 1000000L) {
+                continue;
+            }
+            
+            double[] phaseTimes = new double[measurements.size()];
+            for (int i = 0; i < measurements.size(); i++) {
+                phaseTimes[i] = measurements.get(i).phaseTimes[p];
+            }
+            passed = check(shape + " " + PHASES[p], getExponent(sizes, phaseTimes)) && passed;
+        }
+        return passed;
+    }
+    
+    /**
+     * Tests if the exponent of a growth is within the threshold.
+     * @param name the name of the growth
+     * @param exponent the exponent of the growth
+     * @return <code>true</code> if the exponent is within the threshold, otherwise <code>false</code>
+     */
+    private boolean check(String name, double exponent) {
+        if (Double.isNaN(exponent)) {
+            return true;
+        }
+        
+        if (exponent > threshold) {
+            logger.error("super-linear growth: " + name + " ~ n^" + String.format("%.2f", exponent));
+            return false;
+        }
+        logger.info("growth: " + name + " ~ n^" + String.format("%.2f", exponent));
+        return true;
+    }
+    
+    /**
+     * Calculates the exponent of a growth by the least-squares fitting of a line on the log-log scale.
+     * Non-positive values are ignored.
+     * @param xs the sizes
+     * @param ys the values measured for the sizes
+     * @return the exponent, or <code>NaN</code> if fewer than two values are positive
+     */
+    static double getExponent(double[] xs, double[] ys) {
+        int n = 0;
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (xs[i] > 0 && ys[i] > 0) {
+                double x = Math.log(xs[i]);
+                double y = Math.log(ys[i]);
+                sx = sx + x;
+                sy = sy + y;
+                sxx = sxx + x * x;
+                sxy = sxy + x * y;
+                n++;
+            }
+        }
+        
+        double d = n * sxx - sx * sx;
+        if (n < 2 || d == 0) {
+            return Double.NaN;
+        }
+        return (n * sxy - sx * sy) / d;
+    }
+    
+    /**
+     * Creates an object that runs the analysis on synthetic projects according to command line arguments.
+     * @param args the command line arguments
+     * @return the created object, or <code>null</code> if the arguments are invalid
+     */
+    public static ScalingHarness create(String[] args) {
+        ScalingHarness harness = new ScalingHarness();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-work")) {
+                    harness.setWorkDir(args[++i]);
+                } else if (args[i].equals("-shape")) {
+                    harness.addShape(Shape.valueOf(args[++i]));
+                } else if (args[i].equals("-sizes")) {
+                    String[] values = args[++i].split(",");
+                    int[] sizes = new int[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        sizes[j] = Integer.parseInt(values[j].trim());
+                    }
+                    harness.setSizes(sizes);
+                } else if (args[i].equals("-warmup")) {
+                    harness.setWarmupSize(Integer.parseInt(args[++i]));
+                } else if (args[i].equals("-threshold")) {
+                    harness.setThreshold(Double.parseDouble(args[++i]));
+                } else {
+                    logger.error("unknown argument: " + args[i]);
+                    return null;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            logger.error("missing value of the last argument");
+            return null;
+        } catch (IllegalArgumentException e) {
+            logger.error("invalid value: " + e.getMessage());
+            return null;
+        }
+        return harness;
+    }
+    
+    /**
+     * Returns the usage of the command line arguments.
+     * @return the string of the usage
+     */
+    public static String getUsage() {
+        return "usage: [-work <directory>] [-shape <straight|nested|fanout|recursion|hierarchy>]... " +
+               "[-sizes <number>,<number>,...] [-warmup <number>] [-threshold <exponent>]";
+    }
+    
+    /**
+     * Runs the analysis on synthetic projects according to command line arguments.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        ScalingHarness harness = create(args);
+        if (harness == null) {
+            System.err.println(getUsage());
+            System.exit(2);
+        }
+        
+        if (!harness.run()) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * The measurement of the analysis of a synthetic project.
+     */
+    public static class Measurement {
+        
+        /**
+         * The shape of the project.
+         */
+        Shape shape;
+        
+        /**
+         * The size of the project.
+         */
+        int size;
+        
+        /**
+         * The time of the whole analysis in nanoseconds.
+         */
+        long time;
+        
+        /**
+         * The number of the bytes retained by the created models.
+         */
+        long memory;
+        
+        /**
+         * The number of the nodes of the created SDG.
+         */
+        int nodes;
+        
+        /**
+         * The number of the edges of the created SDG.
+         */
+        int edges;
+        
+        /**
+         * The time of each examined phase in nanoseconds.
+         */
+        long[] phaseTimes = new long[PHASES.length];
+        
+        /**
+         * Creates a measurement.
+         * @param shape the shape of the project
+         * @param size the size of the project
+         * @param time the time of the whole analysis in nanoseconds
+         * @param memory the number of the bytes retained by the created models
+         * @param nodes the number of the nodes of the created SDG
+         * @param edges the number of the edges of the created SDG
+         */
+        Measurement(Shape shape, int size, long time, long memory, int nodes, int edges) {
+            this.shape = shape;
+            this.size = size;
+            this.time = time;
+            this.memory = memory;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+        
+        /**
+         * Returns the string of this measurement.
+         * @return the string representing the time, the memory, and the size of the SDG
+         */
+        public String toString() {
+            StringBuffer buf = new StringBuffer();
+            buf.append(String.format("%-10s %6d: %10.1f ms %10d KB  nodes = %d edges = %d", shape.toString(), size,
+                       time / 1000000.0, memory / 1024, nodes, edges));
+            for (int i = 0; i < PHASES.length; i++) {
+                buf.append(" " + PHASES[i] + " = " + (phaseTimes[i] / 1000000) + "ms");
+            }
+            return buf.toString();
+        }
+    }
+}
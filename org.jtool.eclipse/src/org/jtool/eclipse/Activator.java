@@ -10,8 +10,9 @@ import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.IStartup;
-import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Platform;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -40,7 +41,7 @@ public class Activator extends AbstractUIPlugin implements IStartup {
     /**
      * A resource change listener that will be notified of changes to resources in the workspace.
      */
-    private IResourceChangeListener listener;
+    private ResourceChangeListener listener;
     
     /**
      * Refreshes this plug-in's actions when the plug-in is activated.
@@ -60,7 +61,7 @@ public class Activator extends AbstractUIPlugin implements IStartup {
         JavaClass.removeAllClassesInCache();
         
         listener = new ResourceChangeListener();
-        ResourcesPlugin.getWorkspace().addResourceChangeListener(listener);
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
     }
     
     /**
@@ -71,7 +72,10 @@ public class Activator extends AbstractUIPlugin implements IStartup {
      */
     public void stop(BundleContext context) throws Exception {
         plugin = null;
-        ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+        if (listener != null) {
+            ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+            listener.cancelJobs();
+        }
         
         super.stop(context);
     }
@@ -91,4 +95,12 @@ public class Activator extends AbstractUIPlugin implements IStartup {
     public static IWorkbenchWindow getWorkbenchWindow() {
         return PlatformUI.getWorkbench().getActiveWorkbenchWindow();
     }
+    
+    /**
+     * Tests if the workbench is running. The workbench is not running when the analysis is performed headlessly.
+     * @return <code>true</code> if the workbench is running, otherwise <code>false</code>
+     */
+    public static boolean isWorkbenchRunning() {
+        return Platform.isRunning() && PlatformUI.isWorkbenchRunning();
+    }
 }
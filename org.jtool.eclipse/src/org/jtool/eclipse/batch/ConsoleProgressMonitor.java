@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.batch;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.apache.log4j.Logger;
+
+/**
+ * A progress monitor that displays progress of a task in the log without the workbench.
+ * Progress is displayed whenever every tenth part of the total work is done.
+ * @author Katsuhisa Maruyama
+ */
+public class ConsoleProgressMonitor extends NullProgressMonitor {
+    
+    static Logger logger = Logger.getLogger(ConsoleProgressMonitor.class.getName());
+    
+    /**
+     * The name of the current task.
+     */
+    private String taskName = "";
+    
+    /**
+     * The total number of work units of the current task.
+     */
+    private int totalWork = 0;
+    
+    /**
+     * The number of work units that have been done.
+     */
+    private int worked = 0;
+    
+    /**
+     * The percentage of the work displayed lastly.
+     */
+    private int lastPercent = 0;
+    
+    /**
+     * The time when the current task began.
+     */
+    private long startTime = 0;
+    
+    /**
+     * Creates a new progress monitor.
+     */
+    public ConsoleProgressMonitor() {
+        super();
+    }
+    
+    /**
+     * Notifies that the task is beginning.
+     * @param name the name of the task
+     * @param totalWork the total number of work units
+     */
+    public void beginTask(String name, int totalWork) {
+        this.taskName = name;
+        this.totalWork = totalWork;
+        worked = 0;
+        lastPercent = 0;
+        startTime = System.currentTimeMillis();
+        
+        logger.info(name + "(" + totalWork + ")");
+    }
+    
+    /**
+     * Notifies that a given number of work units of the task has been done.
+     * @param work the number of work units just done
+     */
+    public void worked(int work) {
+        worked = worked + work;
+        if (totalWork > 0) {
+            int percent = (int)((long)worked * 100 / totalWork);
+            if (percent / 10 > lastPercent / 10) {
+                lastPercent = percent;
+                logger.info(taskName + percent + "%");
+            }
+        }
+    }
+    
+    /**
+     * Notifies that the task is done.
+     */
+    public void done() {
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        logger.info(taskName + "done: " + elapsedTime + "ms");
+    }
+}
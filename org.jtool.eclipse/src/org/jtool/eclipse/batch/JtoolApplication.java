@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.batch;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * An Eclipse application that analyzes source code within a directory without the workbench.
+ * The application is launched with <code>-application org.jtool.eclipse.batch</code> followed by the arguments of
+ * {@link JtoolBatch}.
+ * @author Katsuhisa Maruyama
+ */
+public class JtoolApplication implements IApplication {
+    
+    /**
+     * The exit code returned when the arguments are invalid or the analysis failed.
+     */
+    public static final Integer EXIT_ERROR = Integer.valueOf(1);
+    
+    /**
+     * Starts this application with the given context.
+     * @param context the application context
+     * @return the exit code of this application
+     * @throws Exception if the application fails to run
+     */
+    public Object start(IApplicationContext context) throws Exception {
+        String[] args = (String[])context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+        if (args == null) {
+            args = new String[0];
+        }
+        context.applicationRunning();
+        
+        JtoolBatch batch = JtoolBatch.create(args);
+        if (batch == null) {
+            System.err.println(JtoolBatch.getUsage());
+            return EXIT_ERROR;
+        }
+        
+        if (!batch.run()) {
+            return EXIT_ERROR;
+        }
+        return IApplication.EXIT_OK;
+    }
+    
+    /**
+     * Stops this application. The analysis is not interrupted since it is not performed in a separate thread.
+     */
+    public void stop() {
+    }
+}
@@ -0,0 +1,611 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.batch;
+
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.Footprint;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.cfg.CFGFactory;
+import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
+import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaFile;
+import org.jtool.eclipse.model.java.JavaModelFactoryInExternalProject;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.pdg.PDG;
+import org.jtool.eclipse.model.pdg.SDG;
+import org.jtool.eclipse.model.pdg.SDGFactory;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.IProblem;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Analyzes source code within a directory without the workbench and writes the results into files.
+ * The Java models, CFGs, PDGs, and an SDG are created for all the Java files under the directory.
+ * This class can be executed as a plain Java application or through an Eclipse application.
+ * @author Katsuhisa Maruyama
+ */
+public class JtoolBatch {
+    
+    static Logger logger = Logger.getLogger(JtoolBatch.class.getName());
+    
+    /**
+     * The name of the file that stores information on the classes.
+     */
+    public static final String MODEL_FILE = "model.txt";
+    
+    /**
+     * The name of the file that stores information on the CFGs.
+     */
+    public static final String CFG_FILE = "cfg.txt";
+    
+    /**
+     * The name of the file that stores information on the PDGs.
+     */
+    public static final String PDG_FILE = "pdg.txt";
+    
+    /**
+     * The name of the file that stores information on the SDG.
+     */
+    public static final String SDG_FILE = "sdg.txt";
+    
+    /**
+     * The name of the file into which the cost of the phases of the analysis is written.
+     */
+    public static final String METRICS_FILE = "metrics.json";
+    
+    /**
+     * The name of the project to be analyzed.
+     */
+    private String name = null;
+    
+    /**
+     * The top directory of the project to be analyzed.
+     */
+    private String dir = null;
+    
+    /**
+     * The collection of the class paths, or <code>null</code> if the default class paths are used.
+     */
+    private String[] classpaths = null;
+    
+    /**
+     * The directory into which the results are written.
+     */
+    private String outdir = "jtool-out";
+    
+    /**
+     * A flag that requests the use of the persistent index of the models.
+     */
+    private boolean useIndex = false;
+    
+    /**
+     * A flag that requests the release of AST nodes after the creation of models.
+     */
+    private boolean releaseASTNodes = false;
+    
+    /**
+     * The number of threads that concurrently collect information on the models, or zero if the default is used.
+     */
+    private int numOfThreads = 0;
+    
+    /**
+     * The glob patterns of the files to be analyzed.
+     */
+    private List<String> includes = new ArrayList<String>();
+    
+    /**
+     * The glob patterns of the files and directories not to be analyzed.
+     */
+    private List<String> excludes = new ArrayList<String>();
+    
+    /**
+     * A flag that requests the detection of source roots from package declarations.
+     */
+    private boolean detectsSourceRoots = false;
+    
+    /**
+     * A flag that requests the estimation of the heap footprint of the created models.
+     */
+    private boolean measuresFootprint = false;
+    
+    /**
+     * A flag that requests the failure of the analysis if any file has errors.
+     */
+    private boolean isStrict = false;
+    
+    /**
+     * The progress monitor that displays progress of the analysis.
+     */
+    private IProgressMonitor monitor;
+    
+    /**
+     * The analysis session that owns the models, which is separated from the sessions of other batches.
+     */
+    private AnalysisSession session;
+    
+    /**
+     * Creates an object that analyzes source code within a directory.
+     * @param dir the top directory of the project to be analyzed
+     */
+    public JtoolBatch(String dir) {
+        this.dir = dir;
+        this.name = dir;
+        this.monitor = new ConsoleProgressMonitor();
+        this.session = new AnalysisSession(dir);
+    }
+    
+    /**
+     * Sets the name of the project to be analyzed.
+     * @param name the name of the project
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Sets the class paths used for parsing the source code.
+     * @param classpaths the collection of the class paths
+     */
+    public void setClassPaths(String[] classpaths) {
+        this.classpaths = classpaths;
+    }
+    
+    /**
+     * Sets the directory into which the results are written.
+     * @param outdir the path of the output directory
+     */
+    public void setOutputDir(String outdir) {
+        this.outdir = outdir;
+    }
+    
+    /**
+     * Sets whether the persistent index of the models is used.
+     * @param bool <code>true</code> if the index is used, otherwise <code>false</code>
+     */
+    public void setModelIndex(boolean bool) {
+        useIndex = bool;
+    }
+    
+    /**
+     * Requests the release of AST nodes after the creation of models.
+     * @param bool <code>true</code> if the release is wanted, otherwise <code>false</code>
+     */
+    public void setASTNodeRelease(boolean bool) {
+        releaseASTNodes = bool;
+    }
+    
+    /**
+     * Sets the number of threads that concurrently collect information on the models.
+     * @param num the number of the threads
+     */
+    public void setNumOfThreads(int num) {
+        numOfThreads = num;
+    }
+    
+    /**
+     * Adds a glob pattern of files to be analyzed. All Java files are analyzed if no pattern is added.
+     * @param pattern the glob pattern
+     */
+    public void addInclude(String pattern) {
+        includes.add(pattern);
+    }
+    
+    /**
+     * Adds a glob pattern of files and directories not to be analyzed.
+     * @param pattern the glob pattern
+     */
+    public void addExclude(String pattern) {
+        excludes.add(pattern);
+    }
+    
+    /**
+     * Sets whether source roots are detected from package declarations.
+     * @param bool <code>true</code> if the source roots are detected, otherwise <code>false</code>
+     */
+    public void setSourceRootDetection(boolean bool) {
+        detectsSourceRoots = bool;
+    }
+    
+    /**
+     * Sets whether the heap footprint of the created models is estimated and written with the metrics.
+     * @param bool <code>true</code> if the footprint is estimated, otherwise <code>false</code>
+     */
+    public void setFootprintMeasurement(boolean bool) {
+        measuresFootprint = bool;
+    }
+    
+    /**
+     * Requests the failure of the analysis if any file has errors, including unresolved types.
+     * Otherwise, the analysis fails only if no file is parsed without syntax errors or no class is created.
+     * @param bool <code>true</code> if the strict check is wanted, otherwise <code>false</code>
+     */
+    public void setStrict(boolean bool) {
+        isStrict = bool;
+    }
+    
+    /**
+     * Sets the progress monitor that displays progress of the analysis.
+     * @param monitor the progress monitor
+     */
+    public void setProgressMonitor(IProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+    
+    /**
+     * Sets the analysis session that owns the models.
+     * @param session the analysis session
+     */
+    public void setSession(AnalysisSession session) {
+        this.session = session;
+    }
+    
+    /**
+     * Returns the analysis session that owns the models.
+     * @return the analysis session
+     */
+    public AnalysisSession getSession() {
+        return session;
+    }
+    
+    /**
+     * Analyzes the source code within the analysis session of this batch and writes the results into the output directory.
+     * Batches with different sessions can run concurrently in a virtual machine.
+     * @return <code>true</code> if the analysis succeeded, otherwise <code>false</code>
+     */
+    public boolean run() {
+        AnalysisSession old = AnalysisSession.setCurrent(session);
+        try {
+            return analyze();
+        } finally {
+            AnalysisSession.setCurrent(old);
+        }
+    }
+    
+    /**
+     * Analyzes the source code and writes the results into the output directory.
+     * @return <code>true</code> if the analysis succeeded, otherwise <code>false</code>
+     */
+    private boolean analyze() {
+        File top = new File(dir);
+        if (!top.isDirectory()) {
+            logger.error("not a directory: " + dir);
+            return false;
+        }
+        
+        File out = new File(outdir);
+        if (!out.isDirectory() && !out.mkdirs()) {
+            logger.error("cannot create the output directory: " + outdir);
+            return false;
+        }
+        
+        JavaProject.removeAllCache();
+        GraphNodeIdPublisher.reset();
+        CFGFactory.clearCache();
+        PhaseMetrics.reset();
+        
+        JavaModelFactoryInExternalProject factory;
+        if (classpaths != null) {
+            factory = new JavaModelFactoryInExternalProject(name, top.getAbsolutePath(), classpaths);
+        } else {
+            factory = new JavaModelFactoryInExternalProject(name, top.getAbsolutePath());
+        }
+        factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+        factory.setProgressMonitor(monitor);
+        factory.setModelIndex(useIndex);
+        factory.setASTNodeRelease(releaseASTNodes);
+        factory.setMetricsReport(true);
+        if (numOfThreads > 0) {
+            factory.setNumOfThreads(numOfThreads);
+        }
+        for (String pattern : includes) {
+            factory.addInclude(pattern);
+        }
+        for (String pattern : excludes) {
+            factory.addExclude(pattern);
+        }
+        factory.setSourceRootDetection(detectsSourceRoots);
+        
+        JavaProject jproject = factory.create();
+        if (jproject == null || monitor.isCanceled()) {
+            return false;
+        }
+        
+        List<JavaClass> jclasses = jproject.getJavaClassesInDictionaryOrder();
+        if (!checkParse(factory.getSourceFiles().size(), jproject, jclasses.size())) {
+            return false;
+        }
+        
+        monitor.beginTask("Creating SDG... ", jclasses.size());
+        SDG sdg = SDGFactory.create(jclasses);
+        jproject.clearRemovedJavaClasses();
+        monitor.done();
+        
+        if (measuresFootprint) {
+            Footprint footprint = new Footprint();
+            footprint.add(jproject);
+            for (PDG pdg : sdg.getPDGs()) {
+                footprint.add(pdg.getCFG());
+            }
+            footprint.add(sdg);
+            PhaseMetrics.setFootprint(footprint);
+            footprint.printReport();
+        }
+        
+        try {
+            writeModel(new File(out, MODEL_FILE), jclasses);
+            writeGraphs(new File(out, CFG_FILE), new File(out, PDG_FILE), sdg);
+            writeSDG(new File(out, SDG_FILE), sdg);
+            writeMetrics(new File(out, METRICS_FILE));
+        } catch (IOException e) {
+            logger.error("cannot write the results: " + e.getMessage());
+            return false;
+        }
+        
+        logger.info("wrote the results of " + jclasses.size() + " classes into " + out.getAbsolutePath());
+        return true;
+    }
+    
+    /**
+     * Checks if the source code was parsed well enough to write the results.
+     * A file fails to be parsed if it has syntax errors or no compilation unit was created from it.
+     * @param numOfSources the number of the found source files
+     * @param jproject the project containing the created models
+     * @param numOfClasses the number of the created classes
+     * @return <code>true</code> if the results can be written, otherwise <code>false</code>
+     */
+    private boolean checkParse(int numOfSources, JavaProject jproject, int numOfClasses) {
+        int numOfFailures = numOfSources - jproject.getJavaFiles().size();
+        int numOfErrors = numOfFailures;
+        for (JavaFile jf : jproject.getJavaFiles()) {
+            if (jf.getParseErrors() != null && jf.getParseErrors().size() > 0) {
+                numOfErrors++;
+                if (hasSyntaxErrors(jf.getParseErrors())) {
+                    numOfFailures++;
+                }
+            }
+        }
+        
+        if (numOfErrors > 0) {
+            logger.warn(numOfErrors + " of " + numOfSources + " files have errors / " + numOfFailures + " files failed to be parsed");
+        }
+        if (numOfClasses == 0) {
+            logger.error("no class was created from " + dir);
+            return false;
+        }
+        if (numOfFailures >= numOfSources) {
+            logger.error("no file was parsed without syntax errors in " + dir);
+            return false;
+        }
+        if (isStrict && numOfErrors > 0) {
+            logger.error("some files have errors in the strict mode");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Tests if given errors contain syntax errors.
+     * @param errors the collection of the errors
+     * @return <code>true</code> if a syntax error is contained, otherwise <code>false</code>
+     */
+    private static boolean hasSyntaxErrors(List<IProblem> errors) {
+        for (IProblem problem : errors) {
+            if (problem instanceof CategorizedProblem &&
+                ((CategorizedProblem)problem).getCategoryID() == CategorizedProblem.CAT_SYNTAX) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Writes information on classes into a file.
+     * @param file the file to be written
+     * @param jclasses the collection of the classes
+     * @throws IOException if an I/O error occurred
+     */
+    private void writeModel(File file, List<JavaClass> jclasses) throws IOException {
+        Writer writer = open(file);
+        try {
+            for (JavaClass jc : jclasses) {
+                writer.write(jc.toString());
+                writer.write("\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Writes information on the CFGs and PDGs contained in an SDG into files.
+     * @param cfgFile the file into which the CFGs are written
+     * @param pdgFile the file into which the PDGs are written
+     * @param sdg the SDG
+     * @throws IOException if an I/O error occurred
+     */
+    private void writeGraphs(File cfgFile, File pdgFile, SDG sdg) throws IOException {
+        List<PDG> pdgs = new ArrayList<PDG>(sdg.getPDGs());
+        Collections.sort(pdgs, new Comparator<PDG>() {
+            public int compare(PDG pdg1, PDG pdg2) {
+                return pdg1.getName().compareTo(pdg2.getName());
+            }
+        });
+        
+        Writer cfgWriter = open(cfgFile);
+        Writer pdgWriter = open(pdgFile);
+        try {
+            for (PDG pdg : pdgs) {
+                cfgWriter.write(pdg.getCFG().toString());
+                pdgWriter.write(pdg.toString());
+            }
+        } finally {
+            cfgWriter.close();
+            pdgWriter.close();
+        }
+    }
+    
+    /**
+     * Writes information on an SDG into a file.
+     * @param file the file to be written
+     * @param sdg the SDG
+     * @throws IOException if an I/O error occurred
+     */
+    private void writeSDG(File file, SDG sdg) throws IOException {
+        Writer writer = open(file);
+        try {
+            writer.write(sdg.toString());
+        } finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Writes the cost of the phases of the analysis into a file.
+     * @param file the file to be written
+     * @throws IOException if an I/O error occurred
+     */
+    private void writeMetrics(File file) throws IOException {
+        Writer writer = open(file);
+        try {
+            writer.write(PhaseMetrics.toJSON());
+        } finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Opens a file for writing.
+     * @param file the file to be written
+     * @return the writer for the file
+     * @throws IOException if the file cannot be opened for writing
+     */
+    private static Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    }
+    
+    /**
+     * Creates an object that analyzes source code according to command line arguments.
+     * @param args the command line arguments
+     * @return the created object, or <code>null</code> if the arguments are invalid
+     */
+    public static JtoolBatch create(String[] args) {
+        String dir = null;
+        String name = null;
+        String[] classpaths = null;
+        String outdir = null;
+        boolean useIndex = false;
+        boolean release = false;
+        int threads = 0;
+        List<String> includes = new ArrayList<String>();
+        List<String> excludes = new ArrayList<String>();
+        boolean roots = false;
+        boolean footprint = false;
+        boolean strict = false;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-dir")) {
+                    dir = args[++i];
+                } else if (args[i].equals("-name")) {
+                    name = args[++i];
+                } else if (args[i].equals("-classpath") || args[i].equals("-cp")) {
+                    classpaths = args[++i].split(File.pathSeparator);
+                } else if (args[i].equals("-out")) {
+                    outdir = args[++i];
+                } else if (args[i].equals("-index")) {
+                    useIndex = true;
+                } else if (args[i].equals("-release")) {
+                    release = true;
+                } else if (args[i].equals("-threads")) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-include")) {
+                    includes.add(args[++i]);
+                } else if (args[i].equals("-exclude")) {
+                    excludes.add(args[++i]);
+                } else if (args[i].equals("-roots")) {
+                    roots = true;
+                } else if (args[i].equals("-footprint")) {
+                    footprint = true;
+                } else if (args[i].equals("-strict")) {
+                    strict = true;
+                } else if (!args[i].startsWith("-") && dir == null) {
+                    dir = args[i];
+                } else {
+                    logger.error("unknown argument: " + args[i]);
+                    return null;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            logger.error("missing value of the last argument");
+            return null;
+        } catch (NumberFormatException e) {
+            logger.error("invalid number of threads: " + e.getMessage());
+            return null;
+        }
+        
+        if (dir == null) {
+            return null;
+        }
+        
+        JtoolBatch batch = new JtoolBatch(dir);
+        if (name != null) {
+            batch.setName(name);
+        }
+        if (outdir != null) {
+            batch.setOutputDir(outdir);
+        }
+        batch.setClassPaths(classpaths);
+        batch.setModelIndex(useIndex);
+        batch.setASTNodeRelease(release);
+        batch.setNumOfThreads(threads);
+        for (String pattern : includes) {
+            batch.addInclude(pattern);
+        }
+        for (String pattern : excludes) {
+            batch.addExclude(pattern);
+        }
+        batch.setSourceRootDetection(roots);
+        batch.setFootprintMeasurement(footprint);
+        batch.setStrict(strict);
+        return batch;
+    }
+    
+    /**
+     * Returns the usage of the command line arguments.
+     * @return the string of the usage
+     */
+    public static String getUsage() {
+        return "usage: [-dir] <directory> [-name <name>] [-cp <classpaths>] [-out <directory>] " +
+               "[-index] [-release] [-threads <number>] [-include <glob>]... [-exclude <glob>]... [-roots] [-footprint] [-strict]";
+    }
+    
+    /**
+     * Analyzes source code within a directory given as command line arguments.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        JtoolBatch batch = create(args);
+        if (batch == null) {
+            System.err.println(getUsage());
+            System.exit(2);
+        }
+        
+        if (!batch.run()) {
+            System.exit(1);
+        }
+    }
+}
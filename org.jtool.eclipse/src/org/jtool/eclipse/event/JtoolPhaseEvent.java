@@ -0,0 +1,173 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.event;
+
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
+
+/**
+ * An event that reports the cost of a phase of the analysis for an element, for example,
+ * the construction of a CFG or a PDG for a method or the parse of a file.
+ * @author Katsuhisa Maruyama
+ */
+public class JtoolPhaseEvent extends JtoolEvent {
+    private static final long serialVersionUID = 3590467118025624176L;
+    
+    /**
+     * The phase.
+     */
+    private Phase phase;
+    
+    /**
+     * The name of the thread that executed the phase.
+     */
+    private String threadName;
+    
+    /**
+     * The wall-clock time in nanoseconds.
+     */
+    private long time;
+    
+    /**
+     * The CPU time in nanoseconds.
+     */
+    private long cpuTime;
+    
+    /**
+     * The number of the allocated bytes.
+     */
+    private long allocatedBytes;
+    
+    /**
+     * The number of the nodes created in the phase.
+     */
+    private long nodes;
+    
+    /**
+     * The number of the edges created in the phase.
+     */
+    private long edges;
+    
+    /**
+     * The number of the nodes of the CFG examined in the phase.
+     */
+    private long cfgSize;
+    
+    /**
+     * Creates an event that reports the cost of a phase.
+     * @param name the name of the element, for example, the qualified name of a method
+     * @param phase the phase
+     * @param time the wall-clock time in nanoseconds
+     * @param cpuTime the CPU time in nanoseconds
+     * @param allocatedBytes the number of the allocated bytes
+     * @param nodes the number of the nodes created in the phase
+     * @param edges the number of the edges created in the phase
+     * @param cfgSize the number of the nodes of the CFG examined in the phase
+     */
+    public JtoolPhaseEvent(String name, Phase phase, long time, long cpuTime, long allocatedBytes,
+                           long nodes, long edges, long cfgSize) {
+        super(name, name);
+        this.phase = phase;
+        this.threadName = Thread.currentThread().getName();
+        this.time = time;
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.cfgSize = cfgSize;
+    }
+    
+    /**
+     * Returns the name of the element.
+     * @return the name of the element
+     */
+    public String getName() {
+        return message;
+    }
+    
+    /**
+     * Returns the phase.
+     * @return the phase
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+    
+    /**
+     * Returns the name of the thread that executed the phase.
+     * @return the name of the thread
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+    
+    /**
+     * Returns the wall-clock time of the phase.
+     * @return the time in nanoseconds
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    /**
+     * Returns the CPU time of the phase.
+     * @return the time in nanoseconds, which is <code>0</code> if the virtual machine does not support the measurement
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+    
+    /**
+     * Returns the number of the bytes allocated in the phase.
+     * @return the number of the bytes, which is <code>0</code> if the virtual machine does not support the measurement
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * Returns the number of the nodes created in the phase.
+     * @return the number of the nodes, which is <code>0</code> if the phase creates no node
+     */
+    public long getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * Returns the number of the edges created in the phase.
+     * @return the number of the edges, which is <code>0</code> if the phase creates no edge
+     */
+    public long getEdges() {
+        return edges;
+    }
+    
+    /**
+     * Returns the number of the nodes of the CFG examined in the phase.
+     * @return the number of the nodes, which is <code>0</code> if the phase examines no CFG
+     */
+    public long getCFGSize() {
+        return cfgSize;
+    }
+    
+    /**
+     * Returns the JSON representation of this event.
+     * @return the string of the JSON object
+     */
+    public String toJSON() {
+        return "{\"name\": \"" + getName().replace("\\", "\\\\").replace("\"", "\\\"") + "\"" +
+               ", \"timeNanos\": " + time + ", \"cpuTimeNanos\": " + cpuTime +
+               ", \"allocatedBytes\": " + allocatedBytes + ", \"nodes\": " + nodes +
+               ", \"edges\": " + edges + ", \"cfgSize\": " + cfgSize + "}";
+    }
+    
+    /**
+     * Returns the string representation of this event.
+     * @return the string of the cost of the phase for the element
+     */
+    public String toString() {
+        return phase.name() + " " + getName() + ": " + (time / 1000000) + "ms / cpu " + (cpuTime / 1000000) + "ms / " +
+               (allocatedBytes / 1024) + "KB allocated / nodes = " + nodes + " / edges = " + edges +
+               " / cfg = " + cfgSize + " [" + threadName + "]";
+    }
+}
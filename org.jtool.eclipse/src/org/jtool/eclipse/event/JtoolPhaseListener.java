@@ -0,0 +1,22 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.event;
+
+import java.util.EventListener;
+
+/**
+ * A listener interface for receiving events that report the cost of phases of the analysis.
+ * A listener can forward the events to a profiler, for example, as custom events of Java Flight Recorder.
+ * @author Katsuhisa Maruyama
+ */
+public interface JtoolPhaseListener extends EventListener {
+    
+    /**
+     * Receives an event when a phase for an element is completed. This method is called by the thread that executed
+     * the phase, and thus it may be called concurrently.
+     * @param evt the received event
+     */
+    public void notifyPhase(JtoolPhaseEvent evt);
+}
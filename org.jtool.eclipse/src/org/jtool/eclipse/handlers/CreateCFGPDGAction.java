@@ -4,6 +4,7 @@
  
 package org.jtool.eclipse.handlers;
 
+import org.jtool.eclipse.model.ModelSnapshotPublisher;
 import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
 import org.jtool.eclipse.model.java.JavaModelFactory;
 import org.jtool.eclipse.model.java.JavaModelFactoryInWorkspace;
@@ -18,6 +19,7 @@ import org.jtool.eclipse.model.pdg.SDG;
 import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
 import org.jtool.eclipse.model.java.JavaClass;
 import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.java.internal.ResourceChangeJob;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.jdt.core.IJavaProject;
@@ -29,8 +31,14 @@ import java.util.Set;
  */
 public class CreateCFGPDGAction extends JtoolHandler {
     
+    /**
+     * The SDG created lastly, which is incrementally updated when the project is analyzed again.
+     */
+    private SDG sdg = null;
+    
     /**
      * Executes a command with information obtained from the application context.
+     * The changed files that have been notified are removed from the project before the SDG is updated.
      * @param event an event containing all the information about the current state of the application
      * @return the result of the execution.
      * @throws ExecutionException if an exception occurred during execution
@@ -38,8 +46,14 @@ public class CreateCFGPDGAction extends JtoolHandler {
     public Object execute(ExecutionEvent event) throws ExecutionException {
         IJavaProject project = getJavaProject(event);
         if (project != null) {
-            JavaProject.removeAllCache();
-            GraphNodeIdPublisher.reset();
+            ResourceChangeJob.flush();
+            
+            boolean incremental = sdg != null && JavaProject.getJavaProject(project.getProject().getName()) != null;
+            if (!incremental) {
+                JavaProject.removeAllCache();
+                GraphNodeIdPublisher.reset();
+                CFGFactory.clearCache();
+            }
             
             JavaModelFactory factory = new JavaModelFactoryInWorkspace(project);
             factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
@@ -47,7 +61,14 @@ public class CreateCFGPDGAction extends JtoolHandler {
             
             // createCFGs(jproject);
             // createPDGs(jproject);
-            createSDG(jproject);
+            synchronized (jproject) {
+                if (incremental) {
+                    updateSDG(jproject);
+                } else {
+                    createSDG(jproject);
+                }
+                ModelSnapshotPublisher.publish(jproject, sdg);
+            }
         }
         return null;
     }
@@ -96,7 +117,18 @@ public class CreateCFGPDGAction extends JtoolHandler {
      * @param name the method name
      */
     protected void createSDG(JavaProject jproject) {
-        SDG sdg = SDGFactory.create(jproject.getJavaClassesInDictionaryOrder());
+        sdg = SDGFactory.create(jproject.getJavaClassesInDictionaryOrder());
+        jproject.clearRemovedJavaClasses();
+        
+        SDGFactory.print(sdg);
+    }
+    
+    /**
+     * Updates the SDG only for the classes that were changed since the SDG was created.
+     * @param the project
+     */
+    protected void updateSDG(JavaProject jproject) {
+        SDGFactory.update(sdg, jproject);
         
         SDGFactory.print(sdg);
     }
@@ -29,8 +29,10 @@ public class ParseAction extends JtoolHandler {
     public Object execute(ExecutionEvent event) throws ExecutionException {
         IJavaProject project = getJavaProject(event);
         if (project != null) {
-            JavaProject.removeAllCache();
-            GraphNodeIdPublisher.reset();
+            if (JavaProject.getJavaProject(project.getProject().getName()) == null) {
+                JavaProject.removeAllCache();
+                GraphNodeIdPublisher.reset();
+            }
             
             JavaModelFactory factory = new JavaModelFactoryInWorkspace(project);
             factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
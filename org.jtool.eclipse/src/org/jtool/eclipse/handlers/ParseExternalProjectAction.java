@@ -7,7 +7,6 @@ package org.jtool.eclipse.handlers;
 import org.jtool.eclipse.Activator;
 import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
 import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
-import org.jtool.eclipse.model.java.JavaModelFactory;
 import org.jtool.eclipse.model.java.JavaModelFactoryInExternalProject;
 import org.jtool.eclipse.model.java.JavaProject;
 import org.jtool.eclipse.model.java.JavaClass;
@@ -60,7 +59,8 @@ public class ParseExternalProjectAction extends AbstractHandler {
         JavaProject.removeAllCache();
         GraphNodeIdPublisher.reset();
         
-        JavaModelFactory factory = new JavaModelFactoryInExternalProject(dir, dir);
+        JavaModelFactoryInExternalProject factory = new JavaModelFactoryInExternalProject(dir, dir);
+        factory.setModelIndex(true);
         factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
         JavaProject jproject = factory.create();
         
@@ -5,10 +5,10 @@
 package org.jtool.eclipse.io;
 
 import java.io.InputStream;
-import java.io.FileInputStream;
 import java.io.ByteArrayInputStream;
-import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Detects the character-set name of a Japanese text.
@@ -25,7 +25,7 @@ public class DetectCharset {
      * @throws IOException if an I/O error occurred
      */
     public static String getCharsetName(String filename) throws IOException {
-        return getCharsetName(filename, null);
+        return getCharsetName(FileReader.readBytes(new File(filename)));
     }
     
     /**
@@ -35,23 +35,41 @@ public class DetectCharset {
      * @throws IOException if an I/O error occurred
      */
     public static String getCharsetName(byte[] contents) throws IOException {
-        return getCharsetName(null, contents);
+        return getCharsetName(ByteBuffer.wrap(contents));
     }
     
     /**
-     * Returns a character-set name of a Japanese text.
-     * @param filename the name of a file containing the text, or <code>null</code> if the file is not specified
-     * @param contents the contents of the text, or <code>null if the contents is not specified
+     * Guesses the character-set name of a Japanese text in a single pass over its bytes.
+     * Leading ASCII bytes are skipped at once, and the text is examined only from the first byte that is an escape
+     * or is not ASCII, since neither of the checks can decide a character-set from ASCII bytes.
+     * The position of the given buffer is not changed.
+     * @param contents the buffer whose remaining bytes are the contents of the text
      * @return the character-set name (US-ASCII, UTF-8, ISO-2022-JP, EUC-JP, or SJIS)
-     * @throws IOException if an I/O error occurred
      */
-    private static String getCharsetName(String filename, byte[] contents) throws IOException {
-        BufferedInputStream bis = null;
+    public static String getCharsetName(ByteBuffer contents) {
+        byte[] bytes;
+        int offset;
+        int len = contents.remaining();
+        if (contents.hasArray()) {
+            bytes = contents.array();
+            offset = contents.arrayOffset() + contents.position();
+        } else {
+            bytes = new byte[len];
+            contents.duplicate().get(bytes);
+            offset = 0;
+        }
+        
+        int end = offset + len;
+        int start = offset;
+        while (start < end && bytes[start] >= 0 && bytes[start] != 0x1b) {
+            start++;
+        }
+        if (start == end) {
+            return "US-ASCII";
+        }
+        
         try {
-            bis = new BufferedInputStream(createInputStream(filename, contents));
-            Charset charset = checkJisOrUnicode(bis);
-            bis.close();
-            
+            Charset charset = checkJisOrUnicode(new ByteArrayInputStream(bytes, start, end - start));
             if (charset == Charset.ASCII) {
                 return "US-ASCII";
             } else if (charset == Charset.UTF8) {
@@ -60,41 +78,18 @@ public class DetectCharset {
                 return "ISO-2022-JP";
             }
             
-            bis = new BufferedInputStream(createInputStream(filename, contents));
-            charset = checkEucOrShiftJis(bis);
+            charset = checkEucOrShiftJis(new ByteArrayInputStream(bytes, start, end - start));
             if (charset == Charset.EUC) {
                 return "EUC-JP";
             } else if (charset == Charset.SJIS) {
                 return "SJIS";
             }
         } catch (IOException e) {
-            throw e;
-        } finally {
-            if (bis != null) {
-                try {
-                    bis.close();
-                } catch (IOException e) {
-                    System.err.println("File close error");
-                }
-            } 
+            /* never thrown by a byte array input stream */
         }
         return getDefaultCharsetName();
     }
     
-    /**
-     * Creates an input stream from a file and/or its contents.
-     * @param filename the name of the file, or <code>null</code> if the file is not specified
-     * @param contents the contents of a file, or <code>null if the contents is not specified
-     * @return the input stream. The file name is used if both of them were given
-     * @throws IOException if an I/O error occurred
-     */
-    private static InputStream createInputStream(String filename, byte[] contents) throws IOException {
-        if (filename != null) {
-            return new FileInputStream(filename);
-        }
-        return new ByteArrayInputStream(contents);
-    }
-    
     /**
      * Returns a default character-set name.
      * @return the default character-set name
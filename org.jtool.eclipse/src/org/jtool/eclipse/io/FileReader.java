@@ -3,21 +3,46 @@
  */
 
 package org.jtool.eclipse.io;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
 
 /**
  * Reads the contents of a file.
+ * A file is read at once into a byte buffer through its channel, and the bytes are decoded straight into characters.
+ * The buffers are pooled for each thread, so that reading many files never allocates buffers for every file.
+ * Line terminators are converted into a line feed, and a line feed is appended to the last line if it lacks.
  * @author Katsuhisa Maruyama
  */
 public class FileReader {
     
+    /**
+     * The maximum size of a buffer kept in the pool. A buffer larger than this is discarded after use.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+    
+    /**
+     * The byte buffers pooled for respective threads.
+     */
+    private static ThreadLocal<ByteBuffer> byteBuffers = new ThreadLocal<ByteBuffer>();
+    
+    /**
+     * The character buffers pooled for respective threads.
+     */
+    private static ThreadLocal<CharBuffer> charBuffers = new ThreadLocal<CharBuffer>();
+    
     /**
      * Reads a file and returns its textual contents.
      * @param name the name of a file to be read
@@ -27,8 +52,8 @@ public class FileReader {
      */
     public static String read(String name) throws FileNotFoundException, IOException {
         return read(new File(name));
-    }            
-
+    }
+    
     /**
      * Reads a file and returns its textual contents.
      * @param name the name of a file to be read
@@ -37,24 +62,24 @@ public class FileReader {
      * @throws FileNotFoundException if the file does not exist or cannot be opened for reading
      * @throws IOException if an I/O error occurred
      * @throws UnsupportedEncodingException if the character-set is not supported
-     * 
+     *
      */
     public static String read(String name, String charsetName) throws FileNotFoundException, IOException,
                                                                       UnsupportedEncodingException {
         return read(new File(name), charsetName);
     }
-
+    
     /**
-     * Reads a file and returns its textual contents.
+     * Reads a file and returns its textual contents. The character-set of the file is detected from its contents.
      * @param file the file to be read
      * @return the textual contents of the read file
      * @throws FileNotFoundException if the file does not exist or cannot be opened for reading
      * @throws IOException if an I/O error occurred
      */
     public static String read(File file) throws FileNotFoundException, IOException {
-        return read(new InputStreamReader(new FileInputStream(file)));
+        return new String(readChars(file));
     }
-            
+    
     /**
      * Reads a file and returns its textual contents.
      * @param file the file to be read
@@ -63,32 +88,170 @@ public class FileReader {
      * @throws FileNotFoundException if the file does not exist or cannot be opened for reading
      * @throws IOException if an I/O error occurred
      * @throws UnsupportedEncodingException if the character-set is not supported
-     * 
+     *
      */
     public static String read(File file, String charsetName) throws FileNotFoundException, IOException,
                                                                     UnsupportedEncodingException {
-        return read(new InputStreamReader(new FileInputStream(file), charsetName));
+        return new String(decode(readBytes(file), getCharset(charsetName)));
     }
     
     /**
-     * Reads a file and returns its textual contents through a given reader.
-     * @param reader the reader for the read file
-     * @return the textual contents of the read file
+     * Reads a file and returns its textual contents as an array of characters.
+     * The character-set of the file is detected from its contents.
+     * @param file the file to be read
+     * @return the characters of the read file
+     * @throws FileNotFoundException if the file does not exist or cannot be opened for reading
      * @throws IOException if an I/O error occurred
+     */
+    public static char[] readChars(File file) throws FileNotFoundException, IOException {
+        ByteBuffer bytes = readBytes(file);
+        return decode(bytes, DetectCharset.getCharsetName(bytes));
+    }
+    
+    /**
+     * Reads all the bytes of a file into the byte buffer pooled for the calling thread.
+     * The returned buffer is overwritten when the thread reads another file.
+     * @param file the file to be read
+     * @return the buffer whose remaining bytes are the contents of the file
+     * @throws FileNotFoundException if the file does not exist or cannot be opened for reading
+     * @throws IOException if an I/O error occurred
+     */
+    public static ByteBuffer readBytes(File file) throws FileNotFoundException, IOException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("too large file: " + file.getPath());
+            }
+            
+            ByteBuffer buf = getByteBuffer((int)size);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0) {
+                    break;
+                }
+            }
+            buf.flip();
+            return buf;
+        } finally {
+            fis.close();
+        }
+    }
+    
+    /**
+     * Decodes bytes into characters.
+     * @param bytes the buffer whose remaining bytes are decoded
+     * @param charsetName the name of the character-set of the bytes
+     * @return the array of the decoded characters, whose length equals to the number of the characters
+     */
+    public static char[] decode(ByteBuffer bytes, String charsetName) {
+        Charset charset;
+        try {
+            charset = getCharset(charsetName);
+        } catch (UnsupportedEncodingException e) {
+            charset = Charset.defaultCharset();
+        }
+        return decode(bytes, charset);
+    }
+    
+    /**
+     * Decodes bytes into characters. Malformed or unmappable bytes are replaced with the replacement character.
+     * @param bytes the buffer whose remaining bytes are decoded
+     * @param charset the character-set of the bytes
+     * @return the array of the decoded characters, whose length equals to the number of the characters
+     */
+    private static char[] decode(ByteBuffer bytes, Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE);
+        decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+        
+        CharBuffer chars = getCharBuffer((int)(bytes.remaining() * (double)decoder.maxCharsPerByte()) + 1);
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        
+        return normalizeLines(chars.array(), chars.position());
+    }
+    
+    /**
+     * Converts line terminators into a line feed and appends a line feed to the last line if it lacks.
+     * The characters are converted in place.
+     * @param chars the array storing the characters, which has room for a character to be appended
+     * @param len the number of the characters
+     * @return the array of the converted characters, whose length equals to the number of the characters
+     */
+    private static char[] normalizeLines(char[] chars, int len) {
+        int size = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = chars[i];
+            if (ch == '\r') {
+                if (i + 1 < len && chars[i + 1] == '\n') {
+                    continue;
+                }
+                ch = '\n';
+            }
+            chars[size] = ch;
+            size++;
+        }
+        
+        if (size > 0 && chars[size - 1] != '\n') {
+            chars[size] = '\n';
+            size++;
+        }
+        return Arrays.copyOf(chars, size);
+    }
+    
+    /**
+     * Obtains a character-set.
+     * @param charsetName the name of the character-set
+     * @return the character-set
      * @throws UnsupportedEncodingException if the character-set is not supported
      */
-    private static String read(Reader reader) throws IOException, UnsupportedEncodingException {
-        StringBuffer content = new StringBuffer();
-        BufferedReader breader = new BufferedReader(reader);
+    private static Charset getCharset(String charsetName) throws UnsupportedEncodingException {
+        if (charsetName == null) {
+            return Charset.defaultCharset();
+        }
         
-        while (breader.ready()) {
-            String oneLineString = breader.readLine();
-            if (oneLineString == null) {
-                break;
+        try {
+            return Charset.forName(charsetName);
+        } catch (IllegalCharsetNameException e) {
+            throw new UnsupportedEncodingException(charsetName);
+        } catch (UnsupportedCharsetException e) {
+            throw new UnsupportedEncodingException(charsetName);
+        }
+    }
+    
+    /**
+     * Obtains the byte buffer pooled for the calling thread.
+     * @param size the number of bytes to be stored
+     * @return the cleared buffer whose limit is the given size
+     */
+    private static ByteBuffer getByteBuffer(int size) {
+        ByteBuffer buf = byteBuffers.get();
+        if (buf == null || buf.capacity() < size) {
+            buf = ByteBuffer.allocate(Math.max(size, 8192));
+            if (buf.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                byteBuffers.set(buf);
+            }
+        }
+        buf.clear();
+        buf.limit(size);
+        return buf;
+    }
+    
+    /**
+     * Obtains the character buffer pooled for the calling thread.
+     * @param size the number of characters to be stored
+     * @return the cleared buffer
+     */
+    private static CharBuffer getCharBuffer(int size) {
+        CharBuffer buf = charBuffers.get();
+        if (buf == null || buf.capacity() < size) {
+            buf = CharBuffer.allocate(Math.max(size, 8192));
+            if (buf.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                charBuffers.set(buf);
             }
-            content.append(oneLineString + "\n");
         }
-        breader.close();
-        return new String(content);
+        buf.clear();
+        return buf;
     }
 }
@@ -0,0 +1,435 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.apache.log4j.Logger;
+
+/**
+ * Finds source files under a directory. Directories are listed in parallel, and every file found is handed over to
+ * a listener at once, so that the files can be parsed while the rest of the tree is still being listed.
+ * Files and directories are selected by glob patterns, which are matched against either their paths relative to
+ * the top directory or their names. An excluded directory is never listed.
+ * Symbolic links are followed unless requested otherwise, and a directory reached by several paths, including
+ * a cycle of links, is listed only once.
+ * @author Katsuhisa Maruyama
+ */
+public class SourceFinder {
+    
+    static Logger logger = Logger.getLogger(SourceFinder.class.getName());
+    
+    /**
+     * The top directory under which source files are found.
+     */
+    private Path top;
+    
+    /**
+     * The patterns of the files to be included.
+     */
+    private List<PathMatcher> includes = new ArrayList<PathMatcher>();
+    
+    /**
+     * The patterns of the files and directories to be excluded.
+     */
+    private List<PathMatcher> excludes = new ArrayList<PathMatcher>();
+    
+    /**
+     * The number of threads that list directories.
+     */
+    private int numOfThreads = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * A flag that requests the detection of source roots.
+     */
+    private boolean detectsSourceRoots = false;
+    
+    /**
+     * A flag that requests to follow symbolic links.
+     */
+    private boolean followsLinks = true;
+    
+    /**
+     * The real paths of the directories and the targets of linked files that were visited.
+     */
+    private Set<Path> visited = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+    
+    /**
+     * The paths of the detected source roots.
+     */
+    private Set<String> sourceRoots = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    /**
+     * A flag indicating that the search was canceled.
+     */
+    private volatile boolean canceled = false;
+    
+    /**
+     * Creates an object that finds source files.
+     * @param top the path of the top directory, or the path of a file if only the file is examined
+     */
+    public SourceFinder(String top) {
+        this.top = Paths.get(top).toAbsolutePath();
+    }
+    
+    /**
+     * Adds a glob pattern of files to be included. Files whose names end with ".java" are included if no pattern is added.
+     * @param pattern the glob pattern
+     */
+    public void addInclude(String pattern) {
+        includes.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+    }
+    
+    /**
+     * Adds a glob pattern of files and directories to be excluded, for example, <code>target</code> or
+     * <code>**&#47;generated&#47;**</code>.
+     * @param pattern the glob pattern
+     */
+    public void addExclude(String pattern) {
+        excludes.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+    }
+    
+    /**
+     * Sets the number of threads that list directories.
+     * @param num the number of the threads, which must be one or more
+     */
+    public void setNumOfThreads(int num) {
+        if (num > 0) {
+            numOfThreads = num;
+        }
+    }
+    
+    /**
+     * Requests the detection of source roots. The package declaration of a file in each directory is examined,
+     * and the directory that corresponds to the default package is recorded as a source root.
+     * @param bool <code>true</code> if the detection is wanted, otherwise <code>false</code>
+     */
+    public void setSourceRootDetection(boolean bool) {
+        detectsSourceRoots = bool;
+    }
+    
+    /**
+     * Requests to follow symbolic links to directories and files.
+     * @param bool <code>true</code> if the links are followed, otherwise <code>false</code>
+     */
+    public void setSymbolicLinkFollowing(boolean bool) {
+        followsLinks = bool;
+    }
+    
+    /**
+     * Returns the detected source roots.
+     * @return the paths of the source roots, which is empty if the detection was not requested
+     */
+    public Set<String> getSourceRoots() {
+        return sourceRoots;
+    }
+    
+    /**
+     * Cancels the search in progress. Directories that have not been listed yet are skipped.
+     */
+    public void cancel() {
+        canceled = true;
+    }
+    
+    /**
+     * Finds all the source files.
+     * @return the collection of the found files
+     */
+    public Set<File> findAll() {
+        final Set<File> files = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+        find(new Listener() {
+            public void found(File file) {
+                files.add(file);
+            }
+        });
+        return files;
+    }
+    
+    /**
+     * Finds source files and notifies a listener of each of them. This method returns when the search is completed.
+     * @param listener the listener that is called concurrently by the threads listing directories
+     */
+    public void find(Listener listener) {
+        canceled = false;
+        sourceRoots.clear();
+        visited.clear();
+        
+        long start = System.currentTimeMillis();
+        if (Files.isRegularFile(top)) {
+            if (top.toString().endsWith(".java")) {
+                listener.found(top.toFile());
+            }
+        } else if (Files.isDirectory(top) && isFirstVisit(top)) {
+            ForkJoinPool pool = new ForkJoinPool(numOfThreads);
+            try {
+                pool.invoke(new DirectoryTask(top, listener));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        logger.debug("listed " + top + ": " + (System.currentTimeMillis() - start) + "ms");
+    }
+    
+    /**
+     * Records the visit to a directory or a linked file, which is identified by its real path.
+     * @param path the path of the directory or the file
+     * @return <code>true</code> if it has not been visited yet, otherwise <code>false</code>
+     */
+    private boolean isFirstVisit(Path path) {
+        try {
+            return visited.add(path.toRealPath());
+        } catch (IOException e) {
+            logger.debug("cannot resolve " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Tests if a symbolic link to a file should be reported. A link to a file under the top directory is not reported,
+     * since the file itself is found, and the files outside the top directory are reported only once.
+     * @param path the path of the link
+     * @return <code>true</code> if the link should be reported, otherwise <code>false</code>
+     */
+    private boolean isFirstLinkedFile(Path path) {
+        try {
+            Path target = path.toRealPath();
+            return !target.startsWith(top.toRealPath()) && visited.add(target);
+        } catch (IOException e) {
+            logger.debug("cannot resolve " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Reads the attributes of a file, which are those of the target if the file is a symbolic link to be followed.
+     * @param path the path of the file
+     * @return the attributes of the file, or <code>null</code> if the file is a broken link or cannot be read
+     */
+    private BasicFileAttributes readAttributes(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (attrs.isSymbolicLink() && followsLinks) {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            return attrs;
+        } catch (IOException e) {
+            logger.debug("cannot read " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Tests if a file is included.
+     * @param path the path of the file
+     * @return <code>true</code> if the file is included, otherwise <code>false</code>
+     */
+    private boolean isIncluded(Path path) {
+        if (isExcluded(path)) {
+            return false;
+        }
+        
+        Path rel = top.relativize(path);
+        if (includes.isEmpty()) {
+            return path.getFileName().toString().endsWith(".java");
+        }
+        for (PathMatcher matcher : includes) {
+            if (matcher.matches(rel) || matcher.matches(path.getFileName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if a file or a directory is excluded.
+     * @param path the path of the file or the directory
+     * @return <code>true</code> if the file or the directory is excluded, otherwise <code>false</code>
+     */
+    private boolean isExcluded(Path path) {
+        Path rel = top.relativize(path);
+        for (PathMatcher matcher : excludes) {
+            if (matcher.matches(rel) || matcher.matches(path.getFileName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Records the source root of a directory from the package declaration of a file in the directory.
+     * @param dir the directory
+     * @param file the file in the directory
+     */
+    private void detectSourceRoot(Path dir, Path file) {
+        try {
+            String pname = getPackageName(FileReader.readChars(file.toFile()));
+            Path root = dir;
+            if (pname.length() > 0) {
+                String[] names = pname.split("\\.");
+                for (int i = names.length - 1; i >= 0; i--) {
+                    if (root == null || root.getFileName() == null || !root.getFileName().toString().equals(names[i])) {
+                        return;
+                    }
+                    root = root.getParent();
+                }
+            }
+            if (root != null) {
+                sourceRoots.add(root.toString());
+            }
+        } catch (IOException e) {
+            logger.debug("cannot read " + file + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Obtains the name of the package declared in source code.
+     * @param chars the characters of the source code
+     * @return the name of the package, or the empty string if the code declares no package
+     */
+    static String getPackageName(char[] chars) {
+        int pos = skipSpacesAndComments(chars, 0);
+        String keyword = "package";
+        if (pos + keyword.length() >= chars.length || !new String(chars, pos, keyword.length()).equals(keyword) ||
+            Character.isJavaIdentifierPart(chars[pos + keyword.length()])) {
+            return "";
+        }
+        
+        StringBuffer buf = new StringBuffer();
+        pos = pos + keyword.length();
+        while (pos < chars.length) {
+            pos = skipSpacesAndComments(chars, pos);
+            if (pos >= chars.length || chars[pos] == ';') {
+                break;
+            }
+            buf.append(chars[pos]);
+            pos++;
+        }
+        return buf.toString();
+    }
+    
+    /**
+     * Skips white spaces and comments.
+     * @param chars the characters of source code
+     * @param pos the position from which characters are skipped
+     * @return the position of the first character that is neither a white space nor in a comment
+     */
+    private static int skipSpacesAndComments(char[] chars, int pos) {
+        while (pos < chars.length) {
+            if (Character.isWhitespace(chars[pos])) {
+                pos++;
+            } else if (chars[pos] == '/' && pos + 1 < chars.length && chars[pos + 1] == '/') {
+                while (pos < chars.length && chars[pos] != '\n') {
+                    pos++;
+                }
+            } else if (chars[pos] == '/' && pos + 1 < chars.length && chars[pos + 1] == '*') {
+                pos = pos + 2;
+                while (pos + 1 < chars.length && !(chars[pos] == '*' && chars[pos + 1] == '/')) {
+                    pos++;
+                }
+                pos = pos + 2;
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+    
+    /**
+     * A listener that receives source files found.
+     */
+    public interface Listener {
+        
+        /**
+         * Receives a source file found. This method is called concurrently by the threads listing directories.
+         * @param file the found file
+         */
+        public void found(File file);
+    }
+    
+    /**
+     * A task that lists a directory and forks the tasks for its subdirectories.
+     */
+    private class DirectoryTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * The directory to be listed.
+         */
+        private Path dir;
+        
+        /**
+         * The listener that receives source files found.
+         */
+        private Listener listener;
+        
+        /**
+         * Creates a task that lists a directory.
+         * @param dir the directory
+         * @param listener the listener that receives source files found
+         */
+        DirectoryTask(Path dir, Listener listener) {
+            this.dir = dir;
+            this.listener = listener;
+        }
+        
+        /**
+         * Lists the directory, notifies the listener of the source files in it, and lists its subdirectories in parallel.
+         */
+        protected void compute() {
+            if (canceled) {
+                return;
+            }
+            
+            List<DirectoryTask> tasks = new ArrayList<DirectoryTask>();
+            boolean first = true;
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    for (Path path : stream) {
+                        BasicFileAttributes attrs = readAttributes(path);
+                        if (attrs == null) {
+                            continue;
+                        }
+                        
+                        if (attrs.isDirectory()) {
+                            if (!isExcluded(path) && (!followsLinks || isFirstVisit(path))) {
+                                tasks.add(new DirectoryTask(path, listener));
+                            }
+                        } else if (attrs.isRegularFile() && isIncluded(path) &&
+                                   (!Files.isSymbolicLink(path) || isFirstLinkedFile(path))) {
+                            if (first && detectsSourceRoots) {
+                                detectSourceRoot(dir, path);
+                            }
+                            first = false;
+                            listener.found(path.toFile());
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                logger.debug("cannot list " + dir + ": " + e.getMessage());
+            }
+            
+            invokeAll(tasks);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A session that owns the whole mutable state of an analysis, such as the caches of projects and classes,
+ * the symbol table, the counters for identification numbers, and the caches of CFGs and PDGs.
+ * Every class that has such state stores it into the session that is current for the calling thread,
+ * so that several projects or several snapshots of a project can be analyzed concurrently in a virtual machine.
+ * A thread without its own session uses the default session shared by the whole virtual machine.
+ * @author Katsuhisa Maruyama
+ */
+public class AnalysisSession {
+    
+    /**
+     * The session shared by threads that are not bound to any session.
+     */
+    private static final AnalysisSession defaultSession = new AnalysisSession("default");
+    
+    /**
+     * The sessions bound to threads.
+     */
+    private static final ThreadLocal<AnalysisSession> current = new ThreadLocal<AnalysisSession>();
+    
+    /**
+     * The name of this session.
+     */
+    private String name;
+    
+    /**
+     * The state objects of this session, keyed by the classes owning them.
+     */
+    private ConcurrentHashMap<Object, Object> states = new ConcurrentHashMap<Object, Object>();
+    
+    /**
+     * Creates a new session.
+     * @param name the name of the session
+     */
+    public AnalysisSession(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Returns the name of this session.
+     * @return the name of the session
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns the default session shared by threads that are not bound to any session.
+     * @return the default session
+     */
+    public static AnalysisSession getDefault() {
+        return defaultSession;
+    }
+    
+    /**
+     * Returns the session bound to the calling thread.
+     * @return the bound session, or the default session if the thread is not bound to any session
+     */
+    public static AnalysisSession getCurrent() {
+        AnalysisSession session = current.get();
+        if (session != null) {
+            return session;
+        }
+        return defaultSession;
+    }
+    
+    /**
+     * Binds a session to the calling thread.
+     * @param session the session to be bound, or <code>null</code> if the thread uses the default session
+     * @return the session that was bound to the thread before
+     */
+    public static AnalysisSession setCurrent(AnalysisSession session) {
+        AnalysisSession old = getCurrent();
+        if (session != null && session != defaultSession) {
+            current.set(session);
+        } else {
+            current.remove();
+        }
+        return old;
+    }
+    
+    /**
+     * Returns the state object owned by a given class.
+     * @param key the class owning the state object
+     * @return the state object, or <code>null</code> if the class has no state object in this session
+     */
+    public Object getState(Object key) {
+        return states.get(key);
+    }
+    
+    /**
+     * Stores the state object owned by a given class unless the class already has a state object in this session.
+     * @param key the class owning the state object
+     * @param state the state object to be stored
+     * @return the state object stored in this session
+     */
+    public Object addState(Object key, Object state) {
+        Object old = states.putIfAbsent(key, state);
+        if (old != null) {
+            return old;
+        }
+        return state;
+    }
+    
+    /**
+     * Replaces the state object owned by a given class.
+     * @param key the class owning the state object
+     * @param state the new state object
+     */
+    public void setState(Object key, Object state) {
+        states.put(key, state);
+    }
+    
+    /**
+     * Discards all the state objects of this session.
+     */
+    public void clear() {
+        states.clear();
+    }
+    
+    /**
+     * Returns a task that runs a given task within this session.
+     * This is used to hand over the session to worker threads.
+     * @param task the task to be run
+     * @return the task bound to this session
+     */
+    public Runnable bind(final Runnable task) {
+        final AnalysisSession session = this;
+        return new Runnable() {
+            public void run() {
+                AnalysisSession old = setCurrent(session);
+                try {
+                    task.run();
+                } finally {
+                    setCurrent(old);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Returns a task that runs a given task within this session.
+     * This is used to hand over the session to worker threads.
+     * @param task the task to be run
+     * @return the task bound to this session
+     */
+    public <V> Callable<V> bind(final Callable<V> task) {
+        final AnalysisSession session = this;
+        return new Callable<V>() {
+            public V call() throws Exception {
+                AnalysisSession old = setCurrent(session);
+                try {
+                    return task.call();
+                } finally {
+                    setCurrent(old);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Returns the string representation of this session.
+     * @return the name of this session
+     */
+    public String toString() {
+        return "session " + name;
+    }
+}
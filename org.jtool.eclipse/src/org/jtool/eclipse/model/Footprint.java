@@ -0,0 +1,864 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model;
+
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.graph.Graph;
+import org.jtool.eclipse.model.graph.GraphEdge;
+import org.jtool.eclipse.model.graph.GraphElement;
+import org.jtool.eclipse.model.graph.GraphNode;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaElement;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaFile;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaPackage;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.pdg.PDG;
+import org.jtool.eclipse.model.pdg.SDG;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.log4j.Logger;
+
+/**
+ * Estimates the heap bytes retained by the Java models and the graphs, for each type of elements and for each structure
+ * held by the elements. The bytes of an element are the bytes of the element itself and of the objects that only
+ * the element holds, such as its collections, strings, and arrays. The elements it refers to, such as the nodes
+ * adjacent to a node or the method containing it, are accounted as separate elements. The structures are
+ * the fields of the elements, for example, <code>GraphNode.incomingEdges</code> or <code>CFGDefUseNode.defs</code>.
+ * The ASTs retained by the Java models are accounted separately.
+ * The sizes are estimated from the declared fields and the typical layout of a 64-bit virtual machine, and are not
+ * the exact sizes that a heap dump shows. An object shared by several elements is accounted only once.
+ * @author Katsuhisa Maruyama
+ */
+public class Footprint {
+    
+    static Logger logger = Logger.getLogger(Footprint.class.getName());
+    
+    /**
+     * The name of the type under which the nodes of the retained ASTs are accounted.
+     */
+    public static final String AST_TYPE = "ASTNode";
+    
+    /**
+     * A flag indicating that object references are compressed.
+     */
+    private static final boolean COMPRESSED_OOPS = isCompressedOops();
+    
+    /**
+     * The bytes of the header of an object.
+     */
+    private static final int HEADER_SIZE = COMPRESSED_OOPS ? 12 : 16;
+    
+    /**
+     * The bytes of the header of an array.
+     */
+    private static final int ARRAY_HEADER_SIZE = COMPRESSED_OOPS ? 16 : 24;
+    
+    /**
+     * The bytes of an object reference.
+     */
+    private static final int REFERENCE_SIZE = COMPRESSED_OOPS ? 4 : 8;
+    
+    /**
+     * The bytes of an entry of a hash map.
+     */
+    private static final long HASH_ENTRY_SIZE = align(HEADER_SIZE + 4 + 3 * REFERENCE_SIZE);
+    
+    /**
+     * The bytes of an entry of a linked hash map.
+     */
+    private static final long LINKED_HASH_ENTRY_SIZE = align(HEADER_SIZE + 4 + 5 * REFERENCE_SIZE);
+    
+    /**
+     * The bytes of an entry of a tree map.
+     */
+    private static final long TREE_ENTRY_SIZE = align(HEADER_SIZE + 1 + 5 * REFERENCE_SIZE);
+    
+    /**
+     * A flag indicating that a string stores Latin-1 characters in a byte each.
+     */
+    private static final boolean COMPACT_STRINGS = hasField(String.class, "coder");
+    
+    /**
+     * The layouts of the classes examined so far, which are shared by all footprints.
+     */
+    private static ConcurrentHashMap<Class<?>, Layout> layouts = new ConcurrentHashMap<Class<?>, Layout>();
+    
+    /**
+     * The objects that have been accounted.
+     */
+    private Map<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+    
+    /**
+     * The records of the element types, keyed by their classes.
+     */
+    private Map<Class<?>, Record> records = new HashMap<Class<?>, Record>();
+    
+    /**
+     * The record of the nodes of the retained ASTs.
+     */
+    private Record astRecord = new Record(AST_TYPE);
+    
+    /**
+     * The structures held by the elements, keyed by their names.
+     */
+    private Map<String, Structure> structures = new HashMap<String, Structure>();
+    
+    /**
+     * The roots of the ASTs that have been accounted.
+     */
+    private Set<ASTNode> astRoots = Collections.newSetFromMap(new IdentityHashMap<ASTNode, Boolean>());
+    
+    /**
+     * Creates an empty footprint.
+     */
+    public Footprint() {
+    }
+    
+    /**
+     * Accounts a project with its packages, files, classes, methods, fields, and the ASTs they retain.
+     * @param jproject the project
+     */
+    public void add(JavaProject jproject) {
+        addElement(jproject);
+        for (JavaPackage jpackage : jproject.getJavaPackages()) {
+            addElement(jpackage);
+        }
+        for (JavaFile jfile : jproject.getJavaFiles()) {
+            addElement(jfile);
+        }
+        for (JavaClass jc : jproject.getJavaClasses()) {
+            add(jc);
+        }
+    }
+    
+    /**
+     * Accounts a class with its methods, fields, and the ASTs they retain.
+     * @param jc the class
+     */
+    public void add(JavaClass jc) {
+        addElement(jc);
+        addAST(jc);
+        for (JavaMethod jm : jc.getJavaMethods()) {
+            addElement(jm);
+            addAST(jm);
+        }
+        for (JavaField jf : jc.getJavaFields()) {
+            addElement(jf);
+            addAST(jf);
+        }
+    }
+    
+    /**
+     * Accounts a CFG with its nodes and edges.
+     * @param cfg the CFG
+     */
+    public void add(CFG cfg) {
+        addGraph(cfg);
+    }
+    
+    /**
+     * Accounts a PDG with its nodes and edges. The CFG of the PDG is not accounted.
+     * @param pdg the PDG
+     */
+    public void add(PDG pdg) {
+        addGraph(pdg);
+    }
+    
+    /**
+     * Accounts an SDG with the PDGs it contains and the edges connecting them. The CFGs of the PDGs are not accounted.
+     * @param sdg the SDG
+     */
+    public void add(SDG sdg) {
+        for (PDG pdg : sdg.getPDGs()) {
+            addGraph(pdg);
+        }
+        addGraph(sdg);
+    }
+    
+    /**
+     * Accounts a graph with its nodes and edges.
+     * @param graph the graph
+     */
+    private void addGraph(Graph<? extends GraphNode, ? extends GraphEdge> graph) {
+        if (graph == null) {
+            return;
+        }
+        
+        addElement(graph);
+        for (GraphNode node : graph.getNodes()) {
+            addElement(node);
+        }
+        for (GraphEdge edge : graph.getEdges()) {
+            addElement(edge);
+        }
+    }
+    
+    /**
+     * Accounts an element and the objects that only the element holds.
+     * @param elem the element
+     */
+    private void addElement(Object elem) {
+        if (elem == null || visited.containsKey(elem)) {
+            return;
+        }
+        visited.put(elem, Boolean.TRUE);
+        
+        Layout layout = getLayout(elem.getClass());
+        long retained = layout.size;
+        for (Field field : layout.references) {
+            Object value = getValue(field, elem);
+            long bytes = sizeOf(value);
+            if (bytes > 0) {
+                retained = retained + bytes;
+                
+                String name = field.getDeclaringClass().getSimpleName() + "." + field.getName();
+                Structure structure = structures.get(name);
+                if (structure == null) {
+                    structure = new Structure(name);
+                    structures.put(name, structure);
+                }
+                structure.add(bytes);
+            }
+        }
+        
+        Record record = records.get(elem.getClass());
+        if (record == null) {
+            record = new Record(elem.getClass().getSimpleName());
+            records.put(elem.getClass(), record);
+        }
+        record.add(layout.size, retained);
+    }
+    
+    /**
+     * Accounts the AST retained by an element.
+     * @param jelem the element
+     */
+    private void addAST(JavaElement jelem) {
+        ASTNode node = jelem.getASTNode();
+        if (node == null || !astRoots.add(node.getRoot())) {
+            return;
+        }
+        
+        final long[] total = new long[2];
+        node.getRoot().accept(new ASTVisitor(true) {
+            public boolean preVisit2(ASTNode n) {
+                total[0]++;
+                total[1] = total[1] + getLayout(n.getClass()).size;
+                return true;
+            }
+        });
+        
+        astRecord.instances = astRecord.instances + total[0];
+        astRecord.shallowBytes = astRecord.shallowBytes + total[1];
+        astRecord.retainedBytes = astRecord.retainedBytes + total[1];
+    }
+    
+    /**
+     * Estimates the bytes of an object and of the objects it holds, excluding the elements accounted separately.
+     * @param obj the object
+     * @return the number of the bytes
+     */
+    private long sizeOf(Object obj) {
+        if (obj == null || isBoundary(obj) || visited.containsKey(obj)) {
+            return 0;
+        }
+        visited.put(obj, Boolean.TRUE);
+        
+        Class<?> clazz = obj.getClass();
+        if (clazz.isArray()) {
+            return sizeOfArray(obj);
+        }
+        if (obj instanceof String) {
+            int len = ((String)obj).length();
+            return getLayout(clazz).size + align(ARRAY_HEADER_SIZE + (long)len * (COMPACT_STRINGS ? 1 : 2));
+        }
+        if (obj instanceof Collection) {
+            return sizeOfCollection((Collection<?>)obj);
+        }
+        if (obj instanceof Map) {
+            return sizeOfMap((Map<?, ?>)obj);
+        }
+        
+        Layout layout = getLayout(clazz);
+        long bytes = layout.size;
+        for (Field field : layout.references) {
+            bytes = bytes + sizeOf(getValue(field, obj));
+        }
+        return bytes;
+    }
+    
+    /**
+     * Estimates the bytes of an array and of the objects it holds.
+     * @param array the array
+     * @return the number of the bytes
+     */
+    private long sizeOfArray(Object array) {
+        Class<?> type = array.getClass().getComponentType();
+        int len = Array.getLength(array);
+        if (type.isPrimitive()) {
+            return align(ARRAY_HEADER_SIZE + (long)len * getPrimitiveSize(type));
+        }
+        
+        long bytes = align(ARRAY_HEADER_SIZE + (long)len * REFERENCE_SIZE);
+        Object[] elems = (Object[])array;
+        for (Object elem : elems) {
+            bytes = bytes + sizeOf(elem);
+        }
+        return bytes;
+    }
+    
+    /**
+     * Estimates the bytes of a collection and of the objects it holds.
+     * A set is assumed to be backed by a map, and a list by an array.
+     * @param collection the collection
+     * @return the number of the bytes
+     */
+    private long sizeOfCollection(Collection<?> collection) {
+        int size = collection.size();
+        long bytes = getLayout(collection.getClass()).size;
+        if (collection instanceof SortedSet) {
+            bytes = bytes + HEADER_SIZE + 2 * REFERENCE_SIZE + 8 + size * TREE_ENTRY_SIZE;
+        } else if (collection instanceof Set) {
+            bytes = bytes + getLayout(HashMap.class).size + getTableSize(size);
+            if (collection instanceof LinkedHashSet) {
+                bytes = bytes + size * LINKED_HASH_ENTRY_SIZE;
+            } else {
+                bytes = bytes + size * HASH_ENTRY_SIZE;
+            }
+        } else {
+            bytes = bytes + (size > 0 ? align(ARRAY_HEADER_SIZE + (long)Math.max(size, 10) * REFERENCE_SIZE) : 0);
+        }
+        
+        for (Object elem : collection.toArray()) {
+            bytes = bytes + sizeOf(elem);
+        }
+        return bytes;
+    }
+    
+    /**
+     * Estimates the bytes of a map and of the objects it holds.
+     * @param map the map
+     * @return the number of the bytes
+     */
+    private long sizeOfMap(Map<?, ?> map) {
+        int size = map.size();
+        long bytes = getLayout(map.getClass()).size;
+        if (map instanceof SortedMap) {
+            bytes = bytes + size * TREE_ENTRY_SIZE;
+        } else if (map instanceof LinkedHashMap) {
+            bytes = bytes + getTableSize(size) + size * LINKED_HASH_ENTRY_SIZE;
+        } else {
+            bytes = bytes + getTableSize(size) + size * HASH_ENTRY_SIZE;
+        }
+        
+        for (Map.Entry<?, ?> entry : new ArrayList<Map.Entry<?, ?>>(map.entrySet())) {
+            bytes = bytes + sizeOf(entry.getKey()) + sizeOf(entry.getValue());
+        }
+        return bytes;
+    }
+    
+    /**
+     * Estimates the bytes of the table of a hash map.
+     * @param size the number of the entries of the map
+     * @return the number of the bytes, which is <code>0</code> if the map is empty
+     */
+    private static long getTableSize(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        
+        long capacity = 16;
+        while (capacity * 3 / 4 < size) {
+            capacity = capacity * 2;
+        }
+        return align(ARRAY_HEADER_SIZE + capacity * REFERENCE_SIZE);
+    }
+    
+    /**
+     * Tests if an object is excluded from the bytes of the element holding it.
+     * Elements accounted separately, AST nodes, objects of the platform, and objects shared by the virtual machine are excluded.
+     * @param obj the object
+     * @return <code>true</code> if the object is excluded, otherwise <code>false</code>
+     */
+    private static boolean isBoundary(Object obj) {
+        if (obj instanceof GraphElement || obj instanceof Graph || obj instanceof JavaClass || obj instanceof JavaMethod ||
+            obj instanceof JavaField || obj instanceof JavaFile || obj instanceof JavaPackage || obj instanceof JavaProject ||
+            obj instanceof AnalysisSession) {
+            return true;
+        }
+        if (obj instanceof Class || obj instanceof Enum || obj instanceof Thread || obj instanceof ClassLoader ||
+            obj instanceof Logger || obj instanceof Reference) {
+            return true;
+        }
+        return obj.getClass().getName().startsWith("org.eclipse.");
+    }
+    
+    /**
+     * Obtains the value of a field of an object.
+     * @param field the field
+     * @param obj the object
+     * @return the value of the field, or <code>null</code> if the field cannot be read
+     */
+    private static Object getValue(Field field, Object obj) {
+        try {
+            return field.get(obj);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Obtains the layout of a class.
+     * @param clazz the class
+     * @return the layout of the class
+     */
+    private static Layout getLayout(Class<?> clazz) {
+        Layout layout = layouts.get(clazz);
+        if (layout == null) {
+            layout = new Layout(clazz);
+            layouts.put(clazz, layout);
+        }
+        return layout;
+    }
+    
+    /**
+     * Returns the bytes of a primitive value.
+     * @param type the primitive type
+     * @return the number of the bytes
+     */
+    private static int getPrimitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+    
+    /**
+     * Rounds up the bytes of an object to the alignment of objects.
+     * @param bytes the number of the bytes
+     * @return the aligned number of the bytes
+     */
+    private static long align(long bytes) {
+        return (bytes + 7) / 8 * 8;
+    }
+    
+    /**
+     * Tests if the virtual machine compresses object references.
+     * @return <code>true</code> if the references are compressed, otherwise <code>false</code>
+     */
+    private static boolean isCompressedOops() {
+        if (!"64".equals(System.getProperty("sun.arch.data.model"))) {
+            return true;
+        }
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (arg.equals("-XX:-UseCompressedOops")) {
+                return false;
+            }
+        }
+        return Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024;
+    }
+    
+    /**
+     * Tests if a class declares a field.
+     * @param clazz the class
+     * @param name the name of the field
+     * @return <code>true</code> if the class declares the field, otherwise <code>false</code>
+     */
+    private static boolean hasField(Class<?> clazz, String name) {
+        try {
+            clazz.getDeclaredField(name);
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the records of the element types.
+     * @return the collection of the records in descending order of the retained bytes
+     */
+    public List<Record> getRecords() {
+        List<Record> list = new ArrayList<Record>(records.values());
+        if (astRecord.instances > 0) {
+            list.add(astRecord);
+        }
+        Collections.sort(list, new Comparator<Record>() {
+            public int compare(Record r1, Record r2) {
+                return Long.compare(r2.retainedBytes, r1.retainedBytes);
+            }
+        });
+        return list;
+    }
+    
+    /**
+     * Returns the structures held by the elements.
+     * @return the collection of the structures in descending order of the bytes
+     */
+    public List<Structure> getStructures() {
+        List<Structure> list = new ArrayList<Structure>(structures.values());
+        Collections.sort(list, new Comparator<Structure>() {
+            public int compare(Structure s1, Structure s2) {
+                return Long.compare(s2.bytes, s1.bytes);
+            }
+        });
+        return list;
+    }
+    
+    /**
+     * Returns the number of the accounted elements of a type.
+     * @param type the class of the elements, which includes its subclasses
+     * @return the number of the elements
+     */
+    public long getInstances(Class<?> type) {
+        long num = 0;
+        for (Map.Entry<Class<?>, Record> entry : records.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                num = num + entry.getValue().instances;
+            }
+        }
+        return num;
+    }
+    
+    /**
+     * Returns the bytes retained by the accounted elements of a type.
+     * @param type the class of the elements, which includes its subclasses
+     * @return the number of the bytes
+     */
+    public long getRetainedBytes(Class<?> type) {
+        long bytes = 0;
+        for (Map.Entry<Class<?>, Record> entry : records.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                bytes = bytes + entry.getValue().retainedBytes;
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * Returns the average bytes retained by an element of a type.
+     * @param type the class of the elements, which includes its subclasses
+     * @return the number of the bytes, or <code>0</code> if no element of the type was accounted
+     */
+    public double getBytesPerElement(Class<?> type) {
+        long num = getInstances(type);
+        if (num == 0) {
+            return 0;
+        }
+        return (double)getRetainedBytes(type) / num;
+    }
+    
+    /**
+     * Returns the bytes retained by all the accounted elements and ASTs.
+     * @return the number of the bytes
+     */
+    public long getTotalBytes() {
+        long bytes = astRecord.retainedBytes;
+        for (Record record : records.values()) {
+            bytes = bytes + record.retainedBytes;
+        }
+        return bytes;
+    }
+    
+    /**
+     * Returns the JSON representation of this footprint.
+     * @return the string of the JSON object
+     */
+    public String toJSON() {
+        StringBuffer buf = new StringBuffer();
+        buf.append("{\"totalBytes\": " + getTotalBytes());
+        buf.append(", \"types\": [");
+        boolean first = true;
+        for (Record record : getRecords()) {
+            if (!first) {
+                buf.append(", ");
+            }
+            first = false;
+            buf.append(record.toJSON());
+        }
+        buf.append("], \"structures\": [");
+        first = true;
+        for (Structure structure : getStructures()) {
+            if (!first) {
+                buf.append(", ");
+            }
+            first = false;
+            buf.append(structure.toJSON());
+        }
+        buf.append("]}");
+        return buf.toString();
+    }
+    
+    /**
+     * Displays this footprint.
+     */
+    public void printReport() {
+        logger.info("footprint: " + (getTotalBytes() / 1024) + "KB");
+        for (Record record : getRecords()) {
+            logger.info("  " + record.toString());
+        }
+        for (Structure structure : getStructures()) {
+            logger.debug("  " + structure.toString());
+        }
+    }
+    
+    /**
+     * The bytes retained by the elements of a type.
+     */
+    public static class Record {
+        
+        /**
+         * The name of the type.
+         */
+        private String type;
+        
+        /**
+         * The number of the elements.
+         */
+        private long instances = 0;
+        
+        /**
+         * The bytes of the elements themselves.
+         */
+        private long shallowBytes = 0;
+        
+        /**
+         * The bytes of the elements and the objects that only the elements hold.
+         */
+        private long retainedBytes = 0;
+        
+        /**
+         * Creates a record of a type.
+         * @param type the name of the type
+         */
+        Record(String type) {
+            this.type = type;
+        }
+        
+        /**
+         * Accounts an element.
+         * @param shallow the bytes of the element itself
+         * @param retained the bytes of the element and the objects that only the element holds
+         */
+        void add(long shallow, long retained) {
+            instances++;
+            shallowBytes = shallowBytes + shallow;
+            retainedBytes = retainedBytes + retained;
+        }
+        
+        /**
+         * Returns the name of the type.
+         * @return the name of the type
+         */
+        public String getType() {
+            return type;
+        }
+        
+        /**
+         * Returns the number of the elements.
+         * @return the number of the elements
+         */
+        public long getInstances() {
+            return instances;
+        }
+        
+        /**
+         * Returns the bytes of the elements themselves.
+         * @return the number of the bytes
+         */
+        public long getShallowBytes() {
+            return shallowBytes;
+        }
+        
+        /**
+         * Returns the bytes of the elements and the objects that only the elements hold.
+         * @return the number of the bytes
+         */
+        public long getRetainedBytes() {
+            return retainedBytes;
+        }
+        
+        /**
+         * Returns the average bytes retained by an element.
+         * @return the number of the bytes
+         */
+        public double getBytesPerElement() {
+            if (instances == 0) {
+                return 0;
+            }
+            return (double)retainedBytes / instances;
+        }
+        
+        /**
+         * Returns the JSON representation of this record.
+         * @return the string of the JSON object
+         */
+        public String toJSON() {
+            return "{\"type\": \"" + type + "\", \"instances\": " + instances + ", \"shallowBytes\": " + shallowBytes +
+                   ", \"retainedBytes\": " + retainedBytes + "}";
+        }
+        
+        /**
+         * Returns the string representation of this record.
+         * @return the string of the bytes of the type
+         */
+        public String toString() {
+            return type + ": " + instances + " elements / " + (retainedBytes / 1024) + "KB retained / " +
+                   String.format("%.1f", getBytesPerElement()) + " bytes per element";
+        }
+    }
+    
+    /**
+     * The bytes held in a field of the elements.
+     */
+    public static class Structure {
+        
+        /**
+         * The name of the field, which is qualified by the simple name of the class declaring it.
+         */
+        private String name;
+        
+        /**
+         * The number of the elements whose field holds an object.
+         */
+        private long instances = 0;
+        
+        /**
+         * The bytes of the objects held in the field.
+         */
+        private long bytes = 0;
+        
+        /**
+         * Creates a structure.
+         * @param name the name of the field
+         */
+        Structure(String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Accounts the objects held in the field of an element.
+         * @param bytes the bytes of the objects
+         */
+        void add(long bytes) {
+            instances++;
+            this.bytes = this.bytes + bytes;
+        }
+        
+        /**
+         * Returns the name of the field.
+         * @return the name qualified by the simple name of the class declaring it
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Returns the number of the elements whose field holds an object.
+         * @return the number of the elements
+         */
+        public long getInstances() {
+            return instances;
+        }
+        
+        /**
+         * Returns the bytes of the objects held in the field.
+         * @return the number of the bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+        
+        /**
+         * Returns the JSON representation of this structure.
+         * @return the string of the JSON object
+         */
+        public String toJSON() {
+            return "{\"structure\": \"" + name + "\", \"instances\": " + instances + ", \"bytes\": " + bytes + "}";
+        }
+        
+        /**
+         * Returns the string representation of this structure.
+         * @return the string of the bytes of the structure
+         */
+        public String toString() {
+            return name + ": " + instances + " elements / " + (bytes / 1024) + "KB";
+        }
+    }
+    
+    /**
+     * The estimated layout of the instances of a class.
+     */
+    private static class Layout {
+        
+        /**
+         * The bytes of an instance.
+         */
+        long size;
+        
+        /**
+         * The readable fields holding object references, which are empty for the classes of the platform.
+         */
+        List<Field> references = new ArrayList<Field>();
+        
+        /**
+         * Examines the instance fields of a class and its super classes.
+         * @param clazz the class
+         */
+        Layout(Class<?> clazz) {
+            long bytes = HEADER_SIZE;
+            boolean readable = !clazz.getName().startsWith("java.") && !clazz.getName().startsWith("javax.") &&
+                               !clazz.getName().startsWith("org.eclipse.");
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    
+                    if (field.getType().isPrimitive()) {
+                        bytes = bytes + getPrimitiveSize(field.getType());
+                    } else {
+                        bytes = bytes + REFERENCE_SIZE;
+                        if (readable) {
+                            try {
+                                field.setAccessible(true);
+                                references.add(field);
+                            } catch (RuntimeException e) {
+                                logger.debug("cannot read " + c.getName() + "." + field.getName());
+                            }
+                        }
+                    }
+                }
+            }
+            size = align(bytes);
+        }
+    }
+}
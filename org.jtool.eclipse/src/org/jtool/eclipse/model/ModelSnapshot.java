@@ -0,0 +1,272 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model;
+
+import org.jtool.eclipse.model.graph.GraphElementSet;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.pdg.Dependence;
+import org.jtool.eclipse.model.pdg.PDG;
+import org.jtool.eclipse.model.pdg.PDGNode;
+import org.jtool.eclipse.model.pdg.SDG;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable version of the models of a project, which consists of its classes and a frozen copy of its SDG.
+ * A reader pins a version by holding a snapshot and can keep querying it while the next version is being built.
+ * Unchanged classes, PDGs, and CFGs are shared among versions, whereas the collections of a snapshot are never changed.
+ * Since the edges incident to a node shared with a newer version might be reconnected, the edges of a node
+ * must be obtained through the snapshot instead of the node itself.
+ * @author Katsuhisa Maruyama
+ */
+public class ModelSnapshot {
+    
+    /**
+     * The version number of this snapshot.
+     */
+    private final long version;
+    
+    /**
+     * The project of this snapshot.
+     */
+    private final JavaProject jproject;
+    
+    /**
+     * The classes of the project in dictionary order.
+     */
+    private final List<JavaClass> classes;
+    
+    /**
+     * The map storing pairs of the fully-qualified name of a class and the class.
+     */
+    private final Map<String, JavaClass> classMap;
+    
+    /**
+     * The frozen copy of the SDG.
+     */
+    private final SDG sdg;
+    
+    /**
+     * The map storing pairs of the name of a PDG and the PDG.
+     */
+    private final Map<String, PDG> pdgMap;
+    
+    /**
+     * The map storing pairs of a node and its incoming edges, which is built at the first query.
+     */
+    private volatile Map<PDGNode, GraphElementSet<Dependence>> incomingEdges = null;
+    
+    /**
+     * The map storing pairs of a node and its outgoing edges, which is built at the first query.
+     */
+    private volatile Map<PDGNode, GraphElementSet<Dependence>> outgoingEdges = null;
+    
+    /**
+     * Creates a snapshot. The collections of the given SDG are copied, whereas the classes and the PDGs are shared.
+     * This constructor must be called by the thread that builds the models while no other thread changes them.
+     * @param version the version number of the snapshot
+     * @param jproject the project
+     * @param sdg the SDG of the project, or <code>null</code> if no SDG was created
+     */
+    ModelSnapshot(long version, JavaProject jproject, SDG sdg) {
+        this.version = version;
+        this.jproject = jproject;
+        
+        List<JavaClass> jclasses = jproject.getJavaClassesInDictionaryOrder();
+        Map<String, JavaClass> jclassMap = new HashMap<String, JavaClass>();
+        for (JavaClass jc : jclasses) {
+            jclassMap.put(jc.getQualifiedName(), jc);
+        }
+        this.classes = Collections.unmodifiableList(jclasses);
+        this.classMap = Collections.unmodifiableMap(jclassMap);
+        
+        if (sdg != null) {
+            this.sdg = sdg.copy();
+        } else {
+            this.sdg = new SDG();
+        }
+        
+        Map<String, PDG> pdgs = new HashMap<String, PDG>();
+        for (PDG pdg : this.sdg.getPDGs()) {
+            pdgs.put(pdg.getName(), pdg);
+        }
+        this.pdgMap = Collections.unmodifiableMap(pdgs);
+    }
+    
+    /**
+     * Returns the version number of this snapshot. A newer snapshot has a larger version number.
+     * @return the version number
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Returns the project of this snapshot.
+     * @return the project
+     */
+    public JavaProject getJavaProject() {
+        return jproject;
+    }
+    
+    /**
+     * Returns the name of the project of this snapshot.
+     * @return the name of the project
+     */
+    public String getName() {
+        return jproject.getName();
+    }
+    
+    /**
+     * Returns all the classes of this snapshot.
+     * @return the unmodifiable collection of the classes in dictionary order
+     */
+    public List<JavaClass> getJavaClasses() {
+        return classes;
+    }
+    
+    /**
+     * Returns a class of this snapshot.
+     * @param fqn the fully-qualified name of the class
+     * @return the found class, or <code>null</code> if this snapshot has no class with the name
+     */
+    public JavaClass getJavaClass(String fqn) {
+        return classMap.get(fqn);
+    }
+    
+    /**
+     * Returns the SDG of this snapshot. The returned SDG must not be changed.
+     * @return the frozen SDG
+     */
+    public SDG getSDG() {
+        return sdg;
+    }
+    
+    /**
+     * Returns all the PDGs of this snapshot.
+     * @return the unmodifiable collection of the PDGs
+     */
+    public List<PDG> getPDGs() {
+        return Collections.unmodifiableList(new ArrayList<PDG>(pdgMap.values()));
+    }
+    
+    /**
+     * Returns a PDG of this snapshot.
+     * @param name the name of the PDG
+     * @return the found PDG, or <code>null</code> if this snapshot has no PDG with the name
+     */
+    public PDG getPDG(String name) {
+        return pdgMap.get(name);
+    }
+    
+    /**
+     * Returns the edges incoming to a node in the SDG of this snapshot.
+     * @param node the node
+     * @return the collection of the incoming edges
+     */
+    public GraphElementSet<Dependence> getIncomingEdges(PDGNode node) {
+        buildEdgeMaps();
+        return getEdges(incomingEdges, node);
+    }
+    
+    /**
+     * Returns the edges outgoing from a node in the SDG of this snapshot.
+     * @param node the node
+     * @return the collection of the outgoing edges
+     */
+    public GraphElementSet<Dependence> getOutgoingEdges(PDGNode node) {
+        buildEdgeMaps();
+        return getEdges(outgoingEdges, node);
+    }
+    
+    /**
+     * Returns the source nodes of the edges incoming to a node in the SDG of this snapshot.
+     * @param node the node
+     * @return the collection of the source nodes
+     */
+    public GraphElementSet<PDGNode> getSrcNodes(PDGNode node) {
+        GraphElementSet<PDGNode> nodes = new GraphElementSet<PDGNode>();
+        for (Dependence edge : getIncomingEdges(node)) {
+            nodes.add(edge.getSrcNode());
+        }
+        return nodes;
+    }
+    
+    /**
+     * Returns the destination nodes of the edges outgoing from a node in the SDG of this snapshot.
+     * @param node the node
+     * @return the collection of the destination nodes
+     */
+    public GraphElementSet<PDGNode> getDstNodes(PDGNode node) {
+        GraphElementSet<PDGNode> nodes = new GraphElementSet<PDGNode>();
+        for (Dependence edge : getOutgoingEdges(node)) {
+            nodes.add(edge.getDstNode());
+        }
+        return nodes;
+    }
+    
+    /**
+     * Obtains the edges of a node from a map.
+     * @param map the map storing the edges
+     * @param node the node
+     * @return the copy of the collection of the edges
+     */
+    private GraphElementSet<Dependence> getEdges(Map<PDGNode, GraphElementSet<Dependence>> map, PDGNode node) {
+        GraphElementSet<Dependence> edges = map.get(node);
+        if (edges != null) {
+            return new GraphElementSet<Dependence>(edges);
+        }
+        return new GraphElementSet<Dependence>();
+    }
+    
+    /**
+     * Builds the maps storing the edges of nodes from the frozen edges of the SDG.
+     */
+    private void buildEdgeMaps() {
+        if (outgoingEdges != null) {
+            return;
+        }
+        
+        synchronized (this) {
+            if (outgoingEdges == null) {
+                Map<PDGNode, GraphElementSet<Dependence>> in = new HashMap<PDGNode, GraphElementSet<Dependence>>();
+                Map<PDGNode, GraphElementSet<Dependence>> out = new HashMap<PDGNode, GraphElementSet<Dependence>>();
+                for (Dependence edge : sdg.getEdges()) {
+                    addEdge(in, edge.getDstNode(), edge);
+                    addEdge(out, edge.getSrcNode(), edge);
+                }
+                incomingEdges = in;
+                outgoingEdges = out;
+            }
+        }
+    }
+    
+    /**
+     * Adds an edge of a node into a map.
+     * @param map the map storing the edges
+     * @param node the node
+     * @param edge the edge
+     */
+    private static void addEdge(Map<PDGNode, GraphElementSet<Dependence>> map, PDGNode node, Dependence edge) {
+        GraphElementSet<Dependence> edges = map.get(node);
+        if (edges == null) {
+            edges = new GraphElementSet<Dependence>();
+            map.put(node, edges);
+        }
+        edges.add(edge);
+    }
+    
+    /**
+     * Returns the string representation of this snapshot.
+     * @return the name of the project and the version number
+     */
+    public String toString() {
+        return getName() + " (version " + version + ")";
+    }
+}
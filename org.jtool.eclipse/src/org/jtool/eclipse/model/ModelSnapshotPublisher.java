@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model;
+
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.pdg.SDG;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Logger;
+
+/**
+ * Publishes the snapshots of the models of projects.
+ * A writer builds the next version of the models and publishes its snapshot atomically when the build is complete,
+ * so that readers obtain either the previous snapshot or the new one and never see a partially updated version.
+ * Readers never wait for the writer since obtaining a snapshot requires no lock.
+ * @author Katsuhisa Maruyama
+ */
+public class ModelSnapshotPublisher {
+    
+    static Logger logger = Logger.getLogger(ModelSnapshotPublisher.class.getName());
+    
+    /**
+     * Returns the state of the publisher that belongs to the current analysis session.
+     * @return the state of the publisher
+     */
+    private static State getState() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        State state = (State)session.getState(ModelSnapshotPublisher.class);
+        if (state == null) {
+            state = (State)session.addState(ModelSnapshotPublisher.class, new State());
+        }
+        return state;
+    }
+    
+    /**
+     * Publishes a snapshot of the models of a project. This method must be called by the thread that built the models
+     * while no other thread changes them, for example, within the block synchronized on the project.
+     * @param jproject the project
+     * @param sdg the SDG of the project, or <code>null</code> if no SDG was created
+     * @return the published snapshot
+     */
+    public static ModelSnapshot publish(JavaProject jproject, SDG sdg) {
+        State state = getState();
+        ModelSnapshot snapshot = new ModelSnapshot(state.version.incrementAndGet(), jproject, sdg);
+        state.snapshots.put(jproject.getName(), snapshot);
+        
+        logger.debug("published " + snapshot);
+        return snapshot;
+    }
+    
+    /**
+     * Returns the latest snapshot of the models of a project. The returned snapshot is never changed
+     * even if a newer snapshot is published while it is being used.
+     * @param name the name of the project
+     * @return the latest snapshot, or <code>null</code> if no snapshot of the project was published
+     */
+    public static ModelSnapshot getSnapshot(String name) {
+        return getState().snapshots.get(name);
+    }
+    
+    /**
+     * Discards the snapshot of a project. Readers that hold the snapshot can keep using it.
+     * @param name the name of the project
+     */
+    public static void remove(String name) {
+        getState().snapshots.remove(name);
+    }
+    
+    /**
+     * Discards the snapshots of all projects.
+     */
+    public static void clear() {
+        getState().snapshots.clear();
+    }
+    
+    /**
+     * The state of the publisher for an analysis session.
+     */
+    private static class State {
+        
+        /**
+         * The version number of the snapshot published lastly.
+         */
+        AtomicLong version = new AtomicLong(0);
+        
+        /**
+         * The latest snapshots of projects, keyed by the names of the projects.
+         */
+        ConcurrentHashMap<String, ModelSnapshot> snapshots = new ConcurrentHashMap<String, ModelSnapshot>();
+    }
+}
@@ -0,0 +1,677 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model;
+
+import org.jtool.eclipse.event.JtoolPhaseEvent;
+import org.jtool.eclipse.event.JtoolPhaseListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Logger;
+
+/**
+ * Records the cost of the respective phases of the analysis within the current analysis session.
+ * A phase records its wall-clock time, the CPU time and the bytes allocated by the threads executing it,
+ * and the numbers of items (files, methods, nodes, edges, etc.) it processed.
+ * The time of a phase running in several threads is the sum of the time spent by the threads, and the time of a phase
+ * includes that of the phases invoked within it (for example, the time of PDGs includes that of CDs and DDs).
+ * A phase measured for an element, such as a method or a file, also reports its cost as an event to the registered
+ * listeners, and the slowest elements of each phase are kept in its record, so that outliers are easily found.
+ * The heap footprint of the created models can be recorded together with the cost of the phases.
+ * @author Katsuhisa Maruyama
+ */
+public class PhaseMetrics {
+    
+    static Logger logger = Logger.getLogger(PhaseMetrics.class.getName());
+    
+    /**
+     * Phases of the analysis.
+     */
+    public enum Phase {
+        discover,     // finding source files
+        read,         // reading and decoding source files
+        parse,        // creating ASTs
+        visit,        // creating models from ASTs
+        level2,       // collecting information on classes, methods, and fields
+        level3,       // collecting information on packages
+        cfg,          // creating CFGs
+        basicBlocks,  // creating basic blocks
+        cd,           // extracting control dependences
+        dd,           // extracting data dependences
+        pdg,          // creating PDGs
+        sdgConnect,   // connecting call sites to the PDGs of the called methods
+        summaries,    // creating summary edges
+        slicing       // extracting program slices
+    }
+    
+    /**
+     * The bean that measures the CPU time of threads.
+     */
+    private static ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    
+    /**
+     * The method that measures the bytes allocated by a thread, or <code>null</code> if the virtual machine does not support it.
+     */
+    private static Method allocatedBytesMethod = getAllocatedBytesMethod();
+    
+    /**
+     * The number of the slowest elements kept for each phase.
+     */
+    public static final int NUM_OF_SLOWEST_ELEMENTS = 10;
+    
+    /**
+     * The listeners that receive the events reporting the cost of phases, which are shared by all sessions.
+     */
+    private static CopyOnWriteArrayList<JtoolPhaseListener> listeners = new CopyOnWriteArrayList<JtoolPhaseListener>();
+    
+    /**
+     * The timer used while the recording is disabled.
+     */
+    private static final Timer NULL_TIMER = new Timer(null, null, null);
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private PhaseMetrics() {
+    }
+    
+    /**
+     * Returns the state of the metrics that belongs to the current analysis session.
+     * @return the state of the metrics
+     */
+    private static State getState() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        State state = (State)session.getState(PhaseMetrics.class);
+        if (state == null) {
+            state = (State)session.addState(PhaseMetrics.class, new State());
+        }
+        return state;
+    }
+    
+    /**
+     * Sets whether the cost of phases is recorded in the current analysis session. The recording is enabled by default.
+     * @param bool <code>true</code> if the recording is enabled, otherwise <code>false</code>
+     */
+    public static void setEnabled(boolean bool) {
+        getState().enabled = bool;
+    }
+    
+    /**
+     * Tests if the cost of phases is recorded in the current analysis session.
+     * @return <code>true</code> if the recording is enabled, otherwise <code>false</code>
+     */
+    public static boolean isEnabled() {
+        return getState().enabled;
+    }
+    
+    /**
+     * Sets the threshold of the time of a phase for an element, over which the cost of the phase is logged as a warning.
+     * @param millis the threshold in milliseconds, or <code>0</code> if no warning is wanted
+     */
+    public static void setSlowThreshold(long millis) {
+        getState().slowThreshold = millis * 1000000;
+    }
+    
+    /**
+     * Adds a listener in order to receive the events reporting the cost of phases in all sessions.
+     * @param listener the listener
+     */
+    public static void addPhaseListener(JtoolPhaseListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+    
+    /**
+     * Removes a listener which no longer receives the events reporting the cost of phases.
+     * @param listener the listener
+     */
+    public static void removePhaseListener(JtoolPhaseListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Starts measuring a phase executed by the calling thread. The returned timer must be stopped by the same thread.
+     * @param phase the phase
+     * @return the started timer
+     */
+    public static Timer start(Phase phase) {
+        return start(phase, null);
+    }
+    
+    /**
+     * Starts measuring a phase for an element executed by the calling thread.
+     * The returned timer must be stopped by the same thread.
+     * @param phase the phase
+     * @param name the name of the element, for example, the qualified name of a method
+     * @return the started timer
+     */
+    public static Timer start(Phase phase, String name) {
+        State state = getState();
+        if (!state.enabled) {
+            return NULL_TIMER;
+        }
+        return new Timer(state, state.getRecord(phase), name);
+    }
+    
+    /**
+     * Adds the number of items processed in a phase.
+     * @param phase the phase
+     * @param item the name of the items
+     * @param num the number of the items
+     */
+    public static void count(Phase phase, String item, long num) {
+        State state = getState();
+        if (state.enabled) {
+            state.getRecord(phase).count(item, num);
+        }
+    }
+    
+    /**
+     * Returns the record of a phase.
+     * @param phase the phase
+     * @return the record of the phase
+     */
+    public static Record getRecord(Phase phase) {
+        return getState().getRecord(phase);
+    }
+    
+    /**
+     * Returns the records of the phases that were executed or processed any items.
+     * @return the collection of the records in the order of the phases
+     */
+    public static List<Record> getRecords() {
+        List<Record> records = new ArrayList<Record>();
+        for (Phase phase : Phase.values()) {
+            Record record = getState().records.get(phase);
+            if (record != null && (record.getInvocations() > 0 || !record.getCounts().isEmpty())) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+    
+    /**
+     * Discards all the records in the current analysis session.
+     */
+    public static void reset() {
+        getState().records.clear();
+        getState().footprint = null;
+    }
+    
+    /**
+     * Records the heap footprint of the models created in the current analysis session.
+     * @param footprint the footprint, or <code>null</code> if the recorded one is discarded
+     */
+    public static void setFootprint(Footprint footprint) {
+        getState().footprint = footprint;
+    }
+    
+    /**
+     * Returns the heap footprint recorded in the current analysis session.
+     * @return the footprint, or <code>null</code> if no footprint was recorded
+     */
+    public static Footprint getFootprint() {
+        return getState().footprint;
+    }
+    
+    /**
+     * Returns the JSON representation of the records.
+     * @return the string of the JSON object
+     */
+    public static String toJSON() {
+        StringBuffer buf = new StringBuffer();
+        buf.append("{\n  \"phases\": [");
+        boolean first = true;
+        for (Record record : getRecords()) {
+            if (!first) {
+                buf.append(",");
+            }
+            first = false;
+            buf.append("\n    ");
+            buf.append(record.toJSON());
+        }
+        buf.append("\n  ]");
+        Footprint footprint = getFootprint();
+        if (footprint != null) {
+            buf.append(",\n  \"footprint\": " + footprint.toJSON());
+        }
+        buf.append("\n}\n");
+        return buf.toString();
+    }
+    
+    /**
+     * Displays the records.
+     */
+    public static void printReport() {
+        for (Record record : getRecords()) {
+            logger.info(record.toString());
+            for (JtoolPhaseEvent evt : record.getSlowestEvents()) {
+                logger.debug("  " + evt.toString());
+            }
+        }
+        
+        Footprint footprint = getFootprint();
+        if (footprint != null) {
+            footprint.printReport();
+        }
+    }
+    
+    /**
+     * Measures the CPU time of the calling thread.
+     * @return the CPU time in nanoseconds, or <code>0</code> if the virtual machine does not support it
+     */
+    private static long getCpuTime() {
+        try {
+            if (threadBean.isCurrentThreadCpuTimeSupported()) {
+                return threadBean.getCurrentThreadCpuTime();
+            }
+        } catch (UnsupportedOperationException e) { /* empty */ }
+        return 0;
+    }
+    
+    /**
+     * Measures the bytes allocated by the calling thread.
+     * @return the number of the bytes, or <code>0</code> if the virtual machine does not support it
+     */
+    private static long getAllocatedBytes() {
+        if (allocatedBytesMethod != null) {
+            try {
+                return ((Long)allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId())).longValue();
+            } catch (Exception e) { /* empty */ }
+        }
+        return 0;
+    }
+    
+    /**
+     * Obtains the method that measures the bytes allocated by a thread, which is provided by some virtual machines.
+     * @return the method, or <code>null</code> if the virtual machine does not provide it
+     */
+    private static Method getAllocatedBytesMethod() {
+        try {
+            Class<?> clazz = Class.forName("com.sun.management.ThreadMXBean");
+            if (clazz.isInstance(threadBean)) {
+                Method supported = clazz.getMethod("isThreadAllocatedMemorySupported");
+                if (((Boolean)supported.invoke(threadBean)).booleanValue()) {
+                    return clazz.getMethod("getThreadAllocatedBytes", long.class);
+                }
+            }
+        } catch (Exception e) { /* empty */ }
+        return null;
+    }
+    
+    /**
+     * A timer that measures an execution of a phase by a thread.
+     */
+    public static class Timer {
+        
+        /**
+         * The state of the metrics for the session in which the phase is executed.
+         */
+        private State state;
+        
+        /**
+         * The record of the measured phase, or <code>null</code> if the recording is disabled.
+         */
+        private Record record;
+        
+        /**
+         * The name of the element for which the phase is executed, or <code>null</code> if no element is specified.
+         */
+        private String name;
+        
+        /**
+         * The wall-clock time when this timer started.
+         */
+        private long startTime;
+        
+        /**
+         * The CPU time of the thread when this timer started.
+         */
+        private long startCpuTime;
+        
+        /**
+         * The bytes allocated by the thread when this timer started.
+         */
+        private long startAllocatedBytes;
+        
+        /**
+         * Creates and starts a timer.
+         * @param state the state of the metrics for the current session
+         * @param record the record of the measured phase, or <code>null</code> if the recording is disabled
+         * @param name the name of the element for which the phase is executed, or <code>null</code> if no element is specified
+         */
+        Timer(State state, Record record, String name) {
+            this.state = state;
+            this.record = record;
+            this.name = name;
+            if (record != null) {
+                startAllocatedBytes = getAllocatedBytes();
+                startCpuTime = getCpuTime();
+                startTime = System.nanoTime();
+            }
+        }
+        
+        /**
+         * Stops this timer and adds the measured cost to the record of the phase.
+         */
+        public void stop() {
+            stop(0, 0, 0);
+        }
+        
+        /**
+         * Stops this timer and adds the measured cost to the record of the phase.
+         * If an element was specified, the cost is reported as an event together with the sizes of the graphs.
+         * @param nodes the number of the nodes created in the phase
+         * @param edges the number of the edges created in the phase
+         * @param cfgSize the number of the nodes of the CFG examined in the phase
+         */
+        public void stop(long nodes, long edges, long cfgSize) {
+            if (record == null) {
+                return;
+            }
+            
+            long time = System.nanoTime() - startTime;
+            long cpuTime = getCpuTime() - startCpuTime;
+            long allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+            record.add(time, cpuTime, allocatedBytes);
+            
+            if (name != null) {
+                boolean slow = state.slowThreshold > 0 && time >= state.slowThreshold;
+                if (slow || !listeners.isEmpty() || record.isSlowest(time)) {
+                    JtoolPhaseEvent evt = new JtoolPhaseEvent(name, record.getPhase(), time, cpuTime, allocatedBytes,
+                                                              nodes, edges, cfgSize);
+                    record.addSlowest(evt);
+                    if (slow) {
+                        logger.warn("slow " + evt.toString());
+                    }
+                    for (JtoolPhaseListener listener : listeners) {
+                        listener.notifyPhase(evt);
+                    }
+                }
+            }
+            record = null;
+        }
+    }
+    
+    /**
+     * The cost of a phase accumulated over its executions.
+     */
+    public static class Record {
+        
+        /**
+         * The phase.
+         */
+        private Phase phase;
+        
+        /**
+         * The number of the executions of the phase.
+         */
+        private AtomicLong invocations = new AtomicLong(0);
+        
+        /**
+         * The wall-clock time in nanoseconds.
+         */
+        private AtomicLong time = new AtomicLong(0);
+        
+        /**
+         * The CPU time in nanoseconds.
+         */
+        private AtomicLong cpuTime = new AtomicLong(0);
+        
+        /**
+         * The number of the allocated bytes.
+         */
+        private AtomicLong allocatedBytes = new AtomicLong(0);
+        
+        /**
+         * The numbers of the processed items, keyed by the names of the items.
+         */
+        private ConcurrentHashMap<String, AtomicLong> counts = new ConcurrentHashMap<String, AtomicLong>();
+        
+        /**
+         * The events of the slowest elements, the fastest of which is the head.
+         */
+        private PriorityQueue<JtoolPhaseEvent> slowest = new PriorityQueue<JtoolPhaseEvent>(NUM_OF_SLOWEST_ELEMENTS + 1,
+            new Comparator<JtoolPhaseEvent>() {
+                public int compare(JtoolPhaseEvent evt1, JtoolPhaseEvent evt2) {
+                    return Long.compare(evt1.getTime(), evt2.getTime());
+                }
+            });
+        
+        /**
+         * Creates a record of a phase.
+         * @param phase the phase
+         */
+        Record(Phase phase) {
+            this.phase = phase;
+        }
+        
+        /**
+         * Adds the cost of an execution of the phase.
+         * @param t the wall-clock time in nanoseconds
+         * @param cpu the CPU time in nanoseconds
+         * @param bytes the number of the allocated bytes
+         */
+        void add(long t, long cpu, long bytes) {
+            invocations.incrementAndGet();
+            time.addAndGet(t);
+            cpuTime.addAndGet(cpu);
+            allocatedBytes.addAndGet(bytes);
+        }
+        
+        /**
+         * Adds the number of items processed in the phase.
+         * @param item the name of the items
+         * @param num the number of the items
+         */
+        void count(String item, long num) {
+            AtomicLong count = counts.get(item);
+            if (count == null) {
+                count = new AtomicLong(0);
+                AtomicLong old = counts.putIfAbsent(item, count);
+                if (old != null) {
+                    count = old;
+                }
+            }
+            count.addAndGet(num);
+        }
+        
+        /**
+         * Tests if an element would be one of the slowest elements.
+         * @param t the time of the phase for the element in nanoseconds
+         * @return <code>true</code> if the element would be kept, otherwise <code>false</code>
+         */
+        synchronized boolean isSlowest(long t) {
+            return slowest.size() < NUM_OF_SLOWEST_ELEMENTS || slowest.peek().getTime() < t;
+        }
+        
+        /**
+         * Keeps an event if its element is one of the slowest elements.
+         * @param evt the event of the element
+         */
+        synchronized void addSlowest(JtoolPhaseEvent evt) {
+            slowest.add(evt);
+            if (slowest.size() > NUM_OF_SLOWEST_ELEMENTS) {
+                slowest.poll();
+            }
+        }
+        
+        /**
+         * Returns the events of the slowest elements of the phase.
+         * @return the collection of the events in descending order of the time
+         */
+        public synchronized List<JtoolPhaseEvent> getSlowestEvents() {
+            List<JtoolPhaseEvent> events = new ArrayList<JtoolPhaseEvent>(slowest);
+            Collections.sort(events, Collections.reverseOrder(slowest.comparator()));
+            return events;
+        }
+        
+        /**
+         * Returns the phase of this record.
+         * @return the phase
+         */
+        public Phase getPhase() {
+            return phase;
+        }
+        
+        /**
+         * Returns the number of the executions of the phase.
+         * @return the number of the executions
+         */
+        public long getInvocations() {
+            return invocations.get();
+        }
+        
+        /**
+         * Returns the wall-clock time of the phase.
+         * @return the time in nanoseconds
+         */
+        public long getTime() {
+            return time.get();
+        }
+        
+        /**
+         * Returns the CPU time of the phase.
+         * @return the time in nanoseconds, which is <code>0</code> if the virtual machine does not support the measurement
+         */
+        public long getCpuTime() {
+            return cpuTime.get();
+        }
+        
+        /**
+         * Returns the number of the bytes allocated in the phase.
+         * @return the number of the bytes, which is <code>0</code> if the virtual machine does not support the measurement
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes.get();
+        }
+        
+        /**
+         * Returns the number of items processed in the phase.
+         * @param item the name of the items
+         * @return the number of the items
+         */
+        public long getCount(String item) {
+            AtomicLong count = counts.get(item);
+            if (count != null) {
+                return count.get();
+            }
+            return 0;
+        }
+        
+        /**
+         * Returns the numbers of all the items processed in the phase.
+         * @return the map storing pairs of the name of items and their number, in dictionary order of the names
+         */
+        public Map<String, Long> getCounts() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+                map.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+            }
+            return map;
+        }
+        
+        /**
+         * Returns the JSON representation of this record.
+         * @return the string of the JSON object
+         */
+        public String toJSON() {
+            StringBuffer buf = new StringBuffer();
+            buf.append("{\"phase\": \"" + phase.name() + "\"");
+            buf.append(", \"invocations\": " + getInvocations());
+            buf.append(", \"timeNanos\": " + getTime());
+            buf.append(", \"cpuTimeNanos\": " + getCpuTime());
+            buf.append(", \"allocatedBytes\": " + getAllocatedBytes());
+            buf.append(", \"counts\": {");
+            boolean first = true;
+            for (Map.Entry<String, Long> entry : getCounts().entrySet()) {
+                if (!first) {
+                    buf.append(", ");
+                }
+                first = false;
+                buf.append("\"" + entry.getKey() + "\": " + entry.getValue());
+            }
+            buf.append("}, \"slowest\": [");
+            first = true;
+            for (JtoolPhaseEvent evt : getSlowestEvents()) {
+                if (!first) {
+                    buf.append(", ");
+                }
+                first = false;
+                buf.append(evt.toJSON());
+            }
+            buf.append("]}");
+            return buf.toString();
+        }
+        
+        /**
+         * Returns the string representation of this record.
+         * @return the string of the cost of the phase
+         */
+        public String toString() {
+            StringBuffer buf = new StringBuffer();
+            buf.append(phase.name() + ": " + getInvocations() + " times");
+            buf.append(" / " + (getTime() / 1000000) + "ms");
+            buf.append(" / cpu " + (getCpuTime() / 1000000) + "ms");
+            buf.append(" / " + (getAllocatedBytes() / 1024) + "KB allocated");
+            for (Map.Entry<String, Long> entry : getCounts().entrySet()) {
+                buf.append(" / " + entry.getKey() + " = " + entry.getValue());
+            }
+            return buf.toString();
+        }
+    }
+    
+    /**
+     * The state of the metrics for an analysis session.
+     */
+    private static class State {
+        
+        /**
+         * A flag indicating that the cost of phases is recorded.
+         */
+        volatile boolean enabled = true;
+        
+        /**
+         * The threshold of the time of a phase for an element in nanoseconds, over which a warning is logged.
+         */
+        volatile long slowThreshold = 0;
+        
+        /**
+         * The records of the phases.
+         */
+        ConcurrentHashMap<Phase, Record> records = new ConcurrentHashMap<Phase, Record>();
+        
+        /**
+         * The heap footprint of the models, or <code>null</code> if it was not recorded.
+         */
+        volatile Footprint footprint = null;
+        
+        /**
+         * Obtains the record of a phase, which is created if it does not exist.
+         * @param phase the phase
+         * @return the record of the phase
+         */
+        Record getRecord(Phase phase) {
+            Record record = records.get(phase);
+            if (record == null) {
+                record = new Record(phase);
+                Record old = records.putIfAbsent(phase, record);
+                if (old != null) {
+                    record = old;
+                }
+            }
+            return record;
+        }
+    }
+}
@@ -4,7 +4,9 @@
 
 package org.jtool.eclipse.model.cfg;
 
+import org.jtool.eclipse.model.AnalysisSession;
 import org.jtool.eclipse.model.graph.GraphElementSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 
 /**
@@ -15,11 +17,6 @@ public class BasicBlock {
     
     static Logger logger = Logger.getLogger(BasicBlock.class.getName());
     
-    /**
-     * The number prepared for generating the identification numbers of newly created basic blocks.
-     */
-    private static int blockNum = 0;
-    
     /**
      * The identification number for this basic block.
      */
@@ -46,11 +43,24 @@ public class BasicBlock {
      * @param node CFG node that represents the leader
      */
     public BasicBlock(CFGNode node) {
-        blockNum++;
-        id = blockNum;
+        id = getBlockNum().incrementAndGet();
         leader = node;
     }
     
+    /**
+     * Returns the number prepared for generating the identification numbers of newly created basic blocks,
+     * which belongs to the current analysis session.
+     * @return the counter of the number
+     */
+    private static AtomicInteger getBlockNum() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        AtomicInteger num = (AtomicInteger)session.getState(BasicBlock.class);
+        if (num == null) {
+            num = (AtomicInteger)session.addState(BasicBlock.class, new AtomicInteger(0));
+        }
+        return num;
+    }
+    
     /**
      * Returns the identification number for this basic block.
      * @return the identification number  for this basic block
@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.cfg;
 
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 /**
  * Calculates and stores basic blocks of a CFG.
  * @author Katsuhisa Maruyama
@@ -15,6 +17,20 @@ public class BasicBlockFactory {
      * @param cfg the target CFG
      */
     public static void create(CFG cfg) {
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.basicBlocks);
+        try {
+            createBasicBlocks(cfg);
+        } finally {
+            timer.stop();
+        }
+        PhaseMetrics.count(Phase.basicBlocks, "blocks", cfg.getBasicBlocks().size());
+    }
+    
+    /**
+     * Calculates and stores basic blocks of a CFG.
+     * @param cfg the target CFG
+     */
+    private static void createBasicBlocks(CFG cfg) {
         CFGNode start = cfg.getStartNode();
         CFGNode first = start.getSuccessors().getFirst();
         
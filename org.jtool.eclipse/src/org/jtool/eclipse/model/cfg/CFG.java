@@ -5,16 +5,21 @@
 package org.jtool.eclipse.model.cfg;
 
 import org.jtool.eclipse.model.graph.Graph;
+import org.jtool.eclipse.model.graph.GraphEdge;
 import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.java.JavaField;
 import org.jtool.eclipse.model.java.JavaMethod;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import org.apache.log4j.Logger;
 
 /**
  * An object storing information about a control flow graph (CFG).
+ * Nodes are indexed by their identification numbers as they are added. A control flow is looked up among
+ * the flows outgoing from its source node, which are kept up to date even when the flow is reconnected or
+ * its sort changes after it was added, so that the lookup never scans all the flows of this CFG.
  * @author Katsuhisa Maruyama
  */
 public class CFG extends Graph<CFGNode, ControlFlow> {
@@ -36,6 +41,16 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      */
     private List<BasicBlock> blocks = new ArrayList<BasicBlock>();
     
+    /**
+     * The map between identification numbers and nodes of this CFG.
+     */
+    private Map<Long, CFGNode> nodeIndex = new HashMap<Long, CFGNode>();
+    
+    /**
+     * The number of nodes of this CFG that represent try statements.
+     */
+    private int numOfTryNodes = 0;
+    
     /**
      * Creates a new, empty object for storing the CFG of a method.
      */
@@ -140,7 +155,51 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @param node the node to be added 
      */
     public void add(CFGNode node) {
+        if (nodeIndex.containsKey(node.getId())) {
+            return;
+        }
+        
         super.add(node);
+        nodeIndex.put(node.getId(), node);
+        if (node.isTry()) {
+            numOfTryNodes++;
+        }
+    }
+    
+    /**
+     * Removes a node and the control flows connected to it from this CFG.
+     * @param node the node to be removed
+     */
+    public void remove(CFGNode node) {
+        super.remove(node);
+        if (nodeIndex.remove(node.getId()) != null && node.isTry()) {
+            numOfTryNodes--;
+        }
+    }
+    
+    /**
+     * Sets nodes of this CFG.
+     * @param set the collection of the nodes
+     */
+    public void setNodes(GraphElementSet<CFGNode> set) {
+        super.setNodes(set);
+        nodeIndex.clear();
+        numOfTryNodes = 0;
+        for (CFGNode node : set) {
+            nodeIndex.put(node.getId(), node);
+            if (node.isTry()) {
+                numOfTryNodes++;
+            }
+        }
+    }
+    
+    /**
+     * Removes all nodes and all control flows of this CFG.
+     */
+    public void clear() {
+        super.clear();
+        nodeIndex.clear();
+        numOfTryNodes = 0;
     }
     
     /**
@@ -209,9 +268,9 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      */
     public ControlFlow getFlow(CFGNode src, CFGNode dst) {
         if (src != null && dst != null) {
-            for (ControlFlow edge : getEdges()) {
-                if (src.equals(edge.getSrcNode()) && dst.equals(edge.getDstNode())) {
-                    return edge;
+            for (GraphEdge edge : src.getOutgoingEdges()) {
+                if (edge instanceof ControlFlow && dst.equals(edge.getDstNode())) {
+                    return (ControlFlow)edge;
                 }
             }
         }
@@ -224,12 +283,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the found node of this CFG, or <code>null</code> if none
      */
     public CFGNode getNode(long id) {
-        for (CFGNode node : getNodes()) {
-            if (id == node.getId()) {
-                return node;
-            }
-        }
-        return null;
+        return nodeIndex.get(id);
     }
     
     /**
@@ -238,9 +292,11 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the true control flow of this CFG, or <code>null</code> if none
      */
     public ControlFlow getTrueFlowFrom(CFGNode node) {
-        for (ControlFlow edge : getEdges()) {
-            if (edge.getSrcNode().equals(node) && edge.isTrue()) {
-                return edge;
+        if (node != null) {
+            for (GraphEdge edge : node.getOutgoingEdges()) {
+                if (edge instanceof ControlFlow && ((ControlFlow)edge).isTrue()) {
+                    return (ControlFlow)edge;
+                }
             }
         }
         return null;
@@ -252,9 +308,11 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the false control flow of this CFG, or <code>null</code> if none
      */
     public ControlFlow getFalseFlowFrom(CFGNode node) {
-        for (ControlFlow edge : getEdges()) {
-            if (edge.getSrcNode().equals(node) && edge.isFalse()) {
-                return edge;
+        if (node != null) {
+            for (GraphEdge edge : node.getOutgoingEdges()) {
+                if (edge instanceof ControlFlow && ((ControlFlow)edge).isFalse()) {
+                    return (ControlFlow)edge;
+                }
             }
         }
         return null;
@@ -291,12 +349,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return <code>true</code> if this method contains a try statement, otherwise <code>false</code>
      */
     public boolean hasTryStatement(){
-        for (CFGNode node : getNodes()) {
-            if (node.isTry()) {
-                return true;
-            }
-        }
-        return false;
+        return numOfTryNodes > 0;
     }
     
     /**
@@ -421,12 +474,13 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      */
     public CFG clone() {
         CFG cloneCFG = new CFG();
-        HashMap<Long, Long> idmap = new HashMap<Long, Long>();
+        Map<CFGNode, CFGNode> nodemap = new HashMap<CFGNode, CFGNode>();
         
         for (CFGNode node : getNodes()) {
             CFGNode cloneNode = node.clone();
+            cloneNode.clear();
             cloneCFG.add(cloneNode);
-            idmap.put(node.getId(), cloneNode.getId());
+            nodemap.put(node, cloneNode);
             
             if (node.isEntry()) {
                 cloneCFG.setStartNode((CFGEntry)cloneNode);
@@ -436,17 +490,18 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
         }
         
         for (ControlFlow edge : getEdges()) {
-            CFGNode src = edge.getSrcNode();
-            CFGNode dst = edge.getDstNode();
-            long srcId = idmap.get(src.getId());
-            long dstId = idmap.get(dst.getId());
-            CFGNode cloneSrc = cloneCFG.getNode(srcId);
-            CFGNode cloneDst = cloneCFG.getNode(dstId);
+            CFGNode cloneSrc = nodemap.get(edge.getSrcNode());
+            CFGNode cloneDst = nodemap.get(edge.getDstNode());
+            if (cloneSrc == null || cloneDst == null) {
+                continue;
+            }
             
-            ControlFlow cloneEdge = edge.clone();
-            cloneEdge.setSrcNode(cloneSrc);
-            cloneEdge.setDstNode(cloneDst);
-            cloneCFG.add(edge);
+            ControlFlow cloneEdge = new ControlFlow(cloneSrc, cloneDst);
+            edge.clone(cloneEdge);
+            if (edge.getLoopBack() != null && nodemap.containsKey(edge.getLoopBack())) {
+                cloneEdge.setLoopBack(nodemap.get(edge.getLoopBack()));
+            }
+            cloneCFG.add(cloneEdge);
         }
         
         cloneCFG.createBasicBlock();
@@ -4,6 +4,9 @@
 
 package org.jtool.eclipse.model.cfg;
 
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.jtool.eclipse.model.cfg.internal.CFGFieldFactory;
 import org.jtool.eclipse.model.cfg.internal.CFGMethodFactory;
 import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
@@ -13,6 +16,10 @@ import org.jtool.eclipse.model.java.JavaField;
 import org.jtool.eclipse.model.java.JavaMethod;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -24,9 +31,50 @@ public class CFGFactory {
     static Logger logger = Logger.getLogger(CFGFactory.class.getName());
     
     /**
-     * The flag that requests the creation of actual nodes for method call.
+     * The maximum number of the cached CFGs, beyond which the least recently used CFG is discarded.
      */
-    private static boolean createActualNodes = true;
+    public static final int MAX_CACHED_CFGS = 1000;
+    
+    /**
+     * The state of this factory, which belongs to an analysis session.
+     */
+    private static class State {
+        
+        /**
+         * The flag that requests the creation of actual nodes for method call.
+         */
+        boolean createActualNodes = true;
+        
+        /**
+         * The cache storing CFGs, keyed by the fingerprints of their methods and fields, in the order of their use.
+         * A cached CFG holds the AST nodes it was created from, which belong to the compilation unit parsed before
+         * its file was changed if the CFG is reused for an unchanged method of the changed file. These AST nodes live
+         * until the CFG is discarded from the cache, which is bounded so that the ASTs it pins are limited.
+         */
+        Map<Long, CFG> cache = new LinkedHashMap<Long, CFG>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Long, CFG> entry) {
+                return size() > MAX_CACHED_CFGS;
+            }
+        };
+        
+        /**
+         * The fingerprints of the cached CFGs, keyed by the names of their methods and fields.
+         */
+        Map<String, Long> fingerprints = new HashMap<String, Long>();
+    }
+    
+    /**
+     * Returns the state of this factory that belongs to the current analysis session.
+     * @return the state of this factory
+     */
+    private static State getState() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        State state = (State)session.getState(CFGFactory.class);
+        if (state == null) {
+            state = (State)session.addState(CFGFactory.class, new State());
+        }
+        return state;
+    }
     
     /**
      * Initializes CFG information.
@@ -34,6 +82,75 @@ public class CFGFactory {
     public static void initialize() {
         GraphNodeIdPublisher.reset();
         GraphEdgeIdFactory.reset();
+        clearCache();
+    }
+    
+    /**
+     * Removes all the cached CFGs.
+     */
+    public static void clearCache() {
+        State state = getState();
+        state.cache.clear();
+        state.fingerprints.clear();
+    }
+    
+    /**
+     * Removes the cached CFGs for the methods and fields of given classes and for the methods and fields depending on them.
+     * A CFG depends on the methods it calls, for example, on whether they return a value or call it back,
+     * which the fingerprint of the CFG does not reflect.
+     * @param jclasses the collection of the changed or removed classes
+     */
+    public static void removeCache(Collection<JavaClass> jclasses) {
+        State state = getState();
+        for (String name : getDependentNames(jclasses)) {
+            Long old = state.fingerprints.remove(name);
+            if (old != null) {
+                state.cache.remove(old);
+            }
+        }
+    }
+    
+    /**
+     * Collects the qualified names of the methods and fields of given classes and of those that call or access them,
+     * which are traced back transitively since a call might become recursive.
+     * @param jclasses the collection of the classes
+     * @return the collection of the qualified names
+     */
+    public static Set<String> getDependentNames(Collection<JavaClass> jclasses) {
+        Set<String> names = new HashSet<String>();
+        Set<JavaMethod> methods = new HashSet<JavaMethod>();
+        for (JavaClass jc : jclasses) {
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                collectCallingMethods(jm, methods, names);
+            }
+            for (JavaField jf : jc.getJavaFields()) {
+                names.add(jf.getQualifiedName());
+                for (JavaMethod jm : jf.getAccessingJavaMethods()) {
+                    collectCallingMethods(jm, methods, names);
+                }
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * Collects the qualified names of a method and of the methods and fields calling it transitively.
+     * @param jm the method
+     * @param methods the collection of the visited methods
+     * @param names the collection of the qualified names
+     */
+    private static void collectCallingMethods(JavaMethod jm, Set<JavaMethod> methods, Set<String> names) {
+        if (!methods.add(jm)) {
+            return;
+        }
+        
+        names.add(jm.getQualifiedName());
+        for (JavaField jf : jm.getAccessingJavaFields()) {
+            names.add(jf.getQualifiedName());
+        }
+        for (JavaMethod m : jm.getCallingJavaMethods()) {
+            collectCallingMethods(m, methods, names);
+        }
     }
     
     /**
@@ -41,7 +158,7 @@ public class CFGFactory {
      * @param bool <code>true</code> if the creation is wanted, otherwise <code>false</code>
      */
     public static void setActualNodeCreation(boolean bool) {
-        createActualNodes = bool;
+        getState().createActualNodes = bool;
     }
     
     /**
@@ -49,7 +166,7 @@ public class CFGFactory {
      * @param <code>true</code> if the creation is wanted, otherwise <code>false</code>
      */
     public static boolean getActualNodeCreation() {
-        return createActualNodes;
+        return getState().createActualNodes;
     }   
     
     /**
@@ -70,25 +187,143 @@ public class CFGFactory {
     }
     
     /**
-     * Creates a CFG for a given method or constructor.
+     * Creates a new CFG for a given method or constructor.
      * @param jm information on the method
      * @return the created CFG
      */
     public static CFG create(JavaMethod jm) {
-        CFG cfg = CFGMethodFactory.getCFG(jm);
+        return create(jm, false);
+    }
+    
+    /**
+     * Creates a CFG for a given method or constructor.
+     * The CFG created for an unchanged method is reused if requested, which is shared by every caller requesting it
+     * and must not be changed. A CFG created from AST nodes recreated for a released AST is not cached,
+     * so that it does not keep the AST alive.
+     * @param jm information on the method
+     * @param reuse <code>true</code> if the cached CFG is reused, otherwise <code>false</code>
+     * @return the created CFG
+     */
+    public static CFG create(JavaMethod jm, boolean reuse) {
+        if (!reuse) {
+            return build(jm);
+        }
+        
+        Long fingerprint = Long.valueOf(jm.getFingerprint());
+        CFG cfg = getState().cache.get(fingerprint);
+        if (cfg == null) {
+            boolean released = jm.getASTNode() == null;
+            cfg = build(jm);
+            if (!released) {
+                store(jm.getQualifiedName(), fingerprint, cfg);
+            }
+        }
         return cfg;
     }
     
     /**
-     * Creates a CFG for a given field.
+     * Creates a new CFG for a given field.
      * @param jf information on the field
      * @return the created CFG
      */
     public static CFG create(JavaField jf) {
-        CFG cfg = CFGFieldFactory.getCFG(jf);
+        return create(jf, false);
+    }
+    
+    /**
+     * Creates a CFG for a given field.
+     * The CFG created for an unchanged field is reused if requested, which is shared by every caller requesting it
+     * and must not be changed. A CFG created from AST nodes recreated for a released AST is not cached,
+     * so that it does not keep the AST alive.
+     * @param jf information on the field
+     * @param reuse <code>true</code> if the cached CFG is reused, otherwise <code>false</code>
+     * @return the created CFG
+     */
+    public static CFG create(JavaField jf, boolean reuse) {
+        if (!reuse) {
+            return build(jf);
+        }
+        
+        Long fingerprint = Long.valueOf(jf.getFingerprint());
+        CFG cfg = getState().cache.get(fingerprint);
+        if (cfg == null) {
+            boolean released = jf.getASTNode() == null;
+            cfg = build(jf);
+            if (!released) {
+                store(jf.getQualifiedName(), fingerprint, cfg);
+            }
+        }
+        return cfg;
+    }
+    
+    /**
+     * Builds a CFG for a given method or constructor.
+     * @param jm information on the method
+     * @return the built CFG
+     */
+    private static CFG build(JavaMethod jm) {
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.cfg, JavaMethod.getString(jm.getQualifiedName(), jm.getSignature()));
+        CFG cfg = null;
+        try {
+            cfg = CFGMethodFactory.getCFG(jm);
+        } finally {
+            stop(timer, cfg);
+        }
+        return cfg;
+    }
+    
+    /**
+     * Builds a CFG for a given field.
+     * @param jf information on the field
+     * @return the built CFG
+     */
+    private static CFG build(JavaField jf) {
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.cfg, JavaField.getString(jf.getQualifiedName(), jf.getName()));
+        CFG cfg = null;
+        try {
+            cfg = CFGFieldFactory.getCFG(jf);
+        } finally {
+            stop(timer, cfg);
+        }
         return cfg;
     }
     
+    /**
+     * Stops the timer measuring the build of a CFG and counts the nodes and edges of the CFG.
+     * @param timer the timer
+     * @param cfg the built CFG, or <code>null</code> if the build failed
+     */
+    private static void stop(PhaseMetrics.Timer timer, CFG cfg) {
+        if (cfg == null) {
+            timer.stop();
+            return;
+        }
+        
+        int nodes = cfg.getNodes().size();
+        int edges = cfg.getEdges().size();
+        timer.stop(nodes, edges, nodes);
+        PhaseMetrics.count(Phase.cfg, "cfgs", 1);
+        PhaseMetrics.count(Phase.cfg, "nodes", nodes);
+        PhaseMetrics.count(Phase.cfg, "edges", edges);
+    }
+    
+    /**
+     * Stores a created CFG into the cache. The CFG previously created for the same method or field is discarded.
+     * @param name the qualified name of the method or field
+     * @param fingerprint the fingerprint of the method or field
+     * @param cfg the created CFG
+     */
+    private static void store(String name, Long fingerprint, CFG cfg) {
+        if (cfg != null) {
+            State state = getState();
+            Long old = state.fingerprints.put(name, fingerprint);
+            if (old != null) {
+                state.cache.remove(old);
+            }
+            state.cache.put(fingerprint, cfg);
+        }
+    }
+    
     /**
      * Displays information about a given CFGs.
      * @param cfgs the collection of CFGs
@@ -13,6 +13,7 @@ import org.jtool.eclipse.model.cfg.ControlFlow;
 import org.jtool.eclipse.model.graph.GraphNodeSort;
 import org.jtool.eclipse.model.java.JavaField;
 import org.jtool.eclipse.model.java.JavaVariableAccess;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
@@ -25,10 +26,34 @@ public class CFGFieldFactory {
     
     /**
      * Creates a CFG by visiting a field element.
+     * The AST nodes recreated for the creation are released again after the CFG is created.
      * @param jf information on the field
      * @return the created CFG
+     * @throws IllegalStateException if the AST node of the field cannot be recreated
      */
     public static CFG getCFG(JavaField jf) {
+        boolean restored = jf.getASTNode() == null;
+        ASTNode node = jf.restoreASTNode();
+        if (node == null) {
+            throw new IllegalStateException("cannot restore the AST node of " + JavaField.getString(jf.getQualifiedName(), jf.getName()));
+        }
+        
+        try {
+            return getCFG(jf, node);
+        } finally {
+            if (restored) {
+                jf.getDeclaringJavaClass().getJavaFile().releaseASTNodes();
+            }
+        }
+    }
+    
+    /**
+     * Creates a CFG by visiting the AST node of a field element.
+     * @param jf information on the field
+     * @param node the AST node for the field
+     * @return the created CFG
+     */
+    private static CFG getCFG(JavaField jf, ASTNode node) {
         CFG cfg = new CFG();
         
         CFGFieldEntry entry = new CFGFieldEntry(jf, GraphNodeSort.fieldEntry);
@@ -46,8 +71,8 @@ public class CFGFieldFactory {
         cfg.add(edge);
         
         CFGNode curNode = fieldNode;
-        if (jf.getASTNode() instanceof VariableDeclarationFragment) {
-            VariableDeclarationFragment frag = (VariableDeclarationFragment)jf.getASTNode();
+        if (node instanceof VariableDeclarationFragment) {
+            VariableDeclarationFragment frag = (VariableDeclarationFragment)node;
             Expression initializer = frag.getInitializer();
             if (initializer != null) {
                 ExpressionVisitor visitor = new ExpressionVisitor(cfg, fieldNode);
@@ -55,8 +80,8 @@ public class CFGFieldFactory {
                 curNode = visitor.getExitNode();
             }
             
-        } else if (jf.getASTNode() instanceof EnumConstantDeclaration) {
-            EnumConstantDeclaration enumdecl = (EnumConstantDeclaration)jf.getASTNode();
+        } else if (node instanceof EnumConstantDeclaration) {
+            EnumConstantDeclaration enumdecl = (EnumConstantDeclaration)node;
             if (enumdecl.resolveConstructorBinding() != null) {
                 ExpressionVisitor visitor = new ExpressionVisitor(cfg, fieldNode);
                 enumdecl.accept(visitor);
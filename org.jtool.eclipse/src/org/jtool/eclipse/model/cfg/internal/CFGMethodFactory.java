@@ -4,6 +4,7 @@
 
 package org.jtool.eclipse.model.cfg.internal;
 
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Initializer;
 import org.jtool.eclipse.model.cfg.CFG;
@@ -12,9 +13,7 @@ import org.jtool.eclipse.model.cfg.CFGMethodEntry;
 import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.cfg.CFGParameter;
 import org.jtool.eclipse.model.cfg.ControlFlow;
-import org.jtool.eclipse.model.graph.GraphEdge;
 import org.jtool.eclipse.model.graph.GraphNodeSort;
-import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.java.internal.JavaSpecialVariable;
 import org.jtool.eclipse.model.java.JavaLocal;
 import org.jtool.eclipse.model.java.JavaMethod;
@@ -28,11 +27,36 @@ public class CFGMethodFactory {
     
     /**
      * Creates a CFG by visiting a method element.
+     * The AST nodes recreated for the creation are released again after the CFG is created.
      * @param jm information on the method
+     * @return the created CFG
+     * @throws IllegalStateException if the AST node of the method cannot be recreated
      */
     public static CFG getCFG(JavaMethod jm) {
+        boolean restored = jm.getASTNode() == null;
+        ASTNode node = jm.restoreASTNode();
+        if (node == null) {
+            throw new IllegalStateException("cannot restore the AST node of " + JavaMethod.getString(jm.getQualifiedName(), jm.getSignature()));
+        }
+        
+        try {
+            return getCFG(jm, node);
+        } finally {
+            if (restored) {
+                jm.getDeclaringJavaClass().getJavaFile().releaseASTNodes();
+            }
+        }
+    }
+    
+    /**
+     * Creates a CFG by visiting the AST node of a method element.
+     * @param jm information on the method
+     * @param node the AST node for the method
+     * @return the created CFG
+     */
+    private static CFG getCFG(JavaMethod jm, ASTNode node) {
         CFG cfg = new CFG();
-        ExpressionVisitor.paramNumber = 1;
+        ExpressionVisitor.resetParamNumber();
         
         CFGMethodEntry entry = new CFGMethodEntry(jm, GraphNodeSort.methodEntry);
         if (jm.isConstructor()) {
@@ -54,7 +78,7 @@ public class CFGMethodFactory {
         cfg.add(entryEdge);
         
         if (!jm.isInitializer()) {
-            MethodDeclaration method = (MethodDeclaration)jm.getASTNode();
+            MethodDeclaration method = (MethodDeclaration)node;
             
             StatementVisitor visitor = new StatementVisitor(cfg, nextNode);
             method.accept(visitor);
@@ -62,7 +86,7 @@ public class CFGMethodFactory {
             nextNode = visitor.getNextCFGNode();
             
         } else {
-            Initializer initializer = (Initializer)jm.getASTNode();
+            Initializer initializer = (Initializer)node;
             
             StatementVisitor visitor = new StatementVisitor(cfg, nextNode);
             initializer.accept(visitor);
@@ -105,10 +129,7 @@ public class CFGMethodFactory {
      * @param node the node which is actually contained in the created CFG
      */
     private static void replace(CFG cfg, CFGNode tmpNode, CFGNode node) {
-        GraphElementSet<GraphEdge> edges = new GraphElementSet<GraphEdge>(tmpNode.getIncomingEdges());
-        for (GraphEdge edge : edges) {
-            edge.setDstNode(node);
-        }
+        cfg.redirectIncomingEdges(tmpNode, node);
     }
     
     /**
@@ -131,9 +152,9 @@ public class CFGMethodFactory {
             JavaVariableAccess jvout = param.convertJavaVariableAccess();
             finNode.setDefVariable(jvout);
             
-            JavaVariableAccess jvin = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.paramNumber), jvout.getType(), jm);
+            JavaVariableAccess jvin = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.getParamNumber()), jvout.getType(), jm);
             finNode.setUseVariable(jvin);
-            ExpressionVisitor.paramNumber++;
+            ExpressionVisitor.incrementParamNumber();
             
             ControlFlow edge = new ControlFlow(prevNode, finNode);
             edge.setTrue();
@@ -162,9 +183,9 @@ public class CFGMethodFactory {
             
             cfg.add(foutNode);
             
-            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.paramNumber), jm.getReturnType(), jm);
+            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.getParamNumber()), jm.getReturnType(), jm);
             foutNode.addDefVariable(jvout); 
-            ExpressionVisitor.paramNumber++;
+            ExpressionVisitor.incrementParamNumber();
             
             JavaLocal returnValue = jm.getReturnValueVariable();
             JavaVariableAccess jvin = new JavaSpecialVariable(returnValue.getName(), returnValue.getType(), jm);
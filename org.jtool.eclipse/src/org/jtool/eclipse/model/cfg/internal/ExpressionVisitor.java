@@ -4,6 +4,7 @@
 
 package org.jtool.eclipse.model.cfg.internal;
 
+import org.jtool.eclipse.model.AnalysisSession;
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGEntry;
 import org.jtool.eclipse.model.cfg.CFGFactory;
@@ -14,8 +15,6 @@ import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.cfg.CFGParameter;
 import org.jtool.eclipse.model.cfg.CFGStatement;
 import org.jtool.eclipse.model.cfg.ControlFlow;
-import org.jtool.eclipse.model.graph.GraphEdge;
-import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.graph.GraphNodeSort;
 import org.jtool.eclipse.model.java.JavaClass;
 import org.jtool.eclipse.model.java.JavaExpression;
@@ -61,6 +60,7 @@ import org.eclipse.jdt.core.dom.IVariableBinding;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 
 /**
@@ -134,14 +134,44 @@ public class ExpressionVisitor extends ASTVisitor {
     private boolean inAssignment;
     
     /**
-     * The unique number for a parameter in a method declaration.
+     * The flag that requests the creation of actual nodes for method invocation.
      */
-    protected static int paramNumber = 1;
+    private boolean createActualNodes = false;
     
     /**
-     * The flag that requests the creation of actual nodes for method invocation.
+     * Returns the unique number for a parameter in a method declaration, which belongs to the current analysis session.
+     * @return the counter of the number
      */
-    private boolean createActualNodes = false;
+    private static AtomicInteger getParamCounter() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        AtomicInteger num = (AtomicInteger)session.getState(ExpressionVisitor.class);
+        if (num == null) {
+            num = (AtomicInteger)session.addState(ExpressionVisitor.class, new AtomicInteger(1));
+        }
+        return num;
+    }
+    
+    /**
+     * Returns the unique number for a parameter in a method declaration.
+     * @return the number for the next parameter
+     */
+    protected static int getParamNumber() {
+        return getParamCounter().get();
+    }
+    
+    /**
+     * Increments the unique number for a parameter in a method declaration.
+     */
+    protected static void incrementParamNumber() {
+        getParamCounter().incrementAndGet();
+    }
+    
+    /**
+     * Resets the unique number for a parameter in a method declaration.
+     */
+    protected static void resetParamNumber() {
+        getParamCounter().set(1);
+    }
     
     /**
      * Creates a new object for visiting an expression.
@@ -182,11 +212,7 @@ public class ExpressionVisitor extends ASTVisitor {
      * @param node the node to be inserted
      */
     protected void insertBeforeCurrentNode(CFGStatement node) {
-        GraphElementSet<GraphEdge> edges = new GraphElementSet<GraphEdge>(curNode.getIncomingEdges());
-        for (GraphEdge edge : edges) {
-            ControlFlow flow = (ControlFlow)edge;
-            flow.setDstNode(node);
-        }
+        cfg.redirectIncomingEdges(curNode, node);
         cfg.add(node);
         
         ControlFlow flow = createFlow(node, curNode);
@@ -765,16 +791,16 @@ public class ExpressionVisitor extends ASTVisitor {
         if (cfg.getStartNode() instanceof CFGMethodEntry) {
             CFGMethodEntry methodNode = (CFGMethodEntry)cfg.getStartNode();
             JavaMethod jm = methodNode.getJavaMethod();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getArgumentType(ordinal), jm);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getArgumentType(ordinal), jm);
         } else if (cfg.getStartNode() instanceof CFGFieldEntry) {
             CFGFieldEntry fieldNode = (CFGFieldEntry)cfg.getStartNode();
             JavaField jf = fieldNode.getJavaField();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getArgumentType(ordinal), jf);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getArgumentType(ordinal), jf);
         }
         
         if (jvin != null) {
             ainNode.addDefVariable(jvin);
-            paramNumber++;
+            incrementParamNumber();
         }
         
         insertBeforeCurrentNode(ainNode);
@@ -846,23 +872,23 @@ public class ExpressionVisitor extends ASTVisitor {
         if (cfg.getStartNode() instanceof CFGMethodEntry) {
             CFGMethodEntry methodNode = (CFGMethodEntry)cfg.getStartNode();
             JavaMethod jm = methodNode.getJavaMethod();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getReturnType(), jm);
-            jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + jmc.getName(), jmc.getReturnType(), jm);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getReturnType(), jm);
+            jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + jmc.getName(), jmc.getReturnType(), jm);
         } else if (cfg.getStartNode() instanceof CFGFieldEntry) {
             CFGFieldEntry fieldNode = (CFGFieldEntry)cfg.getStartNode();
             JavaField jf = fieldNode.getJavaField();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getReturnType(), jf);
-            jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + jmc.getName(), jmc.getReturnType(), jf);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getReturnType(), jf);
+            jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + jmc.getName(), jmc.getReturnType(), jf);
         }
         
         if (jvin != null) {
             aoutNode.addDefVariable(jvin);
-            paramNumber++;
+            incrementParamNumber();
         }
         
         if (jvout != null) {
             aoutNode.addUseVariable(jvout);
-            paramNumber++;
+            incrementParamNumber();
         }
         
         insertBeforeCurrentNode(aoutNode);
@@ -898,16 +924,16 @@ public class ExpressionVisitor extends ASTVisitor {
         if (entry.isMethodEntry()) {
             CFGMethodEntry mentry = (CFGMethodEntry)entry;
             JavaMethod jm = mentry.getJavaMethod();
-            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + callNode.getName(), callNode.getReturnType(), jm);
+            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + callNode.getName(), callNode.getReturnType(), jm);
             callNode.addDefVariable(jvout);
-            paramNumber++;
+            incrementParamNumber();
             
         } else if (entry.isFieldEntry()) {
             CFGFieldEntry fentry = (CFGFieldEntry)entry;
             JavaField jf = fentry.getJavaField();
-            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + callNode.getName(), callNode.getReturnType(), jf);
+            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + callNode.getName(), callNode.getReturnType(), jf);
             callNode.addDefVariable(jvout);
-            paramNumber++;
+            incrementParamNumber();
         }
     }
     
@@ -13,7 +13,6 @@ import org.jtool.eclipse.model.cfg.CFGStatement;
 import org.jtool.eclipse.model.cfg.ControlFlow;
 import org.jtool.eclipse.model.graph.GraphNodeSort;
 import org.jtool.eclipse.model.graph.GraphEdge;
-import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.java.JavaStatement;
 import org.jtool.eclipse.model.java.internal.JavaSpecialVariable;
 import org.jtool.eclipse.model.java.JavaLocal;
@@ -159,11 +158,7 @@ public class StatementVisitor extends ASTVisitor {
      * @param node the node which is actually contained in the created CFG.
      */
     protected void reconnect(CFGNode node) {
-        GraphElementSet<GraphEdge> edges = new GraphElementSet<GraphEdge>(nextNode.getIncomingEdges());
-        for (GraphEdge edge : edges) {
-            edge.setDstNode(node);
-        }
-        
+        cfg.redirectIncomingEdges(nextNode, node);
         cfg.add(node);
         
         nextNode.clear();
@@ -16,9 +16,9 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
     private GraphElementSet<N> nodes = new GraphElementSet<N>();
     
     /**
-     * Edges of this graph.
+     * Edges of this graph, which are distinguished by their identities since redirecting an edge changes its hash code.
      */
-    private GraphElementSet<E> edges = new GraphElementSet<E>();
+    private GraphElementSet<E> edges = GraphElementSet.createIdentitySet();
     
     /**
      * Creates a new, empty object.
@@ -84,16 +84,31 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
     }
     
     /**
-     * Removes a given node from this graph.
+     * Removes a given node and the edges connected to it from this graph.
+     * Only the edges stored in the node are examined, and the other edges of this graph are never traversed.
      * @param node the node to be removed
      */
     public void remove(N node) {
         nodes.remove(node);
-        for (E edge : new GraphElementSet<E>(getEdges())) {
-            if (edge.getSrcNode().equals(node) || edge.getDstNode().equals(node)) {
-                remove(edge);
-            }
-        } 
+        for (GraphEdge edge : node.copyIncomingEdges()) {
+            removeIncident(node, edge);
+        }
+        for (GraphEdge edge : node.copyOutgoingEdges()) {
+            removeIncident(node, edge);
+        }
+        node.clear();
+    }
+    
+    /**
+     * Removes an edge stored in a node if the edge is connected to the node.
+     * @param node the node storing the edge
+     * @param edge the edge to be removed
+     */
+    @SuppressWarnings("unchecked")
+    private void removeIncident(N node, GraphEdge edge) {
+        if (node.equals(edge.getSrcNode()) || node.equals(edge.getDstNode())) {
+            remove((E)edge);
+        }
     }
     
     /**
@@ -101,11 +116,113 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
      * @param edge the edge to be removed
      */
     public void remove(E edge) {
-        edges.remove(edge);
+        edges.removeIdentical(edge);
         edge.getSrcNode().removeOutgoingEdge(edge);
         edge.getDstNode().removeIncomingEdge(edge);
     }
     
+    /**
+     * Redirects the edges incoming to a node so that they enter another node.
+     * The edges stored in the former node are moved even if they were attached to it in addition to their destination.
+     * An edge that becomes equal to an edge already entering the latter node is removed from this graph.
+     * @param from the node whose incoming edges are redirected
+     * @param to the node which the edges are redirected to
+     */
+    public void redirectIncomingEdges(N from, N to) {
+        if (from.equals(to)) {
+            return;
+        }
+        
+        for (GraphEdge edge : from.copyIncomingEdges()) {
+            from.detachIncomingEdge(edge);
+            edge.setDstNode(to);
+            if (!to.holdsIncomingEdge(edge)) {
+                discard(edge);
+            }
+        }
+    }
+    
+    /**
+     * Redirects the edges outgoing from a node so that they leave another node.
+     * An edge that becomes equal to an edge already leaving the latter node is removed from this graph.
+     * @param from the node whose outgoing edges are redirected
+     * @param to the node which the edges are redirected to
+     */
+    public void redirectOutgoingEdges(N from, N to) {
+        if (from.equals(to)) {
+            return;
+        }
+        
+        for (GraphEdge edge : from.copyOutgoingEdges()) {
+            from.detachOutgoingEdge(edge);
+            edge.setSrcNode(to);
+            if (!to.holdsOutgoingEdge(edge)) {
+                discard(edge);
+            }
+        }
+    }
+    
+    /**
+     * Removes a node that has a single outgoing edge, and connects the edges incoming to the node to its successor.
+     * The incoming edges keep their sorts, and the outgoing edge is removed together with the node.
+     * @param node the node to be removed
+     * @return <code>true</code> if the node was removed, or <code>false</code> if it does not have a single successor
+     */
+    @SuppressWarnings("unchecked")
+    public boolean splice(N node) {
+        if (node.getNumOfOutgoingEdges() != 1) {
+            return false;
+        }
+        
+        GraphNode succ = node.copyOutgoingEdges()[0].getDstNode();
+        if (node.equals(succ)) {
+            return false;
+        }
+        
+        redirectIncomingEdges(node, (N)succ);
+        remove(node);
+        return true;
+    }
+    
+    /**
+     * Merges a node into another node. The edges of the merged node are redirected to the node that remains,
+     * and the edges between the two nodes are removed instead of becoming self-loops.
+     * @param node the node to be merged and removed
+     * @param into the node that remains
+     */
+    @SuppressWarnings("unchecked")
+    public void merge(N node, N into) {
+        if (node.equals(into)) {
+            return;
+        }
+        
+        for (GraphEdge edge : node.copyOutgoingEdges()) {
+            if (into.equals(edge.getDstNode()) || node.equals(edge.getDstNode())) {
+                remove((E)edge);
+            }
+        }
+        for (GraphEdge edge : node.copyIncomingEdges()) {
+            if (into.equals(edge.getSrcNode())) {
+                remove((E)edge);
+            }
+        }
+        
+        redirectIncomingEdges(node, into);
+        redirectOutgoingEdges(node, into);
+        remove(node);
+    }
+    
+    /**
+     * Removes a redirected edge that duplicates another edge. The edge is detached from whichever node still holds it.
+     * @param edge the edge to be removed
+     */
+    @SuppressWarnings("unchecked")
+    private void discard(GraphEdge edge) {
+        edges.removeIdentical((E)edge);
+        edge.getSrcNode().detachOutgoingEdge(edge);
+        edge.getDstNode().detachIncomingEdge(edge);
+    }
+    
     /**
      * Tests if this graph contains a given node.
      * @param node the node to be checked
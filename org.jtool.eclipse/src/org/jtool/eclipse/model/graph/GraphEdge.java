@@ -107,24 +107,24 @@ public class GraphEdge extends GraphElement {
     }
     
     /**
-     * Sets a source node for this edge.
+     * Sets a source node for this edge. Only the former and the new source nodes are changed,
+     * and the destination node keeps this edge as it is.
      * @param node the source node
      */
     public void setSrcNode(GraphNode node) {
-        src.removeOutgoingEdge(this);
-        dst.removeIncomingEdge(this);
+        src.detachOutgoingEdge(this);
         src = node;
         src.addOutgoingEdge(this);
         dst.addIncomingEdge(this);
     }
     
     /**
-     * Sets a destination node for this edge.
+     * Sets a destination node for this edge. Only the former and the new destination nodes are changed,
+     * and the source node keeps this edge as it is.
      * @param node the destination node
      */
     public void setDstNode(GraphNode node) {
-        src.removeOutgoingEdge(this);
-        dst.removeIncomingEdge(this);
+        dst.detachIncomingEdge(this);
         dst = node;
         src.addOutgoingEdge(this);
         dst.addIncomingEdge(this);
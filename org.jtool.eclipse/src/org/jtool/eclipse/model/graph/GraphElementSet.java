@@ -4,7 +4,10 @@
 
 package org.jtool.eclipse.model.graph;
 
+import java.util.AbstractSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.Iterator;
 
@@ -18,12 +21,18 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
     /**
      * A set of the stored elements.
      */
-    private Set<E> set = new LinkedHashSet<E>();
+    private Set<E> set;
+    
+    /**
+     * A flag indicating that the stored elements are distinguished by their identities instead of their hash codes.
+     */
+    private boolean identical = false;
     
     /**
      * Creates a new, empty set.
      */
     public GraphElementSet() {
+        set = new LinkedHashSet<E>();
     }
     
     /**
@@ -31,9 +40,30 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * @param set the set of graph elements
      */
     public GraphElementSet(GraphElementSet<E> s) {
+        set = new LinkedHashSet<E>();
         addAll(s);
     }
     
+    /**
+     * Creates a view of a set of elements. Changes of the set are reflected in the view, and vice versa.
+     * @param set the set backing the view
+     */
+    GraphElementSet(Set<E> set) {
+        this.set = set;
+    }
+    
+    /**
+     * Creates a new, empty set that distinguishes the stored elements by their identities and maintains the insertion-order.
+     * An element can be found even after its hash code changed, for example, after the end points of an edge were changed.
+     * Elements equal to a stored element are still never added.
+     * @return the created set
+     */
+    static <E extends GraphElement> GraphElementSet<E> createIdentitySet() {
+        GraphElementSet<E> s = new GraphElementSet<E>(new LinkedIdentitySet<E>());
+        s.identical = true;
+        return s;
+    }
+    
     /**
      * Removes all graph elements of this set.
      */
@@ -66,6 +96,29 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
         return false;
     }
     
+    /**
+     * Removes a given graph element from this set, even if its hash code has changed since it was added.
+     * A set distinguishing its elements by their identities finds the element directly. Another set is scanned for
+     * the identical element only when it cannot be found by the hash code.
+     * @param elem the graph element to be removed
+     * @return <code>true</code> if this set contained the removed graph element, otherwise <code>false</code>
+     */
+    public boolean removeIdentical(E elem) {
+        if (remove(elem)) {
+            return true;
+        }
+        if (identical) {
+            return false;
+        }
+        for (Iterator<E> it = set.iterator(); it.hasNext(); ) {
+            if (it.next() == elem) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Adds all graph elements specified by a given set to this set.
      * @param s the set of graph elements to be added
@@ -260,4 +313,106 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
             return "";
         }
     }
+    
+    /**
+     * A set that distinguishes its elements by their identities and maintains the insertion-order.
+     */
+    private static class LinkedIdentitySet<E> extends AbstractSet<E> {
+        
+        /**
+         * The map storing the elements, keyed by their identities.
+         */
+        private Map<IdentityKey, E> map = new LinkedHashMap<IdentityKey, E>();
+        
+        /**
+         * Adds an element unless the identical element is stored.
+         * @param elem the element to be added
+         * @return <code>true</code> if this set changed, otherwise <code>false</code>
+         */
+        public boolean add(E elem) {
+            IdentityKey key = new IdentityKey(elem);
+            if (map.containsKey(key)) {
+                return false;
+            }
+            map.put(key, elem);
+            return true;
+        }
+        
+        /**
+         * Removes the element identical to a given object.
+         * @param obj the object to be removed
+         * @return <code>true</code> if this set contained the object, otherwise <code>false</code>
+         */
+        public boolean remove(Object obj) {
+            return map.remove(new IdentityKey(obj)) != null;
+        }
+        
+        /**
+         * Tests if this set contains the element identical to a given object.
+         * @param obj the object to be checked
+         * @return <code>true</code> if this set contains the object, otherwise <code>false</code>
+         */
+        public boolean contains(Object obj) {
+            return map.containsKey(new IdentityKey(obj));
+        }
+        
+        /**
+         * Removes all the elements of this set.
+         */
+        public void clear() {
+            map.clear();
+        }
+        
+        /**
+         * Returns the number of the elements in this set.
+         * @return the number of the elements
+         */
+        public int size() {
+            return map.size();
+        }
+        
+        /**
+         * Returns the iterator of this set in the insertion-order.
+         * @return the iterator of this set
+         */
+        public Iterator<E> iterator() {
+            return map.values().iterator();
+        }
+    }
+    
+    /**
+     * A key that compares objects by their identities.
+     */
+    private static class IdentityKey {
+        
+        /**
+         * The object compared by its identity.
+         */
+        private Object obj;
+        
+        /**
+         * Creates a key for an object.
+         * @param obj the object
+         */
+        IdentityKey(Object obj) {
+            this.obj = obj;
+        }
+        
+        /**
+         * Tests if this key refers to the object identical to that of a given key.
+         * @param other the key to be checked
+         * @return <code>true</code> if both the keys refer to the identical object, otherwise <code>false</code>
+         */
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey && ((IdentityKey)other).obj == obj;
+        }
+        
+        /**
+         * Returns the hash code of the identity of the object.
+         * @return the hash code value
+         */
+        public int hashCode() {
+            return System.identityHashCode(obj);
+        }
+    }
 }
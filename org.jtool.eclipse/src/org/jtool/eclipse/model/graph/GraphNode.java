@@ -4,10 +4,20 @@
 
 package org.jtool.eclipse.model.graph;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import org.apache.log4j.Logger;
 
 /**
  * A node object for graph.
+ * The incoming and outgoing edges are stored in small arrays that grow only for nodes having many edges.
+ * The collections of edges and of source and destination nodes returned by a node are views of the arrays,
+ * and the source and destination nodes are derived from the edges when they are requested.
  * @author Katsuhsa Maruyama
  */
 public class GraphNode extends GraphElement {
@@ -21,24 +31,45 @@ public class GraphNode extends GraphElement {
     protected GraphNodeSort sort;
     
     /**
-     * The collection of edges incoming to this node. 
+     * The empty array of edges shared by nodes without edges.
      */
-    private GraphElementSet<GraphEdge> incomingEdges = new GraphElementSet<GraphEdge>();
+    private static final GraphEdge[] NO_EDGES = new GraphEdge[0];
     
     /**
-     * The collection of edges outgoing from this node. 
+     * The number of edges that a node first allocates room for.
      */
-    private GraphElementSet<GraphEdge> outgoingEdges = new GraphElementSet<GraphEdge>();
+    private static final int INITIAL_CAPACITY = 2;
     
     /**
-     * The collection of source nodes of this node. 
+     * The number of edges over which the source or destination nodes are collected into a hash set
+     * instead of being checked against the preceding edges.
      */
-    private GraphElementSet<GraphNode> srcNodes = new GraphElementSet<GraphNode>();
+    private static final int SMALL_DEGREE = 8;
     
     /**
-     * The collection of destination nodes of this node. 
+     * The edges incoming to this node in the order of their addition, followed by unused room.
      */
-    private GraphElementSet<GraphNode> dstNodes = new GraphElementSet<GraphNode>();
+    private GraphEdge[] incomingEdges = NO_EDGES;
+    
+    /**
+     * The number of the edges incoming to this node.
+     */
+    private int numOfIncomingEdges = 0;
+    
+    /**
+     * The edges outgoing from this node in the order of their addition, followed by unused room.
+     */
+    private GraphEdge[] outgoingEdges = NO_EDGES;
+    
+    /**
+     * The number of the edges outgoing from this node.
+     */
+    private int numOfOutgoingEdges = 0;
+    
+    /**
+     * The number of changes of the edges, which detects a change during an iteration.
+     */
+    private int modCount = 0;
     
     /**
      * Creates a new, empty node.
@@ -108,10 +139,8 @@ public class GraphNode extends GraphElement {
      * Clears the contents of caches related to this node. 
      */
     public void clear() {
-        incomingEdges.clear();
-        outgoingEdges.clear();
-        srcNodes.clear();
-        dstNodes.clear();
+        clearIncomingEdges();
+        clearOutgoingEdges();
     }
     
     /**
@@ -149,8 +178,11 @@ public class GraphNode extends GraphElement {
      * @param edge the incoming edge to be added
      */
     public void addIncomingEdge(GraphEdge edge) {
-        if (incomingEdges.add(edge)) {
-            srcNodes.add(edge.getSrcNode());
+        if (indexOf(incomingEdges, numOfIncomingEdges, edge) == -1) {
+            incomingEdges = ensureCapacity(incomingEdges, numOfIncomingEdges + 1);
+            incomingEdges[numOfIncomingEdges] = edge;
+            numOfIncomingEdges++;
+            modCount++;
         }
     }
     
@@ -159,8 +191,11 @@ public class GraphNode extends GraphElement {
      * @param edge the outgoing edge to be added
      */
     public void addOutgoingEdge(GraphEdge edge) {
-        if (outgoingEdges.add(edge)) {
-            dstNodes.add(edge.getDstNode());
+        if (indexOf(outgoingEdges, numOfOutgoingEdges, edge) == -1) {
+            outgoingEdges = ensureCapacity(outgoingEdges, numOfOutgoingEdges + 1);
+            outgoingEdges[numOfOutgoingEdges] = edge;
+            numOfOutgoingEdges++;
+            modCount++;
         }
     }
     
@@ -189,8 +224,11 @@ public class GraphNode extends GraphElement {
      * @param edge the incoming edge to be removed
      */
     public void removeIncomingEdge(GraphEdge edge) {
-        incomingEdges.remove(edge);
-        srcNodes.remove(edge.getSrcNode());
+        int index = indexOf(incomingEdges, numOfIncomingEdges, edge);
+        if (index != -1) {
+            numOfIncomingEdges = remove(incomingEdges, numOfIncomingEdges, index);
+            modCount++;
+        }
     }
     
     /**
@@ -198,70 +236,224 @@ public class GraphNode extends GraphElement {
      * @param edge the outgoing edge to be removed
      */
     public void removeOutgoingEdge(GraphEdge edge) {
-        outgoingEdges.remove(edge);
-        dstNodes.remove(edge.getDstNode());
+        int index = indexOf(outgoingEdges, numOfOutgoingEdges, edge);
+        if (index != -1) {
+            numOfOutgoingEdges = remove(outgoingEdges, numOfOutgoingEdges, index);
+            modCount++;
+        }
     }
     
     /**
      * Clears the cache storing incoming edges.
      */
     public void clearIncomingEdges() {
-        incomingEdges.clear();
+        incomingEdges = NO_EDGES;
+        numOfIncomingEdges = 0;
+        modCount++;
     }
     
     /**
      * Clears the cache storing outgoing edges. 
      */
     public void clearOutgoingEdges() {
-        outgoingEdges.clear();
+        outgoingEdges = NO_EDGES;
+        numOfOutgoingEdges = 0;
+        modCount++;
     }
     
     /**
-     * Sets edges incoming to this node.
+     * Sets edges incoming to this node. The edges are copied, and later changes of the given collection are not reflected.
      * @param edges the collection of incoming edges
      */
     public void setIncomingEdges(GraphElementSet<GraphEdge> edges) {
-        incomingEdges = edges;
+        clearIncomingEdges();
+        addIncomingEdges(edges);
     }
     
     /**
-     * Sets edges outgoing from this node.
+     * Sets edges outgoing from this node. The edges are copied, and later changes of the given collection are not reflected.
      * @param edges the collection of outgoing edges
      */
     public void setOutgoingEdges(GraphElementSet<GraphEdge> edges) {
-        outgoingEdges = edges;
+        clearOutgoingEdges();
+        addOutgoingEdges(edges);
     }
     
     /**
      * Returns edges incoming to this node.
-     * @return the collection of the incoming edges
+     * @return the view of the incoming edges, which reflects later changes of the edges of this node
      */
     public GraphElementSet<GraphEdge> getIncomingEdges() {
-        return incomingEdges;
+        return new GraphElementSet<GraphEdge>(new EdgeView(true));
     }
     
     /**
      * Returns edges outgoing from this node.
-     * @return the collection of the outgoing edges
+     * @return the view of the outgoing edges, which reflects later changes of the edges of this node
      */
     public GraphElementSet<GraphEdge> getOutgoingEdges() {
-        return outgoingEdges;
+        return new GraphElementSet<GraphEdge>(new EdgeView(false));
     }
     
     /**
      * Returns source nodes for this node.
-     * @return the collection of the source nodes
+     * @return the read-only view of the source nodes of the incoming edges
      */
     public GraphElementSet<GraphNode> getSrcNodes() {
-        return srcNodes;
+        return new GraphElementSet<GraphNode>(new NodeView(true));
     }
     
     /**
      * Returns destination nodes for this node.
-     * @return The collection of destination nodes
+     * @return The read-only view of the destination nodes of the outgoing edges
      */
     public GraphElementSet<GraphNode> getDstNodes() {
-        return dstNodes;
+        return new GraphElementSet<GraphNode>(new NodeView(false));
+    }
+    
+    /**
+     * Returns the number of edges incoming to this node.
+     * @return the number of the incoming edges
+     */
+    public int getNumOfIncomingEdges() {
+        return numOfIncomingEdges;
+    }
+    
+    /**
+     * Returns the number of edges outgoing from this node.
+     * @return the number of the outgoing edges
+     */
+    public int getNumOfOutgoingEdges() {
+        return numOfOutgoingEdges;
+    }
+    
+    /**
+     * Removes an edge incoming to this node only if the very edge is stored, not an edge equal to it.
+     * @param edge the incoming edge to be removed
+     * @return <code>true</code> if the edge was removed, otherwise <code>false</code>
+     */
+    boolean detachIncomingEdge(GraphEdge edge) {
+        int index = indexOfIdentical(incomingEdges, numOfIncomingEdges, edge);
+        if (index != -1) {
+            numOfIncomingEdges = remove(incomingEdges, numOfIncomingEdges, index);
+            modCount++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Removes an edge outgoing from this node only if the very edge is stored, not an edge equal to it.
+     * @param edge the outgoing edge to be removed
+     * @return <code>true</code> if the edge was removed, otherwise <code>false</code>
+     */
+    boolean detachOutgoingEdge(GraphEdge edge) {
+        int index = indexOfIdentical(outgoingEdges, numOfOutgoingEdges, edge);
+        if (index != -1) {
+            numOfOutgoingEdges = remove(outgoingEdges, numOfOutgoingEdges, index);
+            modCount++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if the very edge is stored as an edge incoming to this node.
+     * @param edge the edge to be checked
+     * @return <code>true</code> if the edge is stored, otherwise <code>false</code>
+     */
+    boolean holdsIncomingEdge(GraphEdge edge) {
+        return indexOfIdentical(incomingEdges, numOfIncomingEdges, edge) != -1;
+    }
+    
+    /**
+     * Tests if the very edge is stored as an edge outgoing from this node.
+     * @param edge the edge to be checked
+     * @return <code>true</code> if the edge is stored, otherwise <code>false</code>
+     */
+    boolean holdsOutgoingEdge(GraphEdge edge) {
+        return indexOfIdentical(outgoingEdges, numOfOutgoingEdges, edge) != -1;
+    }
+    
+    /**
+     * Returns a snapshot of the edges incoming to this node, which can be traversed while the edges are changed.
+     * @return the array of the incoming edges
+     */
+    GraphEdge[] copyIncomingEdges() {
+        return Arrays.copyOf(incomingEdges, numOfIncomingEdges);
+    }
+    
+    /**
+     * Returns a snapshot of the edges outgoing from this node, which can be traversed while the edges are changed.
+     * @return the array of the outgoing edges
+     */
+    GraphEdge[] copyOutgoingEdges() {
+        return Arrays.copyOf(outgoingEdges, numOfOutgoingEdges);
+    }
+    
+    /**
+     * Finds an edge in an array of edges. The very edge is preferred to another edge equal to it.
+     * @param edges the array of the edges
+     * @param num the number of the edges stored in the array
+     * @param edge the edge to be found
+     * @return the index of the edge equal to the given one, or <code>-1</code> if none
+     */
+    private static int indexOf(GraphEdge[] edges, int num, GraphEdge edge) {
+        int index = indexOfIdentical(edges, num, edge);
+        if (index != -1) {
+            return index;
+        }
+        for (int i = 0; i < num; i++) {
+            if (edge.equals(edges[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Finds the very edge in an array of edges.
+     * @param edges the array of the edges
+     * @param num the number of the edges stored in the array
+     * @param edge the edge to be found
+     * @return the index of the edge, or <code>-1</code> if none
+     */
+    private static int indexOfIdentical(GraphEdge[] edges, int num, GraphEdge edge) {
+        for (int i = 0; i < num; i++) {
+            if (edges[i] == edge) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Obtains an array that has room for a given number of edges.
+     * @param edges the array of the edges
+     * @param capacity the number of the edges to be stored
+     * @return the given array if it has enough room, otherwise a larger copy of it
+     */
+    private static GraphEdge[] ensureCapacity(GraphEdge[] edges, int capacity) {
+        if (edges.length >= capacity) {
+            return edges;
+        }
+        
+        GraphEdge[] array = new GraphEdge[Math.max(Math.max(edges.length * 2, INITIAL_CAPACITY), capacity)];
+        System.arraycopy(edges, 0, array, 0, edges.length);
+        return array;
+    }
+    
+    /**
+     * Removes an edge from an array of edges with the order of the remaining edges kept.
+     * @param edges the array of the edges
+     * @param num the number of the edges stored in the array
+     * @param index the index of the edge to be removed
+     * @return the number of the remaining edges
+     */
+    private static int remove(GraphEdge[] edges, int num, int index) {
+        System.arraycopy(edges, index + 1, edges, index, num - index - 1);
+        edges[num - 1] = null;
+        return num - 1;
     }
     
     /**
@@ -332,4 +524,353 @@ public class GraphNode extends GraphElement {
         }
         return buf.toString();
     }
+    
+    /**
+     * A view of the incoming or outgoing edges of this node.
+     */
+    private class EdgeView extends AbstractSet<GraphEdge> {
+        
+        /**
+         * A flag indicating that this view represents the incoming edges.
+         */
+        private boolean incoming;
+        
+        /**
+         * Creates a view of the edges of this node.
+         * @param incoming <code>true</code> for the incoming edges, <code>false</code> for the outgoing edges
+         */
+        EdgeView(boolean incoming) {
+            this.incoming = incoming;
+        }
+        
+        /**
+         * Returns the number of the edges.
+         * @return the number of the edges
+         */
+        public int size() {
+            return incoming ? numOfIncomingEdges : numOfOutgoingEdges;
+        }
+        
+        /**
+         * Tests if this view contains an edge.
+         * @param obj the edge to be checked
+         * @return <code>true</code> if an edge equal to the given one is stored, otherwise <code>false</code>
+         */
+        public boolean contains(Object obj) {
+            if (!(obj instanceof GraphEdge)) {
+                return false;
+            }
+            if (incoming) {
+                return indexOf(incomingEdges, numOfIncomingEdges, (GraphEdge)obj) != -1;
+            }
+            return indexOf(outgoingEdges, numOfOutgoingEdges, (GraphEdge)obj) != -1;
+        }
+        
+        /**
+         * Adds an edge to this node.
+         * @param edge the edge to be added
+         * @return <code>true</code> if the edges changed, otherwise <code>false</code>
+         */
+        public boolean add(GraphEdge edge) {
+            int num = size();
+            if (incoming) {
+                addIncomingEdge(edge);
+            } else {
+                addOutgoingEdge(edge);
+            }
+            return num != size();
+        }
+        
+        /**
+         * Removes an edge from this node.
+         * @param obj the edge to be removed
+         * @return <code>true</code> if the edges changed, otherwise <code>false</code>
+         */
+        public boolean remove(Object obj) {
+            if (!(obj instanceof GraphEdge)) {
+                return false;
+            }
+            int num = size();
+            if (incoming) {
+                removeIncomingEdge((GraphEdge)obj);
+            } else {
+                removeOutgoingEdge((GraphEdge)obj);
+            }
+            return num != size();
+        }
+        
+        /**
+         * Removes all the edges from this node.
+         */
+        public void clear() {
+            if (incoming) {
+                clearIncomingEdges();
+            } else {
+                clearOutgoingEdges();
+            }
+        }
+        
+        /**
+         * Returns the iterator of the edges in the order of their addition.
+         * @return the iterator that fails if the edges of this node change during the iteration
+         */
+        public Iterator<GraphEdge> iterator() {
+            return new EdgeIterator(incoming);
+        }
+    }
+    
+    /**
+     * An iterator of the incoming or outgoing edges of this node.
+     */
+    private class EdgeIterator implements Iterator<GraphEdge> {
+        
+        /**
+         * A flag indicating that this iterator traverses the incoming edges.
+         */
+        private boolean incoming;
+        
+        /**
+         * The index of the next edge.
+         */
+        private int index = 0;
+        
+        /**
+         * The index of the edge returned last, or <code>-1</code> if it does not exist or was removed.
+         */
+        private int last = -1;
+        
+        /**
+         * The number of changes of the edges expected by this iterator.
+         */
+        private int expectedModCount = modCount;
+        
+        /**
+         * Creates an iterator of the edges of this node.
+         * @param incoming <code>true</code> for the incoming edges, <code>false</code> for the outgoing edges
+         */
+        EdgeIterator(boolean incoming) {
+            this.incoming = incoming;
+        }
+        
+        /**
+         * Tests if an edge remains.
+         * @return <code>true</code> if an edge remains, otherwise <code>false</code>
+         */
+        public boolean hasNext() {
+            return index < (incoming ? numOfIncomingEdges : numOfOutgoingEdges);
+        }
+        
+        /**
+         * Returns the next edge.
+         * @return the next edge
+         */
+        public GraphEdge next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = index;
+            index++;
+            return incoming ? incomingEdges[last] : outgoingEdges[last];
+        }
+        
+        /**
+         * Removes the edge returned last from this node.
+         */
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            
+            if (incoming) {
+                numOfIncomingEdges = GraphNode.remove(incomingEdges, numOfIncomingEdges, last);
+            } else {
+                numOfOutgoingEdges = GraphNode.remove(outgoingEdges, numOfOutgoingEdges, last);
+            }
+            modCount++;
+            expectedModCount = modCount;
+            index = last;
+            last = -1;
+        }
+    }
+    
+    /**
+     * A read-only view of the source nodes of the incoming edges or the destination nodes of the outgoing edges of
+     * this node. A node connected by several edges appears once.
+     */
+    private class NodeView extends AbstractSet<GraphNode> {
+        
+        /**
+         * A flag indicating that this view represents the source nodes.
+         */
+        private boolean incoming;
+        
+        /**
+         * Creates a view of the nodes adjacent to this node.
+         * @param incoming <code>true</code> for the source nodes, <code>false</code> for the destination nodes
+         */
+        NodeView(boolean incoming) {
+            this.incoming = incoming;
+        }
+        
+        /**
+         * Returns the number of the nodes.
+         * @return the number of the nodes
+         */
+        public int size() {
+            int num = incoming ? numOfIncomingEdges : numOfOutgoingEdges;
+            if (num > SMALL_DEGREE) {
+                return collect().size();
+            }
+            
+            int size = 0;
+            for (int i = 0; i < num; i++) {
+                if (isFirst(i)) {
+                    size++;
+                }
+            }
+            return size;
+        }
+        
+        /**
+         * Tests if this view contains a node.
+         * @param obj the node to be checked
+         * @return <code>true</code> if the node is adjacent to this node, otherwise <code>false</code>
+         */
+        public boolean contains(Object obj) {
+            int num = incoming ? numOfIncomingEdges : numOfOutgoingEdges;
+            for (int i = 0; i < num; i++) {
+                if (getNode(i).equals(obj)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Returns the iterator of the nodes in the order of the addition of their edges.
+         * @return the iterator of the nodes
+         */
+        public Iterator<GraphNode> iterator() {
+            int num = incoming ? numOfIncomingEdges : numOfOutgoingEdges;
+            if (num > SMALL_DEGREE) {
+                return collect().iterator();
+            }
+            return new NodeIterator(incoming);
+        }
+        
+        /**
+         * Returns the node at the end of an edge.
+         * @param index the index of the edge
+         * @return the source node of the incoming edge or the destination node of the outgoing edge
+         */
+        GraphNode getNode(int index) {
+            return incoming ? incomingEdges[index].getSrcNode() : outgoingEdges[index].getDstNode();
+        }
+        
+        /**
+         * Tests if the node at the end of an edge does not appear at the end of the preceding edges.
+         * @param index the index of the edge
+         * @return <code>true</code> if the node appears first, otherwise <code>false</code>
+         */
+        boolean isFirst(int index) {
+            GraphNode node = getNode(index);
+            for (int i = 0; i < index; i++) {
+                if (node.equals(getNode(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Collects the nodes into a set, which is used for a node having many edges.
+         * @return the set of the nodes
+         */
+        private Set<GraphNode> collect() {
+            int num = incoming ? numOfIncomingEdges : numOfOutgoingEdges;
+            Set<GraphNode> nodes = new LinkedHashSet<GraphNode>();
+            for (int i = 0; i < num; i++) {
+                nodes.add(getNode(i));
+            }
+            return nodes;
+        }
+        
+        /**
+         * An iterator of the nodes adjacent to this node, which skips the nodes already returned.
+         */
+        private class NodeIterator implements Iterator<GraphNode> {
+            
+            /**
+             * A flag indicating that this iterator traverses the source nodes.
+             */
+            private boolean incoming;
+            
+            /**
+             * The index of the edge whose node is returned next.
+             */
+            private int index = 0;
+            
+            /**
+             * The number of changes of the edges expected by this iterator.
+             */
+            private int expectedModCount = modCount;
+            
+            /**
+             * Creates an iterator of the nodes adjacent to this node.
+             * @param incoming <code>true</code> for the source nodes, <code>false</code> for the destination nodes
+             */
+            NodeIterator(boolean incoming) {
+                this.incoming = incoming;
+                skip();
+            }
+            
+            /**
+             * Skips the edges whose nodes were already returned.
+             */
+            private void skip() {
+                int num = incoming ? numOfIncomingEdges : numOfOutgoingEdges;
+                while (index < num && !isFirst(index)) {
+                    index++;
+                }
+            }
+            
+            /**
+             * Tests if a node remains.
+             * @return <code>true</code> if a node remains, otherwise <code>false</code>
+             */
+            public boolean hasNext() {
+                return index < (incoming ? numOfIncomingEdges : numOfOutgoingEdges);
+            }
+            
+            /**
+             * Returns the next node.
+             * @return the next node
+             */
+            public GraphNode next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                GraphNode node = getNode(index);
+                index++;
+                skip();
+                return node;
+            }
+            
+            /**
+             * Removal is not supported since the nodes are derived from the edges.
+             */
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
 }
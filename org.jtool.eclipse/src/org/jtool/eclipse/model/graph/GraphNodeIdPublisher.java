@@ -4,6 +4,9 @@
 
 package org.jtool.eclipse.model.graph;
 
+import org.jtool.eclipse.model.AnalysisSession;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Generates and manages the identification numbers for graph elements.
  * @author Katsuhisa Maruyama
@@ -11,22 +14,30 @@ package org.jtool.eclipse.model.graph;
 public class GraphNodeIdPublisher {
     
     /**
-     * The identification number.
+     * Returns the identification number that belongs to the current analysis session.
+     * @return the counter of the identification number
      */
-    private static long id = 1;
+    private static AtomicLong getCounter() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        AtomicLong id = (AtomicLong)session.getState(GraphNodeIdPublisher.class);
+        if (id == null) {
+            id = (AtomicLong)session.addState(GraphNodeIdPublisher.class, new AtomicLong(1));
+        }
+        return id;
+    }
     
     /**
      * Increments the identification number and return it.
      * @return the identification number
      */
     public static long getId() {
-        return id++;
+        return getCounter().getAndIncrement();
     }
     
     /**
      * Resets the identification number.
      */
     public static void reset() {
-        id = 1;
+        getCounter().set(1);
     }
 }
@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.java.internal.IdSet;
+import org.jtool.eclipse.model.AnalysisSession;
 import org.jtool.eclipse.model.java.internal.TypeCollector;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.EnumDeclaration;
@@ -17,7 +19,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -29,9 +32,18 @@ public class JavaClass extends JavaElement {
     static Logger logger = Logger.getLogger(JavaClass.class.getName());
     
     /**
-     * The cache for all objects of classes.
+     * Returns the cache for all objects of classes, which belongs to the current analysis session.
+     * @return the cache
      */
-    protected static HashMap<String, JavaClass> cache = new HashMap<String, JavaClass>();
+    @SuppressWarnings("unchecked")
+    private static Map<String, JavaClass> getCache() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        Map<String, JavaClass> cache = (Map<String, JavaClass>)session.getState(JavaClass.class);
+        if (cache == null) {
+            cache = (Map<String, JavaClass>)session.addState(JavaClass.class, new ConcurrentHashMap<String, JavaClass>());
+        }
+        return cache;
+    }
     
     /**
      * The name of this class.
@@ -79,9 +91,9 @@ public class JavaClass extends JavaElement {
     protected Set<String> superInterfaceNames = new HashSet<String>();
     
     /**
-     * The names of efferent classes for this class.
+     * The identification numbers of efferent classes for this class.
      */
-    protected Set<String> efferentClassNames = new HashSet<String>();
+    protected IdSet efferentClassIds = new IdSet();
     
     /**
      * A file which this class is written in.
@@ -113,6 +125,11 @@ public class JavaClass extends JavaElement {
      */
     protected boolean bindingOk = true;
     
+    /**
+     * The identification number of this class in the symbol table.
+     */
+    protected int symbolId = -1;
+    
     /**
      * Creates a new, empty object.
      */
@@ -140,18 +157,18 @@ public class JavaClass extends JavaElement {
         jpackage = jp;
         
         if (binding != null) {
-            name = binding.getName();
-            fqn = JavaClass.createClassName(binding);
+            name = JavaStringPool.intern(binding.getName());
+            fqn = JavaStringPool.intern(JavaClass.createClassName(binding));
             modifiers = binding.getModifiers();
             declaringClass = getDeclaringJavaClass(binding.getDeclaringClass());
             declaringMethod = getDeclaringJavaMethod(binding.getDeclaringMethod());
             isInterface = binding.isInterface();
             isEnum = binding.isEnum();
             if (binding.getSuperclass() != null) {
-                superClassName = JavaClass.getString(binding.getSuperclass().getQualifiedName());
+                superClassName = JavaStringPool.intern(JavaClass.getString(binding.getSuperclass().getQualifiedName()));
             }
             for (ITypeBinding type : binding.getInterfaces()) {
-                superInterfaceNames.add(JavaClass.getString(type.getQualifiedName()));
+                superInterfaceNames.add(JavaStringPool.intern(JavaClass.getString(type.getQualifiedName())));
             }
             collectEfferentClasses(node);
             
@@ -196,13 +213,16 @@ public class JavaClass extends JavaElement {
                       JavaFile jfile, JavaPackage jpackage) {
         super();
         
-        this.name = name;
-        this.fqn = fqn;
+        this.name = JavaStringPool.intern(name);
+        this.fqn = JavaStringPool.intern(fqn);
         this.modifiers = modifiers;
         this.isInterface = isInterface;
         this.isEnum = isEnum;
         this.jpackage = jpackage;
         this.jfile = jfile;
+        if (jfile != null) {
+            jfile.addJavaClass(this);
+        }
     }
     
     /**
@@ -258,15 +278,19 @@ public class JavaClass extends JavaElement {
         */
         
         String fqn = binding.getQualifiedName();
+        Map<String, JavaClass> cache = getCache();
         JavaClass jclass = cache.get(fqn);
         if (jclass != null) {
             return jclass;
         }
         
-        jclass = new JavaClass(node, binding, jp);
-        jp.addJavaClass(jclass);
-        cache.put(fqn, jclass);
-        
+        synchronized (cache) {
+            jclass = cache.get(fqn);
+            if (jclass == null) {
+                jclass = new JavaClass(node, binding, jp);
+                register(fqn, jclass, jp, cache);
+            }
+        }
         return jclass;
     }
     
@@ -284,15 +308,34 @@ public class JavaClass extends JavaElement {
      */
     public static JavaClass create(String name, String fqn, int modifiers, boolean isInterface, boolean isEnum,
                       JavaFile jfile, JavaPackage jp) {
+        Map<String, JavaClass> cache = getCache();
         JavaClass jclass = cache.get(fqn);
         if (jclass != null) {
             return jclass;
         }
         
-        jclass = new JavaClass(name, fqn, modifiers, isInterface, isEnum, jfile, jp);
+        synchronized (cache) {
+            jclass = cache.get(fqn);
+            if (jclass == null) {
+                jclass = new JavaClass(name, fqn, modifiers, isInterface, isEnum, jfile, jp);
+                register(fqn, jclass, jp, cache);
+            }
+        }
+        return jclass;
+    }
+    
+    /**
+     * Registers a newly created class. The class is stored into the cache at the end,
+     * so that threads looking up the cache without locking never see the class being created.
+     * @param fqn the fully-qualified name of the class
+     * @param jclass the created class
+     * @param jp the package containing the class
+     * @param cache the cache for all objects of classes
+     */
+    private static void register(String fqn, JavaClass jclass, JavaPackage jp, Map<String, JavaClass> cache) {
+        jclass.symbolId = JavaSymbolTable.register(JavaClass.getString(fqn), jclass);
         jp.addJavaClass(jclass);
         cache.put(fqn, jclass);
-        return jclass;
     }
     
     /**
@@ -304,7 +347,7 @@ public class JavaClass extends JavaElement {
         node.accept(tvisitor);
         
         for (String str : tvisitor.getTypeUses()) {
-            efferentClassNames.add(str);
+            JavaSymbolTable.register(str, efferentClassIds);
         }
         
         if (!tvisitor.isBindingOk()) {
@@ -329,6 +372,14 @@ public class JavaClass extends JavaElement {
         return true;
     }
     
+    /**
+     * Returns the identification number of this class in the symbol table.
+     * @return the identification number, or <code>-1</code> if this class has not been registered
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+    
     /**
      * Sets the name of super class of this class.
      * @param name the name of the super class
@@ -368,28 +419,30 @@ public class JavaClass extends JavaElement {
      */
     public static JavaClass getJavaClass(String fqn) {
         if (fqn != null && fqn.length() != 0) {
-            return cache.get(fqn);
+            return getCache().get(fqn);
         }
         return null;
     }
     
     /**
-     * Returns all the classes stored in the cache.
+     * Returns all the classes stored in the cache of the current analysis session.
      * @return the collection of the stored classes
      */
     public static Set<JavaClass> getAllJavaClassesInCache() {
         Set<JavaClass> jclasses = new HashSet<JavaClass>();
-        for (JavaClass jc : cache.values()) {
+        for (JavaClass jc : getCache().values()) {
             jclasses.add(jc);
         }
         return jclasses;
     }
     
     /**
-     * Removes information about all classes stored in the cache.
+     * Removes information about all classes stored in the cache of the current analysis session.
+     * The symbols of the classes and their members are also removed from the symbol table of the session.
      */
     public static void removeAllClassesInCache() {
-        cache.clear();
+        getCache().clear();
+        JavaSymbolTable.clear();
     }
     
     /**
@@ -397,31 +450,46 @@ public class JavaClass extends JavaElement {
      * @param jf the file to be removed
      */
     public static void removeClassesRelatedTo(JavaFile jf) {
-        for (JavaClass c : getAllJavaClassesInCache()) {
-            if (jf.equals(c.getJavaFile())) {
-                removeClassesRelatedTo(c);
-            }
+        for (JavaClass c : jf.getJavaClasses()) {
+            removeClassesRelatedTo(c);
         }
     }
     
     /**
-     * Removes information about classes related to a given class.
+     * Removes information about a given class and its inner classes.
+     * Classes depending on the removed class are kept, and their binding information must be collected again.
      * @param jc the class to be removed
      */
     public static void removeClassesRelatedTo(JavaClass jc) {
         if (jc != null) {
-            JavaClass ret = cache.remove(jc.getQualifiedName());
+            JavaClass ret = getCache().remove(jc.getQualifiedName());
             
             if (ret != null) {
-                JavaFile jf = jc.getJavaFile();
-                JavaProject jproj = jf.getJavaProject();
-                jproj.remove(jf);
+                JavaSymbolTable.unregister(jc.getSymbolId());
+                JavaSymbolTable.release(jc.efferentClassIds);
+                for (JavaMethod jm : jc.getJavaMethods()) {
+                    JavaSymbolTable.unregister(jm.getSymbolId());
+                    JavaSymbolTable.release(jm.calledMethodIds);
+                    JavaSymbolTable.release(jm.accessedFieldIds);
+                    JavaSymbolTable.release(jm.usedClassIds);
+                }
+                for (JavaField jf : jc.getJavaFields()) {
+                    JavaSymbolTable.unregister(jf.getSymbolId());
+                    JavaSymbolTable.release(jf.calledMethodIds);
+                    JavaSymbolTable.release(jf.accessedFieldIds);
+                }
                 
-                for (JavaClass c : jc.getDescendants()) {
-                    removeClassesRelatedTo(c);
+                jc.clearLevel2Info();
+                jc.getJavaPackage().removeJavaClass(jc);
+                
+                JavaFile jf = jc.getJavaFile();
+                if (jf != null) {
+                    jf.removeJavaClass(jc);
+                    JavaProject jproj = jf.getJavaProject();
+                    jproj.remove(jf);
                 }
                 
-                for (JavaClass c: jc.getAfferentJavaClassesInProject()) {
+                for (JavaClass c : jc.getJavaInnerClasses()) {
                     removeClassesRelatedTo(c);
                 }
             }
@@ -466,6 +534,9 @@ public class JavaClass extends JavaElement {
      */
     public void setJavaFile(JavaFile jfile) {
         this.jfile = jfile;
+        if (jfile != null) {
+            jfile.addJavaClass(this);
+        }
     }
     
     /**
@@ -476,6 +547,28 @@ public class JavaClass extends JavaElement {
         return jfile;
     }
     
+    /**
+     * Releases the AST nodes for this class and its methods, local variables, and fields.
+     * The released AST nodes can be recreated by reparsing the file which this class is written in.
+     */
+    public void releaseASTNodes() {
+        clearASTNode();
+        
+        for (JavaMethod jm : methods) {
+            jm.clearASTNode();
+            for (JavaLocal jl : jm.getParameters()) {
+                jl.clearASTNode();
+            }
+            for (JavaLocal jl : jm.getLocalVariables()) {
+                jl.clearASTNode();
+            }
+        }
+        
+        for (JavaField jf : fields) {
+            jf.clearASTNode();
+        }
+    }
+    
     /**
      * Returns the package containing this class.
      * @return the package
@@ -693,6 +786,15 @@ public class JavaClass extends JavaElement {
         return jfile.getSource();
     }
     
+    /**
+     * Obtains the view of the source code of the whole file containing this class without copying the source code.
+     * The view of the source code of this class itself is obtained by {@link JavaElement#getSourceText(ASTNode)}.
+     * @return the view of the source code of the file
+     */
+    public SourceText getFileSourceText() {
+        return jfile.getSourceText();
+    }
+    
     /**
      * Obtains a string representing a class.
      * @param fqn the name of the class
@@ -919,9 +1021,9 @@ public class JavaClass extends JavaElement {
      * Finds efferent classes that this class depends on.
      */
     private void findEfferentClasses() {
-        for (String str : efferentClassNames) {
-            String fqn = JavaClass.getFqn(str);
-            JavaClass jc = getDeclaringJavaClass(fqn);
+        for (int i = 0; i < efferentClassIds.size(); i++) {
+            int id = efferentClassIds.get(i);
+            JavaClass jc = getDeclaringJavaClass(id);
             if (jc != null) {
                 efferentClasses.add(jc);
                 jc.addAfferentClass(this);
@@ -959,9 +1061,46 @@ public class JavaClass extends JavaElement {
      * Adds a class that depends on this class.
      * @param jc the afferent class
      */
-    private void addAfferentClass(JavaClass jc) {
-        if (!afferentClasses.contains(jc)) {
-            afferentClasses.add(jc);
+    private synchronized void addAfferentClass(JavaClass jc) {
+        Set<JavaClass> classes = getAfferentClassSet();
+        if (!classes.contains(jc)) {
+            classes.add(jc);
+        }
+    }
+    
+    /**
+     * Removes a class that depends on this class.
+     * @param jc the afferent class
+     */
+    private synchronized void removeAfferentClass(JavaClass jc) {
+        getAfferentClassSet().remove(jc);
+    }
+    
+    /**
+     * Returns the collection storing the classes that depend on this class.
+     * @return the collection of the afferent classes
+     */
+    protected Set<JavaClass> getAfferentClassSet() {
+        return afferentClasses;
+    }
+    
+    /**
+     * Discards the collected information on this class and its methods and fields so that it can be collected again.
+     * This class is also removed from the classes, methods, and fields that it depends on.
+     */
+    public void clearLevel2Info() {
+        for (JavaClass jc : efferentClasses) {
+            jc.removeAfferentClass(this);
+        }
+        superClass = null;
+        superInterfaces.clear();
+        efferentClasses.clear();
+        
+        for (JavaMethod jm : getJavaMethods()) {
+            jm.clearLevel2Info();
+        }
+        for (JavaField jf : getJavaFields()) {
+            jf.clearLevel2Info();
         }
     }
     
@@ -1110,7 +1249,7 @@ public class JavaClass extends JavaElement {
      */
     public Set<JavaClass> getAfferentJavaClasses() {
         bindingCheck();
-        return afferentClasses;
+        return getAfferentClassSet();
     }
     
     /**
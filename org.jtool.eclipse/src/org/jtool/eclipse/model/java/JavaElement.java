@@ -4,9 +4,11 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.AnalysisSession;
 import org.jtool.eclipse.model.java.internal.ExternalJavaClass;
 import org.jtool.eclipse.model.java.internal.ExternalJavaField;
 import org.jtool.eclipse.model.java.internal.ExternalJavaMethod;
+import org.jtool.eclipse.model.java.internal.JavaParser;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -28,6 +30,11 @@ import java.util.Set;
  */
 public abstract class JavaElement {
     
+    /**
+     * The lock guarding the source code stored into compilation units.
+     */
+    private static final Object sourceLock = new Object();
+    
     /**
      * An AST node for this element.
      */
@@ -142,6 +149,15 @@ public abstract class JavaElement {
         return astNode;
     }
     
+    /**
+     * Sets the AST node for this element, which is used when the AST node was recreated.
+     * The code properties of this element remain unchanged.
+     * @param node the AST node for this element
+     */
+    public void setASTNode(ASTNode node) {
+        astNode = node;
+    }
+    
     /**
      * Clears information about the AST node for this element.
      */
@@ -411,6 +427,24 @@ public abstract class JavaElement {
         return null;
     }
     
+    /**
+     * Returns a class with a given identification number in the symbol table.
+     * @param id the identification number of the class
+     * @return the found class, or <code>null</code> if none
+     */
+    public static JavaClass getDeclaringJavaClass(int id) {
+        JavaElement elem = JavaSymbolTable.getJavaElement(id);
+        if (elem instanceof JavaClass) {
+            return (JavaClass)elem;
+        }
+        
+        String str = JavaSymbolTable.getName(id);
+        if (str != null) {
+            return getDeclaringJavaClass(JavaClass.getFqn(str));
+        }
+        return null;
+    }
+    
     /**
      * Returns a method corresponding to a given binding.
      * @param binding the method binding
@@ -452,6 +486,24 @@ public abstract class JavaElement {
         return null;
     }
     
+    /**
+     * Returns a method with a given identification number in the symbol table.
+     * @param id the identification number of the method
+     * @return the found method, or <code>null</code> if none
+     */
+    public static JavaMethod getDeclaringJavaMethod(int id) {
+        JavaElement elem = JavaSymbolTable.getJavaElement(id);
+        if (elem instanceof JavaMethod) {
+            return (JavaMethod)elem;
+        }
+        
+        String str = JavaSymbolTable.getName(id);
+        if (str != null) {
+            return getDeclaringJavaMethod(JavaMethod.getFqn(str), JavaMethod.getSignature(str));
+        }
+        return null;
+    }
+    
     /**
      * Obtains the signature of a given method.
      * @param bind the binding for the method
@@ -519,6 +571,24 @@ public abstract class JavaElement {
         return null;
     }
     
+    /**
+     * Returns a field with a given identification number in the symbol table.
+     * @param id the identification number of the field
+     * @return the found field, or <code>null</code> if none
+     */
+    public static JavaField getDeclaringJavaField(int id) {
+        JavaElement elem = JavaSymbolTable.getJavaElement(id);
+        if (elem instanceof JavaField) {
+            return (JavaField)elem;
+        }
+        
+        String str = JavaSymbolTable.getName(id);
+        if (str != null) {
+            return getDeclaringJavaField(JavaField.getFqn(str), JavaField.getName(str));
+        }
+        return null;
+    }
+    
     /**
      * Returns a class that encloses this element.
      * @param node the AST corresponding to this element
@@ -580,24 +650,23 @@ public abstract class JavaElement {
     }
     
     /**
-     * An integer number that indicates the binding level.
-     */
-    protected static int bindingLevel = 0;
-    
-    /**
-     * Sets the binding level.
+     * Sets the binding level, which belongs to the current analysis session.
      * @param level an integer number that indicates the binding level.
      */
     protected static void setBindingLevel(int level) {
-        bindingLevel = level;
+        AnalysisSession.getCurrent().setState(JavaElement.class, Integer.valueOf(level));
     }
     
     /**
-     * Returns the binding level.
+     * Returns the binding level, which belongs to the current analysis session.
      * @return An integer number that indicates the binding level.
      */
     protected static int getBindingLevel() {
-        return bindingLevel;
+        Integer level = (Integer)AnalysisSession.getCurrent().getState(JavaElement.class);
+        if (level != null) {
+            return level.intValue();
+        }
+        return 0;
     }
     
     /**
@@ -606,8 +675,7 @@ public abstract class JavaElement {
      * @return the contents of the source code
      */
     public static String getSource(ASTNode node) {
-        StringBuffer buf = new StringBuffer(getCompilationUnitSource(node));
-        return buf.substring(getStartPosition(node), getEndPosition(node) + 1);
+        return getSourceText(node).toString();
     }
     
     /**
@@ -617,26 +685,69 @@ public abstract class JavaElement {
      * @return the contents of the source code
      */
     public static String getExtendedSource(ASTNode node) {
-        StringBuffer buf = new StringBuffer(getCompilationUnitSource(node));
-        return buf.substring(getExtendedStartPosition(node), getExtendedEndPosition(node) + 1);
+        return getExtendedSourceText(node).toString();
+    }
+    
+    /**
+     * Obtains the view of source code corresponding to this Java element without copying the source code.
+     * @param node an AST node for this element
+     * @return the view of the source code
+     */
+    public static SourceText getSourceText(ASTNode node) {
+        return SourceText.create(getCompilationUnitSource(node), getStartPosition(node), getEndPosition(node));
+    }
+    
+    /**
+     * Obtains the view of source code corresponding to this Java element without copying the source code.
+     * It may include comments and whitespace immediately before or after the normal source range for the element.
+     * @param node an AST node for this element
+     * @return the view of the source code
+     */
+    public static SourceText getExtendedSourceText(ASTNode node) {
+        return SourceText.create(getCompilationUnitSource(node), getExtendedStartPosition(node), getExtendedEndPosition(node));
     }
     
     /**
      * Obtains source code corresponding to the compilation unit containing this Java element.
+     * The source code is stored into the compilation unit when it is obtained first, and shared by its elements.
+     * The source code is obtained outside the lock, and the one stored first wins if threads obtain it at the same time.
      * @param node the AST corresponding to this element
-     * @return the contents of the source code
+     * @return the characters of the source code, or <code>null</code> if the source code is not available
      */
-    private static String getCompilationUnitSource(ASTNode node) {
+    private static char[] getCompilationUnitSource(ASTNode node) {
         CompilationUnit cu = getCompilationUnit(node);
-        if (cu != null) {
-            ICompilationUnit icu = (ICompilationUnit)cu.getJavaElement();
-            if (icu != null) {
-                try {
-                    return icu.getSource();
-                } catch (JavaModelException e) { /* empty */ }
+        if (cu == null) {
+            return null;
+        }
+        
+        synchronized (sourceLock) {
+            char[] chars = (char[])cu.getProperty(JavaParser.SOURCE_PROPERTY);
+            if (chars != null) {
+                return chars;
+            }
+        }
+        
+        ICompilationUnit icu = (ICompilationUnit)cu.getJavaElement();
+        if (icu == null) {
+            return null;
+        }
+        
+        String source = null;
+        try {
+            source = icu.getSource();
+        } catch (JavaModelException e) { /* empty */ }
+        if (source == null) {
+            return null;
+        }
+        
+        synchronized (sourceLock) {
+            char[] chars = (char[])cu.getProperty(JavaParser.SOURCE_PROPERTY);
+            if (chars == null) {
+                chars = source.toCharArray();
+                cu.setProperty(JavaParser.SOURCE_PROPERTY, chars);
             }
+            return chars;
         }
-        return "";
     }
     
     /**
@@ -4,14 +4,18 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.java.internal.IdSet;
 import org.jtool.eclipse.model.java.internal.FieldInitializerCollector;
 import org.jtool.eclipse.model.java.internal.MethodCallCollector;
+import org.jtool.eclipse.model.java.internal.FingerprintCollector;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
 import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.Name;
 import org.eclipse.jdt.core.dom.VariableDeclaration;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
 import org.apache.log4j.Logger;
@@ -50,20 +54,35 @@ public class JavaField extends JavaExpression {
     protected JavaClass declaringClass = null;
     
     /**
-     * The collection of fields that this field declaration accesses.
+     * The identification numbers of fields that this field declaration accesses.
      */
-    protected Set<String> accessedFieldNames = new HashSet<String>();
+    protected IdSet accessedFieldIds = new IdSet();
     
     /**
-     * The collections of all methods that this field declaration calls.
+     * The identification numbers of all methods that this field declaration calls.
      */
-    protected Set<String> calledMethodNames = new HashSet<String>();
+    protected IdSet calledMethodIds = new IdSet();
     
     /**
      * A flag that indicates all bindings for methods and fields were found.
      */
     protected boolean bindingOk = true;
     
+    /**
+     * The identification number of this field in the symbol table.
+     */
+    protected int symbolId = -1;
+    
+    /**
+     * The structural hash value of the AST node for this field.
+     */
+    protected long bodyHash = 0;
+    
+    /**
+     * The fingerprint of this field, which is calculated on demand.
+     */
+    protected long fingerprint = 0;
+    
     /**
      * Creates a new, empty object.
      */
@@ -91,8 +110,8 @@ public class JavaField extends JavaExpression {
         IVariableBinding binding = node.resolveBinding().getVariableDeclaration();
         
         if (binding != null) {
-            name = binding.getName();
-            type = JavaClass.createClassName(binding.getType());
+            name = JavaStringPool.intern(binding.getName());
+            type = JavaStringPool.intern(JavaClass.createClassName(binding.getType()));
             modifiers = binding.getModifiers();
             isEnumConstant = false;
             
@@ -104,6 +123,8 @@ public class JavaField extends JavaExpression {
             bindingOk = false;
         }
         
+        bodyHash = FingerprintCollector.getHash(node);
+        symbolId = JavaSymbolTable.register(getString(jc.getQualifiedName(), name), this);
         jc.addJavaField(this);
     }
     
@@ -119,8 +140,8 @@ public class JavaField extends JavaExpression {
         IVariableBinding binding = node.resolveVariable();
         
         if (binding != null) {
-            name = binding.getName();
-            type = binding.getType().getQualifiedName();
+            name = JavaStringPool.intern(binding.getName());
+            type = JavaStringPool.intern(binding.getType().getQualifiedName());
             modifiers = binding.getModifiers();
             isEnumConstant = true;
             
@@ -134,6 +155,8 @@ public class JavaField extends JavaExpression {
             bindingOk = false;
         }
         
+        bodyHash = FingerprintCollector.getHash(node);
+        symbolId = JavaSymbolTable.register(getString(jc.getQualifiedName(), name), this);
         jc.addJavaField(this);
     }
     
@@ -148,15 +171,39 @@ public class JavaField extends JavaExpression {
     public JavaField(String name, String type, int modifiers, boolean isEnumConstant, JavaClass jc) {
         super();
         
-        this.name = name;
-        this.type = type;
+        this.name = JavaStringPool.intern(name);
+        this.type = JavaStringPool.intern(type);
         this.modifiers = modifiers;
         this.isEnumConstant = isEnumConstant;
         declaringClass = jc;
         
+        symbolId = JavaSymbolTable.register(getString(jc.getQualifiedName(), name), this);
         jc.addJavaField(this);
     }
     
+    /**
+     * Returns the fingerprint of this field, which is stable as long as neither the code of this field
+     * nor the signatures of methods and fields it refers to are changed. Source positions and comments are ignored.
+     * @return the fingerprint value
+     */
+    public long getFingerprint() {
+        if (fingerprint == 0) {
+            List<String> names = new ArrayList<String>();
+            names.add(getString(getDeclaringJavaClass().getQualifiedName(), name));
+            names.add(String.valueOf(modifiers));
+            for (int i = 0; i < calledMethodIds.size(); i++) {
+                int id = calledMethodIds.get(i);
+                names.add(JavaSymbolTable.getName(id));
+            }
+            for (int i = 0; i < accessedFieldIds.size(); i++) {
+                int id = accessedFieldIds.get(i);
+                names.add(JavaSymbolTable.getName(id));
+            }
+            fingerprint = FingerprintCollector.getHash(bodyHash, names);
+        }
+        return fingerprint;
+    }
+    
     /**
      * Collects fields that this field accesses.
      * @param node an AST node for this field
@@ -166,7 +213,7 @@ public class JavaField extends JavaExpression {
         node.accept(fvisitor);
         
         for (String str : fvisitor.getAccessedFields()) {
-            accessedFieldNames.add(str);
+            JavaSymbolTable.register(str, accessedFieldIds);
         }
         
         if (!fvisitor.isBindingOk()) {
@@ -184,7 +231,7 @@ public class JavaField extends JavaExpression {
         node.accept(mvisitor);
         
         for (String str : mvisitor.getMethodCalls()) {
-            calledMethodNames.add(str);
+            JavaSymbolTable.register(str, calledMethodIds);
         }
         
         if (!mvisitor.isBindingOk()) {
@@ -244,6 +291,14 @@ public class JavaField extends JavaExpression {
         return true;
     }
     
+    /**
+     * Returns the identification number of this field in the symbol table.
+     * @return the identification number, or <code>-1</code> if this field has not been registered
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+    
     /**
      * Returns the class that declares this field.
      * @return the class that declares this field
@@ -252,6 +307,17 @@ public class JavaField extends JavaExpression {
         return declaringClass;
     }
     
+    /**
+     * Recreates the AST node for this field if it was released. Only the file declaring this field is reparsed.
+     * @return the AST node for this field, or <code>null</code> if it cannot be recreated
+     */
+    public ASTNode restoreASTNode() {
+        if (astNode == null && declaringClass != null && declaringClass.getJavaFile() != null) {
+            declaringClass.getJavaFile().restoreASTNodes();
+        }
+        return astNode;
+    }
+    
     /**
      * Returns the name of this field.
      * @return the name
@@ -366,6 +432,15 @@ public class JavaField extends JavaExpression {
         return declaringClass.getSource();
     }
     
+    /**
+     * Obtains the view of the source code of the whole file containing this field without copying the source code.
+     * The view of the source code of this field itself is obtained by {@link JavaElement#getSourceText(ASTNode)}.
+     * @return the view of the source code of the file
+     */
+    public SourceText getFileSourceText() {
+        return declaringClass.getFileSourceText();
+    }
+    
     /**
      * Obtains a string representing a field.
      * @param fqn the name of the class declaring the field
@@ -477,9 +552,11 @@ public class JavaField extends JavaExpression {
     protected Set<JavaMethod> accessingMethods = new HashSet<JavaMethod>();
     
     /**
-     * Collects additional information on this method.
+     * Collects additional information on this field.
+     * The fingerprint is calculated again since the methods and fields this field refers to might have been changed.
      */
     public void collectLevel2Info() {
+        fingerprint = 0;
         findAccessedField();
         findCalledMethods();
     }
@@ -488,10 +565,9 @@ public class JavaField extends JavaExpression {
      * Finds fields that this field accesses.
      */
     protected void findAccessedField() {
-        for (String str : accessedFieldNames) {
-            String fqn = JavaField.getFqn(str);
-            String name = JavaField.getName(str);
-            JavaField jf = getDeclaringJavaField(fqn, name);
+        for (int i = 0; i < accessedFieldIds.size(); i++) {
+            int id = accessedFieldIds.get(i);
+            JavaField jf = getDeclaringJavaField(id);
             if (jf != null) {
                 accessedFields.add(jf);
                 jf.addAccessingJavaField(this);
@@ -503,10 +579,9 @@ public class JavaField extends JavaExpression {
      * Finds methods that this field calls.
      */
     protected void findCalledMethods() {
-        for (String str : calledMethodNames) {
-            String fqn = JavaMethod.getFqn(str);
-            String sig = JavaMethod.getSignature(str);
-            JavaMethod jm = getDeclaringJavaMethod(fqn, sig);
+        for (int i = 0; i < calledMethodIds.size(); i++) {
+            int id = calledMethodIds.get(i);
+            JavaMethod jm = getDeclaringJavaMethod(id);
             if (jm != null) {
                 calledMethods.add(jm);
                 jm.addAccessingJavaField(this);
@@ -518,16 +593,63 @@ public class JavaField extends JavaExpression {
      * Adds a method that accesses this field.
      * @param jm the method
      */
-    public void addCallingJavaMethod(JavaMethod jm) {
-        accessingMethods.add(jm);
+    public synchronized void addCallingJavaMethod(JavaMethod jm) {
+        getAccessingMethodSet().add(jm);
     }
     
     /**
      * Adds a field that accesses this field.
      * @param jf the field
      */
-    public void addAccessingJavaField(JavaField jf) {
-        accessingFields.add(jf);
+    public synchronized void addAccessingJavaField(JavaField jf) {
+        getAccessingFieldSet().add(jf);
+    }
+    
+    /**
+     * Removes a method that accesses this field.
+     * @param jm the method
+     */
+    public synchronized void removeCallingJavaMethod(JavaMethod jm) {
+        getAccessingMethodSet().remove(jm);
+    }
+    
+    /**
+     * Removes a field that accesses this field.
+     * @param jf the field
+     */
+    public synchronized void removeAccessingJavaField(JavaField jf) {
+        getAccessingFieldSet().remove(jf);
+    }
+    
+    /**
+     * Returns the collection storing the methods that access this field.
+     * @return the collection of the accessing methods
+     */
+    protected Set<JavaMethod> getAccessingMethodSet() {
+        return accessingMethods;
+    }
+    
+    /**
+     * Returns the collection storing the fields that access this field.
+     * @return the collection of the accessing fields
+     */
+    protected Set<JavaField> getAccessingFieldSet() {
+        return accessingFields;
+    }
+    
+    /**
+     * Discards the collected information on this field so that it can be collected again.
+     * This field is also removed from the methods and fields that it calls or accesses.
+     */
+    public void clearLevel2Info() {
+        for (JavaField jf : accessedFields) {
+            jf.removeAccessingJavaField(this);
+        }
+        for (JavaMethod jm : calledMethods) {
+            jm.removeAccessingJavaField(this);
+        }
+        accessedFields.clear();
+        calledMethods.clear();
     }
     
     /**
@@ -570,7 +692,7 @@ public class JavaField extends JavaExpression {
      */
     public Set<JavaField> getAccessingJavaFields() {
         bindingCheck();
-        return accessingFields;
+        return getAccessingFieldSet();
     }
     
     /**
@@ -579,7 +701,7 @@ public class JavaField extends JavaExpression {
      */
     public Set<JavaMethod> getAccessingJavaMethods() {
         bindingCheck();
-        return accessingMethods;
+        return getAccessingMethodSet();
     }
     
     /**
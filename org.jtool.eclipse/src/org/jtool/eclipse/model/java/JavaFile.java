@@ -5,12 +5,20 @@
 package org.jtool.eclipse.model.java;
 
 import org.jtool.eclipse.io.FileReader;
+import org.jtool.eclipse.model.java.internal.ASTNodeRestorer;
+import org.jtool.eclipse.model.java.internal.JavaParser;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.List;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -41,6 +49,26 @@ public class JavaFile {
      */
     protected List<IProblem> errors;
     
+    /**
+     * The file storing the source code, which is used for reparsing when no compilation unit corresponds to this file.
+     */
+    protected File sourceFile = null;
+    
+    /**
+     * The collection of classes written in this file.
+     */
+    protected Set<JavaClass> classes = Collections.newSetFromMap(new ConcurrentHashMap<JavaClass, Boolean>());
+    
+    /**
+     * The characters of the source code of this file, which are discarded when the memory runs short.
+     */
+    private volatile SoftReference<char[]> sourceCache = null;
+    
+    /**
+     * The AST of this file created by the last reparse, which is discarded when the memory runs short.
+     */
+    private volatile SoftReference<CompilationUnit> astCache = null;
+    
     /**
      * Creates a new, empty object.
      */
@@ -104,18 +132,58 @@ public class JavaFile {
      * @return the contents of the source code
      */
     public String getSource() {
+        return getSourceText().toString();
+    }
+    
+    /**
+     * Obtains the view of the source code for this file. The source code is read once and shared by the views
+     * until {@link #clearSourceCache()} is called or the memory runs short.
+     * @return the view of the source code
+     */
+    public SourceText getSourceText() {
+        SoftReference<char[]> ref = sourceCache;
+        char[] chars = ref != null ? ref.get() : null;
+        if (chars == null) {
+            chars = readSource();
+            if (chars == null) {
+                return SourceText.EMPTY;
+            }
+            sourceCache = new SoftReference<char[]>(chars);
+        }
+        return new SourceText(chars);
+    }
+    
+    /**
+     * Discards the cached source code for this file, which is required after the source code is changed.
+     */
+    public void clearSourceCache() {
+        sourceCache = null;
+    }
+    
+    /**
+     * Reads the source code for this file.
+     * @return the characters of the source code, or <code>null</code> if the source code cannot be read
+     */
+    private char[] readSource() {
         try {
             if (compilationUnit != null) {
-                return compilationUnit.getSource();
+                String source = compilationUnit.getSource();
+                if (source != null) {
+                    return source.toCharArray();
+                }
+                return null;
+            }
+            if (sourceFile != null) {
+                return FileReader.readChars(sourceFile);
             }
             String name = getFilePath(jproject.getTopDir());
-            return FileReader.read(name);
+            return FileReader.readChars(new File(name));
             
         } catch (IOException e) {
         } catch (JavaModelException e) {
         }
         
-        return "";
+        return null;
     }
     
     /**
@@ -130,6 +198,98 @@ public class JavaFile {
         return progDir + path;
     }
     
+    /**
+     * Adds a class written in this file.
+     * @param jc the class to be added
+     */
+    public void addJavaClass(JavaClass jc) {
+        classes.add(jc);
+    }
+    
+    /**
+     * Removes a class written in this file.
+     * @param jc the class to be removed
+     */
+    public void removeJavaClass(JavaClass jc) {
+        classes.remove(jc);
+    }
+    
+    /**
+     * Returns all the classes written in this file, including inner and anonymous classes.
+     * @return the collection of the classes
+     */
+    public Set<JavaClass> getJavaClasses() {
+        return new HashSet<JavaClass>(classes);
+    }
+    
+    /**
+     * Sets the file storing the source code of this file outside the workspace.
+     * @param file the file storing the source code
+     */
+    public void setSourceFile(File file) {
+        sourceFile = file;
+    }
+    
+    /**
+     * Returns the file storing the source code of this file outside the workspace.
+     * @return the file storing the source code, or <code>null</code> if this file lays on the workspace
+     */
+    public File getSourceFile() {
+        return sourceFile;
+    }
+    
+    /**
+     * Reparses this file and attaches the created AST nodes to the classes, methods, fields, and local variables within it.
+     * The AST created by the last reparse is reused while it remains in the memory.
+     * @return <code>true</code> if this file was successfully reparsed, otherwise <code>false</code>
+     */
+    public synchronized boolean restoreASTNodes() {
+        SoftReference<CompilationUnit> ref = astCache;
+        CompilationUnit cu = ref != null ? ref.get() : null;
+        if (cu == null) {
+            clearSourceCache();
+            cu = reparse();
+            if (cu == null) {
+                logger.info("failed to reparse: " + path);
+                return false;
+            }
+            astCache = new SoftReference<CompilationUnit>(cu);
+            logger.debug("reparse: " + path);
+        }
+        
+        ASTNodeRestorer restorer = new ASTNodeRestorer(cu);
+        for (JavaClass jc : getJavaClasses()) {
+            restorer.restore(jc);
+        }
+        return true;
+    }
+    
+    /**
+     * Releases the AST nodes for the classes written in this file.
+     * The AST remains softly reachable, so that it can be attached again without reparsing while the memory allows.
+     */
+    public synchronized void releaseASTNodes() {
+        for (JavaClass jc : getJavaClasses()) {
+            jc.releaseASTNodes();
+        }
+    }
+    
+    /**
+     * Reparses this file.
+     * @return the root node of the created AST, or <code>null</code> if this file cannot be reparsed
+     */
+    private CompilationUnit reparse() {
+        JavaParser parser = new JavaParser();
+        if (compilationUnit != null) {
+            return parser.parse(compilationUnit);
+        }
+        if (sourceFile != null) {
+            String[] sourcepaths = new String[]{ jproject.getTopDir() };
+            return parser.parse(sourceFile, jproject.getClassPaths(), sourcepaths);
+        }
+        return null;
+    }
+    
     /**
      * Sets the collection of errors during the generation of this file.
      * @param errors the parse errors
@@ -77,9 +77,9 @@ public class JavaLocal extends JavaExpression {
         declaringMethod = jm;
         
         IVariableBinding binding = node.resolveBinding().getVariableDeclaration();
-        name = binding.getName();
+        name = JavaStringPool.intern(binding.getName());
         id = binding.getVariableId();
-        type = binding.getType().getQualifiedName();
+        type = JavaStringPool.intern(binding.getType().getQualifiedName());
         isPrimitive = binding.getType().isPrimitive();
         isParameter = binding.isParameter();
         modifiers = binding.getModifiers();
@@ -97,9 +97,9 @@ public class JavaLocal extends JavaExpression {
         declaringMethod = jm;
         
         IVariableBinding binding = node.resolveBinding().getVariableDeclaration();
-        name = binding.getName();
+        name = JavaStringPool.intern(binding.getName());
         id = binding.getVariableId();
-        type = binding.getType().getQualifiedName();
+        type = JavaStringPool.intern(binding.getType().getQualifiedName());
         isPrimitive = binding.getType().isPrimitive();
         isParameter = binding.isParameter();
         modifiers = binding.getModifiers();
@@ -119,9 +119,9 @@ public class JavaLocal extends JavaExpression {
         super();
         declaringMethod = jm;
         
-        this.name = name;
+        this.name = JavaStringPool.intern(name);
         this.id = id;
-        this.type = type;
+        this.type = JavaStringPool.intern(type);
         this.isPrimitive = isPrimitive;
         this.isParameter = isParameter;
         this.modifiers = modifiers;
@@ -4,10 +4,12 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.java.internal.IdSet;
 import org.jtool.eclipse.model.java.internal.LocalDeclarationCollector;
 import org.jtool.eclipse.model.java.internal.MethodCallCollector;
 import org.jtool.eclipse.model.java.internal.TypeCollector;
 import org.jtool.eclipse.model.java.internal.FieldAccessCollector;
+import org.jtool.eclipse.model.java.internal.FingerprintCollector;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
@@ -91,25 +93,40 @@ public class JavaMethod extends JavaElement {
     protected Set<String> exceptionNames = new HashSet<String>();
     
     /**
-     * The collection of all methods that this method calls.
+     * The identification numbers of all methods that this method calls.
      */
-    protected Set<String> calledMethodNames = new HashSet<String>();
+    protected IdSet calledMethodIds = new IdSet();
     
     /**
-     * The collection of all fields that this method accesses.
+     * The identification numbers of all fields that this method accesses.
      */
-    protected Set<String> accessedFieldNames = new HashSet<String>();
+    protected IdSet accessedFieldIds = new IdSet();
     
     /**
-     * The collections of classes that this method uses.
+     * The identification numbers of classes that this method uses.
      */
-    protected Set<String> usedClassNames = new HashSet<String>();
+    protected IdSet usedClassIds = new IdSet();
     
     /**
      * A flag that indicates all bindings for types, methods, and variables were found.
      */
     protected boolean bindingOk = true;
     
+    /**
+     * The identification number of this method in the symbol table.
+     */
+    protected int symbolId = -1;
+    
+    /**
+     * The structural hash value of the AST node for this method.
+     */
+    protected long bodyHash = 0;
+    
+    /**
+     * The fingerprint of this method, which is calculated on demand.
+     */
+    protected long fingerprint = 0;
+    
     /**
      * Creates a new, empty object.
      */
@@ -138,14 +155,14 @@ public class JavaMethod extends JavaElement {
         IMethodBinding binding = node.resolveBinding();
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getReturnType().getQualifiedName();
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getReturnType().getQualifiedName());
             modifiers = binding.getModifiers();
             isConstructor = binding.isConstructor();
             isInitializer = false;
             for (ITypeBinding tbinding : binding.getExceptionTypes()) {
-                exceptionNames.add(tbinding.getQualifiedName());
+                exceptionNames.add(JavaStringPool.intern(tbinding.getQualifiedName()));
             }
             
             setParameters(node.parameters());
@@ -162,6 +179,8 @@ public class JavaMethod extends JavaElement {
             bindingOk = false;
         }
         
+        bodyHash = FingerprintCollector.getHash(node);
+        symbolId = JavaSymbolTable.register(getString(jc.getQualifiedName(), signature), this);
         jc.addJavaMethod(this);
     }
     
@@ -186,6 +205,8 @@ public class JavaMethod extends JavaElement {
         collectCalledMethods(node);
         collectUsedTypes(node);
         
+        bodyHash = FingerprintCollector.getHash(node);
+        symbolId = JavaSymbolTable.register(getString(jc.getQualifiedName(), signature), this);
         jc.addJavaMethod(this);
     }
     
@@ -202,17 +223,41 @@ public class JavaMethod extends JavaElement {
     public JavaMethod(String name, String sig, String type, int modifiers, boolean isConstructor, boolean isInitializer, JavaClass jc) {
         super();
         
-        this.name = name;
-        this.signature = sig;
-        this.type = type;
+        this.name = JavaStringPool.intern(name);
+        this.signature = JavaStringPool.intern(sig);
+        this.type = JavaStringPool.intern(type);
         this.modifiers = modifiers;
         this.isConstructor = isConstructor;
         this.isInitializer = isInitializer;
         this.declaringClass = jc;
         
+        symbolId = JavaSymbolTable.register(getString(jc.getQualifiedName(), signature), this);
         jc.addJavaMethod(this);
     }
     
+    /**
+     * Returns the fingerprint of this method, which is stable as long as neither the code of this method
+     * nor the signatures of methods and fields it refers to are changed. Source positions and comments are ignored.
+     * @return the fingerprint value
+     */
+    public long getFingerprint() {
+        if (fingerprint == 0) {
+            List<String> names = new ArrayList<String>();
+            names.add(getString(getDeclaringJavaClass().getQualifiedName(), signature));
+            names.add(String.valueOf(modifiers));
+            for (int i = 0; i < calledMethodIds.size(); i++) {
+                int id = calledMethodIds.get(i);
+                names.add(JavaSymbolTable.getName(id));
+            }
+            for (int i = 0; i < accessedFieldIds.size(); i++) {
+                int id = accessedFieldIds.get(i);
+                names.add(JavaSymbolTable.getName(id));
+            }
+            fingerprint = FingerprintCollector.getHash(bodyHash, names);
+        }
+        return fingerprint;
+    }
+    
     /**
      * Sets parameters and the return type of this method.
      * @param decralations the list of parameter declarations
@@ -252,7 +297,7 @@ public class JavaMethod extends JavaElement {
         node.accept(fvisitor);
         
         for (String str : fvisitor.getAccessedFields()) {
-            accessedFieldNames.add(str);
+            JavaSymbolTable.register(str, accessedFieldIds);
         }
         
         if (!fvisitor.isBindingOk()) {
@@ -271,7 +316,7 @@ public class JavaMethod extends JavaElement {
         node.accept(mvisitor);
         
         for (String str : mvisitor.getMethodCalls()) {
-            calledMethodNames.add(str);
+            JavaSymbolTable.register(str, calledMethodIds);
         }
         
         if (!mvisitor.isBindingOk()) {
@@ -289,7 +334,7 @@ public class JavaMethod extends JavaElement {
         astNode.accept(tvisitor);
         
         for (String str : tvisitor.getTypeUses()) {
-            usedClassNames.add(str);
+            JavaSymbolTable.register(str, usedClassIds);
         }
         
         if (!tvisitor.isBindingOk()) {
@@ -362,6 +407,14 @@ public class JavaMethod extends JavaElement {
         return true;
     }
     
+    /**
+     * Returns the identification number of this method in the symbol table.
+     * @return the identification number, or <code>-1</code> if this method has not been registered
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+    
     /**
      * Returns the class that declares this method.
      * @return the class that declares this method
@@ -370,6 +423,17 @@ public class JavaMethod extends JavaElement {
         return declaringClass;
     }
     
+    /**
+     * Recreates the AST node for this method if it was released. Only the file declaring this method is reparsed.
+     * @return the AST node for this method, or <code>null</code> if it cannot be recreated
+     */
+    public ASTNode restoreASTNode() {
+        if (astNode == null && declaringClass != null && declaringClass.getJavaFile() != null) {
+            declaringClass.getJavaFile().restoreASTNodes();
+        }
+        return astNode;
+    }
+    
     /**
      * Returns the name of this method.
      * @return the name
@@ -441,6 +505,14 @@ public class JavaMethod extends JavaElement {
         return parameters;
     }
     
+    /**
+     * Returns all the local variables declared in this method.
+     * @return the collection of the local variables
+     */
+    public Set<JavaLocal> getLocalVariables() {
+        return locals;
+    }
+    
     /**
      * Returns the number of the parameters of this method.
      * @return the number of the parameters
@@ -605,6 +677,15 @@ public class JavaMethod extends JavaElement {
         return declaringClass.getSource();
     }
     
+    /**
+     * Obtains the view of the source code of the whole file containing this method without copying the source code.
+     * The view of the source code of this method itself is obtained by {@link JavaElement#getSourceText(ASTNode)}.
+     * @return the view of the source code of the file
+     */
+    public SourceText getFileSourceText() {
+        return declaringClass.getFileSourceText();
+    }
+    
     /**
      * Obtains a string representing a method.
      * @param fqn the name of the class declaring the method
@@ -767,8 +848,10 @@ public class JavaMethod extends JavaElement {
     
     /**
      * Collects additional information on this method.
+     * The fingerprint is calculated again since the methods and fields this method refers to might have been changed.
      */
     public void collectLevel2Info() {
+        fingerprint = 0;
         findsAccessedFields();
         findCalledMethods();
         findUsedTypes();
@@ -780,11 +863,9 @@ public class JavaMethod extends JavaElement {
      * Finds fields that this method accesses.
      */
     protected void findsAccessedFields() {
-        for (String str : accessedFieldNames) {
-            String fqn = JavaField.getFqn(str);
-            String name = JavaField.getName(str);
-            
-            JavaField jf = getDeclaringJavaField(fqn, name);
+        for (int i = 0; i < accessedFieldIds.size(); i++) {
+            int id = accessedFieldIds.get(i);
+            JavaField jf = getDeclaringJavaField(id);
             if (jf != null) {
                 accessedFields.add(jf);
                 jf.addCallingJavaMethod(this);
@@ -796,10 +877,9 @@ public class JavaMethod extends JavaElement {
      * Finds methods that this method calls.
      */
     protected void findCalledMethods() {
-        for (String str : calledMethodNames) {
-            String fqn = JavaMethod.getFqn(str);
-            String sig = JavaMethod.getSignature(str);
-            JavaMethod jm = getDeclaringJavaMethod(fqn, sig);
+        for (int i = 0; i < calledMethodIds.size(); i++) {
+            int id = calledMethodIds.get(i);
+            JavaMethod jm = getDeclaringJavaMethod(id);
             if (jm != null) {
                 calledMethods.add(jm);
                 jm.addCallingMethod(this);
@@ -811,9 +891,9 @@ public class JavaMethod extends JavaElement {
      * Collects types that this method uses.
      */
     protected void findUsedTypes() {
-        for (String str : usedClassNames) {
-            String fqn = JavaClass.getFqn(str);
-            JavaClass jc = getDeclaringJavaClass(fqn);
+        for (int i = 0; i < usedClassIds.size(); i++) {
+            int id = usedClassIds.get(i);
+            JavaClass jc = getDeclaringJavaClass(id);
             if (jc != null) {
                 usedClasses.add(jc);
             }
@@ -824,18 +904,71 @@ public class JavaMethod extends JavaElement {
      * Adds a method that calls this method.
      * @param jm the method calling this method
      */
-    public void addCallingMethod(JavaMethod jm) {
+    public synchronized void addCallingMethod(JavaMethod jm) {
         bindingCheck();
         
-        callingMethods.add(jm);
+        getCallingMethodSet().add(jm);
     }
     
     /**
      * Adds a field that calls this method.
      * @param jf the field
      */
-    public void addAccessingJavaField(JavaField jf) {
-        accessingFields.add(jf);
+    public synchronized void addAccessingJavaField(JavaField jf) {
+        getAccessingFieldSet().add(jf);
+    }
+    
+    /**
+     * Removes a method that calls this method.
+     * @param jm the method calling this method
+     */
+    public synchronized void removeCallingMethod(JavaMethod jm) {
+        getCallingMethodSet().remove(jm);
+    }
+    
+    /**
+     * Removes a field that calls this method.
+     * @param jf the field
+     */
+    public synchronized void removeAccessingJavaField(JavaField jf) {
+        getAccessingFieldSet().remove(jf);
+    }
+    
+    /**
+     * Returns the collection storing the methods that call this method.
+     * @return the collection of the calling methods
+     */
+    protected Set<JavaMethod> getCallingMethodSet() {
+        return callingMethods;
+    }
+    
+    /**
+     * Returns the collection storing the fields that call this method.
+     * @return the collection of the accessing fields
+     */
+    protected Set<JavaField> getAccessingFieldSet() {
+        return accessingFields;
+    }
+    
+    /**
+     * Discards the collected information on this method so that it can be collected again.
+     * This method is also removed from the methods and fields that it calls, accesses, or overrides.
+     */
+    public void clearLevel2Info() {
+        for (JavaField jf : accessedFields) {
+            jf.removeCallingJavaMethod(this);
+        }
+        for (JavaMethod jm : calledMethods) {
+            jm.removeCallingMethod(this);
+        }
+        for (JavaMethod jm : overriddenMethods) {
+            jm.removeOverridingMethod(this);
+        }
+        accessedFields.clear();
+        calledMethods.clear();
+        usedClasses.clear();
+        exceptions.clear();
+        overriddenMethods.clear();
     }
     
     /**
@@ -878,10 +1011,22 @@ public class JavaMethod extends JavaElement {
         return classes;
     }
     
-    private void addOverridingMethod(JavaMethod jm) {
+    /**
+     * Adds a method that overrides this method.
+     * @param jm the overriding method
+     */
+    private synchronized void addOverridingMethod(JavaMethod jm) {
         overridingMethods.add(jm);
     }
     
+    /**
+     * Removes a method that overrides this method.
+     * @param jm the overriding method
+     */
+    private synchronized void removeOverridingMethod(JavaMethod jm) {
+        overridingMethods.remove(jm);
+    }
+    
     /**
      * Displays error log if the binding has not completed yet.
      */
@@ -924,7 +1069,7 @@ public class JavaMethod extends JavaElement {
      */
     public Set<JavaMethod> getCallingJavaMethods() {
         bindingCheck();
-        return callingMethods;
+        return getCallingMethodSet();
     }
     
     /**
@@ -1000,7 +1145,7 @@ public class JavaMethod extends JavaElement {
      */
     public Set<JavaField> getAccessingJavaFields() {
         bindingCheck();
-        return accessingFields;
+        return getAccessingFieldSet();
     }
     
     /**
@@ -95,14 +95,14 @@ public class JavaMethodCall extends JavaExpression {
         declaringMethod = jm;
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getReturnType().getQualifiedName();
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getReturnType().getQualifiedName());
             
             setArguments(node.arguments());
             setArgumentTypes(binding);
             
-            classNameOfCalledMethod = binding.getDeclaringClass().getQualifiedName();
+            classNameOfCalledMethod = JavaStringPool.intern(binding.getDeclaringClass().getQualifiedName());
             
         } else {
             name = ".UNKNOWN";
@@ -121,15 +121,15 @@ public class JavaMethodCall extends JavaExpression {
         super(node);
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getReturnType().getQualifiedName();
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getReturnType().getQualifiedName());
             
             setArguments(node.arguments());
             setArgumentTypes(binding);
             
             declaringMethod = jm;
-            classNameOfCalledMethod = binding.getDeclaringClass().getQualifiedName();
+            classNameOfCalledMethod = JavaStringPool.intern(binding.getDeclaringClass().getQualifiedName());
             
         } else {
             name = ".UNKNOWN";
@@ -148,15 +148,15 @@ public class JavaMethodCall extends JavaExpression {
         super(node);
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getName();;
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getName());
             
             setArguments(node.arguments());
             setArgumentTypes(binding);
             
             declaringMethod = jm;
-            classNameOfCalledMethod = binding.getDeclaringClass().getQualifiedName();
+            classNameOfCalledMethod = JavaStringPool.intern(binding.getDeclaringClass().getQualifiedName());
             
         } else {
             name = ".UNKNOWN";
@@ -175,15 +175,15 @@ public class JavaMethodCall extends JavaExpression {
         super(node);
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getName();;
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getName());
             
             setArguments(node.arguments());
             setArgumentTypes(binding);
             
             declaringMethod = jm;
-            classNameOfCalledMethod = binding.getDeclaringClass().getQualifiedName();
+            classNameOfCalledMethod = JavaStringPool.intern(binding.getDeclaringClass().getQualifiedName());
             
         } else {
             name = ".UNKNOWN";
@@ -202,15 +202,15 @@ public class JavaMethodCall extends JavaExpression {
         super(node);
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getName();
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getName());
             
             setArguments(node.arguments());
             setArgumentTypes(binding);
             
             declaringMethod = jm;
-            classNameOfCalledMethod = binding.getDeclaringClass().getQualifiedName();
+            classNameOfCalledMethod = JavaStringPool.intern(binding.getDeclaringClass().getQualifiedName());
             
         } else {
             name = ".UNKNOWN";
@@ -229,15 +229,15 @@ public class JavaMethodCall extends JavaExpression {
         super(node);
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getName();
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getName());
             
             setArguments(node.arguments());
             setArgumentTypes(binding);
             
             declaringMethod = jm;
-            classNameOfCalledMethod = binding.getDeclaringClass().getQualifiedName();
+            classNameOfCalledMethod = JavaStringPool.intern(binding.getDeclaringClass().getQualifiedName());
             
         } else {
             name = ".UNKNOWN";
@@ -481,7 +481,14 @@ public class JavaMethodCall extends JavaExpression {
             return jmethod;
         }
         
-        jmethod = getDeclaringJavaMethod(classNameOfCalledMethod, signature);
+        if (classNameOfCalledMethod != null) {
+            int id = JavaSymbolTable.getId(JavaMethod.getString(classNameOfCalledMethod, signature));
+            if (id >= 0) {
+                jmethod = getDeclaringJavaMethod(id);
+            } else {
+                jmethod = getDeclaringJavaMethod(classNameOfCalledMethod, signature);
+            }
+        }
         return jmethod;
     }
     
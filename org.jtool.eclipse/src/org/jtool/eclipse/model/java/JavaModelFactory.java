@@ -4,10 +4,22 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
+import org.jtool.eclipse.model.java.internal.ExternalElementRegistry;
+import org.jtool.eclipse.model.java.internal.ParsePipeline;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.log4j.Logger;
 
 /**
@@ -23,11 +35,37 @@ public abstract class JavaModelFactory {
      */
     protected JavaProject jproject;
     
+    /**
+     * The analysis session in which models are created, which is the session current when this factory was created.
+     */
+    protected AnalysisSession session = AnalysisSession.getCurrent();
+    
     /**
      * A visitor that visits the created AST of Java source code.
      */
     protected JavaASTVisitor visitor = null;
     
+    /**
+     * The number of threads that concurrently collect additional information on the created models.
+     */
+    protected int numOfThreads = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * A flag that requests the release of AST nodes after the creation of models.
+     */
+    protected boolean releaseASTNodes = false;
+    
+    /**
+     * A flag indicating that the reports on the phases, the string pool, and the external elements are displayed
+     * after the creation of models. The reports are also displayed if the debug level is enabled.
+     */
+    protected boolean reportsMetrics = false;
+    
+    /**
+     * The maximum number of parsed compilation units that can wait for the creation of models.
+     */
+    protected int parseQueueCapacity = ParsePipeline.DEFAULT_CAPACITY;
+    
     /**
      * Creates a new, empty object.
      */
@@ -43,6 +81,45 @@ public abstract class JavaModelFactory {
         this.visitor = visitor;
     }
     
+    /**
+     * Sets the number of threads that concurrently collect additional information on the created models.
+     * @param num the number of the threads, which must be one or more
+     */
+    public void setNumOfThreads(int num) {
+        if (num > 0) {
+            numOfThreads = num;
+        }
+    }
+    
+    /**
+     * Sets the maximum number of parsed compilation units that can wait for the creation of models.
+     * Files are parsed by as many threads as collect additional information, while models are created by a single thread.
+     * @param capacity the maximum number of the compilation units, which must be one or more
+     */
+    public void setParseQueueCapacity(int capacity) {
+        if (capacity > 0) {
+            parseQueueCapacity = capacity;
+        }
+    }
+    
+    /**
+     * Requests the release of AST nodes after the creation of models, which reduces the memory usage.
+     * A released AST node is recreated by reparsing only the file containing it when a CFG or a PDG is created.
+     * @param bool <code>true</code> if the release is wanted, otherwise <code>false</code>
+     */
+    public void setASTNodeRelease(boolean bool) {
+        releaseASTNodes = bool;
+    }
+    
+    /**
+     * Requests the reports on the phases, the string pool, and the external elements after the creation of models.
+     * The reports are not displayed by default, since models are incrementally created whenever a file is changed.
+     * @param bool <code>true</code> if the reports are wanted, otherwise <code>false</code>
+     */
+    public void setMetricsReport(boolean bool) {
+        reportsMetrics = bool;
+    }
+    
     /**
      * Creates models for Java programs.
      * @return the created project information
@@ -55,21 +132,43 @@ public abstract class JavaModelFactory {
         
         long start = System.currentTimeMillis();
         
-        parse();
-        
-        JavaElement.setBindingLevel(1);
-        
-        collectLevel2Info();
-        collectLevel3Info();
+        AnalysisSession old = AnalysisSession.setCurrent(session);
+        try {
+            synchronized (jproject) {
+                Set<JavaClass> existingClasses = jproject.getJavaClasses();
+                
+                parse();
+                
+                JavaElement.setBindingLevel(1);
+                
+                Set<JavaClass> jclasses = collectClassesToBeBound(existingClasses);
+                collectLevel2Info(jclasses);
+                collectLevel3Info(collectPackagesToBeBound(jclasses));
+                jproject.setChangedJavaClasses(jclasses);
+                
+                if (releaseASTNodes) {
+                    jproject.releaseASTNodes();
+                }
+            }
+            if (reportsMetrics || logger.isDebugEnabled()) {
+                PhaseMetrics.printReport();
+            }
+        } finally {
+            AnalysisSession.setCurrent(old);
+        }
         
         long end = System.currentTimeMillis();
         
         long elapsedTime = end - start;
-        double minutes = elapsedTime / (60 * 1000);
-        double seconds = elapsedTime / 1000;
+        double minutes = elapsedTime / (60.0 * 1000);
+        double seconds = elapsedTime / 1000.0;
         
         logger.info("total files = " + jproject.getJavaFiles().size());
         logger.info("execution time: " + minutes + "m / " + seconds + "s / " + elapsedTime + "ms");
+        if (reportsMetrics || logger.isDebugEnabled()) {
+            JavaStringPool.printReport();
+            ExternalElementRegistry.printReport();
+        }
         
         return jproject;
     }
@@ -98,44 +197,169 @@ public abstract class JavaModelFactory {
         return errors;
     }
     
+    /**
+     * Collects classes whose additional information must be collected.
+     * All the classes are collected if no class existed before parsing. Otherwise, only the newly created classes and
+     * the existing classes that depend on removed classes are collected, which avoids rebuilding the whole models.
+     * @param existingClasses the collection of the classes that existed before parsing
+     * @return the collection of the classes to be bound
+     */
+    protected Set<JavaClass> collectClassesToBeBound(Set<JavaClass> existingClasses) {
+        Set<JavaClass> jclasses = jproject.getJavaClasses();
+        if (existingClasses.size() == 0) {
+            return jclasses;
+        }
+        
+        jclasses.removeAll(existingClasses);
+        for (JavaClass jc : jproject.getUnboundJavaClasses()) {
+            if (jc == JavaClass.getJavaClass(jc.getQualifiedName())) {
+                jc.clearLevel2Info();
+                jclasses.add(jc);
+            }
+        }
+        logger.info("rebound classes = " + jclasses.size() + " / " + (jclasses.size() + existingClasses.size()));
+        return jclasses;
+    }
+    
+    /**
+     * Collects packages whose additional information must be collected.
+     * @param jclasses the collection of the classes to be bound
+     * @return the collection of the packages containing the classes to be bound or the removed classes
+     */
+    protected Set<JavaPackage> collectPackagesToBeBound(Set<JavaClass> jclasses) {
+        Set<JavaPackage> jpackages = new HashSet<JavaPackage>();
+        for (JavaClass jc : jclasses) {
+            jpackages.add(jc.getJavaPackage());
+        }
+        for (JavaClass jc : jproject.getRemovedJavaClasses()) {
+            jpackages.add(jc.getJavaPackage());
+        }
+        return jpackages;
+    }
+    
     /**
      * Collects additional information on classes, methods, and fields within a project.
+     * Classes are processed in parallel, whereas a class and its methods and fields are processed in this order by the same thread.
+     * @param jclasses the collection of the classes to be bound
+     */
+    protected void collectLevel2Info(Set<JavaClass> jclasses) {
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (final JavaClass jc : jclasses) {
+            tasks.add(session.bind(new Callable<Object>() {
+                public Object call() {
+                    collectLevel2Info(jc);
+                    return null;
+                }
+            }));
+        }
+        invokeAll(tasks);
+    }
+    
+    /**
+     * Collects additional information on a class and its methods and fields.
+     * @param jc the class
+     */
+    private void collectLevel2Info(JavaClass jc) {
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.level2, jc.getQualifiedName());
+        try {
+            collectLevel2InfoOfMembers(jc);
+        } finally {
+            timer.stop();
+        }
+        PhaseMetrics.count(Phase.level2, "classes", 1);
+        PhaseMetrics.count(Phase.level2, "methods", jc.getJavaMethods().size());
+        PhaseMetrics.count(Phase.level2, "fields", jc.getJavaFields().size());
+    }
+    
+    /**
+     * Collects additional information on a class and its methods and fields.
+     * @param jc the class
      */
-    protected void collectLevel2Info() {
-        for (JavaClass jc : jproject.getJavaClasses()) {
-            jc.collectLevel2Info();
+    private void collectLevel2InfoOfMembers(JavaClass jc) {
+        jc.collectLevel2Info();
+        
+        if (!jc.isBindingOk()) {
+            logger.info("some binding information was missed in a class: " + jc.getQualifiedName());
+        }
+        
+        for (JavaMethod jm : jc.getJavaMethods()) {
+            jm.collectLevel2Info();
             
-            if (!jc.isBindingOk()) {
-                logger.info("some binding information was missed in a class: " + jc.getQualifiedName());
+            if (!jm.isBindingOk()) {
+                logger.info("some binding information was missed in a method: " + jm.getQualifiedName());
             }
+        }
+        
+        for (JavaField jf : jc.getJavaFields()) {
+            jf.collectLevel2Info();
             
-            for (JavaMethod jm : jc.getJavaMethods()) {
-                jm.collectLevel2Info();
-                
-                if (!jm.isBindingOk()) {
-                    logger.info("some binding information was missed in a method: " + jm.getQualifiedName());
-                }
+            if (!jf.isBindingOk()) {
+                logger.info("some binding information was missed in a field: " + jf.getQualifiedName());
             }
-            
-            for (JavaField jf : jc.getJavaFields()) {
-                jf.collectLevel2Info();
-                
-                if (!jf.isBindingOk()) {
-                    logger.info("some binding information was missed in a field: " + jf.getQualifiedName());
+        }
+    }
+    
+    /**
+     * Collects additional information on packages in parallel.
+     * @param jpackages the collection of the packages to be bound
+     */
+    protected void collectLevel3Info(Set<JavaPackage> jpackages) {
+        for (JavaPackage jp : jpackages) {
+            jp.clearLevel3Info();
+        }
+        
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (final JavaPackage jp : jpackages) {
+            tasks.add(session.bind(new Callable<Object>() {
+                public Object call() {
+                    PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.level3, jp.getName());
+                    try {
+                        jp.collectLevel3Info();
+                    } finally {
+                        timer.stop();
+                    }
+                    PhaseMetrics.count(Phase.level3, "packages", 1);
+                    if (!jp.isBindingOk()) {
+                        logger.info("some binding information was missed in a package: " + jp.getName());
+                    }
+                    return null;
                 }
-            }
+            }));
         }
+        invokeAll(tasks);
     }
     
     /**
-     * Collects additional information on packages.
+     * Executes tasks in parallel and waits until all of them are completed.
+     * A failure of a task is thrown again after all the tasks end, as the tasks would have thrown it if executed in sequence.
+     * If the calling thread is interrupted, the tasks not yet completed are cancelled and the interruption is thrown,
+     * since the models would be partially bound.
+     * @param tasks the collection of the tasks to be executed
+     * @throws IllegalStateException if a task threw an exception or the calling thread was interrupted
      */
-    protected void collectLevel3Info() {
-        for (JavaPackage jp : jproject.getJavaPackages()) {
-            jp.collectLevel3Info();
-            if (!jp.isBindingOk()) {
-                logger.info("some binding information was missed in a package: " + jp.getName());
+    private void invokeAll(List<Callable<Object>> tasks) {
+        Throwable failure = null;
+        ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+        try {
+            for (Future<Object> future : executor.invokeAll(tasks)) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while collecting binding information", e);
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+            logger.error("ExecutionException occurred: " + failure, failure);
+        } finally {
+            executor.shutdown();
+        }
+        
+        if (failure instanceof Error) {
+            throw (Error)failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("failed to collect binding information: " + failure, failure);
         }
     }
 }
@@ -5,9 +5,17 @@
 package org.jtool.eclipse.model.java;
 
 import org.jtool.eclipse.Activator;
+import org.jtool.eclipse.io.SourceFinder;
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
+import org.jtool.eclipse.model.java.internal.ExternalElementRegistry;
 import org.jtool.eclipse.model.java.internal.JavaParser;
+import org.jtool.eclipse.model.java.internal.ParsePipeline;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.jdt.core.compiler.IProblem;
@@ -15,9 +23,12 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.ui.IWorkbenchWindow;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 
@@ -43,6 +54,41 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
      */
     private String[] classpaths;
     
+    /**
+     * The persistent index that stores the models of unchanged files, or <code>null</code> if no index is used.
+     */
+    private JavaModelIndex index = null;
+    
+    /**
+     * The collection of the files within the project.
+     */
+    private Set<File> allFiles = new HashSet<File>();
+    
+    /**
+     * The glob patterns of the files to be parsed.
+     */
+    private List<String> includes = new ArrayList<String>();
+    
+    /**
+     * The glob patterns of the files and directories not to be parsed.
+     */
+    private List<String> excludes = new ArrayList<String>();
+    
+    /**
+     * A flag that requests the detection of source roots from package declarations.
+     */
+    private boolean detectsSourceRoots = false;
+    
+    /**
+     * The source paths used for resolving bindings.
+     */
+    private String[] sourcepaths;
+    
+    /**
+     * The progress monitor used instead of the workbench window, or <code>null</code> if the workbench window is used.
+     */
+    private IProgressMonitor monitor = null;
+    
     /**
      * Creates a factory object that creates models of Java programs.
      * @param name the name of the project
@@ -53,7 +99,9 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
         super();
         
         jproject = JavaProject.create(name, dir);
+        jproject.setClassPaths(classpaths);
         this.classpaths = classpaths;
+        this.sourcepaths = new String[]{ jproject.getTopDir() };
     }
     
     /**
@@ -63,7 +111,7 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
      * @param classpaths the collection of the class paths
      */
     public JavaModelFactoryInExternalProject(String name, String dir) {
-        this(name, dir, new String[] { JavaCore.getClasspathVariable(JRE_LIB).toOSString() });
+        this(name, dir, getDefaultClassPaths());
     }
     
     /**
@@ -83,55 +131,185 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
      * @param classpaths the collection of the class paths
      */
     public JavaModelFactoryInExternalProject(String name) {
-        this(getTempDirPath().toOSString(), name, new String[] { JavaCore.getClasspathVariable(JRE_LIB).toOSString() });
+        this(getTempDirPath().toOSString(), name, getDefaultClassPaths());
     }
     
     /**
-     * Parses Java programs.
+     * Sets whether models are stored into and loaded from a persistent index at the top directory of the project.
+     * @param bool <code>true</code> if the index is used, otherwise <code>false</code>
      */
-    protected void parse(String[] names) {
-        Set<File> files = collectAllFiles(jproject.getTopDir());
-        createJavaModel(files);
+    public void setModelIndex(boolean bool) {
+        if (bool) {
+            index = new JavaModelIndex(jproject);
+        } else {
+            index = null;
+        }
+    }
+    
+    /**
+     * Adds a glob pattern of files to be parsed, which is matched against the path relative to the top directory
+     * or the name of a file. All Java files are parsed if no pattern is added.
+     * @param pattern the glob pattern
+     */
+    public void addInclude(String pattern) {
+        includes.add(pattern);
+    }
+    
+    /**
+     * Adds a glob pattern of files and directories not to be parsed, which is matched against the path relative to
+     * the top directory or the name of a file or a directory. An excluded directory is never searched.
+     * @param pattern the glob pattern
+     */
+    public void addExclude(String pattern) {
+        excludes.add(pattern);
+    }
+    
+    /**
+     * Sets whether source roots are detected from package declarations and used as the source paths.
+     * Files are parsed after all the files are found if the detection is requested, otherwise each file is parsed
+     * as soon as it is found with the top directory used as the source path.
+     * @param bool <code>true</code> if the source roots are detected, otherwise <code>false</code>
+     */
+    public void setSourceRootDetection(boolean bool) {
+        detectsSourceRoots = bool;
+    }
+    
+    /**
+     * Sets a progress monitor that displays progress of parsing instead of the workbench window.
+     * Setting a monitor allows models to be created in a headless environment where no workbench is running.
+     * @param monitor the progress monitor
+     */
+    public void setProgressMonitor(IProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+    
+    /**
+     * Creates models of Java programs and stores them into the index if required.
+     * @return the project containing the created models
+     */
+    public JavaProject create() {
+        JavaProject jp = super.create();
+        if (jp != null && index != null) {
+            AnalysisSession old = AnalysisSession.setCurrent(session);
+            try {
+                index.write(allFiles);
+            } finally {
+                AnalysisSession.setCurrent(old);
+            }
+        }
+        return jp;
+    }
+    
+    /**
+     * Returns the files found within the project when the models were created lastly.
+     * @return the collection of the files
+     */
+    public Set<File> getSourceFiles() {
+        return allFiles;
     }
     
     /**
      * Parses Java programs.
      */
-    protected void parse() {
-        Set<File> files = collectAllFiles(jproject.getTopDir());
-        createJavaModel(files);
+    protected void parse(String[] names) {
+        parse();
     }
     
     /**
-     * Collects all files within the external project.
-     * @param top the path of the specified directory
-     * @return the descendant files
+     * Parses Java programs. Files that are unchanged since the index was written are loaded from the index.
+     * Files whose models already exist in the project are neither parsed nor loaded, so that only the files
+     * removed from the project since the models were created lastly are analyzed again.
      */
-    private Set<File> collectAllFiles(String path) {
-        Set<File> files = new HashSet<File>();
+    protected void parse() {
+        ExternalElementRegistry.setClassPaths(classpaths);
+        SourceFinder finder = createSourceFinder();
         
-        File dir = new File(path);
-        if (dir.isFile()) {
-            if (path.endsWith(".java")) {
-                files.add(dir);
+        if (index == null && !detectsSourceRoots) {
+            allFiles = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+            createJavaModel(null, finder);
+            return;
+        }
+        
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.discover);
+        try {
+            allFiles = finder.findAll();
+        } finally {
+            timer.stop();
+        }
+        PhaseMetrics.count(Phase.discover, "files", allFiles.size());
+        if (detectsSourceRoots && finder.getSourceRoots().size() > 0) {
+            sourcepaths = finder.getSourceRoots().toArray(new String[0]);
+            logger.info("source roots: " + finder.getSourceRoots());
+        }
+        
+        Set<File> files = new HashSet<File>();
+        for (File f : allFiles) {
+            if (!isParsed(f)) {
+                files.add(f);
             }
-        } else if (dir.isDirectory()) {
-            File[] children = dir.listFiles();
-            for (File f : children) {
-                files.addAll(collectAllFiles(f.getPath()));
+        }
+        if (index != null && index.read()) {
+            Set<File> changedFiles = index.getFilesToBeParsed(allFiles);
+            int num = 0;
+            for (File f : new ArrayList<File>(files)) {
+                if (!changedFiles.contains(f) && index.load(f) != null) {
+                    files.remove(f);
+                    num++;
+                    logger.debug("load from index: " + f.getAbsoluteFile().getName());
+                }
             }
+            logger.info("loaded " + num + " files from index / parse " + files.size() + " files");
         }
         
-        return files;
+        if (files.size() > 0) {
+            createJavaModel(files, null);
+        }
+    }
+    
+    /**
+     * Tests if the models of a given file already exist in the project.
+     * @param file the source file
+     * @return <code>true</code> if the file was parsed or loaded, otherwise <code>false</code>
+     */
+    private boolean isParsed(File file) {
+        JavaFile jfile = jproject.getJavaFile(file.getAbsoluteFile().getName());
+        return jfile != null && file.getAbsoluteFile().equals(jfile.getSourceFile());
+    }
+    
+    /**
+     * Creates an object that finds the files within the project.
+     * @return the object that finds the files
+     */
+    private SourceFinder createSourceFinder() {
+        SourceFinder finder = new SourceFinder(jproject.getTopDir());
+        finder.setNumOfThreads(numOfThreads);
+        finder.setSourceRootDetection(detectsSourceRoots);
+        for (String pattern : includes) {
+            finder.addInclude(pattern);
+        }
+        for (String pattern : excludes) {
+            finder.addExclude(pattern);
+        }
+        return finder;
     }
     
     /**
      * Creates a model from Java programs.
-     * @param junits the collection of compilation unit that requires parsing
+     * The files are parsed with the given progress monitor, or within the workbench window if no monitor was given.
+     * @param files the collection of the files that require parsing, or <code>null</code> if the files are found by a finder
+     * @param finder the object that finds the files to be parsed, or <code>null</code> if the files are given
      */
-    private void createJavaModel(final Set<File> files) {
+    private void createJavaModel(final Set<File> files, final SourceFinder finder) {
+        if (monitor != null || !Activator.isWorkbenchRunning()) {
+            try {
+                createJavaModel(files, finder, monitor != null ? monitor : new NullProgressMonitor());
+            } catch (InterruptedException e) {
+                logger.info("parse was canceled");
+            }
+            return;
+        }
+        
         try {
-            final JavaParser parser = new JavaParser();
             IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
             workbenchWindow.run(true, true, new IRunnableWithProgress() {
                 
@@ -143,26 +321,12 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
                  */
                 @Override
                 public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
-                    monitor.beginTask("Parsing files... ", files.size());
-                    
-                    int idx = 1;
-                    for (File f : files) {
-                        monitor.subTask(idx + "/" + files.size() + " - " + f.getPath().toString());
-                        
-                        try {
-                            createJavaModel(parser, f);
-                        } catch (NullPointerException e) {
-                            System.err.println("* Fatal error occurred. Skip the paser of " + f.getPath().toString());
-                        }
-                        
-                        if (monitor.isCanceled()) {
-                            monitor.done();
-                            throw new InterruptedException();
-                        }
-                        monitor.worked(1);
-                        idx++;
+                    AnalysisSession old = AnalysisSession.setCurrent(session);
+                    try {
+                        createJavaModel(files, finder, monitor);
+                    } finally {
+                        AnalysisSession.setCurrent(old);
                     }
-                    monitor.done();
                 }
                 
             });
@@ -175,31 +339,116 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
         }
     }
     
+    /**
+     * Creates a model by parsing Java files.
+     * The files are parsed in parallel while the models are created from the parsed files one by one.
+     * If a finder is given, each file is parsed as soon as the finder finds it.
+     * @param files the collection of the files that require parsing, or <code>null</code> if the files are found by a finder
+     * @param finder the object that finds the files to be parsed, or <code>null</code> if the files are given
+     * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+     * @exception InterruptedException if the operation detects a request to cancel
+     */
+    private void createJavaModel(Set<File> files, final SourceFinder finder, IProgressMonitor monitor) throws InterruptedException {
+        final String[] sourcepaths = this.sourcepaths;
+        final ParsePipeline<File> pipeline = new ParsePipeline<File>(numOfThreads, parseQueueCapacity) {
+            
+            protected CompilationUnit parse(JavaParser parser, File file) {
+                return parser.parse(file, classpaths, sourcepaths);
+            }
+            
+            protected void visit(File file, CompilationUnit cu) {
+                createJavaModel(file, cu);
+            }
+            
+            protected String getName(File file) {
+                return file.getPath().toString();
+            }
+        };
+        if (finder == null) {
+            pipeline.run(files, monitor);
+            return;
+        }
+        
+        Thread thread = new Thread(session.bind(new Runnable() {
+            public void run() {
+                PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.discover);
+                try {
+                    finder.find(new SourceFinder.Listener() {
+                        public void found(File file) {
+                            allFiles.add(file);
+                            if (!isParsed(file)) {
+                                pipeline.add(file);
+                            }
+                        }
+                    });
+                } finally {
+                    timer.stop();
+                    pipeline.close();
+                }
+                PhaseMetrics.count(Phase.discover, "files", allFiles.size());
+            }
+        }), "jtool-source-finder");
+        thread.setDaemon(true);
+        thread.start();
+        
+        try {
+            pipeline.run(monitor);
+        } finally {
+            finder.cancel();
+        }
+    }
+    
     /**
      * Creates a model from a Java program stored in a given file.
      * @param the Java parser
      * @param file the file that requires parsing
      */
     protected void createJavaModel(JavaParser parser, File file) {
-        String[] sourcepaths = new String[]{ jproject.getTopDir() };
         CompilationUnit cu = parser.parse(file, classpaths, sourcepaths);
         
         if (cu != null) {
-            List<IProblem> errors = getParseErrors(cu);
-            if (errors.size() == 0) {
-                logger.debug("complete parse: " + file.getAbsoluteFile().getName());
-            } else {
-                logger.debug("incomplete parse: " + file.getAbsoluteFile().getName());
+            createJavaModel(file, cu);
+        }
+    }
+    
+    /**
+     * Creates a model from a compilation unit parsed from a given file.
+     * @param file the parsed file
+     * @param cu the parsed compilation unit
+     */
+    protected void createJavaModel(File file, CompilationUnit cu) {
+        List<IProblem> errors = getParseErrors(cu);
+        if (errors.size() == 0) {
+            logger.debug("complete parse: " + file.getAbsoluteFile().getName());
+        } else {
+            logger.debug("incomplete parse: " + file.getAbsoluteFile().getName());
+        }
+        
+        JavaFile jfile = new JavaFile(file.getAbsoluteFile().getName(), jproject);
+        jfile.setParseErrors(errors);
+        jfile.setSourceFile(file.getAbsoluteFile());
+        jproject.addJavaFile(jfile);
+        
+        visitor.setJavaFile(jfile);
+        cu.accept(visitor);
+        visitor.close();
+    }
+    
+    /**
+     * Returns the default class paths, which contain the JRE library.
+     * The JRE library of the running virtual machine is used when the Eclipse platform is not running.
+     * @return the collection of the class paths
+     */
+    private static String[] getDefaultClassPaths() {
+        if (Platform.isRunning()) {
+            IPath path = JavaCore.getClasspathVariable(JRE_LIB);
+            if (path != null) {
+                return new String[] { path.toOSString() };
             }
-            
-            JavaFile jfile = new JavaFile(file.getAbsoluteFile().getName(), jproject);
-            jfile.setParseErrors(errors);
-            jproject.addJavaFile(jfile);
-            
-            visitor.setJavaFile(jfile);
-            cu.accept(visitor);
-            visitor.close();
         }
+        
+        String javaHome = System.getProperty("java.home");
+        return new String[] { javaHome + File.separator + "lib" + File.separator + "rt.jar" };
     }
     
     /**
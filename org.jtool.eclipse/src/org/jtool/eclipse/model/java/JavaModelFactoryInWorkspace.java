@@ -5,7 +5,10 @@
 package org.jtool.eclipse.model.java;
 
 import org.jtool.eclipse.Activator;
+import org.jtool.eclipse.model.AnalysisSession;
 import org.jtool.eclipse.model.java.internal.JavaParser;
+import org.jtool.eclipse.model.java.internal.ParsePipeline;
+import org.jtool.eclipse.model.java.internal.ResourceChangeJob;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IJavaProject;
@@ -43,6 +46,15 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
         project = proj;
     }
     
+    /**
+     * Creates models for Java programs after the changed files that have been notified are removed from the project.
+     * @return the created project information
+     */
+    public JavaProject create() {
+        ResourceChangeJob.flush();
+        return super.create();
+    }
+    
     /**
      * Parses Java programs.
      */
@@ -122,11 +134,11 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
     
     /**
      * Creates a model from Java programs.
+     * The compilation units are parsed in parallel while the models are created from the parsed units one by one.
      * @param junits the collection of compilation unit that requires parsing
      */
     private void createJavaModel(final Set<ICompilationUnit> cunits) {
         try {
-            final JavaParser parser = new JavaParser();
             IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
             workbenchWindow.run(true, true, new IRunnableWithProgress() {
                 
@@ -138,31 +150,26 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
                  */
                 @Override
                 public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
-                    monitor.beginTask("Parsing files... ", cunits.size());
-                    
-                    int idx = 1;
-                    for (ICompilationUnit icu : cunits) {
-                        monitor.subTask(idx + "/" + cunits.size() + " - " + icu.getPath().toString());
+                    ParsePipeline<ICompilationUnit> pipeline = new ParsePipeline<ICompilationUnit>(numOfThreads, parseQueueCapacity) {
                         
-                        try {
-                            createJavaModel(parser, icu);
-                        } catch (NullPointerException e) {
-                            System.err.println("* Fatal error occurred. Skip the paser of " + icu.getPath().toString());
-                            /*
-                            for (StackTraceElement elem : e.getStackTrace()) {
-                                System.out.println(elem.toString());
-                            }
-                            */
+                        protected CompilationUnit parse(JavaParser parser, ICompilationUnit icu) {
+                            return parser.parse(icu);
                         }
                         
-                        if (monitor.isCanceled()) {
-                            monitor.done();
-                            throw new InterruptedException();
+                        protected void visit(ICompilationUnit icu, CompilationUnit cu) {
+                            createJavaModel(icu, cu);
                         }
-                        monitor.worked(1);
-                        idx++;
+                        
+                        protected String getName(ICompilationUnit icu) {
+                            return icu.getPath().toString();
+                        }
+                    };
+                    AnalysisSession old = AnalysisSession.setCurrent(session);
+                    try {
+                        pipeline.run(cunits, monitor);
+                    } finally {
+                        AnalysisSession.setCurrent(old);
                     }
-                    monitor.done();
                 }
             });
             
@@ -176,28 +183,24 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
     
     /**
      * Creates a model from a given compilation unit.
-     * @param the Java parser
-     * @param icu the compilation unit that requires parsing
+     * @param icu the compilation unit that was parsed
+     * @param cu the parsed compilation unit
      */
-    private void createJavaModel(JavaParser parser, ICompilationUnit icu) {
-        CompilationUnit cu = (CompilationUnit)parser.parse(icu);
-        
-        if (cu != null) {
-            List<IProblem> errors = getParseErrors(cu);
-            if (errors.size() == 0) {
-                logger.debug("complete parse: " + icu.getPath().toString());
-            } else {
-                logger.debug("incomplete parse: " + icu.getPath().toString());
-            }
-            
-            JavaFile jfile = new JavaFile(icu, jproject);
-            jfile.setParseErrors(errors);
-            
-            visitor.setJavaFile(jfile);
-            cu.accept(visitor);
-            visitor.close();
-            
-            jproject.addJavaFile(jfile);
+    private void createJavaModel(ICompilationUnit icu, CompilationUnit cu) {
+        List<IProblem> errors = getParseErrors(cu);
+        if (errors.size() == 0) {
+            logger.debug("complete parse: " + icu.getPath().toString());
+        } else {
+            logger.debug("incomplete parse: " + icu.getPath().toString());
         }
+        
+        JavaFile jfile = new JavaFile(icu, jproject);
+        jfile.setParseErrors(errors);
+        
+        visitor.setJavaFile(jfile);
+        cu.accept(visitor);
+        visitor.close();
+        
+        jproject.addJavaFile(jfile);
     }
 }
@@ -0,0 +1,932 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import org.jtool.eclipse.model.java.internal.IdSet;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import org.apache.log4j.Logger;
+
+/**
+ * A persistent index that stores the Java models of files in an external project.
+ * The models of a file are reused as long as the file is unchanged, which is checked by its modification time, length, and content hash.
+ * The names of referred classes, methods, and fields are stored, so that the relationships among models are resolved again after loading.
+ * The files that a file refers to are also stored, so that a file is parsed again when a file it depends on is changed or removed,
+ * and the index is discarded when the class paths of the project are changed.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaModelIndex {
+    
+    static Logger logger = Logger.getLogger(JavaModelIndex.class.getName());
+    
+    /**
+     * The name of the index file, which is placed at the top directory of the project.
+     */
+    public static final String INDEX_FILE_NAME = ".jtool.index";
+    
+    /**
+     * The magic number at the head of the index file.
+     */
+    private static final int MAGIC = 0x4A544958;
+    
+    /**
+     * The version number of the format of the index file.
+     */
+    private static final int VERSION = 3;
+    
+    /**
+     * The project whose models are stored.
+     */
+    private JavaProject jproject;
+    
+    /**
+     * The index file.
+     */
+    private File indexFile;
+    
+    /**
+     * The string that identifies the class paths of the project, which must match the one stored in the index file.
+     */
+    private String classpathKey;
+    
+    /**
+     * The entries of the files stored in the index, keyed by their absolute paths.
+     */
+    private Map<String, Entry> entries = new HashMap<String, Entry>();
+    
+    /**
+     * Creates an index for a project.
+     * @param jproject the project
+     */
+    public JavaModelIndex(JavaProject jproject) {
+        this.jproject = jproject;
+        this.indexFile = new File(jproject.getTopDir(), INDEX_FILE_NAME);
+        this.classpathKey = getClassPathKey(jproject.getClassPaths());
+    }
+    
+    /**
+     * Obtains the string that identifies given class paths.
+     * @param classpaths the collection of the class paths
+     * @return the string of the class paths
+     */
+    private static String getClassPathKey(String[] classpaths) {
+        StringBuffer buf = new StringBuffer();
+        if (classpaths != null) {
+            for (String path : classpaths) {
+                if (buf.length() > 0) {
+                    buf.append(File.pathSeparator);
+                }
+                buf.append(new File(path).getAbsolutePath());
+            }
+        }
+        return buf.toString();
+    }
+    
+    /**
+     * Reads the index file if it exists.
+     * @return <code>true</code> if the index was successfully read, otherwise <code>false</code>
+     */
+    public boolean read() {
+        entries.clear();
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("ignored incompatible index: " + indexFile.getPath());
+                return false;
+            }
+            if (!classpathKey.equals(in.readUTF())) {
+                logger.info("ignored index for different class paths: " + indexFile.getPath());
+                return false;
+            }
+            
+            int num = in.readInt();
+            for (int i = 0; i < num; i++) {
+                Entry entry = new Entry();
+                entry.read(in);
+                entries.put(entry.absolutePath, entry);
+            }
+            return true;
+        
+        } catch (IOException e) {
+            logger.error("IOException occurred: " + e.getMessage());
+            entries.clear();
+            return false;
+        } finally {
+            close(in);
+        }
+    }
+    
+    /**
+     * Tests if the models of a given file can be loaded from this index.
+     * @param file the source file
+     * @return <code>true</code> if the file is unchanged since it was stored, otherwise <code>false</code>
+     */
+    public boolean isUpToDate(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null) {
+            return false;
+        }
+        
+        if (entry.lastModified == file.lastModified() && entry.length == file.length()) {
+            return true;
+        }
+        
+        try {
+            if (entry.hash == getHash(file)) {
+                entry.lastModified = file.lastModified();
+                entry.length = file.length();
+                return true;
+            }
+        } catch (IOException e) {
+            logger.error("IOException occurred: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Obtains the files that must be parsed since their models cannot be loaded from this index.
+     * A file is parsed if it is changed or not stored, or if a file it refers to is changed, not stored, or removed.
+     * @param files the collection of the source files of the project
+     * @return the collection of the files to be parsed
+     */
+    public Set<File> getFilesToBeParsed(Collection<File> files) {
+        Set<File> parsed = new HashSet<File>();
+        Set<String> paths = new HashSet<String>();
+        Set<String> changedPaths = new HashSet<String>();
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            paths.add(path);
+            if (!isUpToDate(file)) {
+                parsed.add(file);
+                changedPaths.add(path);
+            }
+        }
+        for (String path : entries.keySet()) {
+            if (!paths.contains(path)) {
+                changedPaths.add(path);
+            }
+        }
+        
+        for (File file : files) {
+            if (!parsed.contains(file)) {
+                for (String path : entries.get(file.getAbsolutePath()).dependencies) {
+                    if (changedPaths.contains(path)) {
+                        parsed.add(file);
+                        logger.debug("parse dependent: " + file.getName() + " on " + path);
+                        break;
+                    }
+                }
+            }
+        }
+        return parsed;
+    }
+    
+    /**
+     * Loads the models of a given file from this index and registers them with the project.
+     * @param file the source file
+     * @return the loaded file, or <code>null</code> if the file is not stored in this index
+     */
+    public JavaFile load(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null) {
+            return null;
+        }
+        
+        JavaFile jfile = new JavaFile(entry.path, jproject);
+        jfile.setSourceFile(file.getAbsoluteFile());
+        jproject.addJavaFile(jfile);
+        
+        Map<String, JavaClass> classes = new HashMap<String, JavaClass>();
+        for (ClassEntry ce : entry.classes) {
+            JavaClass jc = ce.create(jfile, jproject);
+            classes.put(ce.fqn, jc);
+        }
+        
+        for (ClassEntry ce : entry.classes) {
+            if (ce.declaringClassName != null) {
+                JavaClass outer = classes.get(ce.declaringClassName);
+                if (outer != null) {
+                    JavaClass inner = classes.get(ce.fqn);
+                    inner.declaringClass = outer;
+                    outer.addJavaInnerClass(inner);
+                }
+            }
+        }
+        return jfile;
+    }
+    
+    /**
+     * Stores the models of all the files of the project and writes them into the index file.
+     * @param files the collection of the source files of the project
+     */
+    public void write(Collection<File> files) {
+        Map<String, List<JavaClass>> classes = new HashMap<String, List<JavaClass>>();
+        for (JavaClass jc : jproject.getJavaClasses()) {
+            JavaFile jf = jc.getJavaFile();
+            if (jf != null && jf.getSourceFile() != null && jproject.equals(jf.getJavaProject())) {
+                String key = jf.getSourceFile().getAbsolutePath();
+                List<JavaClass> list = classes.get(key);
+                if (list == null) {
+                    list = new ArrayList<JavaClass>();
+                    classes.put(key, list);
+                }
+                list.add(jc);
+            }
+        }
+        
+        Map<String, String> classFiles = new HashMap<String, String>();
+        for (Map.Entry<String, List<JavaClass>> e : classes.entrySet()) {
+            for (JavaClass jc : e.getValue()) {
+                classFiles.put(jc.getQualifiedName(), e.getKey());
+            }
+        }
+        
+        List<Entry> list = new ArrayList<Entry>();
+        for (File file : files) {
+            List<JavaClass> jclasses = classes.get(file.getAbsolutePath());
+            if (jclasses != null) {
+                try {
+                    list.add(new Entry(file, jclasses, classFiles));
+                } catch (IOException e) {
+                    logger.error("IOException occurred: " + e.getMessage());
+                }
+            }
+        }
+        
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(classpathKey);
+            out.writeInt(list.size());
+            for (Entry entry : list) {
+                entry.write(out);
+            }
+            out.flush();
+            
+            entries.clear();
+            for (Entry entry : list) {
+                entries.put(entry.absolutePath, entry);
+            }
+        
+        } catch (IOException e) {
+            logger.error("IOException occurred: " + e.getMessage());
+        } finally {
+            close(out);
+        }
+    }
+    
+    /**
+     * Calculates the hash value of the contents of a file.
+     * @param file the file
+     * @return the hash value
+     * @throws IOException if the file cannot be read
+     */
+    private static long getHash(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                crc.update(buf, 0, len);
+            }
+        } finally {
+            close(in);
+        }
+        return crc.getValue();
+    }
+    
+    /**
+     * Closes a stream quietly.
+     * @param stream the stream to be closed
+     */
+    private static void close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) { /* empty */ }
+        }
+    }
+    
+    /**
+     * Writes a string that might be <code>null</code>.
+     * @param out the output stream
+     * @param str the string to be written
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+    
+    /**
+     * Reads a string that might be <code>null</code>.
+     * @param in the input stream
+     * @return the read string
+     * @throws IOException if an I/O error occurs
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+    
+    /**
+     * Writes a collection of strings.
+     * @param out the output stream
+     * @param strs the collection of the strings to be written
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeStrings(DataOutputStream out, Collection<String> strs) throws IOException {
+        out.writeInt(strs.size());
+        for (String str : strs) {
+            out.writeUTF(str);
+        }
+    }
+    
+    /**
+     * Reads a collection of strings.
+     * @param in the input stream
+     * @return the read strings
+     * @throws IOException if an I/O error occurs
+     */
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int num = in.readInt();
+        List<String> strs = new ArrayList<String>(num);
+        for (int i = 0; i < num; i++) {
+            strs.add(in.readUTF());
+        }
+        return strs;
+    }
+    
+    /**
+     * Obtains the names of symbols with given identification numbers.
+     * @param ids the collection of the identification numbers
+     * @return the names of the symbols
+     */
+    private static List<String> getNames(IdSet ids) {
+        List<String> names = new ArrayList<String>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            String name = JavaSymbolTable.getName(id);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * Obtains the identification numbers of symbols with given names.
+     * @param names the names of the symbols
+     * @param ids the collection that stores the identification numbers
+     */
+    private static void addIds(List<String> names, IdSet ids) {
+        for (String name : names) {
+            JavaSymbolTable.register(name, ids);
+        }
+    }
+    
+    /**
+     * Collects the names of classes that declare the symbols with given identification numbers.
+     * @param ids the collection of the identification numbers of classes, methods, or fields
+     * @param names the collection that stores the names of the classes
+     */
+    private static void addClassNames(IdSet ids, Set<String> names) {
+        for (int i = 0; i < ids.size(); i++) {
+            String name = JavaSymbolTable.getName(ids.get(i));
+            if (name != null) {
+                int index = name.indexOf('#');
+                if (index != -1) {
+                    name = name.substring(0, index);
+                }
+                names.add(name);
+            }
+        }
+    }
+    
+    /**
+     * Writes the code properties of an element.
+     * @param out the output stream
+     * @param elem the element
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeCodeProperties(DataOutputStream out, JavaElement elem) throws IOException {
+        out.writeInt(elem.getStartPosition());
+        out.writeInt(elem.getExtendedStartPosition());
+        out.writeInt(elem.getCodeLength());
+        out.writeInt(elem.getExtendedCodeLength());
+        out.writeInt(elem.getUpperLineNumber());
+        out.writeInt(elem.getExtendedUpperLineNumber());
+        out.writeInt(elem.getBottomLineNumber());
+        out.writeInt(elem.getExtendedBottomLineNumber());
+    }
+    
+    /**
+     * Reads the code properties of an element.
+     * @param in the input stream
+     * @return the code properties
+     * @throws IOException if an I/O error occurs
+     */
+    private static int[] readCodeProperties(DataInputStream in) throws IOException {
+        int[] props = new int[8];
+        for (int i = 0; i < props.length; i++) {
+            props[i] = in.readInt();
+        }
+        return props;
+    }
+    
+    /**
+     * Sets the code properties of an element.
+     * @param elem the element
+     * @param props the code properties
+     */
+    private static void setCodeProperties(JavaElement elem, int[] props) {
+        elem.setCodeProperties(props[0], props[1], props[2], props[3], props[4], props[5], props[6], props[7]);
+    }
+    
+    /**
+     * An entry of the index, which stores the models of a single file.
+     */
+    private static class Entry {
+        
+        String path;
+        String absolutePath;
+        long lastModified;
+        long length;
+        long hash;
+        List<String> dependencies;
+        List<ClassEntry> classes = new ArrayList<ClassEntry>();
+        
+        Entry() {
+        }
+        
+        Entry(File file, List<JavaClass> jclasses, Map<String, String> classFiles) throws IOException {
+            path = jclasses.get(0).getJavaFile().getPath();
+            absolutePath = file.getAbsolutePath();
+            lastModified = file.lastModified();
+            length = file.length();
+            hash = getHash(file);
+            for (JavaClass jc : jclasses) {
+                classes.add(new ClassEntry(jc));
+            }
+            
+            Set<String> names = new HashSet<String>();
+            for (JavaClass jc : jclasses) {
+                if (jc.superClassName != null) {
+                    names.add(jc.superClassName);
+                }
+                names.addAll(jc.superInterfaceNames);
+                addClassNames(jc.efferentClassIds, names);
+                for (JavaMethod jm : jc.getJavaMethods()) {
+                    addClassNames(jm.calledMethodIds, names);
+                    addClassNames(jm.accessedFieldIds, names);
+                    addClassNames(jm.usedClassIds, names);
+                }
+                for (JavaField jf : jc.getJavaFields()) {
+                    addClassNames(jf.calledMethodIds, names);
+                    addClassNames(jf.accessedFieldIds, names);
+                }
+            }
+            
+            Set<String> paths = new HashSet<String>();
+            for (String name : names) {
+                String path = classFiles.get(name);
+                if (path != null && !path.equals(absolutePath)) {
+                    paths.add(path);
+                }
+            }
+            dependencies = new ArrayList<String>(paths);
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeUTF(absolutePath);
+            out.writeLong(lastModified);
+            out.writeLong(length);
+            out.writeLong(hash);
+            writeStrings(out, dependencies);
+            out.writeInt(classes.size());
+            for (ClassEntry ce : classes) {
+                ce.write(out);
+            }
+        }
+        
+        void read(DataInputStream in) throws IOException {
+            path = in.readUTF();
+            absolutePath = in.readUTF();
+            lastModified = in.readLong();
+            length = in.readLong();
+            hash = in.readLong();
+            dependencies = readStrings(in);
+            int num = in.readInt();
+            for (int i = 0; i < num; i++) {
+                ClassEntry ce = new ClassEntry();
+                ce.read(in);
+                classes.add(ce);
+            }
+        }
+    }
+    
+    /**
+     * A record of a class.
+     */
+    private static class ClassEntry {
+        
+        String name;
+        String fqn;
+        int modifiers;
+        boolean isInterface;
+        boolean isEnum;
+        boolean bindingOk;
+        String packageName;
+        String declaringClassName;
+        String superClassName;
+        List<String> superInterfaceNames;
+        List<String> efferentClassNames;
+        int[] props;
+        List<MethodEntry> methods = new ArrayList<MethodEntry>();
+        List<FieldEntry> fields = new ArrayList<FieldEntry>();
+        JavaClass jcElement;
+        
+        ClassEntry() {
+        }
+        
+        ClassEntry(JavaClass jc) {
+            jcElement = jc;
+            name = jc.name;
+            fqn = jc.fqn;
+            modifiers = jc.modifiers;
+            isInterface = jc.isInterface;
+            isEnum = jc.isEnum;
+            bindingOk = jc.bindingOk;
+            packageName = jc.getJavaPackage().getName();
+            if (jc.declaringClass != null && jc.declaringClass.isInProject()) {
+                declaringClassName = jc.declaringClass.getQualifiedName();
+            }
+            superClassName = jc.superClassName;
+            superInterfaceNames = new ArrayList<String>(jc.superInterfaceNames);
+            efferentClassNames = getNames(jc.efferentClassIds);
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                methods.add(new MethodEntry(jm));
+            }
+            for (JavaField jf : jc.getJavaFields()) {
+                fields.add(new FieldEntry(jf));
+            }
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(name);
+            out.writeUTF(fqn);
+            out.writeInt(modifiers);
+            out.writeBoolean(isInterface);
+            out.writeBoolean(isEnum);
+            out.writeBoolean(bindingOk);
+            out.writeUTF(packageName);
+            writeString(out, declaringClassName);
+            writeString(out, superClassName);
+            writeStrings(out, superInterfaceNames);
+            writeStrings(out, efferentClassNames);
+            writeCodeProperties(out, jcElement);
+            out.writeInt(methods.size());
+            for (MethodEntry me : methods) {
+                me.write(out);
+            }
+            out.writeInt(fields.size());
+            for (FieldEntry fe : fields) {
+                fe.write(out);
+            }
+        }
+        
+        void read(DataInputStream in) throws IOException {
+            name = in.readUTF();
+            fqn = in.readUTF();
+            modifiers = in.readInt();
+            isInterface = in.readBoolean();
+            isEnum = in.readBoolean();
+            bindingOk = in.readBoolean();
+            packageName = in.readUTF();
+            declaringClassName = readString(in);
+            superClassName = readString(in);
+            superInterfaceNames = readStrings(in);
+            efferentClassNames = readStrings(in);
+            props = readCodeProperties(in);
+            int num = in.readInt();
+            for (int i = 0; i < num; i++) {
+                MethodEntry me = new MethodEntry();
+                me.read(in);
+                methods.add(me);
+            }
+            num = in.readInt();
+            for (int i = 0; i < num; i++) {
+                FieldEntry fe = new FieldEntry();
+                fe.read(in);
+                fields.add(fe);
+            }
+        }
+        
+        JavaClass create(JavaFile jfile, JavaProject jproject) {
+            JavaPackage jp = JavaPackage.create(packageName, jproject);
+            JavaClass jc = JavaClass.create(name, fqn, modifiers, isInterface, isEnum, jfile, jp);
+            jc.bindingOk = bindingOk;
+            if (superClassName != null) {
+                jc.setSuperClassName(JavaStringPool.intern(superClassName));
+            }
+            for (String str : superInterfaceNames) {
+                jc.addSuperInterfaceName(JavaStringPool.intern(str));
+            }
+            addIds(efferentClassNames, jc.efferentClassIds);
+            setCodeProperties(jc, props);
+            
+            for (MethodEntry me : methods) {
+                me.create(jc);
+            }
+            for (FieldEntry fe : fields) {
+                fe.create(jc);
+            }
+            return jc;
+        }
+    }
+    
+    /**
+     * A record of a method.
+     */
+    private static class MethodEntry {
+        
+        String name;
+        String signature;
+        String type;
+        int modifiers;
+        boolean isConstructor;
+        boolean isInitializer;
+        boolean bindingOk;
+        long bodyHash;
+        int[] props;
+        List<String> exceptionNames;
+        List<String> calledMethodNames;
+        List<String> accessedFieldNames;
+        List<String> usedClassNames;
+        List<LocalEntry> parameters = new ArrayList<LocalEntry>();
+        List<LocalEntry> locals = new ArrayList<LocalEntry>();
+        LocalEntry returnValue;
+        JavaMethod jmElement;
+        
+        MethodEntry() {
+        }
+        
+        MethodEntry(JavaMethod jm) {
+            jmElement = jm;
+            name = jm.name;
+            signature = jm.signature;
+            type = jm.type;
+            modifiers = jm.modifiers;
+            isConstructor = jm.isConstructor;
+            isInitializer = jm.isInitializer;
+            bindingOk = jm.bindingOk;
+            bodyHash = jm.bodyHash;
+            exceptionNames = new ArrayList<String>(jm.exceptionNames);
+            calledMethodNames = getNames(jm.calledMethodIds);
+            accessedFieldNames = getNames(jm.accessedFieldIds);
+            usedClassNames = getNames(jm.usedClassIds);
+            for (JavaLocal jl : jm.getParameters()) {
+                parameters.add(new LocalEntry(jl));
+            }
+            for (JavaLocal jl : jm.getLocalVariables()) {
+                locals.add(new LocalEntry(jl));
+            }
+            if (jm.returnValue != null) {
+                returnValue = new LocalEntry(jm.returnValue);
+            }
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(name);
+            out.writeUTF(signature);
+            writeString(out, type);
+            out.writeInt(modifiers);
+            out.writeBoolean(isConstructor);
+            out.writeBoolean(isInitializer);
+            out.writeBoolean(bindingOk);
+            out.writeLong(bodyHash);
+            writeCodeProperties(out, jmElement);
+            writeStrings(out, exceptionNames);
+            writeStrings(out, calledMethodNames);
+            writeStrings(out, accessedFieldNames);
+            writeStrings(out, usedClassNames);
+            out.writeInt(parameters.size());
+            for (LocalEntry le : parameters) {
+                le.write(out);
+            }
+            out.writeInt(locals.size());
+            for (LocalEntry le : locals) {
+                le.write(out);
+            }
+            out.writeBoolean(returnValue != null);
+            if (returnValue != null) {
+                returnValue.write(out);
+            }
+        }
+        
+        void read(DataInputStream in) throws IOException {
+            name = in.readUTF();
+            signature = in.readUTF();
+            type = readString(in);
+            modifiers = in.readInt();
+            isConstructor = in.readBoolean();
+            isInitializer = in.readBoolean();
+            bindingOk = in.readBoolean();
+            bodyHash = in.readLong();
+            props = readCodeProperties(in);
+            exceptionNames = readStrings(in);
+            calledMethodNames = readStrings(in);
+            accessedFieldNames = readStrings(in);
+            usedClassNames = readStrings(in);
+            int num = in.readInt();
+            for (int i = 0; i < num; i++) {
+                LocalEntry le = new LocalEntry();
+                le.read(in);
+                parameters.add(le);
+            }
+            num = in.readInt();
+            for (int i = 0; i < num; i++) {
+                LocalEntry le = new LocalEntry();
+                le.read(in);
+                locals.add(le);
+            }
+            if (in.readBoolean()) {
+                returnValue = new LocalEntry();
+                returnValue.read(in);
+            }
+        }
+        
+        void create(JavaClass jc) {
+            JavaMethod jm = new JavaMethod(name, signature, type, modifiers, isConstructor, isInitializer, jc);
+            jm.bindingOk = bindingOk;
+            jm.bodyHash = bodyHash;
+            setCodeProperties(jm, props);
+            for (String str : exceptionNames) {
+                jm.exceptionNames.add(JavaStringPool.intern(str));
+            }
+            addIds(calledMethodNames, jm.calledMethodIds);
+            addIds(accessedFieldNames, jm.accessedFieldIds);
+            addIds(usedClassNames, jm.usedClassIds);
+            for (LocalEntry le : parameters) {
+                jm.parameters.add(le.create(jm));
+            }
+            for (LocalEntry le : locals) {
+                jm.locals.add(le.create(jm));
+            }
+            if (returnValue != null) {
+                jm.returnValue = returnValue.create(jm);
+            }
+        }
+    }
+    
+    /**
+     * A record of a field.
+     */
+    private static class FieldEntry {
+        
+        String name;
+        String type;
+        int modifiers;
+        boolean isEnumConstant;
+        boolean bindingOk;
+        long bodyHash;
+        int[] props;
+        List<String> accessedFieldNames;
+        List<String> calledMethodNames;
+        JavaField jfElement;
+        
+        FieldEntry() {
+        }
+        
+        FieldEntry(JavaField jf) {
+            jfElement = jf;
+            name = jf.name;
+            type = jf.type;
+            modifiers = jf.modifiers;
+            isEnumConstant = jf.isEnumConstant;
+            bindingOk = jf.bindingOk;
+            bodyHash = jf.bodyHash;
+            accessedFieldNames = getNames(jf.accessedFieldIds);
+            calledMethodNames = getNames(jf.calledMethodIds);
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(name);
+            writeString(out, type);
+            out.writeInt(modifiers);
+            out.writeBoolean(isEnumConstant);
+            out.writeBoolean(bindingOk);
+            out.writeLong(bodyHash);
+            writeCodeProperties(out, jfElement);
+            writeStrings(out, accessedFieldNames);
+            writeStrings(out, calledMethodNames);
+        }
+        
+        void read(DataInputStream in) throws IOException {
+            name = in.readUTF();
+            type = readString(in);
+            modifiers = in.readInt();
+            isEnumConstant = in.readBoolean();
+            bindingOk = in.readBoolean();
+            bodyHash = in.readLong();
+            props = readCodeProperties(in);
+            accessedFieldNames = readStrings(in);
+            calledMethodNames = readStrings(in);
+        }
+        
+        void create(JavaClass jc) {
+            JavaField jf = new JavaField(name, type, modifiers, isEnumConstant, jc);
+            jf.bindingOk = bindingOk;
+            jf.bodyHash = bodyHash;
+            setCodeProperties(jf, props);
+            addIds(accessedFieldNames, jf.accessedFieldIds);
+            addIds(calledMethodNames, jf.calledMethodIds);
+        }
+    }
+    
+    /**
+     * A record of a local variable or a parameter.
+     */
+    private static class LocalEntry {
+        
+        String name;
+        int id;
+        String type;
+        boolean isPrimitive;
+        boolean isParameter;
+        int modifiers;
+        int[] props;
+        JavaLocal jlElement;
+        
+        LocalEntry() {
+        }
+        
+        LocalEntry(JavaLocal jl) {
+            jlElement = jl;
+            name = jl.name;
+            id = jl.id;
+            type = jl.type;
+            isPrimitive = jl.isPrimitive;
+            isParameter = jl.isParameter;
+            modifiers = jl.modifiers;
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(name);
+            out.writeInt(id);
+            writeString(out, type);
+            out.writeBoolean(isPrimitive);
+            out.writeBoolean(isParameter);
+            out.writeInt(modifiers);
+            writeCodeProperties(out, jlElement);
+        }
+        
+        void read(DataInputStream in) throws IOException {
+            name = in.readUTF();
+            id = in.readInt();
+            type = readString(in);
+            isPrimitive = in.readBoolean();
+            isParameter = in.readBoolean();
+            modifiers = in.readInt();
+            props = readCodeProperties(in);
+        }
+        
+        JavaLocal create(JavaMethod jm) {
+            JavaLocal jl = new JavaLocal(name, id, type, isPrimitive, isParameter, modifiers, jm);
+            setCodeProperties(jl, props);
+            return jl;
+        }
+    }
+}
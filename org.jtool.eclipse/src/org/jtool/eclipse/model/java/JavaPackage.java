@@ -8,6 +8,8 @@ import org.eclipse.jdt.core.dom.PackageDeclaration;
 import org.eclipse.jdt.core.dom.IPackageBinding;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -31,7 +33,7 @@ public class JavaPackage {
     /**
      * The collection of all classes within this package.
      */
-    protected Set<JavaClass> classes = new HashSet<JavaClass>();
+    protected Set<JavaClass> classes = Collections.newSetFromMap(new ConcurrentHashMap<JavaClass, Boolean>());
     
     /**
      * Creates a new, empty object.
@@ -67,18 +69,12 @@ public class JavaPackage {
             name = ".DEFAULT";
         }
         
-        JavaPackage jpackage = jp.getJavaPackage(name);
-        if (jpackage != null) {
-            return jpackage;
-        }
-        
-        jpackage = new JavaPackage(name, jp);
-        jp.addJavaPackage(jpackage);
-        return jpackage;
+        return create(name, jp);
     }
     
     /**
      * Creates a new object representing a package.
+     * The package is created only if the project does not contain a package with the same name.
      * @param name the name of the package
      * @param jp the project containing the package
      * @return the package object
@@ -88,10 +84,7 @@ public class JavaPackage {
         if (jpackage != null) {
             return jpackage;
         }
-        
-        jpackage = new JavaPackage(name, jp);
-        jp.addJavaPackage(jpackage);
-        return jpackage;
+        return jp.addJavaPackage(new JavaPackage(name, jp));
     }
     
     /**
@@ -134,6 +127,14 @@ public class JavaPackage {
         classes.add(jc);
     }
     
+    /**
+     * Removes a specified class from the members of this package.
+     * @param jc the class to be removed
+     */
+    public void removeJavaClass(JavaClass jc) {
+        classes.remove(jc);
+    }
+    
     /**
      * Returns all the classes within this class or interface.
      * @return the collection of the classes declared in this class or interface
@@ -248,11 +249,30 @@ public class JavaPackage {
         }
     }
     
+    /**
+     * Discards the collected information on this package so that it can be collected again.
+     */
+    public void clearLevel3Info() {
+        for (JavaPackage jp : efferentPackages) {
+            jp.removeAfferentPackage(this);
+        }
+        efferentPackages.clear();
+        bindingOk = false;
+    }
+    
+    /**
+     * Removes a package that depends on classes within this package.
+     * @param jp the afferent package
+     */
+    private synchronized void removeAfferentPackage(JavaPackage jp) {
+        afferentPackages.remove(jp);
+    }
+    
     /**
      * Adds a package that depends on classes within this package.
      * @param jm the afferent package
      */
-    private void addAfferentPackage(JavaPackage jp) {
+    private synchronized void addAfferentPackage(JavaPackage jp) {
         if (!afferentPackages.contains(jp)) {
             afferentPackages.add(jp);
         }
@@ -4,15 +4,19 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.java.internal.ExternalElementRegistry;
 import org.eclipse.jdt.core.IJavaProject;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -25,19 +29,28 @@ public class JavaProject {
     static Logger logger = Logger.getLogger(JavaProject.class.getName());
     
     /**
-     * The cache for all objects of classes.
+     * Returns the cache for all objects of projects, which belongs to the current analysis session.
+     * @return the cache
      */
-    protected static HashMap<String, JavaProject> cache = new HashMap<String, JavaProject>();
+    @SuppressWarnings("unchecked")
+    private static Map<String, JavaProject> getCache() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        Map<String, JavaProject> cache = (Map<String, JavaProject>)session.getState(JavaProject.class);
+        if (cache == null) {
+            cache = (Map<String, JavaProject>)session.addState(JavaProject.class, new ConcurrentHashMap<String, JavaProject>());
+        }
+        return cache;
+    }
     
     /**
      * The collection of all files.
      */
-    protected Map<String, JavaFile> files = new HashMap<String, JavaFile>();
+    protected ConcurrentHashMap<String, JavaFile> files = new ConcurrentHashMap<String, JavaFile>();
     
     /**
      * The collection of all packages.
      */
-    protected HashMap<String, JavaPackage> packages = new HashMap<String, JavaPackage>();
+    protected ConcurrentHashMap<String, JavaPackage> packages = new ConcurrentHashMap<String, JavaPackage>();
     
     /**
      * The information of which stored in this project.
@@ -59,6 +72,26 @@ public class JavaProject {
      */
     protected long lastCreatedTime;
     
+    /**
+     * The class paths used for parsing files in this project outside the workspace.
+     */
+    protected String[] classpaths = new String[0];
+    
+    /**
+     * The collection of classes that were removed since the models were created lastly.
+     */
+    protected Set<JavaClass> removedClasses = new HashSet<JavaClass>();
+    
+    /**
+     * The collection of classes whose binding information must be collected again since classes they depend on were removed.
+     */
+    protected Set<JavaClass> unboundClasses = new HashSet<JavaClass>();
+    
+    /**
+     * The collection of classes that were created or rebound when the models were created lastly.
+     */
+    protected Set<JavaClass> changedClasses = new HashSet<JavaClass>();
+    
     /**
      * Creates a new, empty object.
      */
@@ -107,13 +140,13 @@ public class JavaProject {
      */
     private static JavaProject createJavaProject(IJavaProject project, String name, String dir) {
         if (name != null && dir != null) {
-            JavaProject jproj = cache.get(name);
+            JavaProject jproj = getCache().get(name);
             if (jproj != null) {
                 return jproj;
             }
             
             jproj = new JavaProject(project, name, dir);
-            cache.put(name, jproj);
+            getCache().put(name, jproj);
             return jproj;
         }
         return null;
@@ -125,55 +158,143 @@ public class JavaProject {
      * @return the found object
      */
     public static JavaProject getJavaProject(String name) {
-        return cache.get(name);
+        return getCache().get(name);
     }
     
     /**
-     * Removes a file with a given name and its related files.
+     * Removes a file with a given name and the classes written in it.
+     * The files containing classes that directly depend on the removed classes are also removed, so that they are parsed
+     * again and their bindings never refer to the removed declarations. Classes depending on the classes in these files
+     * are recorded so that only their binding information is collected again.
      * @param pathname the name of the file to be removed
      */
     public void removeJavaFile(String pathname) {
-        for (JavaFile jf : getJavaFiles()) {
-            if (pathname.compareTo(jf.getPath()) == 0) {
-                JavaClass.removeClassesRelatedTo(jf);
+        JavaFile jf = files.get(pathname);
+        if (jf != null) {
+            Set<JavaFile> jfiles = new HashSet<JavaFile>();
+            jfiles.add(jf);
+            for (JavaClass jc : jf.getJavaClasses()) {
+                addJavaFiles(jc.getAfferentJavaClassesInProject(), jfiles);
+                addJavaFiles(jc.getDescendants(), jfiles);
+            }
+            
+            Set<JavaClass> jclasses = new HashSet<JavaClass>();
+            for (JavaFile f : jfiles) {
+                jclasses.addAll(f.getJavaClasses());
+            }
+            for (JavaClass jc : jclasses) {
+                unboundClasses.addAll(jc.getAfferentJavaClassesInProject());
+                unboundClasses.addAll(jc.getDescendants());
             }
+            
+            for (JavaFile f : jfiles) {
+                JavaClass.removeClassesRelatedTo(f);
+                files.remove(f.getPath());
+                logger.debug("remove file: " + f.getPath());
+            }
+            
+            removedClasses.addAll(jclasses);
+            unboundClasses.removeAll(jclasses);
         }
         cleanJavaProjects();
     }
     
+    /**
+     * Collects the files of this project which given classes are written in.
+     * @param jclasses the collection of the classes
+     * @param jfiles the collection that stores the files
+     */
+    private void addJavaFiles(Collection<JavaClass> jclasses, Set<JavaFile> jfiles) {
+        for (JavaClass jc : jclasses) {
+            JavaFile jf = jc.getJavaFile();
+            if (jf != null && equals(jf.getJavaProject())) {
+                jfiles.add(jf);
+            }
+        }
+    }
+    
     /**
      * Cleans empty projects.
      */
     private void cleanJavaProjects() {
-        for (JavaProject jproj : cache.values()) {
+        for (Iterator<JavaProject> it = getCache().values().iterator(); it.hasNext(); ) {
+            JavaProject jproj = it.next();
             if (jproj.getJavaFiles().size() == 0) {
-                cache.remove(jproj.getName());
+                it.remove();
             }
         }
     }
     
     /**
-     * Removes every information about this project stored in the cache.
+     * Returns the classes that were removed since the models were created lastly.
+     * @return the collection of the removed classes
+     */
+    public Set<JavaClass> getRemovedJavaClasses() {
+        return removedClasses;
+    }
+    
+    /**
+     * Returns the classes whose binding information must be collected again.
+     * @return the collection of the classes
+     */
+    public Set<JavaClass> getUnboundJavaClasses() {
+        return unboundClasses;
+    }
+    
+    /**
+     * Returns the classes that were created or rebound when the models were created lastly.
+     * CFGs and PDGs for the methods and fields in these classes must be created again.
+     * @return the collection of the classes
+     */
+    public Set<JavaClass> getChangedJavaClasses() {
+        return changedClasses;
+    }
+    
+    /**
+     * Records the classes that were created or rebound, and forgets the removed and unbound classes.
+     * @param jclasses the collection of the created or rebound classes
+     */
+    void setChangedJavaClasses(Set<JavaClass> jclasses) {
+        changedClasses = jclasses;
+        unboundClasses = new HashSet<JavaClass>();
+    }
+    
+    /**
+     * Forgets the classes that were removed since the models were created lastly.
+     * This method is called after CFGs and PDGs for the removed classes are discarded.
+     */
+    public void clearRemovedJavaClasses() {
+        removedClasses.clear();
+    }
+    
+    /**
+     * Removes every information about the projects stored in the cache of the current analysis session.
+     * The external elements that the session acquired are kept.
+     * @param name the name of the project
      */
     public static void removeCache(String name) {
-        for (JavaProject jproj : cache.values()) {
+        for (JavaProject jproj : getCache().values()) {
             jproj.getJavaPackages().clear();
         }
-        cache.clear();
+        getCache().clear();
         
         JavaClass.removeAllClassesInCache();
+        JavaStringPool.clear();
     }
     
     /**
-     * Removes every information about this project stored in the cache.
+     * Removes every information about the projects stored in the cache of the current analysis session,
+     * and releases the external elements that the session acquired.
      */
     public static void removeAllCache() {
-        for (JavaProject jproj : cache.values()) {
+        for (JavaProject jproj : getCache().values()) {
             jproj.getJavaPackages().clear();
         }
-        cache.clear();
+        getCache().clear();
         
         JavaClass.removeAllClassesInCache();
+        ExternalElementRegistry.releaseAll();
+        JavaStringPool.clear();
     }
     
     /**
@@ -216,14 +337,28 @@ public class JavaProject {
         return topDir;
     }
     
+    /**
+     * Sets the class paths used for parsing files in this project.
+     * @param classpaths the collection of the class paths
+     */
+    public void setClassPaths(String[] classpaths) {
+        this.classpaths = classpaths;
+    }
+    
+    /**
+     * Returns the class paths used for parsing files in this project.
+     * @return the collection of the class paths
+     */
+    public String[] getClassPaths() {
+        return classpaths;
+    }
+    
     /**
      * Adds a file contained in this project.
      * @param jfile the file to be added
      */
     public void addJavaFile(JavaFile jfile) {
-        if (files.get(jfile.getPath()) == null) {
-            files.put(jfile.getPath(), jfile);
-        }
+        files.putIfAbsent(jfile.getPath(), jfile);
     }
     
     /**
@@ -256,13 +391,16 @@ public class JavaProject {
     }
     
     /**
-     * Adds a package contained in this project.
+     * Adds a package contained in this project unless a package with the same name was already added.
      * @param jpackage the package to be added
+     * @return the package contained in this project, which is the already added one if it exists
      */
-    public void addJavaPackage(JavaPackage jpackage) {
-        if (packages.get(jpackage.getName()) == null) {
-            packages.put(jpackage.getName(), jpackage);
+    public JavaPackage addJavaPackage(JavaPackage jpackage) {
+        JavaPackage old = packages.putIfAbsent(jpackage.getName(), jpackage);
+        if (old != null) {
+            return old;
         }
+        return jpackage;
     }
     
     /**
@@ -291,7 +429,26 @@ public class JavaProject {
      * @return the collection of the classes
      */
     public Set<JavaClass> getJavaClasses() {
-        return JavaClass.getAllJavaClassesInCache();
+        Set<JavaClass> jclasses = new HashSet<JavaClass>();
+        for (JavaClass jc : JavaClass.getAllJavaClassesInCache()) {
+            if (jc.getJavaPackage() != null && equals(jc.getJavaPackage().getJavaProject())) {
+                jclasses.add(jc);
+            }
+        }
+        return jclasses;
+    }
+    
+    /**
+     * Releases the AST nodes for all the classes in this project.
+     * The AST nodes are recreated by reparsing the files on demand.
+     */
+    public void releaseASTNodes() {
+        for (JavaClass jc : getJavaClasses()) {
+            JavaFile jf = jc.getJavaFile();
+            if (jf != null && equals(jf.getJavaProject())) {
+                jc.releaseASTNodes();
+            }
+        }
     }
     
     /**
@@ -299,7 +456,7 @@ public class JavaProject {
      * @return the collection of the classes
      */
     public List<JavaClass> getJavaClassesInDictionaryOrder() {
-        return sortClasses(JavaClass.getAllJavaClassesInCache());
+        return sortClasses(getJavaClasses());
     }
     
     /**
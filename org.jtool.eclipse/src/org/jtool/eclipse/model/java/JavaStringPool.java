@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.lang.ref.WeakReference;
+import org.apache.log4j.Logger;
+
+/**
+ * A model-wide pool that shares strings of names, signatures, and types among Java elements.
+ * The pooled strings are weakly referenced, so a string leaves the pool once no Java element in any session refers to it.
+ * Every method is synchronized since the pool is shared by threads collecting binding information.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaStringPool {
+    
+    static Logger logger = Logger.getLogger(JavaStringPool.class.getName());
+    
+    /**
+     * The pooled strings, each of which is weakly referenced from both its key and its value.
+     */
+    private static Map<String, WeakReference<String>> pool = new WeakHashMap<String, WeakReference<String>>();
+    
+    /**
+     * The number of strings that were requested to be interned.
+     */
+    private static long numOfRequests = 0;
+    
+    /**
+     * The number of duplicated strings that were replaced with the pooled ones.
+     */
+    private static long numOfDuplicates = 0;
+    
+    /**
+     * The estimated number of bytes occupied by the replaced duplicates.
+     */
+    private static long savedBytes = 0;
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private JavaStringPool() {
+    }
+    
+    /**
+     * Returns the pooled string equal to a given string. The given string is pooled if no such string exists.
+     * @param str the string to be interned
+     * @return the pooled string, or <code>null</code> if the given string is <code>null</code>
+     */
+    public static synchronized String intern(String str) {
+        if (str == null) {
+            return null;
+        }
+        
+        numOfRequests++;
+        WeakReference<String> ref = pool.get(str);
+        if (ref != null) {
+            String pooled = ref.get();
+            if (pooled != null) {
+                if (pooled != str) {
+                    numOfDuplicates++;
+                    savedBytes = savedBytes + getSize(str);
+                }
+                return pooled;
+            }
+        }
+        
+        pool.put(str, new WeakReference<String>(str));
+        return str;
+    }
+    
+    /**
+     * Estimates the number of bytes occupied by a string, including its character array.
+     * @param str the string
+     * @return the estimated number of bytes
+     */
+    private static long getSize(String str) {
+        long array = 16 + 2 * str.length();
+        return 24 + ((array + 7) / 8) * 8;
+    }
+    
+    /**
+     * Returns the number of the pooled strings that have not been reclaimed yet.
+     * @return the number of the strings
+     */
+    public static synchronized int size() {
+        return pool.size();
+    }
+    
+    /**
+     * Returns the number of duplicated strings that were replaced with the pooled ones.
+     * @return the number of the duplicates
+     */
+    public static synchronized long getNumOfDuplicates() {
+        return numOfDuplicates;
+    }
+    
+    /**
+     * Returns the estimated number of bytes saved by sharing the pooled strings.
+     * @return the number of the saved bytes
+     */
+    public static synchronized long getSavedBytes() {
+        return savedBytes;
+    }
+    
+    /**
+     * Removes all the pooled strings and resets the statistics.
+     */
+    public static synchronized void clear() {
+        pool.clear();
+        numOfRequests = 0;
+        numOfDuplicates = 0;
+        savedBytes = 0;
+    }
+    
+    /**
+     * Displays the statistics on the pooled strings.
+     */
+    public static synchronized void printReport() {
+        logger.debug("string pool: " + pool.size() + " strings / " + numOfRequests + " requests / " +
+                    numOfDuplicates + " duplicates / " + savedBytes + " bytes saved");
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.java.internal.IdSet;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A project-wide symbol table that assigns a dense identification number to every class, method, and field.
+ * A number is assigned when an element or a reference to the element is registered, and a lookup never assigns one.
+ * The references are counted, and the number of a symbol that is neither registered as an element nor referred to
+ * is reclaimed and reused, so that the table does not grow as files are repeatedly changed.
+ * Each analysis session has its own table, which is shared by threads collecting binding information.
+ * The names and the elements are looked up by their identification numbers without locking, since they are stored in
+ * arrays that are replaced when they grow. The other lookups share a read lock, and only the registration and
+ * the release of symbols take the exclusive lock.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaSymbolTable {
+    
+    /**
+     * The contents of a symbol table.
+     * The names are mapped to their identification numbers by an open-addressing hash table with linear probing.
+     */
+    private static class Table {
+        
+        /**
+         * The names stored in the slots of the hash table, or <code>null</code> for empty slots.
+         */
+        String[] keys = new String[16];
+        
+        /**
+         * The identification numbers stored in the slots of the hash table.
+         */
+        int[] values = new int[16];
+        
+        /**
+         * The number of the names stored in the hash table.
+         */
+        int numOfKeys = 0;
+        
+        /**
+         * The lock that allows lookups in parallel and excludes them during the registration and the release.
+         */
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        
+        /**
+         * The names of symbols, indexed by their identification numbers, which are read without locking.
+         */
+        volatile AtomicReferenceArray<String> names = new AtomicReferenceArray<String>(16);
+        
+        /**
+         * Classes, methods, and fields, indexed by their identification numbers, which are read without locking.
+         */
+        volatile AtomicReferenceArray<JavaElement> elements = new AtomicReferenceArray<JavaElement>(16);
+        
+        /**
+         * The numbers of the references to symbols, indexed by their identification numbers.
+         * A registered element is counted as a reference.
+         */
+        int[] counts = new int[16];
+        
+        /**
+         * The upper bound of the identification numbers that were ever assigned.
+         */
+        int size = 0;
+        
+        /**
+         * The reclaimed identification numbers, which are reused before a new number is assigned.
+         */
+        int[] freeIds = new int[16];
+        
+        /**
+         * The number of the reclaimed identification numbers.
+         */
+        int numOfFreeIds = 0;
+        
+        /**
+         * Removes all the symbols and releases the arrays storing them.
+         */
+        void reset() {
+            keys = new String[16];
+            values = new int[16];
+            numOfKeys = 0;
+            names = new AtomicReferenceArray<String>(16);
+            elements = new AtomicReferenceArray<JavaElement>(16);
+            counts = new int[16];
+            size = 0;
+            freeIds = new int[16];
+            numOfFreeIds = 0;
+        }
+        
+        /**
+         * Finds the identification number of a name.
+         * @param name the name
+         * @return the identification number, or <code>-1</code> if the name is not stored
+         */
+        int lookup(String name) {
+            int mask = keys.length - 1;
+            for (int i = hash(name) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (keys[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Obtains the identification number of a name, which is newly assigned if the name is not stored.
+         * @param name the name
+         * @return the identification number
+         */
+        int assign(String name) {
+            int id = lookup(name);
+            if (id != -1) {
+                return id;
+            }
+            
+            if (numOfFreeIds > 0) {
+                numOfFreeIds--;
+                id = freeIds[numOfFreeIds];
+            } else {
+                id = size;
+                size++;
+                if (size > counts.length) {
+                    names = grow(names);
+                    elements = grow(elements);
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+            }
+            
+            String str = JavaStringPool.intern(name);
+            names.set(id, str);
+            elements.set(id, null);
+            counts[id] = 0;
+            
+            if ((numOfKeys + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            put(str, id);
+            numOfKeys++;
+            return id;
+        }
+        
+        /**
+         * Increases the number of the references to a symbol.
+         * @param id the identification number of the symbol
+         */
+        void acquire(int id) {
+            counts[id]++;
+        }
+        
+        /**
+         * Decreases the number of the references to a symbol, and reclaims its identification number if no reference remains.
+         * @param id the identification number of the symbol
+         */
+        void release(int id) {
+            if (0 <= id && id < size && names.get(id) != null && counts[id] > 0) {
+                counts[id]--;
+                if (counts[id] == 0) {
+                    reclaim(id);
+                }
+            }
+        }
+        
+        /**
+         * Removes a symbol and makes its identification number reusable.
+         * @param id the identification number of the symbol
+         */
+        private void reclaim(int id) {
+            remove(names.get(id));
+            names.set(id, null);
+            elements.set(id, null);
+            
+            if (numOfFreeIds == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+            }
+            freeIds[numOfFreeIds] = id;
+            numOfFreeIds++;
+        }
+        
+        /**
+         * Creates an array twice as long as a given array, which has the same contents.
+         * @param array the array
+         * @return the created array
+         */
+        private static <T> AtomicReferenceArray<T> grow(AtomicReferenceArray<T> array) {
+            AtomicReferenceArray<T> result = new AtomicReferenceArray<T>(array.length() * 2);
+            for (int i = 0; i < array.length(); i++) {
+                result.set(i, array.get(i));
+            }
+            return result;
+        }
+        
+        /**
+         * Stores a name into an empty slot of the hash table.
+         * @param name the name
+         * @param id the identification number of the name
+         */
+        private void put(String name, int id) {
+            int mask = keys.length - 1;
+            int i = hash(name) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = name;
+            values[i] = id;
+        }
+        
+        /**
+         * Removes a name from the hash table. The following names in the same cluster are shifted back,
+         * so that no deleted mark is needed.
+         * @param name the name
+         */
+        private void remove(String name) {
+            int mask = keys.length - 1;
+            int i = hash(name) & mask;
+            while (keys[i] != null && !keys[i].equals(name)) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == null) {
+                return;
+            }
+            
+            keys[i] = null;
+            numOfKeys--;
+            for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    keys[j] = null;
+                    i = j;
+                }
+            }
+        }
+        
+        /**
+         * Rebuilds the hash table with a given number of slots.
+         * @param length the number of the slots, which is a power of two
+         */
+        private void resize(int length) {
+            String[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new String[length];
+            values = new int[length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        
+        /**
+         * Calculates the hash value of a name.
+         * @param name the name
+         * @return the hash value
+         */
+        private static int hash(String name) {
+            int h = name.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+    
+    /**
+     * Returns the symbol table that belongs to the current analysis session.
+     * @return the contents of the symbol table
+     */
+    private static Table getTable() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        Table table = (Table)session.getState(JavaSymbolTable.class);
+        if (table == null) {
+            table = (Table)session.addState(JavaSymbolTable.class, new Table());
+        }
+        return table;
+    }
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private JavaSymbolTable() {
+    }
+    
+    /**
+     * Returns the identification number of a symbol. No number is assigned by this method.
+     * @param name the string representing a class, a method, or a field
+     * @return the identification number of the symbol, or <code>-1</code> if the symbol is not registered
+     * @see JavaClass#getString(String)
+     * @see JavaMethod#getString(String, String)
+     * @see JavaField#getString(String, String)
+     */
+    public static int getId(String name) {
+        Table table = getTable();
+        table.lock.readLock().lock();
+        try {
+            return table.lookup(name);
+        } finally {
+            table.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Registers a class, a method, or a field with the symbol table.
+     * An element outside the project is replaced with the one within the project if both have the same name.
+     * @param name the string representing the element
+     * @param elem the element to be registered
+     * @return the identification number of the element
+     */
+    public static int register(String name, JavaElement elem) {
+        Table table = getTable();
+        table.lock.writeLock().lock();
+        try {
+            int id = table.assign(name);
+            JavaElement old = table.elements.get(id);
+            if (old == null) {
+                table.elements.set(id, elem);
+                table.acquire(id);
+            } else if (!isInProject(old) && isInProject(elem)) {
+                table.elements.set(id, elem);
+            }
+            return id;
+        } finally {
+            table.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Registers a reference to a symbol, which might be made before the element of the symbol is created.
+     * The reference is stored into a given collection, and is counted only if the collection does not contain it yet.
+     * @param name the string representing the referred class, method, or field
+     * @param ids the collection storing the identification numbers of the references
+     */
+    public static void register(String name, IdSet ids) {
+        Table table = getTable();
+        table.lock.writeLock().lock();
+        try {
+            int id = table.assign(name);
+            if (ids.add(id)) {
+                table.acquire(id);
+            }
+        } finally {
+            table.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Releases the references stored in a given collection, which is cleared.
+     * The identification number of a symbol is reclaimed when neither its element nor a reference to it remains.
+     * @param ids the collection storing the identification numbers of the references
+     */
+    public static void release(IdSet ids) {
+        Table table = getTable();
+        table.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                table.release(ids.get(i));
+            }
+        } finally {
+            table.lock.writeLock().unlock();
+        }
+        ids.clear();
+    }
+    
+    /**
+     * Removes an element from the symbol table. The identification number remains reserved while the symbol is referred to.
+     * @param id the identification number of the element to be removed
+     */
+    public static void unregister(int id) {
+        Table table = getTable();
+        table.lock.writeLock().lock();
+        try {
+            if (0 <= id && id < table.size && table.elements.get(id) != null) {
+                table.elements.set(id, null);
+                table.release(id);
+            }
+        } finally {
+            table.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the element with a given identification number. No lock is taken.
+     * @param id the identification number of the element
+     * @return the registered element, or <code>null</code> if none
+     */
+    public static JavaElement getJavaElement(int id) {
+        AtomicReferenceArray<JavaElement> elements = getTable().elements;
+        if (0 <= id && id < elements.length()) {
+            return elements.get(id);
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the name of the symbol with a given identification number. No lock is taken.
+     * @param id the identification number of the symbol
+     * @return the string representing the symbol, or <code>null</code> if none
+     */
+    public static String getName(int id) {
+        AtomicReferenceArray<String> names = getTable().names;
+        if (0 <= id && id < names.length()) {
+            return names.get(id);
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the upper bound of the identification numbers, which includes the numbers reclaimed for reuse.
+     * @return the upper bound of the identification numbers
+     */
+    public static int size() {
+        Table table = getTable();
+        table.lock.readLock().lock();
+        try {
+            return table.size;
+        } finally {
+            table.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of symbols stored in the symbol table.
+     * @return the number of the symbols
+     */
+    public static int getNumOfSymbols() {
+        Table table = getTable();
+        table.lock.readLock().lock();
+        try {
+            return table.numOfKeys;
+        } finally {
+            table.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes all the symbols. This method is called when all the classes are removed, and no reference remains.
+     */
+    public static void clear() {
+        Table table = getTable();
+        table.lock.writeLock().lock();
+        try {
+            table.reset();
+        } finally {
+            table.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Tests if a given element exists in the project.
+     * @param elem the element to be checked
+     * @return <code>true</code> if the element is a class, a method, or a field within the project, otherwise <code>false</code>
+     */
+    private static boolean isInProject(JavaElement elem) {
+        if (elem instanceof JavaClass) {
+            return ((JavaClass)elem).isInProject();
+        } else if (elem instanceof JavaMethod) {
+            return ((JavaMethod)elem).isInProject();
+        } else if (elem instanceof JavaField) {
+            return ((JavaField)elem).isInProject();
+        }
+        return false;
+    }
+}
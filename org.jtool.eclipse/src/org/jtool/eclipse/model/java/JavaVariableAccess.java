@@ -91,9 +91,9 @@ public class JavaVariableAccess extends JavaExpression {
         IVariableBinding binding = (IVariableBinding)node.resolveBinding();
         
         if (binding != null) {
-            name = binding.getName();
+            name = JavaStringPool.intern(binding.getName());
             variableId = binding.getVariableId();
-            type = binding.getType().getQualifiedName();
+            type = JavaStringPool.intern(binding.getType().getQualifiedName());
             isField = binding.isField();
             isEnumConstant = binding.isEnumConstant();
             isParameter = binding.isParameter();
@@ -101,10 +101,10 @@ public class JavaVariableAccess extends JavaExpression {
             if (isField || isEnumConstant) {
                 ITypeBinding tbinding = binding.getDeclaringClass();
                 if (tbinding != null) {
-                    classNameOfAccessedField = tbinding.getQualifiedName();
+                    classNameOfAccessedField = JavaStringPool.intern(tbinding.getQualifiedName());
                 } else {
                     JavaField jf = ExternalJavaField.create(binding);
-                    classNameOfAccessedField = jf.getDeclaringJavaClass().getQualifiedName();
+                    classNameOfAccessedField = JavaStringPool.intern(jf.getDeclaringJavaClass().getQualifiedName());
                 }
                 
             }
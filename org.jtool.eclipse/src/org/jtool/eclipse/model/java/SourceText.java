@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+/**
+ * A read-only view of a range of source code. A view shares the characters of the whole source code,
+ * and obtaining a view or a sub-sequence of it never copies the characters.
+ * The characters are copied only when a string is requested.
+ * @author Katsuhisa Maruyama
+ */
+public class SourceText implements CharSequence {
+    
+    /**
+     * The empty source code.
+     */
+    public static final SourceText EMPTY = new SourceText(new char[0]);
+    
+    /**
+     * The characters of the whole source code, which are shared among views.
+     */
+    private final char[] chars;
+    
+    /**
+     * The index of the first character of this view.
+     */
+    private final int offset;
+    
+    /**
+     * The number of the characters of this view.
+     */
+    private final int length;
+    
+    /**
+     * Creates a view of the whole source code.
+     * @param chars the characters of the source code, which must not be changed after this call
+     */
+    public SourceText(char[] chars) {
+        this(chars, 0, chars.length);
+    }
+    
+    /**
+     * Creates a view of a range of source code.
+     * @param chars the characters of the source code, which must not be changed after this call
+     * @param offset the index of the first character of the range
+     * @param length the number of the characters of the range
+     * @throws IndexOutOfBoundsException if the range is out of the source code
+     */
+    public SourceText(char[] chars, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > chars.length) {
+            throw new IndexOutOfBoundsException("offset = " + offset + ", length = " + length);
+        }
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    /**
+     * Creates a view of a range of source code. An empty view is returned if the range is out of the source code.
+     * @param chars the characters of the source code
+     * @param start the index of the first character of the range
+     * @param end the index of the last character of the range
+     * @return the view of the range
+     */
+    static SourceText create(char[] chars, int start, int end) {
+        if (chars == null || start < 0 || end < start - 1 || end >= chars.length) {
+            return EMPTY;
+        }
+        return new SourceText(chars, start, end - start + 1);
+    }
+    
+    /**
+     * Returns the number of the characters of this view.
+     * @return the number of the characters
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Returns a character of this view.
+     * @param index the index of the character in this view
+     * @return the character
+     * @throws IndexOutOfBoundsException if the index is out of this view
+     */
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index = " + index);
+        }
+        return chars[offset + index];
+    }
+    
+    /**
+     * Returns a view of a range of this view without copying the characters.
+     * @param start the index of the first character in this view, inclusive
+     * @param end the index of the last character in this view, exclusive
+     * @return the view of the range
+     * @throws IndexOutOfBoundsException if the range is out of this view
+     */
+    public SourceText subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start = " + start + ", end = " + end);
+        }
+        return new SourceText(chars, offset + start, end - start);
+    }
+    
+    /**
+     * Returns the index of the first character of this view in the whole source code.
+     * @return the index of the character
+     */
+    public int getOffset() {
+        return offset;
+    }
+    
+    /**
+     * Returns the string of this view. The characters are copied into the string.
+     * @return the string of the characters
+     */
+    public String toString() {
+        return new String(chars, offset, length);
+    }
+}
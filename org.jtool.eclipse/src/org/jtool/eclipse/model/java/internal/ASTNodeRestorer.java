@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaElement;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaLocal;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
+import java.util.Map;
+import java.util.HashMap;
+
+/**
+ * Attaches AST nodes of a reparsed compilation unit to the classes, methods, fields, and local variables
+ * whose AST nodes were released. AST nodes are identified by the source positions recorded in the elements.
+ * @author Katsuhisa Maruyama
+ */
+public class ASTNodeRestorer extends ASTVisitor {
+    
+    /**
+     * The AST nodes for classes, keyed by their source positions.
+     */
+    private Map<Long, ASTNode> classNodes = new HashMap<Long, ASTNode>();
+    
+    /**
+     * The AST nodes for methods and initializers, keyed by their source positions.
+     */
+    private Map<Long, ASTNode> methodNodes = new HashMap<Long, ASTNode>();
+    
+    /**
+     * The AST nodes for fields and enum constants, keyed by their source positions.
+     */
+    private Map<Long, ASTNode> fieldNodes = new HashMap<Long, ASTNode>();
+    
+    /**
+     * The AST nodes for local variables and parameters, keyed by their source positions.
+     */
+    private Map<Long, ASTNode> localNodes = new HashMap<Long, ASTNode>();
+    
+    /**
+     * Creates a new object that collects AST nodes within a compilation unit.
+     * @param cu the reparsed compilation unit
+     */
+    public ASTNodeRestorer(CompilationUnit cu) {
+        super();
+        cu.accept(this);
+    }
+    
+    /**
+     * Visits an AST node and stores it if it corresponds to a class, a method, a field, or a local variable.
+     * @param node the AST node
+     * @return always <code>true</code> to visit the children of the node
+     */
+    public boolean preVisit2(ASTNode node) {
+        Long key = getKey(node.getStartPosition(), node.getLength());
+        if (node instanceof AbstractTypeDeclaration || node instanceof AnonymousClassDeclaration) {
+            classNodes.put(key, node);
+        } else if (node instanceof MethodDeclaration || node instanceof Initializer) {
+            methodNodes.put(key, node);
+        } else if (node instanceof EnumConstantDeclaration) {
+            fieldNodes.put(key, node);
+        } else if (node instanceof VariableDeclaration) {
+            if (node.getParent() instanceof FieldDeclaration) {
+                fieldNodes.put(key, node);
+            } else {
+                localNodes.put(key, node);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Attaches the collected AST nodes to a class and its methods and fields.
+     * @param jc the class
+     */
+    public void restore(JavaClass jc) {
+        restore(jc, classNodes);
+        
+        for (JavaMethod jm : jc.getJavaMethods()) {
+            restore(jm, methodNodes);
+            
+            for (JavaLocal jl : jm.getParameters()) {
+                restore(jl, localNodes);
+            }
+            for (JavaLocal jl : jm.getLocalVariables()) {
+                restore(jl, localNodes);
+            }
+        }
+        
+        for (JavaField jf : jc.getJavaFields()) {
+            restore(jf, fieldNodes);
+        }
+    }
+    
+    /**
+     * Attaches an AST node located at the same position as a given element.
+     * @param elem the element
+     * @param nodes the collection of candidate AST nodes
+     */
+    private void restore(JavaElement elem, Map<Long, ASTNode> nodes) {
+        if (elem.getCodeLength() > 0) {
+            ASTNode node = nodes.get(getKey(elem.getStartPosition(), elem.getCodeLength()));
+            if (node != null) {
+                elem.setASTNode(node);
+            }
+        }
+    }
+    
+    /**
+     * Obtains a key that identifies a code fragment.
+     * @param start the start position of the code fragment
+     * @param len the length of the code fragment
+     * @return the key for the code fragment
+     */
+    private static Long getKey(int start, int len) {
+        return Long.valueOf(((long)start << 32) | (len & 0xffffffffL));
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaElement;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.IPackageBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.log4j.Logger;
+
+/**
+ * A process-wide registry that shares the objects of external classes, methods, and fields among analysis sessions.
+ * An external element is identified by its name and the class path entry (a JAR file or a directory) that
+ * provides it, so that library and JDK types are created only once even if several projects or sessions use them.
+ * When a binding does not tell the entry, the entry is found from the packages that the class path entries contain.
+ * Every session that uses an element holds a reference to it, and the element is discarded when no session holds it.
+ * The shared elements are never changed after their creation. Information depending on a project, such as the
+ * classes and methods that refer to an external element, is stored into the session that collected it.
+ * @author Katsuhisa Maruyama
+ */
+public class ExternalElementRegistry {
+    
+    static Logger logger = Logger.getLogger(ExternalElementRegistry.class.getName());
+    
+    /**
+     * The shared elements, keyed by the pairs of a class path entry and a name.
+     */
+    private static Map<String, Entry> entries = new HashMap<String, Entry>();
+    
+    /**
+     * The names of the packages that class path entries contain, keyed by the paths of the entries.
+     */
+    private static ConcurrentHashMap<String, Set<String>> packagesOfEntries = new ConcurrentHashMap<String, Set<String>>();
+    
+    /**
+     * The number of requests for elements that were satisfied by the shared elements created by other sessions.
+     */
+    private static long numOfSharedHits = 0;
+    
+    /**
+     * Returns the state of the registry that belongs to the current analysis session.
+     * @return the state of the registry
+     */
+    private static State getState() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        State state = (State)session.getState(ExternalElementRegistry.class);
+        if (state == null) {
+            state = (State)session.addState(ExternalElementRegistry.class, new State());
+        }
+        return state;
+    }
+    
+    /**
+     * Prohibits creating this object.
+     */
+    private ExternalElementRegistry() {
+    }
+    
+    /**
+     * Sets the class paths whose entries provide elements whose bindings do not tell where they come from.
+     * A factory that parses files outside the workspace sets its class paths.
+     * @param classpaths the collection of the class paths, or <code>null</code> if none
+     */
+    public static void setClassPaths(String[] classpaths) {
+        if (classpaths != null) {
+            getState().classpaths = classpaths.clone();
+        } else {
+            getState().classpaths = new String[0];
+        }
+    }
+    
+    /**
+     * Returns the class path entry that provides an element.
+     * @param binding the binding of the element, or <code>null</code> if no binding is available
+     * @return the path of the package fragment root or the class path entry containing the element,
+     *         or the empty string if no entry contains it
+     */
+    static String getOrigin(IBinding binding) {
+        if (binding != null) {
+            try {
+                IJavaElement elem = binding.getJavaElement();
+                if (elem != null) {
+                    IJavaElement root = elem.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+                    if (root != null && root.getPath() != null) {
+                        return root.getPath().toString();
+                    }
+                }
+            } catch (RuntimeException e) {
+                /* empty */
+            }
+            
+            ITypeBinding tbinding = getTypeBinding(binding);
+            if (tbinding != null) {
+                IPackageBinding pbinding = tbinding.getPackage();
+                if (pbinding != null) {
+                    return getOriginOfPackage(pbinding.getName());
+                }
+            }
+        }
+        return "";
+    }
+    
+    /**
+     * Returns the binding of the class that declares an element, or the binding of the element itself if it is a class.
+     * @param binding the binding of the element
+     * @return the binding of the class, or <code>null</code> if none
+     */
+    private static ITypeBinding getTypeBinding(IBinding binding) {
+        ITypeBinding tbinding = null;
+        if (binding instanceof ITypeBinding) {
+            tbinding = (ITypeBinding)binding;
+        } else if (binding instanceof IMethodBinding) {
+            tbinding = ((IMethodBinding)binding).getDeclaringClass();
+        } else if (binding instanceof IVariableBinding) {
+            tbinding = ((IVariableBinding)binding).getDeclaringClass();
+        }
+        
+        if (tbinding != null && tbinding.isArray()) {
+            tbinding = tbinding.getElementType();
+        }
+        return tbinding;
+    }
+    
+    /**
+     * Returns the class path entry that provides a class.
+     * Since the name of a nested class contains the names of its enclosing classes, every prefix of the name is tried as a package name.
+     * @param fqn the fully-qualified name of the class
+     * @return the path of the class path entry containing the class, or the empty string if no entry contains it
+     */
+    static String getOriginOfClass(String fqn) {
+        for (int index = fqn.lastIndexOf('.'); index > 0; index = fqn.lastIndexOf('.', index - 1)) {
+            String origin = getOriginOfPackage(fqn.substring(0, index));
+            if (origin.length() > 0) {
+                return origin;
+            }
+        }
+        return "";
+    }
+    
+    /**
+     * Returns the first class path entry of the current session that contains a package.
+     * @param name the name of the package
+     * @return the path of the class path entry, or the empty string if no entry contains the package
+     */
+    private static String getOriginOfPackage(String name) {
+        for (String path : getState().classpaths) {
+            if (getPackages(path).contains(name)) {
+                return path;
+            }
+        }
+        return "";
+    }
+    
+    /**
+     * Obtains the names of the packages that a class path entry contains. The names are collected only once for every entry.
+     * @param path the path of the class path entry, which is a JAR file or a directory
+     * @return the collection of the package names
+     */
+    private static Set<String> getPackages(String path) {
+        Set<String> packages = packagesOfEntries.get(path);
+        if (packages == null) {
+            packages = new HashSet<String>();
+            File file = new File(path);
+            if (file.isDirectory()) {
+                collectPackages(file, "", packages);
+            } else if (file.isFile()) {
+                collectPackages(file, packages);
+            }
+            
+            Set<String> old = packagesOfEntries.putIfAbsent(path, packages);
+            if (old != null) {
+                packages = old;
+            }
+        }
+        return packages;
+    }
+    
+    /**
+     * Collects the names of the packages that contain class files within a JAR file.
+     * @param file the JAR file
+     * @param packages the collection of the package names
+     */
+    private static void collectPackages(File file, Set<String> packages) {
+        ZipFile zip = null;
+        try {
+            zip = new ZipFile(file);
+            for (Enumeration<? extends ZipEntry> en = zip.entries(); en.hasMoreElements(); ) {
+                String name = en.nextElement().getName();
+                int index = name.lastIndexOf('/');
+                if (name.endsWith(".class") && index > 0) {
+                    packages.add(name.substring(0, index).replace('/', '.'));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("IOException occurred: " + e.getMessage());
+        } finally {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException e) {
+                    /* empty */
+                }
+            }
+        }
+    }
+    
+    /**
+     * Collects the names of the packages that contain class files within a directory.
+     * @param dir the directory
+     * @param name the name of the package corresponding to the directory
+     * @param packages the collection of the package names
+     */
+    private static void collectPackages(File dir, String name, Set<String> packages) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectPackages(file, name.length() > 0 ? name + "." + file.getName() : file.getName(), packages);
+            } else if (name.length() > 0 && file.getName().endsWith(".class")) {
+                packages.add(name);
+            }
+        }
+    }
+    
+    /**
+     * Returns an element held by the current session. This method never blocks.
+     * @param key the string representing the element
+     * @return the found element, or <code>null</code> if the session does not hold the element
+     * @see JavaClass#getString(String)
+     * @see JavaMethod#getString(String, String)
+     * @see JavaField#getString(String, String)
+     */
+    static JavaElement get(String key) {
+        return getState().elements.get(key);
+    }
+    
+    /**
+     * Obtains a shared element and makes the current session hold it.
+     * @param origin the class path entry that provides the element
+     * @param key the string representing the element
+     * @return the shared element, or <code>null</code> if no session holds the element
+     */
+    static synchronized JavaElement acquire(String origin, String key) {
+        State state = getState();
+        JavaElement elem = state.elements.get(key);
+        if (elem != null) {
+            return elem;
+        }
+        
+        Entry entry = entries.get(getId(origin, key));
+        if (entry == null) {
+            return null;
+        }
+        
+        entry.refs++;
+        numOfSharedHits++;
+        hold(state, origin, key, entry.element);
+        return entry.element;
+    }
+    
+    /**
+     * Registers a newly created element and makes the current session hold it.
+     * If an element with the same name was registered while the given one was being created, the registered one is used.
+     * @param origin the class path entry that provides the element
+     * @param key the string representing the element
+     * @param elem the created element
+     * @return the shared element
+     */
+    static synchronized JavaElement register(String origin, String key, JavaElement elem) {
+        State state = getState();
+        JavaElement held = state.elements.get(key);
+        if (held != null) {
+            return held;
+        }
+        
+        String id = getId(origin, key);
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = new Entry(elem);
+            entries.put(id, entry);
+        } else {
+            entry.refs++;
+        }
+        
+        hold(state, origin, key, entry.element);
+        return entry.element;
+    }
+    
+    /**
+     * Makes a session hold an element.
+     * @param state the state of the session
+     * @param origin the class path entry that provides the element
+     * @param key the string representing the element
+     * @param elem the element
+     */
+    private static void hold(State state, String origin, String key, JavaElement elem) {
+        state.ids.add(getId(origin, key));
+        state.elements.put(key, elem);
+    }
+    
+    /**
+     * Releases all the elements held by the current session. Elements that no session holds are discarded.
+     */
+    public static synchronized void releaseAll() {
+        State state = getState();
+        for (String id : state.ids) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                entry.refs--;
+                if (entry.refs <= 0) {
+                    entries.remove(id);
+                }
+            }
+        }
+        
+        state.ids.clear();
+        state.elements.clear();
+        state.references.clear();
+    }
+    
+    /**
+     * Returns the identifier of an element in the registry.
+     * @param origin the class path entry that provides the element
+     * @param key the string representing the element
+     * @return the identifier of the element
+     */
+    private static String getId(String origin, String key) {
+        return origin + "!" + key;
+    }
+    
+    /**
+     * Returns the information depending on the current session on an external element.
+     * @param elem the external element
+     * @return the information on the element
+     */
+    static References getReferences(JavaElement elem) {
+        ConcurrentHashMap<JavaElement, References> references = getState().references;
+        References refs = references.get(elem);
+        if (refs == null) {
+            refs = new References();
+            References old = references.putIfAbsent(elem, refs);
+            if (old != null) {
+                refs = old;
+            }
+        }
+        return refs;
+    }
+    
+    /**
+     * Returns the number of the elements shared in this virtual machine.
+     * @return the number of the shared elements
+     */
+    public static synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Displays the statistics of the registry.
+     */
+    public static synchronized void printReport() {
+        logger.info("external elements = " + entries.size() + " / shared hits = " + numOfSharedHits);
+    }
+    
+    /**
+     * A shared element with the number of sessions holding it.
+     */
+    private static class Entry {
+        
+        /**
+         * The shared element.
+         */
+        JavaElement element;
+        
+        /**
+         * The number of sessions holding the element.
+         */
+        int refs = 1;
+        
+        /**
+         * Creates an entry for a shared element.
+         * @param elem the shared element
+         */
+        Entry(JavaElement elem) {
+            this.element = elem;
+        }
+    }
+    
+    /**
+     * The state of the registry for an analysis session.
+     */
+    private static class State {
+        
+        /**
+         * The class paths whose entries provide elements whose bindings do not tell where they come from.
+         */
+        volatile String[] classpaths = new String[0];
+        
+        /**
+         * The identifiers of the elements held by the session.
+         */
+        Set<String> ids = new HashSet<String>();
+        
+        /**
+         * The elements held by the session, keyed by the strings representing them.
+         */
+        ConcurrentHashMap<String, JavaElement> elements = new ConcurrentHashMap<String, JavaElement>();
+        
+        /**
+         * The information depending on the session on the held elements.
+         */
+        ConcurrentHashMap<JavaElement, References> references = new ConcurrentHashMap<JavaElement, References>();
+    }
+    
+    /**
+     * Information on the classes, methods, and fields within a project that refer to an external element.
+     */
+    static class References {
+        
+        /**
+         * The classes that depend on an external class.
+         */
+        Set<JavaClass> afferentClasses = new HashSet<JavaClass>();
+        
+        /**
+         * The methods that call an external method or access an external field.
+         */
+        Set<JavaMethod> callingMethods = new HashSet<JavaMethod>();
+        
+        /**
+         * The fields that call an external method or access an external field.
+         */
+        Set<JavaField> accessingFields = new HashSet<JavaField>();
+    }
+}
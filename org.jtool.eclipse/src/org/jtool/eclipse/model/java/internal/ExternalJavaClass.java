@@ -5,10 +5,11 @@
 package org.jtool.eclipse.model.java.internal;
 
 import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaStringPool;
+import org.jtool.eclipse.model.java.JavaSymbolTable;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
 
 /**
  * An object representing a class whose source code exists outside the project.
@@ -17,9 +18,14 @@ import java.util.HashMap;
 public class ExternalJavaClass extends JavaClass {
     
     /**
-     * The cache for all external classes.
+     * The string representing this class, which identifies it in the symbol table of every session.
      */
-    protected static Map<String, ExternalJavaClass> cache = new HashMap<String, ExternalJavaClass>();
+    private String key;
+    
+    /**
+     * The class path entry that provides this class.
+     */
+    private String origin;
     
     /**
      * Creates a new, empty object.
@@ -36,14 +42,14 @@ public class ExternalJavaClass extends JavaClass {
     protected ExternalJavaClass(String fqn, ITypeBinding binding) {
         super();
         
-        this.fqn = fqn;
+        this.fqn = JavaStringPool.intern(fqn);
         if (binding != null) {
-            name = binding.getName();
+            name = JavaStringPool.intern(binding.getName());
             modifiers = binding.getModifiers();
             isInterface = binding.isInterface();
             isEnum = binding.isEnum();
         } else {
-            name = fqn;
+            name = JavaStringPool.intern(fqn);
         }
     }
     
@@ -79,17 +85,47 @@ public class ExternalJavaClass extends JavaClass {
      * @return the created object
      */
     public static ExternalJavaClass create(String fqn, ITypeBinding binding) {
-        ExternalJavaClass jclass = cache.get(JavaClass.getString(fqn));
+        String key = JavaClass.getString(fqn);
+        ExternalJavaClass jclass = (ExternalJavaClass)ExternalElementRegistry.get(key);
         if (jclass != null) {
             return jclass;
         }
         
-        jclass = new ExternalJavaClass(fqn, binding);
-        cache.put(JavaClass.getString(fqn), jclass);
-        
+        String origin;
+        if (binding != null) {
+            origin = ExternalElementRegistry.getOrigin(binding);
+        } else {
+            origin = ExternalElementRegistry.getOriginOfClass(fqn);
+        }
+        jclass = (ExternalJavaClass)ExternalElementRegistry.acquire(origin, key);
+        if (jclass == null) {
+            ExternalJavaClass elem = new ExternalJavaClass(fqn, binding);
+            elem.key = key;
+            elem.origin = origin;
+            jclass = (ExternalJavaClass)ExternalElementRegistry.register(origin, key, elem);
+        }
+        JavaSymbolTable.register(key, jclass);
         return jclass;
     }
     
+    /**
+     * Makes the current session hold a class that declares a method or a field acquired by the session.
+     * The shared method or field refers to the class created by another session, so the session must hold
+     * that very class to find it in its symbol table and to keep it shared after the other session releases it.
+     * @param jc the class declaring the method or the field
+     */
+    static void hold(JavaClass jc) {
+        if (!(jc instanceof ExternalJavaClass)) {
+            return;
+        }
+        
+        ExternalJavaClass jclass = (ExternalJavaClass)jc;
+        if (jclass.key != null && ExternalElementRegistry.get(jclass.key) == null) {
+            ExternalElementRegistry.register(jclass.origin, jclass.key, jclass);
+            JavaSymbolTable.register(jclass.key, jclass);
+        }
+    }
+    
     /**
      * Returns the name of the array that is a special in Java.
      * @return the name of the array
@@ -98,6 +134,25 @@ public class ExternalJavaClass extends JavaClass {
         return ".JavaArray";
     }
     
+    /**
+     * Returns the identification number of this class in the symbol table of the current session.
+     * @return the identification number
+     */
+    public int getSymbolId() {
+        if (key == null) {
+            return symbolId;
+        }
+        return JavaSymbolTable.getId(key);
+    }
+    
+    /**
+     * Returns the collection storing the classes that depend on this class, which belongs to the current session.
+     * @return the collection of the afferent classes
+     */
+    protected Set<JavaClass> getAfferentClassSet() {
+        return ExternalElementRegistry.getReferences(this).afferentClasses;
+    }
+    
     /**
      * Tests if this class exists in the project.
      * @return always <code>false</code>
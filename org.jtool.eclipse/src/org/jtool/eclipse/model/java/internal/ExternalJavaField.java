@@ -6,9 +6,11 @@ package org.jtool.eclipse.model.java.internal;
 
 import org.jtool.eclipse.model.java.JavaClass;
 import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaStringPool;
+import org.jtool.eclipse.model.java.JavaSymbolTable;
 import org.eclipse.jdt.core.dom.IVariableBinding;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
 
 /**
  * An object representing a field whose source code exists outside the project.
@@ -17,9 +19,9 @@ import java.util.HashMap;
 public class ExternalJavaField extends JavaField {
     
     /**
-     * The cache for all external fields.
+     * The string representing this field, which identifies it in the symbol table of every session.
      */
-    protected static Map<String, ExternalJavaField> cache = new HashMap<String, ExternalJavaField>();
+    private String key;
     
     /**
      * Creates a new, empty object.
@@ -36,7 +38,7 @@ public class ExternalJavaField extends JavaField {
     protected ExternalJavaField(String fqn, String name) {
         super();
         
-        this.name = fqn + "#" + name;
+        this.name = JavaStringPool.intern(fqn + "#" + name);
         this.type = null;
         declaringClass = ExternalJavaClass.create(fqn, null);
     }
@@ -49,8 +51,8 @@ public class ExternalJavaField extends JavaField {
         super();
         
         if (binding != null) {
-            name = binding.getName();
-            type = JavaClass.createClassName(binding.getType());
+            name = JavaStringPool.intern(binding.getName());
+            type = JavaStringPool.intern(JavaClass.createClassName(binding.getType()));
             modifiers = binding.getModifiers();
             isEnumConstant = false;
             
@@ -72,13 +74,21 @@ public class ExternalJavaField extends JavaField {
         }
         String name = binding.getName();
         
-        ExternalJavaField jfield = cache.get(JavaField.getString(fqn, name));
+        String key = JavaField.getString(fqn, name);
+        ExternalJavaField jfield = (ExternalJavaField)ExternalElementRegistry.get(key);
         if (jfield != null) {
             return jfield;
         }
         
-        jfield = new ExternalJavaField(binding);
-        cache.put(JavaField.getString(fqn, name), jfield);
+        String origin = ExternalElementRegistry.getOrigin(binding);
+        jfield = (ExternalJavaField)ExternalElementRegistry.acquire(origin, key);
+        if (jfield == null) {
+            ExternalJavaField elem = new ExternalJavaField(binding);
+            elem.key = key;
+            jfield = (ExternalJavaField)ExternalElementRegistry.register(origin, key, elem);
+        }
+        JavaSymbolTable.register(key, jfield);
+        ExternalJavaClass.hold(jfield.getDeclaringJavaClass());
         return jfield;
     }
     
@@ -88,16 +98,51 @@ public class ExternalJavaField extends JavaField {
      * @param name the name of this field
      */
     public static ExternalJavaField create(String fqn, String name) {
-        ExternalJavaField jfield = cache.get(JavaField.getString(fqn, name));
+        String key = JavaField.getString(fqn, name);
+        ExternalJavaField jfield = (ExternalJavaField)ExternalElementRegistry.get(key);
         if (jfield != null) {
             return jfield;
         }
         
-        jfield = new ExternalJavaField(fqn, name);
-        cache.put(JavaField.getString(fqn, name), jfield);
+        String origin = ExternalElementRegistry.getOriginOfClass(fqn);
+        jfield = (ExternalJavaField)ExternalElementRegistry.acquire(origin, key);
+        if (jfield == null) {
+            ExternalJavaField elem = new ExternalJavaField(fqn, name);
+            elem.key = key;
+            jfield = (ExternalJavaField)ExternalElementRegistry.register(origin, key, elem);
+        }
+        JavaSymbolTable.register(key, jfield);
+        ExternalJavaClass.hold(jfield.getDeclaringJavaClass());
         return jfield;
     }
     
+    /**
+     * Returns the identification number of this field in the symbol table of the current session.
+     * @return the identification number
+     */
+    public int getSymbolId() {
+        if (key == null) {
+            return symbolId;
+        }
+        return JavaSymbolTable.getId(key);
+    }
+    
+    /**
+     * Returns the collection storing the methods that access this field, which belongs to the current session.
+     * @return the collection of the accessing methods
+     */
+    protected Set<JavaMethod> getAccessingMethodSet() {
+        return ExternalElementRegistry.getReferences(this).callingMethods;
+    }
+    
+    /**
+     * Returns the collection storing the fields that access this field, which belongs to the current session.
+     * @return the collection of the accessing fields
+     */
+    protected Set<JavaField> getAccessingFieldSet() {
+        return ExternalElementRegistry.getReferences(this).accessingFields;
+    }
+    
     /**
      * Tests if this field exists in the project.
      * @return always <code>false</code>
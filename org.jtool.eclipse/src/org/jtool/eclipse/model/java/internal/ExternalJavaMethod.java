@@ -6,10 +6,12 @@ package org.jtool.eclipse.model.java.internal;
 
 import org.jtool.eclipse.model.java.JavaClass;
 import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaStringPool;
+import org.jtool.eclipse.model.java.JavaSymbolTable;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
 
 /**
  * An object representing a method or a constructor whose source code exists outside the project.
@@ -18,9 +20,9 @@ import java.util.HashMap;
 public class ExternalJavaMethod extends JavaMethod {
     
     /**
-     * The cache for all external methods.
+     * The string representing this method, which identifies it in the symbol table of every session.
      */
-    protected static Map<String, ExternalJavaMethod> cache = new HashMap<String, ExternalJavaMethod>();
+    private String key;
     
     /**
      * Creates a new, empty object.
@@ -37,8 +39,8 @@ public class ExternalJavaMethod extends JavaMethod {
     protected ExternalJavaMethod(String fqn, String sig) {
         super();
         
-        this.name = fqn + "#" + sig;
-        this.signature = sig;
+        this.name = JavaStringPool.intern(fqn + "#" + sig);
+        this.signature = JavaStringPool.intern(sig);
         this.type = null;
         declaringClass = ExternalJavaClass.create(fqn, null);
     }
@@ -51,14 +53,14 @@ public class ExternalJavaMethod extends JavaMethod {
         super();
         
         if (binding != null) {
-            name = binding.getName();
-            signature = getSignature(binding);
-            type = binding.getReturnType().getQualifiedName();
+            name = JavaStringPool.intern(binding.getName());
+            signature = JavaStringPool.intern(getSignature(binding));
+            type = JavaStringPool.intern(binding.getReturnType().getQualifiedName());
             modifiers = binding.getModifiers();
             isConstructor = binding.isConstructor();
             isInitializer = false;
             for (ITypeBinding tbinding : binding.getExceptionTypes()) {
-                exceptionNames.add(tbinding.getQualifiedName());
+                exceptionNames.add(JavaStringPool.intern(tbinding.getQualifiedName()));
             }
             
             declaringClass = ExternalJavaClass.create(binding.getDeclaringClass());
@@ -79,13 +81,21 @@ public class ExternalJavaMethod extends JavaMethod {
         }
         String sig = getSignatureString(binding);
         
-        ExternalJavaMethod jmethod = cache.get(JavaMethod.getString(fqn, sig));
+        String key = JavaMethod.getString(fqn, sig);
+        ExternalJavaMethod jmethod = (ExternalJavaMethod)ExternalElementRegistry.get(key);
         if (jmethod != null) {
             return jmethod;
         }
         
-        jmethod = new ExternalJavaMethod(binding);
-        cache.put(JavaMethod.getString(fqn, sig), jmethod);
+        String origin = ExternalElementRegistry.getOrigin(binding);
+        jmethod = (ExternalJavaMethod)ExternalElementRegistry.acquire(origin, key);
+        if (jmethod == null) {
+            ExternalJavaMethod elem = new ExternalJavaMethod(binding);
+            elem.key = key;
+            jmethod = (ExternalJavaMethod)ExternalElementRegistry.register(origin, key, elem);
+        }
+        JavaSymbolTable.register(key, jmethod);
+        ExternalJavaClass.hold(jmethod.getDeclaringJavaClass());
         return jmethod;
     }
     
@@ -96,16 +106,51 @@ public class ExternalJavaMethod extends JavaMethod {
      * @return the created object
      */
     public static ExternalJavaMethod create(String fqn, String sig) {
-        ExternalJavaMethod jmethod = cache.get(JavaMethod.getString(fqn, sig));
+        String key = JavaMethod.getString(fqn, sig);
+        ExternalJavaMethod jmethod = (ExternalJavaMethod)ExternalElementRegistry.get(key);
         if (jmethod != null) {
             return jmethod;
         }
         
-        jmethod = new ExternalJavaMethod(fqn, sig);
-        cache.put(JavaMethod.getString(fqn, sig), jmethod);
+        String origin = ExternalElementRegistry.getOriginOfClass(fqn);
+        jmethod = (ExternalJavaMethod)ExternalElementRegistry.acquire(origin, key);
+        if (jmethod == null) {
+            ExternalJavaMethod elem = new ExternalJavaMethod(fqn, sig);
+            elem.key = key;
+            jmethod = (ExternalJavaMethod)ExternalElementRegistry.register(origin, key, elem);
+        }
+        JavaSymbolTable.register(key, jmethod);
+        ExternalJavaClass.hold(jmethod.getDeclaringJavaClass());
         return jmethod;
     }
     
+    /**
+     * Returns the identification number of this method in the symbol table of the current session.
+     * @return the identification number
+     */
+    public int getSymbolId() {
+        if (key == null) {
+            return symbolId;
+        }
+        return JavaSymbolTable.getId(key);
+    }
+    
+    /**
+     * Returns the collection storing the methods that call this method, which belongs to the current session.
+     * @return the collection of the calling methods
+     */
+    protected Set<JavaMethod> getCallingMethodSet() {
+        return ExternalElementRegistry.getReferences(this).callingMethods;
+    }
+    
+    /**
+     * Returns the collection storing the fields that call this method, which belongs to the current session.
+     * @return the collection of the accessing fields
+     */
+    protected Set<JavaField> getAccessingFieldSet() {
+        return ExternalElementRegistry.getReferences(this).accessingFields;
+    }
+    
     /**
      * Tests if this method exists in the project.
      * @return always <code>false</code>
@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Javadoc;
+import org.eclipse.jdt.core.dom.SimplePropertyDescriptor;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+import java.util.List;
+import java.util.Collection;
+
+/**
+ * Visits a Java program and calculates a structural hash value of its AST.
+ * The hash value depends only on the types of AST nodes and their simple properties such as identifiers, literals,
+ * operators, and modifiers. Source positions, whitespace, and comments do not affect the hash value.
+ * @author Katsuhisa Maruyama
+ */
+public class FingerprintCollector extends ASTVisitor {
+    
+    /**
+     * The offset basis of the 64-bit FNV-1a hash function.
+     */
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    
+    /**
+     * The prime of the 64-bit FNV-1a hash function.
+     */
+    private static final long PRIME = 0x100000001b3L;
+    
+    /**
+     * The calculated hash value.
+     */
+    private long hash = OFFSET_BASIS;
+    
+    /**
+     * Creates a new object for calculating a structural hash value.
+     */
+    public FingerprintCollector() {
+        super(false);
+    }
+    
+    /**
+     * Calculates the structural hash value of a given AST node and its descendants.
+     * @param node the AST node
+     * @return the hash value
+     */
+    public static long getHash(ASTNode node) {
+        FingerprintCollector visitor = new FingerprintCollector();
+        if (node != null) {
+            node.accept(visitor);
+        }
+        return visitor.getHash();
+    }
+    
+    /**
+     * Calculates a hash value that combines given strings regardless of their order.
+     * @param hash the base hash value
+     * @param strs the collection of the strings
+     * @return the combined hash value
+     */
+    public static long getHash(long hash, Collection<String> strs) {
+        long sum = 0;
+        for (String str : strs) {
+            sum = sum + mix(OFFSET_BASIS, str);
+        }
+        return mix(mix(hash, strs.size()), sum);
+    }
+    
+    /**
+     * Visits an AST node and mixes its type and simple properties into the hash value.
+     * @param node the AST node
+     * @return <code>false</code> for Javadoc comments, otherwise <code>true</code>
+     */
+    public boolean preVisit2(ASTNode node) {
+        if (node instanceof Javadoc) {
+            return false;
+        }
+        
+        hash = mix(hash, node.getNodeType());
+        for (Object obj : (List<?>)node.structuralPropertiesForType()) {
+            StructuralPropertyDescriptor desc = (StructuralPropertyDescriptor)obj;
+            if (desc instanceof SimplePropertyDescriptor) {
+                Object value = node.getStructuralProperty(desc);
+                if (value != null) {
+                    hash = mix(hash, value.toString());
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Visits the end of an AST node and records it so that the tree structure affects the hash value.
+     * @param node the AST node
+     */
+    public void postVisit(ASTNode node) {
+        if (!(node instanceof Javadoc)) {
+            hash = mix(hash, -node.getNodeType());
+        }
+    }
+    
+    /**
+     * Returns the calculated hash value.
+     * @return the hash value
+     */
+    public long getHash() {
+        return hash;
+    }
+    
+    /**
+     * Mixes a string into a hash value.
+     * @param hash the hash value
+     * @param str the string to be mixed
+     * @return the mixed hash value
+     */
+    private static long mix(long hash, String str) {
+        for (int i = 0; i < str.length(); i++) {
+            hash = (hash ^ str.charAt(i)) * PRIME;
+        }
+        return (hash ^ 0xff) * PRIME;
+    }
+    
+    /**
+     * Mixes a number into a hash value.
+     * @param hash the hash value
+     * @param num the number to be mixed
+     * @return the mixed hash value
+     */
+    private static long mix(long hash, long num) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (num & 0xff)) * PRIME;
+            num = num >>> 8;
+        }
+        return hash;
+    }
+}
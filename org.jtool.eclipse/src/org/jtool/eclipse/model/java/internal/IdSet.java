@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import java.util.Arrays;
+
+/**
+ * A set of identification numbers in the symbol table, which are stored in primitive arrays without boxing.
+ * The numbers are kept in the order of their addition, and an open-addressing hash table finds a number in constant time.
+ * @author Katsuhisa Maruyama
+ */
+public class IdSet {
+    
+    /**
+     * The value of an empty slot in the hash table.
+     */
+    private static final int EMPTY = -1;
+    
+    /**
+     * The empty array shared by sets without numbers.
+     */
+    private static final int[] NO_IDS = new int[0];
+    
+    /**
+     * The number of stored numbers below which the numbers are found by a linear scan without the hash table.
+     */
+    private static final int SMALL_SIZE = 8;
+    
+    /**
+     * The stored numbers in the order of their addition, followed by unused room.
+     */
+    private int[] ids = NO_IDS;
+    
+    /**
+     * The number of the stored numbers.
+     */
+    private int size = 0;
+    
+    /**
+     * The hash table of the stored numbers, whose length is a power of two, or an empty array if it is not needed yet.
+     */
+    private int[] table = NO_IDS;
+    
+    /**
+     * Creates a new, empty set.
+     */
+    public IdSet() {
+        super();
+    }
+    
+    /**
+     * Adds an identification number to this set.
+     * @param id the identification number, which must not be negative
+     * @return <code>true</code> if this set changed, otherwise <code>false</code>
+     */
+    public boolean add(int id) {
+        if (id < 0 || contains(id)) {
+            return false;
+        }
+        
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+        }
+        ids[size] = id;
+        size++;
+        
+        if (size > SMALL_SIZE) {
+            if (size * 2 > table.length) {
+                rehash();
+            } else {
+                insert(table, id);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Tests if this set contains an identification number.
+     * @param id the identification number
+     * @return <code>true</code> if the number is stored, otherwise <code>false</code>
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        
+        if (size <= SMALL_SIZE) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        int mask = table.length - 1;
+        for (int i = hash(id) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns an identification number stored in this set.
+     * @param index the index of the number in the order of addition
+     * @return the identification number
+     * @throws IndexOutOfBoundsException if the index is out of this set
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index = " + index);
+        }
+        return ids[index];
+    }
+    
+    /**
+     * Returns the number of the identification numbers stored in this set.
+     * @return the number of the stored numbers
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Tests if this set contains no identification number.
+     * @return <code>true</code> if this set is empty, otherwise <code>false</code>
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Removes all the identification numbers from this set.
+     */
+    public void clear() {
+        ids = NO_IDS;
+        table = NO_IDS;
+        size = 0;
+    }
+    
+    /**
+     * Rebuilds the hash table with room for twice the stored numbers.
+     */
+    private void rehash() {
+        int length = Integer.highestOneBit(size * 4 - 1) << 1;
+        int[] newTable = new int[length];
+        Arrays.fill(newTable, EMPTY);
+        for (int i = 0; i < size; i++) {
+            insert(newTable, ids[i]);
+        }
+        table = newTable;
+    }
+    
+    /**
+     * Inserts an identification number into a hash table.
+     * @param tab the hash table
+     * @param id the identification number
+     */
+    private static void insert(int[] tab, int id) {
+        int mask = tab.length - 1;
+        int i = hash(id) & mask;
+        while (tab[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        tab[i] = id;
+    }
+    
+    /**
+     * Scrambles an identification number, since dense numbers would otherwise gather in adjacent slots.
+     * @param id the identification number
+     * @return the hash value
+     */
+    private static int hash(int id) {
+        int h = id * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -6,6 +6,8 @@ package org.jtool.eclipse.model.java.internal;
 
 import org.jtool.eclipse.io.DetectCharset;
 import org.jtool.eclipse.io.FileReader;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.dom.AST;
@@ -15,6 +17,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -27,6 +30,11 @@ public class JavaParser {
     
     static Logger logger = Logger.getLogger(JavaParser.class.getName());
     
+    /**
+     * The name of the property of a compilation unit that stores the characters of its source code.
+     */
+    public static final String SOURCE_PROPERTY = "org.jtool.eclipse.source";
+    
     /**
      * A Java language parser embedded in Eclipse.
      */
@@ -59,7 +67,7 @@ public class JavaParser {
         
         parser.setSource(icu);
         
-        CompilationUnit cu = (CompilationUnit)parser.createAST(null);
+        CompilationUnit cu = createAST(icu.getPath().toString());
         // cu.recordModifications();
         
         return cu;
@@ -74,35 +82,54 @@ public class JavaParser {
      */
     public CompilationUnit parse(File file, String[] classpaths, String[] sourcepaths) {
         try {
-            String contents = FileReader.read(file);
-            String encoding = DetectCharset.getCharsetName(contents.getBytes());
-            
-            if (contents != null) {
-                String name = file.getAbsoluteFile().getName();
-                String[] encodings;
-                if (encoding == null) {
-                    encodings = new String[]{ "UTF-8" };
-                } else {
-                    encodings = new String[]{ encoding };
-                }
-                
-                parser.setResolveBindings(true);
-                parser.setStatementsRecovery(true);
-                parser.setBindingsRecovery(true);
-                parser.setKind(ASTParser.K_COMPILATION_UNIT);
-                
-                parser.setUnitName(name);
-                parser.setEnvironment(classpaths, sourcepaths, encodings, true);
-                parser.setSource(contents.toCharArray());
-                
-                CompilationUnit cu = (CompilationUnit)parser.createAST(null);
-                // cu.recordModifications();
-                
-                return cu;
+            PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.read, file.getPath());
+            String encoding;
+            char[] contents;
+            try {
+                ByteBuffer bytes = FileReader.readBytes(file);
+                encoding = DetectCharset.getCharsetName(bytes);
+                contents = FileReader.decode(bytes, encoding);
+            } finally {
+                timer.stop();
             }
+            PhaseMetrics.count(Phase.read, "files", 1);
+            PhaseMetrics.count(Phase.read, "chars", contents.length);
+            
+            String name = file.getAbsoluteFile().getName();
+            String[] encodings = new String[]{ encoding };
+            
+            parser.setResolveBindings(true);
+            parser.setStatementsRecovery(true);
+            parser.setBindingsRecovery(true);
+            parser.setKind(ASTParser.K_COMPILATION_UNIT);
+            
+            parser.setUnitName(name);
+            parser.setEnvironment(classpaths, sourcepaths, encodings, true);
+            parser.setSource(contents);
+            
+            CompilationUnit cu = createAST(file.getPath());
+            // cu.recordModifications();
+            
+            cu.setProperty(SOURCE_PROPERTY, contents);
+            return cu;
         } catch (FileNotFoundException e) {
         } catch (IOException e) {
         }
         return null;
     }
+    
+    /**
+     * Creates an AST from the source set to the parser.
+     * @param name the name of the parsed file
+     * @return the root node of the created AST
+     */
+    private CompilationUnit createAST(String name) {
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.parse, name);
+        try {
+            return (CompilationUnit)parser.createAST(null);
+        } finally {
+            timer.stop();
+            PhaseMetrics.count(Phase.parse, "files", 1);
+        }
+    }
 }
@@ -0,0 +1,282 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.apache.log4j.Logger;
+
+/**
+ * A pipeline that overlaps reading and parsing of source files with the creation of models from their ASTs.
+ * Parser threads, each of which has its own Java parser, put parsed compilation units into a bounded queue,
+ * and the calling thread takes them from the queue and visits them one by one. The bound of the queue limits
+ * the number of ASTs waiting for the visit, so that fast parsers never exhaust the memory.
+ * Sources can be given as a collection or added one by one while the pipeline is running.
+ * @author Katsuhisa Maruyama
+ */
+public abstract class ParsePipeline<T> {
+    
+    static Logger logger = Logger.getLogger(ParsePipeline.class.getName());
+    
+    /**
+     * The default number of parsed compilation units that can wait for the visit.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+    
+    /**
+     * The analysis session in which the parser threads run.
+     */
+    private AnalysisSession session = AnalysisSession.getCurrent();
+    
+    /**
+     * The number of parser threads.
+     */
+    private int numOfThreads;
+    
+    /**
+     * The queue storing parsed compilation units.
+     */
+    private BlockingQueue<Parsed<T>> queue;
+    
+    /**
+     * The sources that have not been parsed yet, which are shared by the parser threads.
+     */
+    private BlockingQueue<Object> sources = new LinkedBlockingQueue<Object>();
+    
+    /**
+     * The marker put after the last source.
+     */
+    private static final Object END = new Object();
+    
+    /**
+     * The marker that a parser thread puts into the queue when it finishes.
+     */
+    private final Parsed<T> done = new Parsed<T>(null, null);
+    
+    /**
+     * Creates a pipeline.
+     * @param numOfThreads the number of parser threads
+     * @param capacity the maximum number of parsed compilation units that can wait for the visit
+     */
+    public ParsePipeline(int numOfThreads, int capacity) {
+        this.numOfThreads = Math.max(numOfThreads, 1);
+        this.queue = new ArrayBlockingQueue<Parsed<T>>(Math.max(capacity, 1));
+    }
+    
+    /**
+     * Parses a source. This method is called by the parser threads.
+     * @param parser the Java parser dedicated to the calling thread
+     * @param source the source to be parsed
+     * @return the parsed compilation unit, or <code>null</code> if the source cannot be parsed
+     */
+    protected abstract CompilationUnit parse(JavaParser parser, T source);
+    
+    /**
+     * Creates models from a parsed compilation unit. This method is called by the thread running the pipeline.
+     * @param source the parsed source
+     * @param cu the parsed compilation unit
+     */
+    protected abstract void visit(T source, CompilationUnit cu);
+    
+    /**
+     * Returns the name of a source, which is displayed in the progress monitor.
+     * @param source the source
+     * @return the name of the source
+     */
+    protected abstract String getName(T source);
+    
+    /**
+     * Adds a source to be parsed. Sources can be added while the pipeline is running.
+     * @param source the source
+     */
+    public void add(T source) {
+        sources.add(source);
+    }
+    
+    /**
+     * Notifies that no more source will be added. The running pipeline returns when all the added sources are visited.
+     */
+    public void close() {
+        sources.add(END);
+    }
+    
+    /**
+     * Parses all the given sources and visits the parsed compilation units.
+     * @param sources the collection of the sources
+     * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+     * @exception InterruptedException if the operation detects a request to cancel
+     */
+    public void run(Collection<T> sources, IProgressMonitor monitor) throws InterruptedException {
+        for (T source : sources) {
+            add(source);
+        }
+        close();
+        run(sources.size(), monitor);
+    }
+    
+    /**
+     * Parses the sources added to this pipeline until it is closed and visits the parsed compilation units.
+     * Sources are usually added by another thread that finds them.
+     * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+     * @exception InterruptedException if the operation detects a request to cancel
+     */
+    public void run(IProgressMonitor monitor) throws InterruptedException {
+        run(IProgressMonitor.UNKNOWN, monitor);
+    }
+    
+    /**
+     * Parses the sources added to this pipeline until it is closed and visits the parsed compilation units.
+     * @param size the number of the sources, or <code>IProgressMonitor.UNKNOWN</code> if the number is unknown
+     * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+     * @exception InterruptedException if the operation detects a request to cancel
+     */
+    private void run(int size, IProgressMonitor monitor) throws InterruptedException {
+        monitor.beginTask("Parsing files... ", size);
+        
+        int threads = numOfThreads;
+        if (size != IProgressMonitor.UNKNOWN) {
+            threads = Math.min(numOfThreads, Math.max(size, 1));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(session.bind(new Runnable() {
+                public void run() {
+                    produce();
+                }
+            }));
+        }
+        
+        try {
+            int idx = 0;
+            int finished = 0;
+            while (finished < threads) {
+                Parsed<T> parsed = queue.take();
+                if (parsed == done) {
+                    finished++;
+                    continue;
+                }
+                
+                idx++;
+                if (size != IProgressMonitor.UNKNOWN) {
+                    monitor.subTask(idx + "/" + size + " - " + getName(parsed.source));
+                } else {
+                    monitor.subTask(idx + " - " + getName(parsed.source));
+                }
+                
+                if (parsed.cu != null) {
+                    PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.visit, getName(parsed.source));
+                    try {
+                        visit(parsed.source, parsed.cu);
+                    } catch (NullPointerException e) {
+                        System.err.println("* Fatal error occurred. Skip the paser of " + getName(parsed.source));
+                    } finally {
+                        timer.stop();
+                    }
+                    PhaseMetrics.count(Phase.visit, "files", 1);
+                }
+                
+                if (monitor.isCanceled()) {
+                    throw new InterruptedException();
+                }
+                monitor.worked(1);
+            }
+        } finally {
+            executor.shutdownNow();
+            queue.clear();
+            monitor.done();
+        }
+    }
+    
+    /**
+     * Parses the sources one by one and puts the parsed compilation units into the queue.
+     * This method returns when the pipeline is closed and no source remains, or the thread is interrupted.
+     */
+    private void produce() {
+        JavaParser parser = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            T source = next();
+            if (source == null) {
+                break;
+            }
+            
+            CompilationUnit cu = null;
+            try {
+                if (parser == null) {
+                    parser = new JavaParser();
+                }
+                cu = parse(parser, source);
+            } catch (Throwable e) {
+                logger.error("failed to parse " + getName(source) + ": " + e);
+            }
+            
+            try {
+                queue.put(new Parsed<T>(source, cu));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        
+        try {
+            queue.put(done);
+        } catch (InterruptedException e) {
+            return;
+        }
+    }
+    
+    /**
+     * Obtains the next source to be parsed, waiting until a source is added or the pipeline is closed.
+     * @return the source, or <code>null</code> if the pipeline is closed and no source remains
+     */
+    @SuppressWarnings("unchecked")
+    private T next() {
+        try {
+            Object source = sources.take();
+            if (source == END) {
+                sources.add(END);
+                return null;
+            }
+            return (T)source;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
+    /**
+     * A pair of a source and the compilation unit parsed from it.
+     */
+    private static class Parsed<T> {
+        
+        /**
+         * The parsed source.
+         */
+        T source;
+        
+        /**
+         * The parsed compilation unit, or <code>null</code> if the source cannot be parsed.
+         */
+        CompilationUnit cu;
+        
+        /**
+         * Creates a pair of a source and its compilation unit.
+         * @param source the parsed source
+         * @param cu the parsed compilation unit
+         */
+        Parsed(T source, CompilationUnit cu) {
+            this.source = source;
+            this.cu = cu;
+        }
+    }
+}
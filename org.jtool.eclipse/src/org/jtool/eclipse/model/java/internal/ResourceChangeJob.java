@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.jtool.eclipse.model.java.JavaProject;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
+import java.util.Set;
+import java.util.HashSet;
+import org.apache.log4j.Logger;
+
+/**
+ * A background job that removes changed files from a project in a batch.
+ * Changed files notified in succession are coalesced until no change is notified during the quiet period.
+ * The job holds the project as its scheduling rule, and never runs on the thread notifying resource changes.
+ * All the jobs belong to the same family, so pending changes can be flushed before models are created.
+ * @author Katsuhisa Maruyama
+ */
+public class ResourceChangeJob extends Job {
+    
+    static Logger logger = Logger.getLogger(ResourceChangeJob.class.getName());
+    
+    /**
+     * The default quiet period in milliseconds.
+     */
+    public static final long DEFAULT_QUIET_PERIOD = 500;
+    
+    /**
+     * The family which all the jobs removing changed files belong to.
+     */
+    public static final Object FAMILY = ResourceChangeJob.class;
+    
+    /**
+     * The quiet period in milliseconds during which no change must be notified before the job runs.
+     */
+    private static long quietPeriod = DEFAULT_QUIET_PERIOD;
+    
+    /**
+     * The name of the project whose files are removed.
+     */
+    private String projectName;
+    
+    /**
+     * The path names of the changed files that have not been processed yet.
+     */
+    private Set<String> pathnames = new HashSet<String>();
+    
+    /**
+     * Creates a job that removes changed files from a project.
+     * @param projectName the name of the project
+     */
+    public ResourceChangeJob(String projectName) {
+        super("Updating Java models of " + projectName);
+        
+        this.projectName = projectName;
+        
+        IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+        setRule(project);
+        setSystem(true);
+        setPriority(Job.DECORATE);
+    }
+    
+    /**
+     * Sets the quiet period during which no change must be notified before the job runs.
+     * @param period the quiet period in milliseconds
+     */
+    public static void setQuietPeriod(long period) {
+        if (period >= 0) {
+            quietPeriod = period;
+        }
+    }
+    
+    /**
+     * Returns the quiet period during which no change must be notified before the job runs.
+     * @return the quiet period in milliseconds
+     */
+    public static long getQuietPeriod() {
+        return quietPeriod;
+    }
+    
+    /**
+     * Tests if this job belongs to a given family.
+     * @param family the family
+     * @return <code>true</code> if the family is the family of the jobs removing changed files, otherwise <code>false</code>
+     */
+    public boolean belongsTo(Object family) {
+        return family == FAMILY;
+    }
+    
+    /**
+     * Runs the jobs waiting for their quiet periods immediately and waits until all the jobs finish.
+     * This method must be called before models are created so that they reflect every notified change.
+     * It must not be called while holding the scheduling rule or the lock of a project.
+     */
+    public static void flush() {
+        IJobManager manager = Job.getJobManager();
+        manager.wakeUp(FAMILY);
+        try {
+            manager.join(FAMILY, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("InterruptedException occurred: " + e.getMessage());
+        } catch (OperationCanceledException e) {
+            logger.error("OperationCanceledException occurred: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Adds changed files and postpones the job until the quiet period elapses.
+     * @param paths the path names of the changed files
+     */
+    public void addPaths(Set<String> paths) {
+        synchronized (pathnames) {
+            pathnames.addAll(paths);
+        }
+        schedule(quietPeriod);
+    }
+    
+    /**
+     * Removes all the files that were changed since the job ran lastly.
+     * @param monitor the progress monitor
+     * @return the result of the execution
+     */
+    protected IStatus run(IProgressMonitor monitor) {
+        Set<String> paths;
+        synchronized (pathnames) {
+            paths = pathnames;
+            pathnames = new HashSet<String>();
+        }
+        
+        JavaProject jproj = JavaProject.getJavaProject(projectName);
+        if (jproj == null || paths.size() == 0) {
+            return Status.OK_STATUS;
+        }
+        
+        monitor.beginTask(getName(), paths.size());
+        synchronized (jproj) {
+            for (String pathname : paths) {
+                jproj.removeJavaFile(pathname);
+                monitor.worked(1);
+            }
+        }
+        monitor.done();
+        
+        logger.debug("removed " + paths.size() + " changed files from " + projectName);
+        return Status.OK_STATUS;
+    }
+}
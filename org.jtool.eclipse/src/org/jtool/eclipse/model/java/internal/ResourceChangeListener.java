@@ -4,7 +4,6 @@
 
 package org.jtool.eclipse.model.java.internal;
 
-import org.jtool.eclipse.model.java.JavaProject;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResource;
@@ -14,6 +13,8 @@ import org.eclipse.core.runtime.CoreException;
 import java.io.File;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
 
 /**
  * Implements the listener that will be notified when the resource changes complete.
@@ -21,8 +22,14 @@ import java.util.HashSet;
  */
 public class ResourceChangeListener implements IResourceChangeListener {
     
+    /**
+     * The jobs that remove changed files, keyed by the names of their projects.
+     */
+    private Map<String, ResourceChangeJob> jobs = new HashMap<String, ResourceChangeJob>();
+    
     /**
      * Notifies this listener that some resource changes are happening, or have already happened. 
+     * The changed files are passed to background jobs, which process them in a batch.
      * @param event the change event
      */
     public void resourceChanged(IResourceChangeEvent event) {
@@ -31,14 +38,21 @@ public class ResourceChangeListener implements IResourceChangeListener {
                 ResourceDeltaVisitor visitor = new ResourceDeltaVisitor();
                 event.getDelta().accept(visitor);
                 
+                Map<String, Set<String>> paths = new HashMap<String, Set<String>>();
                 for (String pathname : visitor.getPaths()) {
                     String name = pathname.substring(1);
                     String projectName = name.substring(0, name.indexOf(File.separatorChar));
                     
-                    JavaProject jproj = JavaProject.getJavaProject(projectName);
-                    if (jproj != null) {
-                        jproj.removeJavaFile(pathname);
+                    Set<String> pathnames = paths.get(projectName);
+                    if (pathnames == null) {
+                        pathnames = new HashSet<String>();
+                        paths.put(projectName, pathnames);
                     }
+                    pathnames.add(pathname);
+                }
+                
+                for (String projectName : paths.keySet()) {
+                    getJob(projectName).addPaths(paths.get(projectName));
                 }
             }
         } catch (CoreException e) {
@@ -46,6 +60,30 @@ public class ResourceChangeListener implements IResourceChangeListener {
         }
     }
     
+    /**
+     * Obtains the job that removes changed files from a project.
+     * @param projectName the name of the project
+     * @return the job for the project
+     */
+    private synchronized ResourceChangeJob getJob(String projectName) {
+        ResourceChangeJob job = jobs.get(projectName);
+        if (job == null) {
+            job = new ResourceChangeJob(projectName);
+            jobs.put(projectName, job);
+        }
+        return job;
+    }
+    
+    /**
+     * Cancels all the jobs that have not run yet.
+     */
+    public synchronized void cancelJobs() {
+        for (ResourceChangeJob job : jobs.values()) {
+            job.cancel();
+        }
+        jobs.clear();
+    }
+    
     /**
      * An objects that visits resource deltas.
      * @author Katsuhisa Maruyama
@@ -4,6 +4,9 @@
 
 package org.jtool.eclipse.model.pdg;
 
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGEntry;
 import org.jtool.eclipse.model.cfg.CFGFactory;
@@ -18,6 +21,10 @@ import org.jtool.eclipse.model.pdg.internal.CDFactory;
 import org.jtool.eclipse.model.pdg.internal.DDFactory;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Collection;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -29,16 +36,82 @@ public class PDGFactory {
     static Logger logger = Logger.getLogger(PDGFactory.class.getName());
     
     /**
-     * A flag indicating if actual parameters is intended to be conservatively connected.
+     * The maximum number of the cached PDGs, beyond which the least recently used PDG is discarded.
      */
-    private static boolean isConservative = false;
+    public static final int MAX_CACHED_PDGS = 1000;
+    
+    /**
+     * The state of this factory, which belongs to an analysis session.
+     */
+    private static class State {
+        
+        /**
+         * A flag indicating if actual parameters is intended to be conservatively connected.
+         */
+        boolean isConservative = false;
+        
+        /**
+         * The cache storing PDGs, keyed by the fingerprints of their methods and fields, in the order of their use.
+         * PDGs with conservatively connected actual parameters are not cached.
+         * A cached PDG holds its CFG and the AST nodes the CFG was created from, which belong to the compilation unit
+         * parsed before its file was changed if the PDG is reused for an unchanged method of the changed file.
+         * These AST nodes live until the PDG is discarded from the cache, which is bounded so that the ASTs it pins are limited.
+         */
+        Map<Long, PDG> cache = new LinkedHashMap<Long, PDG>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Long, PDG> entry) {
+                return size() > MAX_CACHED_PDGS;
+            }
+        };
+        
+        /**
+         * The fingerprints of the cached PDGs, keyed by the names of their methods and fields.
+         */
+        Map<String, Long> fingerprints = new HashMap<String, Long>();
+    }
+    
+    /**
+     * Returns the state of this factory that belongs to the current analysis session.
+     * @return the state of this factory
+     */
+    private static State getState() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        State state = (State)session.getState(PDGFactory.class);
+        if (state == null) {
+            state = (State)session.addState(PDGFactory.class, new State());
+        }
+        return state;
+    }
     
     /**
      * Sets a flag indicating actual parameters is intended to be conservatively connected.
      * @param bool <code>true</code> if the conservative connection is needed, otherwise <code>false</code>
      */
     public static void setConservative(boolean bool) {
-        isConservative = bool;
+        getState().isConservative = bool;
+    }
+    
+    /**
+     * Removes all the cached PDGs.
+     */
+    public static void clearCache() {
+        State state = getState();
+        state.cache.clear();
+        state.fingerprints.clear();
+    }
+    
+    /**
+     * Removes the cached PDGs and CFGs for the methods and fields of given classes and for the methods and fields depending on them.
+     * @param jclasses the collection of the changed or removed classes
+     */
+    public static void removeCache(Collection<JavaClass> jclasses) {
+        State state = getState();
+        for (String name : CFGFactory.getDependentNames(jclasses)) {
+            Long old = state.fingerprints.remove(name);
+            if (old != null) {
+                state.cache.remove(old);
+            }
+        }
+        CFGFactory.removeCache(jclasses);
     }
     
     /**
@@ -63,41 +136,98 @@ public class PDGFactory {
     }
     
     /**
-     * Creates a PDG for a method or constructor.
+     * Creates a new PDG for a method or constructor.
      * @param jm information on the method or constructor
      * @return the created PDG
      */
     public static PDG create(JavaMethod jm) {
-        CFG cfg = CFGFactory.create(jm);
-        if (cfg == null) {
-            CFGFactory.create(jm);
+        return create(jm, false);
+    }
+    
+    /**
+     * Creates a PDG for a method or constructor.
+     * The PDG created for an unchanged method is reused if requested, which is shared by every caller requesting it.
+     * A reused PDG has its own CFG, which is never shared with another PDG since its nodes refer to the nodes of the PDG.
+     * A PDG created from AST nodes recreated for a released AST is not cached, so that it does not keep the AST alive.
+     * @param jm information on the method or constructor
+     * @param reuse <code>true</code> if the cached PDG is reused, otherwise <code>false</code>
+     * @return the created PDG
+     */
+    public static PDG create(JavaMethod jm, boolean reuse) {
+        if (getState().isConservative || !reuse) {
+            CFG cfg = CFGFactory.create(jm, false);
+            PDG pdg = create(cfg);
+            if (getState().isConservative) {
+                connectActualParameters(pdg);
+            }
+            return pdg;
         }
         
-        PDG pdg = create(cfg);
-        
-        if (isConservative) {
-            connectActualParameters(pdg);
+        Long fingerprint = Long.valueOf(jm.getFingerprint());
+        PDG pdg = getState().cache.get(fingerprint);
+        if (pdg == null) {
+            boolean released = jm.getASTNode() == null;
+            CFG cfg = CFGFactory.create(jm, false);
+            pdg = create(cfg);
+            if (!released) {
+                store(jm.getQualifiedName(), fingerprint, pdg);
+            }
         }
-        
         return pdg;
     }
     
     /**
-     * Creates a PDG for a field.
+     * Creates a new PDG for a field.
      * @param jf information on the field
      * @return the created PDG
      */
     public static PDG create(JavaField jf) {
-        CFG cfg = CFGFactory.create(jf);
-        if (cfg == null) {
-            CFGFactory.create(jf);
+        return create(jf, false);
+    }
+    
+    /**
+     * Creates a PDG for a field.
+     * The PDG created for an unchanged field is reused if requested, which is shared by every caller requesting it.
+     * A reused PDG has its own CFG, which is never shared with another PDG since its nodes refer to the nodes of the PDG.
+     * A PDG created from AST nodes recreated for a released AST is not cached, so that it does not keep the AST alive.
+     * @param jf information on the field
+     * @param reuse <code>true</code> if the cached PDG is reused, otherwise <code>false</code>
+     * @return the created PDG
+     */
+    public static PDG create(JavaField jf, boolean reuse) {
+        if (getState().isConservative || !reuse) {
+            CFG cfg = CFGFactory.create(jf, false);
+            return create(cfg);
         }
         
-        PDG pdg = create(cfg);
-        
+        Long fingerprint = Long.valueOf(jf.getFingerprint());
+        PDG pdg = getState().cache.get(fingerprint);
+        if (pdg == null) {
+            boolean released = jf.getASTNode() == null;
+            CFG cfg = CFGFactory.create(jf, false);
+            pdg = create(cfg);
+            if (!released) {
+                store(jf.getQualifiedName(), fingerprint, pdg);
+            }
+        }
         return pdg;
     }
     
+    /**
+     * Stores a created PDG into the cache. The PDG previously created for the same method or field is discarded.
+     * @param name the qualified name of the method or field
+     * @param fingerprint the fingerprint of the method or field
+     * @param pdg the created PDG
+     */
+    private static void store(String name, Long fingerprint, PDG pdg) {
+        State state = getState();
+        Long old = state.fingerprints.put(name, fingerprint);
+        if (old != null) {
+            state.cache.remove(old);
+        }
+        state.cache.put(fingerprint, pdg);
+    }
+    
     /**
      * Creates a new PDG corresponding to a CFG.
      * @param cfg the CFG to be examined
@@ -106,11 +236,19 @@ public class PDGFactory {
     public static PDG create(CFG cfg) {
         PDG pdg = new PDG();
         
-        createNodes(pdg, cfg);
-        
-        CDFactory.create(pdg, cfg);
-        DDFactory.create(pdg, cfg);
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.pdg, cfg.getName());
+        try {
+            createNodes(pdg, cfg);
+            
+            CDFactory.create(pdg, cfg);
+            DDFactory.create(pdg, cfg);
+        } finally {
+            timer.stop(pdg.getNodes().size(), pdg.getEdges().size(), cfg.getNodes().size());
+        }
         
+        PhaseMetrics.count(Phase.pdg, "pdgs", 1);
+        PhaseMetrics.count(Phase.pdg, "nodes", pdg.getNodes().size());
+        PhaseMetrics.count(Phase.pdg, "edges", pdg.getEdges().size());
         return pdg;
     }
     
@@ -5,9 +5,12 @@
 package org.jtool.eclipse.model.pdg;
 
 import org.jtool.eclipse.model.graph.Graph;
+import org.jtool.eclipse.model.graph.GraphElementSet;
 
 import java.util.Set;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Collections;
 
 import org.apache.log4j.Logger;
 
@@ -25,9 +28,9 @@ public class SDG extends Graph<PDGNode, Dependence> {
     private Set<PDGEntry> entries = new HashSet<PDGEntry>();
     
     /**
-     * All PDGs contained in this SDGs.
+     * All PDGs contained in this SDGs, which are distinguished by their identities since the contents of a PDG change after it is added.
      */
-    private Set<PDG> pdgs = new HashSet<PDG>();
+    private Set<PDG> pdgs = Collections.newSetFromMap(new IdentityHashMap<PDG, Boolean>());
     
     /**
      * Creates a new, empty object.
@@ -71,6 +74,50 @@ public class SDG extends Graph<PDGNode, Dependence> {
         }
     }
     
+    /**
+     * Removes a PDG from this SDG. Edges between the PDG and the other PDGs are also removed.
+     * The edges of the PDG are removed by their identities, since redirecting an edge changes its hash code.
+     * @param pdg the PDG to be removed
+     * @return the collection of nodes of the other PDGs which the removed edges were connected to
+     */
+    public Set<PDGNode> remove(PDG pdg) {
+        Set<PDGNode> nodes = new HashSet<PDGNode>();
+        if (pdgs.remove(pdg)) {
+            entries.remove(pdg.getEntryNode());
+            
+            for (PDGNode node : pdg.getNodes()) {
+                for (Dependence edge : node.getIncomingDependeceEdges()) {
+                    removeEdge(pdg, edge, edge.getSrcNode(), nodes);
+                }
+                for (Dependence edge : node.getOutgoingDependeceEdges()) {
+                    removeEdge(pdg, edge, edge.getDstNode(), nodes);
+                }
+                getNodes().remove(node);
+            }
+            
+            for (Dependence edge : pdg.getEdges()) {
+                getEdges().removeIdentical(edge);
+            }
+        }
+        return nodes;
+    }
+    
+    /**
+     * Removes an edge incident to a node of a PDG to be removed.
+     * @param pdg the PDG to be removed
+     * @param edge the edge to be removed
+     * @param node the opposite node of the edge
+     * @param nodes the collection of nodes of the other PDGs which the removed edges were connected to
+     */
+    private void removeEdge(PDG pdg, Dependence edge, PDGNode node, Set<PDGNode> nodes) {
+        if (pdg.contains(node)) {
+            getEdges().removeIdentical(edge);
+        } else {
+            remove(edge);
+            nodes.add(node);
+        }
+    }
+    
     /**
      * Returns all PDGs contained in this SDG.
      * @return the collection of the PDGs
@@ -79,6 +126,22 @@ public class SDG extends Graph<PDGNode, Dependence> {
         return pdgs;
     }
     
+    /**
+     * Creates a copy of this SDG. The copy has its own collections of nodes, edges, entries, and PDGs,
+     * but shares the node, edge, and PDG objects with this SDG.
+     * Removing a PDG from this SDG or adding a PDG into it never changes the collections of the copy.
+     * @return the copy of this SDG
+     */
+    public SDG copy() {
+        SDG sdg = new SDG();
+        sdg.setNodes(new GraphElementSet<PDGNode>(getNodes()));
+        sdg.setEdges(new GraphElementSet<Dependence>(getEdges()));
+        sdg.entries = new HashSet<PDGEntry>(entries);
+        sdg.pdgs = Collections.newSetFromMap(new IdentityHashMap<PDG, Boolean>());
+        sdg.pdgs.addAll(pdgs);
+        return sdg;
+    }
+    
     /**
      * Collects information about this graph for printing.
      * @return the string for printing
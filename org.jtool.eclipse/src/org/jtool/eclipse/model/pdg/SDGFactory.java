@@ -4,10 +4,16 @@
 
 package org.jtool.eclipse.model.pdg;
 
+import org.jtool.eclipse.model.AnalysisSession;
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
+import org.jtool.eclipse.model.cfg.CFGFactory;
 import org.jtool.eclipse.model.cfg.CFGMethodEntry;
 import org.jtool.eclipse.model.cfg.CFGMethodCall;
+import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.cfg.CFGParameter;
 import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaProject;
 import org.jtool.eclipse.model.java.JavaMethod;
 import org.jtool.eclipse.model.java.JavaField;
 import org.jtool.eclipse.model.java.JavaVariableAccess;
@@ -15,6 +21,8 @@ import org.jtool.eclipse.model.pdg.internal.SummaryFactory;
 import java.util.List;
 import java.util.Set;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.HashMap;
 import org.apache.log4j.Logger;
 
@@ -27,9 +35,19 @@ public class SDGFactory {
     static Logger logger = Logger.getLogger(ClDGFactory.class.getName());
     
     /**
-     * A map storing pairs of a method/field and its PDG.
+     * Returns a map storing pairs of a method/field and its PDG, which are contained in the SDG created lastly.
+     * The map belongs to the current analysis session.
+     * @return the map of the PDGs
      */
-    private static HashMap<String, PDG> pdgs = new HashMap<String, PDG>();
+    @SuppressWarnings("unchecked")
+    private static Map<String, PDG> getPDGCache() {
+        AnalysisSession session = AnalysisSession.getCurrent();
+        Map<String, PDG> pdgs = (Map<String, PDG>)session.getState(SDGFactory.class);
+        if (pdgs == null) {
+            pdgs = (Map<String, PDG>)session.addState(SDGFactory.class, new HashMap<String, PDG>());
+        }
+        return pdgs;
+    }
     
     /**
      * Creates an SDG for a given class.
@@ -38,7 +56,7 @@ public class SDGFactory {
      */
     public static SDG create(Set<JavaClass> jclasses) {
         SDG sdg = new SDG();
-        pdgs.clear();
+        clear();
         
         for (JavaClass jc : jclasses) {
             create(sdg, jc);
@@ -54,7 +72,7 @@ public class SDGFactory {
      */
     public static SDG create(List<JavaClass> jclasses) {
         SDG sdg = new SDG();
-        pdgs.clear();
+        clear();
         
         for (JavaClass jc : jclasses) {
             create(sdg, jc);
@@ -70,13 +88,89 @@ public class SDGFactory {
      */
     public static SDG create(JavaClass jc) {
         SDG sdg = new SDG();
-        pdgs.clear();
+        clear();
         
         create(sdg, jc);
         
         return sdg;
     }
     
+    /**
+     * Discards the PDGs for the SDG created lastly. The cached PDGs are also discarded since
+     * they might be connected to PDGs outside a new SDG. The cached CFGs are discarded as well,
+     * since their nodes refer to the nodes of the discarded PDGs.
+     */
+    private static void clear() {
+        getPDGCache().clear();
+        PDGFactory.clearCache();
+        CFGFactory.clearCache();
+    }
+    
+    /**
+     * Updates the SDG created lastly after the models of a project were incrementally created.
+     * Only PDGs for methods and fields in the removed, created, or rebound classes are created again,
+     * and call sites in the other PDGs are reconnected to the recreated PDGs.
+     * The cached PDGs and CFGs depending on these classes are discarded so that they are never reused.
+     * This is the only path that reuses cached PDGs, which are shared only with the SDG created lastly.
+     * @param sdg the SDG created lastly
+     * @param jproject the project whose models were incrementally created
+     */
+    public static void update(SDG sdg, JavaProject jproject) {
+        Set<JavaClass> jclasses = new HashSet<JavaClass>(jproject.getRemovedJavaClasses());
+        jclasses.addAll(jproject.getChangedJavaClasses());
+        PDGFactory.removeCache(jclasses);
+        
+        Set<PDGNode> nodes = new HashSet<PDGNode>();
+        for (JavaClass jc : jclasses) {
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                remove(sdg, JavaMethod.getString(jm.getQualifiedName(), jm.getSignature()), nodes);
+            }
+            for (JavaField jf : jc.getJavaFields()) {
+                remove(sdg, JavaField.getString(jf.getQualifiedName(), jf.getName()), nodes);
+            }
+        }
+        
+        for (JavaClass jc : jproject.getChangedJavaClasses()) {
+            create(sdg, jc, true);
+        }
+        
+        Set<CFGMethodCall> callnodes = new HashSet<CFGMethodCall>();
+        for (PDGNode node : nodes) {
+            if (sdg.contains(node) && node.getCFGNode() instanceof CFGParameter) {
+                CFGNode callnode = ((CFGParameter)node.getCFGNode()).getBelongNode();
+                if (callnode != null && callnode.isMethodCall()) {
+                    callnodes.add((CFGMethodCall)callnode);
+                }
+            }
+        }
+        
+        for (CFGMethodCall callnode : callnodes) {
+            JavaMethod cm = callnode.getJavaMethodCall().getJavaMethod();
+            if (cm != null) {
+                PDG cpdg = getPDGCache().get(JavaMethod.getString(cm.getQualifiedName(), cm.getSignature()));
+                if (cpdg != null) {
+                    connectParameters(sdg, callnode, (CFGMethodEntry)cpdg.getEntryNode().getCFGEntry());
+                }
+            }
+        }
+        
+        jproject.clearRemovedJavaClasses();
+        logger.info("updated PDGs for " + jclasses.size() + " classes");
+    }
+    
+    /**
+     * Removes a PDG for a method or a field from the SDG.
+     * @param sdg the SDG containing the PDG
+     * @param key the string representing the method or the field
+     * @param nodes the collection of nodes of the other PDGs which were connected to the removed PDG
+     */
+    private static void remove(SDG sdg, String key, Set<PDGNode> nodes) {
+        PDG pdg = getPDGCache().remove(key);
+        if (pdg != null) {
+            nodes.addAll(sdg.remove(pdg));
+        }
+    }
+    
     /**
      * Creates a PDG for a given class and appends it to the SDG.
      * @param sdg the SDG containing the created PDG
@@ -84,12 +178,22 @@ public class SDGFactory {
      * @return the created PDG
      */
     public static void create(SDG sdg, JavaClass jc) {
+        create(sdg, jc, false);
+    }
+    
+    /**
+     * Creates PDGs for a given class and appends them to the SDG.
+     * @param sdg the SDG containing the created PDGs
+     * @param jc the class
+     * @param reuse <code>true</code> if the cached PDGs are reused, otherwise <code>false</code>
+     */
+    private static void create(SDG sdg, JavaClass jc, boolean reuse) {
         for (JavaMethod jm : jc.getJavaMethods()) {
-            create(sdg, jm);
+            create(sdg, jm, reuse);
         }
         
         for (JavaField jf : jc.getJavaFields()) {
-            create(sdg, jf);
+            create(sdg, jf, reuse);
         }
     }
     
@@ -101,7 +205,7 @@ public class SDGFactory {
      */
     public static SDG create(JavaMethod jm) {
         SDG sdg = new SDG();
-        pdgs.clear();
+        clear();
         
         create(sdg, jm);
         
@@ -115,16 +219,27 @@ public class SDGFactory {
      * @return the created PDG
      */
     public static PDG create(SDG sdg, JavaMethod jm) {
+        return create(sdg, jm, false);
+    }
+    
+    /**
+     * Creates a PDG for a given method and appends it to the SDG.
+     * @param sdg the SDG containing the created PDG
+     * @param jm the method
+     * @param reuse <code>true</code> if the cached PDGs are reused, otherwise <code>false</code>
+     * @return the created PDG
+     */
+    private static PDG create(SDG sdg, JavaMethod jm, boolean reuse) {
         String key = JavaMethod.getString(jm.getQualifiedName(), jm.getSignature());
-        PDG pdg = pdgs.get(key);
+        PDG pdg = getPDGCache().get(key);
         if (pdg == null) {
-            pdg = PDGFactory.create(jm);
-            pdgs.put(key, pdg);
+            pdg = PDGFactory.create(jm, reuse);
+            getPDGCache().put(key, pdg);
             
             sdg.add(pdg);
             
-            createPDGsForMethod(sdg, pdg);
-            createPDGsForField(sdg, pdg);
+            createPDGsForMethod(sdg, pdg, reuse);
+            createPDGsForField(sdg, pdg, reuse);
         }
         
         return pdg;
@@ -137,16 +252,27 @@ public class SDGFactory {
      * @return the created PDG
      */
     public static PDG create(SDG sdg, JavaField jf) {
+        return create(sdg, jf, false);
+    }
+    
+    /**
+     * Creates a PDG for a given field and appends it to the SDG.
+     * @param sdg the SDG containing the created PDG
+     * @param jf the field
+     * @param reuse <code>true</code> if the cached PDGs are reused, otherwise <code>false</code>
+     * @return the created PDG
+     */
+    private static PDG create(SDG sdg, JavaField jf, boolean reuse) {
         String key = JavaField.getString(jf.getQualifiedName(), jf.getName());
-        PDG pdg = pdgs.get(key);
+        PDG pdg = getPDGCache().get(key);
         if (pdg == null) {
-            pdg = PDGFactory.create(jf);
-            pdgs.put(key, pdg);
+            pdg = PDGFactory.create(jf, reuse);
+            getPDGCache().put(key, pdg);
             
             sdg.add(pdg);
             
-            createPDGsForMethod(sdg, pdg);
-            createPDGsForField(sdg, pdg);
+            createPDGsForMethod(sdg, pdg, reuse);
+            createPDGsForField(sdg, pdg, reuse);
         }
         
         return pdg;
@@ -156,12 +282,13 @@ public class SDGFactory {
      * Creates PDGs related to a given PDG for a method.
      * @param sdg the SDG containing the created PDG
      * @param pdg the PDG
+     * @param reuse <code>true</code> if the cached PDGs are reused, otherwise <code>false</code>
      */
-    private static void createPDGsForMethod(SDG sdg, PDG pdg) {
+    private static void createPDGsForMethod(SDG sdg, PDG pdg, boolean reuse) {
         for (CFGMethodCall callnode : collectMethodCallNodes(pdg)) {
-            JavaMethod cm = callnode.getJavaMethodCall().getJavaMethod();
+            JavaMethod cm = getCurrentJavaMethod(callnode.getJavaMethodCall().getJavaMethod());
             if (cm.isInProject()) {
-                PDG cpdg = create(sdg, cm);
+                PDG cpdg = create(sdg, cm, reuse);
                 
                 connectParameters(sdg, callnode, (CFGMethodEntry)cpdg.getEntryNode().getCFGEntry());
             }
@@ -174,16 +301,55 @@ public class SDGFactory {
      * Creates PDGs related to a given PDG for a field.
      * @param sdg the SDG containing the created PDG
      * @param pdg the PDG
+     * @param reuse <code>true</code> if the cached PDGs are reused, otherwise <code>false</code>
      */
-    private static void createPDGsForField(SDG sdg, PDG pdg) {
+    private static void createPDGsForField(SDG sdg, PDG pdg, boolean reuse) {
         for (JavaVariableAccess jv : collectFieldAccesses(pdg)) {
-            JavaField cf = jv.getJavaField();
+            JavaField cf = getCurrentJavaField(jv.getJavaField());
             if (cf.isInProject()) {
-                create(sdg, cf);
+                create(sdg, cf, reuse);
             }
         }
     }
     
+    /**
+     * Obtains the method that currently exists in the model for a given method.
+     * A reused PDG might refer to a method that was replaced when its file was parsed again.
+     * @param jm the method
+     * @return the current method with the same signature, or the given method if none
+     */
+    private static JavaMethod getCurrentJavaMethod(JavaMethod jm) {
+        JavaClass jc = JavaClass.getJavaClass(jm.getDeclaringJavaClass().getQualifiedName());
+        if (jc != null) {
+            JavaMethod m = jc.getJavaMethod(jm.getSignature());
+            if (m != null) {
+                return m;
+            }
+        }
+        return jm;
+    }
+    
+    /**
+     * Obtains the field that currently exists in the model for a given field.
+     * A reused PDG might refer to a field that was replaced when its file was parsed again.
+     * @param jf the field
+     * @return the current field with the same name, or the given field if none
+     */
+    private static JavaField getCurrentJavaField(JavaField jf) {
+        if (jf.getDeclaringJavaClass() == null) {
+            return jf;
+        }
+        
+        JavaClass jc = JavaClass.getJavaClass(jf.getDeclaringJavaClass().getQualifiedName());
+        if (jc != null) {
+            JavaField f = jc.getJavaField(jf.getName());
+            if (f != null) {
+                return f;
+            }
+        }
+        return jf;
+    }
+    
     /**
      * Collects CFG nodes corresponding to the method calls within a given PDG.
      * @param pdg the PDG to be examined
@@ -206,6 +372,24 @@ public class SDGFactory {
      * @param callee the CFG entry node corresponding to the called method
      */
     private static void connectParameters(SDG sdg, CFGMethodCall caller, CFGMethodEntry callee) {
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.sdgConnect);
+        try {
+            connectParameterEdges(sdg, caller, callee);
+        } finally {
+            timer.stop();
+        }
+        PhaseMetrics.count(Phase.sdgConnect, "calls", 1);
+    }
+    
+    /**
+     * Creates parameter edges between a call site and the called method.
+     * The actual-out node for the return value follows those for the arguments of the call site.
+     * A call site without actual nodes, such as a recursive call, has no parameter edges.
+     * @param sdg the SDG containing the parameter edges
+     * @param caller the node of the call site
+     * @param callee the entry node of the called method
+     */
+    private static void connectParameterEdges(SDG sdg, CFGMethodCall caller, CFGMethodEntry callee) {
         for (int ordinal = 0; ordinal < caller.getActualIns().size(); ordinal++) {
             
             CFGParameter ain = caller.getActualIn(ordinal);
@@ -217,8 +401,8 @@ public class SDGFactory {
             sdg.add(pinedge);
         }
         
-        if (!callee.isVoid()) {
-            CFGParameter aout = caller.getActualOuts().get(0);
+        if (!callee.isVoid() && !caller.getActualOuts().isEmpty()) {
+            CFGParameter aout = caller.getActualOuts().get(caller.getActualOuts().size() - 1);
             CFGParameter fout = callee.getFormalOuts().get(0);
             
             JavaVariableAccess jv = fout.getDefVariables().get(0);
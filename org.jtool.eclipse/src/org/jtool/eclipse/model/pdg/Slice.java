@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.pdg;
 
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.java.JavaVariableAccess;
 import org.apache.log4j.Logger;
@@ -44,7 +46,14 @@ public class Slice extends PDG {
         criterionNode = node;
         criterionVariable = jv;
         
-        create();
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.slicing, jv.getName() + " at " + node.getId());
+        try {
+            create();
+        } finally {
+            timer.stop(getNodes().size(), getEdges().size(), 0);
+        }
+        PhaseMetrics.count(Phase.slicing, "slices", 1);
+        PhaseMetrics.count(Phase.slicing, "nodes", getNodes().size());
     }
     
     /**
@@ -100,14 +109,15 @@ public class Slice extends PDG {
     
     /**
      * Backward traverses edges and nodes of the PDG, and collects them.
+     * The traversal reaches entry nodes as well as statement nodes, since statements depend on their entry nodes.
      * @param anchor the anchor node
      */
-    private void traverseBackward(PDGStatement anchor) {
+    private void traverseBackward(PDGNode anchor) {
         add(anchor);
         
         for (Dependence edge : anchor.getIncomingDependeceEdges()) {
             add(edge);
-            PDGStatement node = (PDGStatement)edge.getSrcNode();
+            PDGNode node = (PDGNode)edge.getSrcNode();
             
             if (!getNodes().contains(node)) {
                 traverseBackward(node);
@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.pdg.internal;
 
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGMethodCall;
 import org.jtool.eclipse.model.cfg.CFGNode;
@@ -25,9 +27,16 @@ public class CDFactory {
      * @param cfg the CFG to be examined
      */
     public static void create(PDG pdg, CFG cfg) {
-        findCDs(pdg, cfg);
-        findControlDependencesAtEntry(pdg, cfg);
-        addControlDependencesAtEntry(pdg);
+        int size = pdg.getEdges().size();
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.cd, cfg.getName());
+        try {
+            findCDs(pdg, cfg);
+            findControlDependencesAtEntry(pdg, cfg);
+            addControlDependencesAtEntry(pdg);
+        } finally {
+            timer.stop(0, pdg.getEdges().size() - size, cfg.getNodes().size());
+        }
+        PhaseMetrics.count(Phase.cd, "edges", pdg.getEdges().size() - size);
     }
     
     /**
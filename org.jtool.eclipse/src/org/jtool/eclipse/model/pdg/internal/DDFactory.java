@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.pdg.internal;
 
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.cfg.CFGStatement;
@@ -31,8 +33,15 @@ public class DDFactory {
      * @param cfg the CFG to be examined
      */
     public static void create(PDG pdg, CFG cfg) {
-        findDDs(pdg, cfg);
-        findDefOrderDDs(pdg, cfg);
+        int size = pdg.getEdges().size();
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.dd, cfg.getName());
+        try {
+            findDDs(pdg, cfg);
+            findDefOrderDDs(pdg, cfg);
+        } finally {
+            timer.stop(0, pdg.getEdges().size() - size, cfg.getNodes().size());
+        }
+        PhaseMetrics.count(Phase.dd, "edges", pdg.getEdges().size() - size);
     }
     
     /**
@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.pdg.internal;
 
+import org.jtool.eclipse.model.PhaseMetrics;
+import org.jtool.eclipse.model.PhaseMetrics.Phase;
 import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.java.JavaVariableAccess;
 import org.jtool.eclipse.model.pdg.DD;
@@ -27,12 +29,27 @@ public class SummaryFactory {
      * @param cfg the CFG to be examined
      */
     public static void create(SDG sdg, PDG pdg) {
-        
+        int size = pdg.getEdges().size();
+        PhaseMetrics.Timer timer = PhaseMetrics.start(Phase.summaries, pdg.getName());
+        try {
+            createSummaryEdges(sdg, pdg);
+        } finally {
+            timer.stop(0, pdg.getEdges().size() - size, 0);
+        }
+        PhaseMetrics.count(Phase.summaries, "edges", pdg.getEdges().size() - size);
+    }
+    
+    /**
+     * Creates summary edges between actual-in and actual-out nodes within a PDG.
+     * @param sdg the SDG containing the PDG
+     * @param pdg the PDG
+     */
+    private static void createSummaryEdges(SDG sdg, PDG pdg) {
         Set<PDGStatement> ains = findAins(pdg);
         Set<PDGStatement> aouts = findAouts(pdg);
         
-        Set<PDGStatement> nodes = new HashSet<PDGStatement>();
         for (PDGStatement aout : aouts) {
+            Set<PDGStatement> nodes = new HashSet<PDGStatement>();
             traverseBackward(nodes, aout, ains);
             
             for (PDGStatement ain : ains) {